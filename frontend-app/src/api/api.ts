@@ -1251,10 +1251,12 @@ export const RestaurantsApiAxiosParamCreator = function (configuration?: Configu
          * @param {Category} [category] 
          * @param {boolean} [triedBefore] 
          * @param {number} [ratingAtLeast] 
+         * @param {string} [cursor] Opaque value returned in the X-Next-Cursor header of the previous page. Results are paginated if either cursor or limit is provided. 
+         * @param {number} [limit] Maximum number of restaurants returned in a single page (50 by default)
          * @param {*} [options] Override http request option.
          * @throws {RequiredError}
          */
-        queryRestaurantsByCriteria: async (nameBeginsWith?: string, category?: Category, triedBefore?: boolean, ratingAtLeast?: number, options: AxiosRequestConfig = {}): Promise<RequestArgs> => {
+        queryRestaurantsByCriteria: async (nameBeginsWith?: string, category?: Category, triedBefore?: boolean, ratingAtLeast?: number, cursor?: string, limit?: number, options: AxiosRequestConfig = {}): Promise<RequestArgs> => {
             const localVarPath = `/restaurants`;
             // use dummy base URL string because the URL constructor only accepts absolute URLs.
             const localVarUrlObj = new URL(localVarPath, DUMMY_BASE_URL);
@@ -1283,6 +1285,14 @@ export const RestaurantsApiAxiosParamCreator = function (configuration?: Configu
                 localVarQueryParameter['ratingAtLeast'] = ratingAtLeast;
             }
 
+            if (cursor !== undefined) {
+                localVarQueryParameter['cursor'] = cursor;
+            }
+
+            if (limit !== undefined) {
+                localVarQueryParameter['limit'] = limit;
+            }
+
 
     
             setSearchParams(localVarUrlObj, localVarQueryParameter);
@@ -1322,11 +1332,13 @@ export const RestaurantsApiFp = function(configuration?: Configuration) {
          * @param {Category} [category] 
          * @param {boolean} [triedBefore] 
          * @param {number} [ratingAtLeast] 
+         * @param {string} [cursor] Opaque value returned in the X-Next-Cursor header of the previous page. Results are paginated if either cursor or limit is provided. 
+         * @param {number} [limit] Maximum number of restaurants returned in a single page (50 by default)
          * @param {*} [options] Override http request option.
          * @throws {RequiredError}
          */
-        async queryRestaurantsByCriteria(nameBeginsWith?: string, category?: Category, triedBefore?: boolean, ratingAtLeast?: number, options?: AxiosRequestConfig): Promise<(axios?: AxiosInstance, basePath?: string) => AxiosPromise<Array<RestaurantData>>> {
-            const localVarAxiosArgs = await localVarAxiosParamCreator.queryRestaurantsByCriteria(nameBeginsWith, category, triedBefore, ratingAtLeast, options);
+        async queryRestaurantsByCriteria(nameBeginsWith?: string, category?: Category, triedBefore?: boolean, ratingAtLeast?: number, cursor?: string, limit?: number, options?: AxiosRequestConfig): Promise<(axios?: AxiosInstance, basePath?: string) => AxiosPromise<Array<RestaurantData>>> {
+            const localVarAxiosArgs = await localVarAxiosParamCreator.queryRestaurantsByCriteria(nameBeginsWith, category, triedBefore, ratingAtLeast, cursor, limit, options);
             return createRequestFunction(localVarAxiosArgs, globalAxios, BASE_PATH, configuration);
         },
     }
@@ -1356,11 +1368,13 @@ export const RestaurantsApiFactory = function (configuration?: Configuration, ba
          * @param {Category} [category] 
          * @param {boolean} [triedBefore] 
          * @param {number} [ratingAtLeast] 
+         * @param {string} [cursor] Opaque value returned in the X-Next-Cursor header of the previous page. Results are paginated if either cursor or limit is provided. 
+         * @param {number} [limit] Maximum number of restaurants returned in a single page (50 by default)
          * @param {*} [options] Override http request option.
          * @throws {RequiredError}
          */
-        queryRestaurantsByCriteria(nameBeginsWith?: string, category?: Category, triedBefore?: boolean, ratingAtLeast?: number, options?: any): AxiosPromise<Array<RestaurantData>> {
-            return localVarFp.queryRestaurantsByCriteria(nameBeginsWith, category, triedBefore, ratingAtLeast, options).then((request) => request(axios, basePath));
+        queryRestaurantsByCriteria(nameBeginsWith?: string, category?: Category, triedBefore?: boolean, ratingAtLeast?: number, cursor?: string, limit?: number, options?: any): AxiosPromise<Array<RestaurantData>> {
+            return localVarFp.queryRestaurantsByCriteria(nameBeginsWith, category, triedBefore, ratingAtLeast, cursor, limit, options).then((request) => request(axios, basePath));
         },
     };
 };
@@ -1391,12 +1405,14 @@ export class RestaurantsApi extends BaseAPI {
      * @param {Category} [category] 
      * @param {boolean} [triedBefore] 
      * @param {number} [ratingAtLeast] 
+     * @param {string} [cursor] Opaque value returned in the X-Next-Cursor header of the previous page. Results are paginated if either cursor or limit is provided. 
+     * @param {number} [limit] Maximum number of restaurants returned in a single page (50 by default)
      * @param {*} [options] Override http request option.
      * @throws {RequiredError}
      * @memberof RestaurantsApi
      */
-    public queryRestaurantsByCriteria(nameBeginsWith?: string, category?: Category, triedBefore?: boolean, ratingAtLeast?: number, options?: AxiosRequestConfig) {
-        return RestaurantsApiFp(this.configuration).queryRestaurantsByCriteria(nameBeginsWith, category, triedBefore, ratingAtLeast, options).then((request) => request(this.axios, this.basePath));
+    public queryRestaurantsByCriteria(nameBeginsWith?: string, category?: Category, triedBefore?: boolean, ratingAtLeast?: number, cursor?: string, limit?: number, options?: AxiosRequestConfig) {
+        return RestaurantsApiFp(this.configuration).queryRestaurantsByCriteria(nameBeginsWith, category, triedBefore, ratingAtLeast, cursor, limit, options).then((request) => request(this.axios, this.basePath));
     }
 }
 
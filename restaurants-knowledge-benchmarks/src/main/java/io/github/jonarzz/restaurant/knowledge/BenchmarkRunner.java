@@ -0,0 +1,29 @@
+package io.github.jonarzz.restaurant.knowledge;
+
+import org.openjdk.jmh.profile.*;
+import org.openjdk.jmh.runner.*;
+import org.openjdk.jmh.runner.options.*;
+
+/**
+ * Runs the benchmarks with the allocation profiler, so that each result comes with
+ * {@code gc.alloc.rate.norm} (bytes allocated per operation) next to the time per operation.
+ * <p>
+ * Accepts the standard JMH options, e.g. to run the mapper benchmarks only and save the results:
+ * <pre>
+ * java -jar restaurants-knowledge-benchmarks/target/benchmarks.jar RestaurantItemMapper -rf json -rff mapper.json
+ * </pre>
+ */
+public class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        var options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+
+}
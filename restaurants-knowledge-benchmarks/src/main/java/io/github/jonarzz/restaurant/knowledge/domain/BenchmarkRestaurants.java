@@ -0,0 +1,47 @@
+package io.github.jonarzz.restaurant.knowledge.domain;
+
+import static io.github.jonarzz.restaurant.knowledge.domain.Category.*;
+
+import java.util.*;
+
+/**
+ * Restaurants of realistic sizes - up to a few hundred notes and reviews of a few thousand characters.
+ */
+class BenchmarkRestaurants {
+
+    static final String USER_ID = "benchmark-user";
+
+    private BenchmarkRestaurants() {
+    }
+
+    static RestaurantItem item(int notesCount, int reviewLength) {
+        return RestaurantItem.from(USER_ID, data(notesCount, reviewLength));
+    }
+
+    static RestaurantData data(int notesCount, int reviewLength) {
+        return new RestaurantData()
+                .name("Bobby Burger")
+                .categories(Set.of(BURGER, FAST_FOOD, LUNCH))
+                .triedBefore(true)
+                .rating(8)
+                .review(text(reviewLength))
+                .notes(notes(notesCount));
+    }
+
+    static List<String> notes(int count) {
+        var notes = new ArrayList<String>(count);
+        for (var i = 0; i < count; i++) {
+            notes.add("Note " + i + " - the fries were crispy, ask for the extra sauce");
+        }
+        return notes;
+    }
+
+    static String text(int length) {
+        var text = new StringBuilder(length);
+        while (text.length() < length) {
+            text.append("The burger was juicy and the bun was fresh. ");
+        }
+        return text.substring(0, length);
+    }
+
+}
@@ -0,0 +1,67 @@
+package io.github.jonarzz.restaurant.knowledge.domain;
+
+import static io.github.jonarzz.restaurant.knowledge.domain.Category.*;
+import static java.util.concurrent.TimeUnit.*;
+
+import org.openjdk.jmh.annotations.*;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.*;
+
+import io.github.jonarzz.restaurant.knowledge.technical.auth.*;
+
+/**
+ * Translation of the query criteria into the conditions of the chosen access path.
+ * The state is per thread - the user is read from the {@link SecurityContext}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RestaurantDynamoDbCriteriaBenchmark {
+
+    public enum Query {
+        NAME_PREFIX,
+        CATEGORY_AND_RATING,
+        ALL_CRITERIA
+    }
+
+    @Param
+    public Query query;
+
+    RestaurantDynamoDbCriteria criteria;
+
+    @Setup
+    public void setUp() {
+        SecurityContext.setUserId(BenchmarkRestaurants.USER_ID);
+        var builder = RestaurantQueryCriteria.builder();
+        switch (query) {
+            case NAME_PREFIX:
+                builder.nameBeginsWith("Bob");
+                break;
+            case CATEGORY_AND_RATING:
+                builder.category(BURGER)
+                       .ratingAtLeast(7);
+                break;
+            default:
+                builder.nameBeginsWith("Bob")
+                       .category(BURGER)
+                       .triedBefore(true)
+                       .ratingAtLeast(7);
+        }
+        criteria = new RestaurantQueryPlanner().plan(builder.build());
+    }
+
+    @Benchmark
+    public Map<String, Condition> keyConditions() {
+        return criteria.keyConditions();
+    }
+
+    @Benchmark
+    public Map<String, Condition> queryConditions() {
+        return criteria.queryConditions();
+    }
+
+}
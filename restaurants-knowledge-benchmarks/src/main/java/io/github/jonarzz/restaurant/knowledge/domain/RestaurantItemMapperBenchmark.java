@@ -0,0 +1,57 @@
+package io.github.jonarzz.restaurant.knowledge.domain;
+
+import static java.util.concurrent.TimeUnit.*;
+
+import org.openjdk.jmh.annotations.*;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.*;
+
+import io.github.jonarzz.restaurant.knowledge.technical.dynamodb.*;
+
+/**
+ * Mapping of a restaurant read from and written to DynamoDB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RestaurantItemMapperBenchmark {
+
+    @Param({"0", "20", "200"})
+    public int notesCount;
+    @Param({"0", "4000"})
+    public int reviewLength;
+
+    RestaurantItemMapper mapper = new RestaurantItemMapper();
+    RestaurantSummaryMapper summaryMapper = RestaurantSummaryMapper.INSTANCE;
+    RestaurantItem item;
+    Map<String, AttributeValue> attributes;
+
+    @Setup
+    public void setUp() {
+        item = BenchmarkRestaurants.item(notesCount, reviewLength);
+        attributes = DynamoDbBenchmarkUtil.attributes(mapper.attributesCreator(item));
+    }
+
+    @Benchmark
+    public Object createItem() {
+        return mapper.createItem(attributes);
+    }
+
+    /**
+     * Summary of the same item - mapped through the {@link ItemExtractor}.
+     */
+    @Benchmark
+    public Object createSummaryItem() {
+        return summaryMapper.createItem(attributes);
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> attributesCreator() {
+        return DynamoDbBenchmarkUtil.attributes(mapper.attributesCreator(item));
+    }
+
+}
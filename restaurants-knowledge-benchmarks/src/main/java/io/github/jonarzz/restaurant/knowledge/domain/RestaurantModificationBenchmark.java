@@ -0,0 +1,81 @@
+package io.github.jonarzz.restaurant.knowledge.domain;
+
+import static io.github.jonarzz.restaurant.knowledge.domain.Category.*;
+import static java.util.concurrent.TimeUnit.*;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.*;
+
+import java.util.*;
+
+import io.github.jonarzz.restaurant.knowledge.technical.dynamodb.*;
+
+/**
+ * Comparison of an update with the stored restaurant and the update request created from the changes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RestaurantModificationBenchmark {
+
+    public enum Update {
+        RATING,
+        NOTE_ADDED,
+        ALL_ATTRIBUTES
+    }
+
+    @Param({"0", "20", "200"})
+    public int notesCount;
+    @Param({"0", "4000"})
+    public int reviewLength;
+    @Param
+    public Update update;
+
+    RestaurantItem base;
+    RestaurantData updateData;
+
+    @Setup
+    public void setUp() {
+        base = BenchmarkRestaurants.item(notesCount, reviewLength);
+        var notes = BenchmarkRestaurants.notes(notesCount);
+        switch (update) {
+            case RATING:
+                updateData = new RestaurantData().rating(9)
+                                                 .notes(notes);
+                break;
+            case NOTE_ADDED:
+                notes.add("Closed on Mondays");
+                updateData = new RestaurantData().notes(notes);
+                break;
+            default:
+                updateData = new RestaurantData().name("BOBBY BURGER")
+                                                 .categories(Set.of(BURGER, LUNCH, BEER))
+                                                 .rating(7)
+                                                 .review(BenchmarkRestaurants.text(reviewLength + 100))
+                                                 .notes(notes.subList(0, notesCount / 2));
+        }
+    }
+
+    @Benchmark
+    public Object changes() {
+        return new RestaurantModification(base, updateData).changes();
+    }
+
+    @Benchmark
+    public void updateRequest(Blackhole blackhole) {
+        var itemUpdate = new RestaurantModification(base, updateData).changes()
+                                                                     .toItemUpdate();
+        blackhole.consume(DynamoDbBenchmarkUtil.updateExpression(itemUpdate));
+        blackhole.consume(DynamoDbBenchmarkUtil.attributeValues(itemUpdate));
+    }
+
+    @Benchmark
+    public RestaurantData applied() {
+        return new RestaurantModification(base, updateData).changes()
+                                                           .applied();
+    }
+
+}
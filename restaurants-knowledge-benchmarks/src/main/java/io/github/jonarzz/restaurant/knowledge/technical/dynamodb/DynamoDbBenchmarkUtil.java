@@ -0,0 +1,27 @@
+package io.github.jonarzz.restaurant.knowledge.technical.dynamodb;
+
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.*;
+
+/**
+ * Access to the package-private parts of the DynamoDB requests for the benchmarks of other packages.
+ */
+public class DynamoDbBenchmarkUtil {
+
+    private DynamoDbBenchmarkUtil() {
+    }
+
+    public static Map<String, AttributeValue> attributes(AttributesCreator creator) {
+        return creator.toAttributes();
+    }
+
+    public static String updateExpression(ItemUpdate update) {
+        return update.updateExpression();
+    }
+
+    public static Map<String, AttributeValue> attributeValues(ItemUpdate update) {
+        return update.attributeValues();
+    }
+
+}
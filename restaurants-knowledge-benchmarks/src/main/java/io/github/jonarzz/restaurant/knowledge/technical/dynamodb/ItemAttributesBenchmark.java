@@ -0,0 +1,79 @@
+package io.github.jonarzz.restaurant.knowledge.technical.dynamodb;
+
+import static java.util.concurrent.TimeUnit.*;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.*;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * Generic reading and writing of attributes - {@link ItemExtractor}, {@link AttributesCreator}
+ * and {@link ItemUpdate} - for sets and lists of a given size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ItemAttributesBenchmark {
+
+    static final String SET = "set";
+    static final String LIST = "list";
+    static final String TEXT = "text";
+
+    @Param({"0", "20", "200"})
+    public int elementsCount;
+
+    List<String> elements;
+    Set<String> elementSet;
+    Map<String, AttributeValue> attributes;
+
+    @Setup
+    public void setUp() {
+        elements = new ArrayList<>(elementsCount);
+        for (var i = 0; i < elementsCount; i++) {
+            elements.add("Element " + i + " - the fries were crispy, ask for the extra sauce");
+        }
+        elementSet = new HashSet<>(elements);
+        attributes = new AttributesCreator()
+                .putIfPresent(TEXT, "Bobby Burger", AttributeValue::fromS)
+                .putIfNotEmpty(LIST, elements)
+                .putIfNotEmpty(SET, elementSet, Function.identity())
+                .toAttributes();
+    }
+
+    @Benchmark
+    public Set<String> extractorSet() {
+        return new ItemExtractor(attributes).set(SET, Function.identity());
+    }
+
+    @Benchmark
+    public List<String> extractorList() {
+        return new ItemExtractor(attributes).list(LIST);
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> creatorAttributes() {
+        return new AttributesCreator()
+                .putIfPresent(TEXT, "Bobby Burger", AttributeValue::fromS)
+                .putIfNotEmpty(LIST, elements)
+                .putIfNotEmpty(SET, elementSet, Function.identity())
+                .toAttributes();
+    }
+
+    @Benchmark
+    public void updateAttributes(Blackhole blackhole) {
+        var update = new ItemUpdate()
+                .change(TEXT, AttributeValue.fromS("Bobby Burger"))
+                .set(LIST, AttributesCreator.listAttribute(elements))
+                .set(SET, AttributesCreator.setAttribute(elementSet, Function.identity()));
+        blackhole.consume(update.updateExpression());
+        blackhole.consume(update.condition());
+        blackhole.consume(update.attributeValues());
+    }
+
+}
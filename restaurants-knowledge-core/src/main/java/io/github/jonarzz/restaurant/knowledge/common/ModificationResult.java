@@ -6,6 +6,8 @@ import static lombok.AccessLevel.*;
 import lombok.*;
 import lombok.experimental.*;
 
+import java.util.function.*;
+
 @RequiredArgsConstructor(access = PRIVATE)
 @Accessors(fluent = true)
 public class ModificationResult<T> {
@@ -34,4 +36,8 @@ public class ModificationResult<T> {
         return content;
     }
 
+    public <R> ModificationResult<R> map(Function<T, R> mapper) {
+        return new ModificationResult<>(resultType, content == null ? null : mapper.apply(content));
+    }
+
 }
@@ -0,0 +1,44 @@
+package io.github.jonarzz.restaurant.knowledge.common;
+
+import static java.util.stream.Collectors.*;
+import static lombok.AccessLevel.*;
+
+import lombok.*;
+import lombok.experimental.*;
+
+import java.util.*;
+import java.util.function.*;
+
+@RequiredArgsConstructor(access = PRIVATE)
+@Getter
+@Accessors(fluent = true)
+@ToString
+public class Page<T> {
+
+    private final List<T> items;
+    /**
+     * Opaque value that should be passed to the next query to get the next page,
+     * {@code null} if there are no more results.
+     */
+    private final String nextCursor;
+
+    public static <T> Page<T> of(List<T> items, String nextCursor) {
+        return new Page<>(items, nextCursor);
+    }
+
+    public static <T> Page<T> last(List<T> items) {
+        return new Page<>(items, null);
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    public <R> Page<R> map(Function<T, R> mapper) {
+        return new Page<>(items.stream()
+                               .map(mapper)
+                               .collect(toList()),
+                          nextCursor);
+    }
+
+}
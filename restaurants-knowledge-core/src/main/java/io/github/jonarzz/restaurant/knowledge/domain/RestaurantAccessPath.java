@@ -0,0 +1,121 @@
+package io.github.jonarzz.restaurant.knowledge.domain;
+
+import static io.github.jonarzz.restaurant.knowledge.domain.RestaurantIndexes.*;
+import static io.github.jonarzz.restaurant.knowledge.domain.RestaurantItem.Attributes.*;
+import static java.lang.Boolean.*;
+
+/**
+ * Ways of reading restaurants matching given criteria - the table itself or one of the {@link RestaurantIndexes}.
+ */
+enum RestaurantAccessPath {
+
+    TABLE,
+    CATEGORY_INDEX,
+    RATING_INDEX,
+    TRIED_BEFORE_INDEX;
+
+    boolean applicableTo(RestaurantQueryCriteria criteria) {
+        switch (this) {
+            case CATEGORY_INDEX:
+                return criteria.category() != null;
+            case RATING_INDEX:
+                return ratingApplicable(criteria);
+            case TRIED_BEFORE_INDEX:
+                return criteria.triedBefore() != null;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * @return name of the queried index, {@code null} for the table
+     */
+    String indexName(RestaurantQueryCriteria criteria) {
+        switch (this) {
+            case CATEGORY_INDEX:
+                return categoryIndex(criteria.category());
+            case RATING_INDEX:
+                // enum constant hides the static import
+                return RestaurantIndexes.RATING_INDEX;
+            case TRIED_BEFORE_INDEX:
+                return triedIndex(criteria.triedBefore());
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Partition key attribute of the queried table or index.
+     */
+    String partitionKeyAttribute(RestaurantQueryCriteria criteria) {
+        switch (this) {
+            case CATEGORY_INDEX:
+                return categoryUserId(criteria.category());
+            case TRIED_BEFORE_INDEX:
+                return triedUserId(criteria.triedBefore());
+            default:
+                return USER_ID;
+        }
+    }
+
+    /**
+     * Key attribute telling this path apart from the others in a {@code LastEvaluatedKey} -
+     * {@code null} for the table, which key attributes are present in every one of them.
+     */
+    String distinctKeyAttribute(RestaurantQueryCriteria criteria) {
+        switch (this) {
+            case TABLE:
+                return null;
+            case RATING_INDEX:
+                return RATING;
+            default:
+                return partitionKeyAttribute(criteria);
+        }
+    }
+
+    /**
+     * Key used to collect statistics of the path - queries of different indexes or with different
+     * key conditions are expected to read a different number of items. Name prefix narrows down
+     * the items read by any path covering the name, and the items returned by the others.
+     */
+    String statisticsKey(RestaurantQueryCriteria criteria) {
+        var key = keyConditionsKey(criteria);
+        return criteria.nameBeginsWith() == null ? key : key + ":name-prefix";
+    }
+
+    private String keyConditionsKey(RestaurantQueryCriteria criteria) {
+        switch (this) {
+            case TABLE:
+                return "table";
+            case RATING_INDEX:
+                return RestaurantIndexes.RATING_INDEX + ":" + criteria.ratingAtLeast();
+            default:
+                return indexName(criteria);
+        }
+    }
+
+    boolean coversName() {
+        return this != RATING_INDEX;
+    }
+
+    boolean coversCategory() {
+        return this == CATEGORY_INDEX;
+    }
+
+    boolean coversTriedBefore() {
+        // rated restaurants are tried before
+        return this == TRIED_BEFORE_INDEX || this == RATING_INDEX;
+    }
+
+    boolean coversRating() {
+        return this == RATING_INDEX;
+    }
+
+    /**
+     * Rating only set for restaurants tried before.
+     */
+    static boolean ratingApplicable(RestaurantQueryCriteria criteria) {
+        return criteria.ratingAtLeast() != null && !FALSE.equals(criteria.triedBefore());
+    }
+
+}
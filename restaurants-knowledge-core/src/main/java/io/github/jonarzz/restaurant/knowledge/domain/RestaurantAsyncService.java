@@ -0,0 +1,53 @@
+package io.github.jonarzz.restaurant.knowledge.domain;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import io.github.jonarzz.restaurant.knowledge.common.*;
+
+/**
+ * Non-blocking variant of {@link RestaurantService}.
+ * <p>
+ * The current user is resolved when a method is called, so the methods have to be called
+ * on the thread that has the user set in the security context.
+ */
+public interface RestaurantAsyncService {
+
+    CompletableFuture<Optional<RestaurantData>> fetch(String restaurantName);
+
+    CompletableFuture<List<RestaurantData>> query(RestaurantQueryCriteria criteria);
+
+    CompletableFuture<Page<RestaurantData>> query(RestaurantQueryCriteria criteria, String cursor, int limit);
+
+    CompletableFuture<ModificationResultType> create(RestaurantData restaurantData);
+
+    CompletableFuture<ModificationResult<RestaurantData>> update(String restaurantName, RestaurantData updateData);
+
+    CompletableFuture<ModificationResultType> delete(String restaurantName);
+
+    CompletableFuture<ModificationResultType> setRating(String restaurantName, int rating);
+
+    CompletableFuture<ModificationResultType> setReview(String restaurantName, String review);
+
+    CompletableFuture<ModificationResultType> setTriedBefore(String restaurantName, boolean tried);
+
+    CompletableFuture<ModificationResultType> replaceCategories(String restaurantName, Set<Category> categories);
+
+    CompletableFuture<ModificationResultType> replaceNotes(String restaurantName, List<String> notes);
+
+    CompletableFuture<ModificationResult<Set<Category>>> addCategory(String restaurantName, Category category);
+
+    CompletableFuture<ModificationResultType> removeCategory(String restaurantName, Category category);
+
+    CompletableFuture<ModificationResult<List<String>>> addNote(String restaurantName, String note);
+
+    /**
+     * @return {@code NO_CHANGES} if there is no note with given index
+     */
+    CompletableFuture<ModificationResult<List<String>>> replaceNote(String restaurantName, int noteIndex, String note);
+
+    /**
+     * @return {@code NO_CHANGES} if there is no note with given index
+     */
+    CompletableFuture<ModificationResultType> removeNote(String restaurantName, int noteIndex);
+}
@@ -0,0 +1,17 @@
+package io.github.jonarzz.restaurant.knowledge.domain;
+
+/**
+ * Notified about a created, modified or deleted restaurant.
+ */
+@FunctionalInterface
+public interface RestaurantChangeListener {
+
+    void restaurantChanged(String userId, String nameLowercase);
+
+    /**
+     * Notified when some of the changes could not be delivered - any restaurant might have been changed then.
+     */
+    default void changesMissed() {
+    }
+
+}
@@ -1,19 +1,88 @@
 package io.github.jonarzz.restaurant.knowledge.domain;
 
-import lombok.*;
+import static io.github.jonarzz.restaurant.knowledge.domain.RestaurantItem.Attributes.*;
+
 import software.amazon.awssdk.services.dynamodb.*;
+import software.amazon.awssdk.services.dynamodb.streams.*;
+
+import java.time.*;
+
+import io.github.jonarzz.restaurant.knowledge.technical.dynamodb.*;
 
-@RequiredArgsConstructor
 public class RestaurantDomainFactory {
 
     private final DynamoDbClient dynamoDbClient;
+    private final DynamoDbAsyncClient dynamoDbAsyncClient;
+
+    public RestaurantDomainFactory(DynamoDbClient dynamoDbClient) {
+        this(dynamoDbClient, null);
+    }
+
+    public RestaurantDomainFactory(DynamoDbClient dynamoDbClient, DynamoDbAsyncClient dynamoDbAsyncClient) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.dynamoDbAsyncClient = dynamoDbAsyncClient;
+    }
 
     public RestaurantService restaurantDynamoDbService(RestaurantDynamoDbRepository restaurantRepository) {
         return new RestaurantDynamoDbService(restaurantRepository);
     }
 
+    /**
+     * Service answering all reads from in-memory snapshots of the users' restaurants.
+     */
+    public RestaurantService restaurantDynamoDbService(RestaurantDynamoDbRepository restaurantRepository,
+                                                       RestaurantSnapshots snapshots) {
+        return new RestaurantDynamoDbService(restaurantRepository, snapshots);
+    }
+
+    /**
+     * @param maxUsers number of users whose snapshots are kept - the least recently used ones are dropped
+     */
+    public RestaurantSnapshots restaurantSnapshots(RestaurantDynamoDbRepository restaurantRepository,
+                                                   int maxUsers) {
+        return new RestaurantSnapshots(restaurantRepository, maxUsers);
+    }
+
     public RestaurantDynamoDbRepository restaurantDynamoDbRepository() {
         return new RestaurantDynamoDbRepository(dynamoDbClient);
     }
 
+    public RestaurantAsyncService restaurantDynamoDbAsyncService(RestaurantDynamoDbAsyncRepository restaurantRepository) {
+        return new RestaurantDynamoDbAsyncService(restaurantRepository);
+    }
+
+    public RestaurantDynamoDbAsyncRepository restaurantDynamoDbAsyncRepository() {
+        if (dynamoDbAsyncClient == null) {
+            throw new IllegalStateException("Asynchronous DynamoDB client was not provided");
+        }
+        return new RestaurantDynamoDbAsyncRepository(dynamoDbAsyncClient);
+    }
+
+    /**
+     * Starts listening to the changes of restaurants made by any application instance - the returned listener
+     * should be closed when no longer needed.
+     */
+    public DynamoDbStreamListener restaurantChangesListener(DynamoDbStreamsClient streamsClient,
+                                                            Duration pollInterval,
+                                                            RestaurantChangeListener listener) {
+        return restaurantChangesListener(streamsClient, pollInterval, null, listener);
+    }
+
+    /**
+     * Starts listening to the changes of restaurants made by any application instance, catching up
+     * from the given time - the returned listener should be closed when no longer needed.
+     *
+     * @param since time to catch up from, {@code null} to listen only to the changes made from now on
+     */
+    public DynamoDbStreamListener restaurantChangesListener(DynamoDbStreamsClient streamsClient,
+                                                            Duration pollInterval,
+                                                            Instant since,
+                                                            RestaurantChangeListener listener) {
+        return new DynamoDbStreamListener(
+                dynamoDbClient, streamsClient, RestaurantDynamoDbRepository.TABLE_NAME, pollInterval, since,
+                keys -> listener.restaurantChanged(keys.get(USER_ID).s(), keys.get(NAME_LOWERCASE).s()),
+                listener::changesMissed
+        );
+    }
+
 }
@@ -0,0 +1,20 @@
+package io.github.jonarzz.restaurant.knowledge.domain;
+
+import static io.github.jonarzz.restaurant.knowledge.domain.RestaurantDynamoDbRepository.*;
+
+import software.amazon.awssdk.services.dynamodb.*;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import io.github.jonarzz.restaurant.knowledge.technical.dynamodb.*;
+
+class RestaurantDynamoDbAsyncRepository extends DynamoDbAsyncRepository<RestaurantItem, RestaurantKey> {
+
+    RestaurantDynamoDbAsyncRepository(DynamoDbAsyncClient client) {
+        super(TABLE_NAME, new RestaurantItemMapper(), client);
+    }
+
+    @Override
+    protected CreateTableRequest prepareCreateTableRequest() {
+        return createTableRequest();
+    }
+}
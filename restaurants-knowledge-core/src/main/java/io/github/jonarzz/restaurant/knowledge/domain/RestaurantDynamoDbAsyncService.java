@@ -0,0 +1,200 @@
+package io.github.jonarzz.restaurant.knowledge.domain;
+
+import static io.github.jonarzz.restaurant.knowledge.common.ModificationResult.*;
+import static io.github.jonarzz.restaurant.knowledge.common.ModificationResultType.*;
+import static io.github.jonarzz.restaurant.knowledge.domain.RestaurantModification.*;
+import static io.github.jonarzz.restaurant.knowledge.technical.auth.SecurityContext.*;
+import static java.util.concurrent.CompletableFuture.*;
+import static java.util.stream.Collectors.*;
+
+import lombok.extern.slf4j.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+import io.github.jonarzz.restaurant.knowledge.common.*;
+import io.github.jonarzz.restaurant.knowledge.technical.dynamodb.*;
+
+@Slf4j
+class RestaurantDynamoDbAsyncService implements RestaurantAsyncService {
+
+    private RestaurantDynamoDbAsyncRepository repository;
+    private RestaurantQueryPlanner queryPlanner;
+
+    RestaurantDynamoDbAsyncService(RestaurantDynamoDbAsyncRepository repository) {
+        this.repository = repository;
+        queryPlanner = new RestaurantQueryPlanner(repository::indexActive);
+    }
+
+    @Override
+    public CompletableFuture<Optional<RestaurantData>> fetch(String restaurantName) {
+        log.debug("Fetching restaurant by name: {}", restaurantName);
+        return repository.findByKey(new RestaurantKey(restaurantName))
+                         .thenApply(found -> found.map(RestaurantItem::data));
+    }
+
+    @Override
+    public CompletableFuture<List<RestaurantData>> query(RestaurantQueryCriteria criteria) {
+        log.debug("Querying restaurant by criteria: {}", criteria);
+        var plan = queryPlanner.plan(criteria);
+        var items = criteria.summaryOnly()
+                    ? repository.query(plan, RestaurantSummaryMapper.INSTANCE)
+                    : repository.query(plan);
+        return items.thenApply(found -> found.stream()
+                                             .map(dataMapper(criteria))
+                                             .collect(toList()));
+    }
+
+    @Override
+    public CompletableFuture<Page<RestaurantData>> query(RestaurantQueryCriteria criteria, String cursor, int limit) {
+        log.debug("Querying restaurant page (cursor: {}, limit: {}) by criteria: {}", cursor, limit, criteria);
+        var plan = queryPlanner.plan(criteria, cursor);
+        var page = criteria.summaryOnly()
+                   ? repository.query(plan, cursor, limit, RestaurantSummaryMapper.INSTANCE)
+                   : repository.query(plan, cursor, limit);
+        return page.thenApply(found -> found.map(dataMapper(criteria)));
+    }
+
+    @Override
+    public CompletableFuture<ModificationResultType> create(RestaurantData restaurant) {
+        return createNew(getUserId(), restaurant);
+    }
+
+    @Override
+    public CompletableFuture<ModificationResult<RestaurantData>> update(String restaurantName,
+                                                                        RestaurantData updateData) {
+        return repository.findByKey(new RestaurantKey(restaurantName))
+                         .thenCompose(found -> {
+                             if (found.isEmpty()) {
+                                 return completed(notFound());
+                             }
+                             var restaurant = found.get();
+                             var modification = updateItem(restaurant).with(updateData);
+                             if (modification.changes()
+                                             .empty()) {
+                                 log.debug("Skipping update of {} - no changes", restaurant);
+                                 return completed(noChanges());
+                             }
+                             return applyChanges(restaurant, modification);
+                         });
+    }
+
+    @Override
+    public CompletableFuture<ModificationResultType> delete(String restaurantName) {
+        return actOnFound(restaurantName, restaurant -> {
+            log.debug("Deleting {}", restaurantName);
+            return repository.delete(restaurant)
+                             .thenApply(deleted -> SUCCESS);
+        });
+    }
+
+    @Override
+    public CompletableFuture<ModificationResultType> setRating(String restaurantName, int rating) {
+        log.debug("Setting {} rating to {}", restaurantName, rating);
+        return update(restaurantName, RestaurantUpdates.rating(rating));
+    }
+
+    @Override
+    public CompletableFuture<ModificationResultType> setReview(String restaurantName, String review) {
+        log.debug("Setting {} review: {}", restaurantName, review);
+        return update(restaurantName, RestaurantUpdates.review(review));
+    }
+
+    @Override
+    public CompletableFuture<ModificationResultType> setTriedBefore(String restaurantName, boolean tried) {
+        log.debug("Setting {} tried before flag to {}", restaurantName, tried);
+        return update(restaurantName, RestaurantUpdates.triedBefore(tried));
+    }
+
+    @Override
+    public CompletableFuture<ModificationResultType> replaceCategories(String restaurantName,
+                                                                       Set<Category> categories) {
+        log.debug("Replacing {} categories with {}", restaurantName, categories);
+        return update(restaurantName, RestaurantUpdates.categories(categories));
+    }
+
+    @Override
+    public CompletableFuture<ModificationResultType> replaceNotes(String restaurantName, List<String> notes) {
+        log.debug("Replacing {} notes with {}", restaurantName, notes);
+        return update(restaurantName, RestaurantUpdates.notes(notes));
+    }
+
+    @Override
+    public CompletableFuture<ModificationResult<Set<Category>>> addCategory(String restaurantName,
+                                                                          Category category) {
+        log.debug("Adding category {} to {}", category, restaurantName);
+        return repository.update(new RestaurantKey(restaurantName), RestaurantUpdates.addCategory(category))
+                         .thenApply(result -> result.map(RestaurantItem::categories));
+    }
+
+    @Override
+    public CompletableFuture<ModificationResultType> removeCategory(String restaurantName, Category category) {
+        log.debug("Removing category {} from {}", category, restaurantName);
+        return update(restaurantName, RestaurantUpdates.removeCategory(category));
+    }
+
+    @Override
+    public CompletableFuture<ModificationResult<List<String>>> addNote(String restaurantName, String note) {
+        log.debug("Adding note to {}: {}", restaurantName, note);
+        return repository.update(new RestaurantKey(restaurantName), RestaurantUpdates.addNote(note))
+                         .thenApply(result -> result.map(RestaurantItem::notes));
+    }
+
+    @Override
+    public CompletableFuture<ModificationResult<List<String>>> replaceNote(String restaurantName, int noteIndex,
+                                                                          String note) {
+        log.debug("Replacing {} note {} with: {}", restaurantName, noteIndex, note);
+        return repository.update(new RestaurantKey(restaurantName), RestaurantUpdates.replaceNote(noteIndex, note))
+                         .thenApply(result -> result.map(RestaurantItem::notes));
+    }
+
+    @Override
+    public CompletableFuture<ModificationResultType> removeNote(String restaurantName, int noteIndex) {
+        log.debug("Removing {} note {}", restaurantName, noteIndex);
+        return update(restaurantName, RestaurantUpdates.removeNote(noteIndex));
+    }
+
+    private CompletableFuture<ModificationResultType> createNew(String userId, RestaurantData restaurant) {
+        var item = RestaurantItem.forCreation(userId, restaurant);
+        log.debug("Creating {}", item);
+        return repository.create(item)
+                         .thenApply(created -> created ? SUCCESS : ALREADY_EXISTS);
+    }
+
+    private CompletableFuture<ModificationResult<RestaurantData>> applyChanges(RestaurantItem restaurant,
+                                                                               RestaurantModification modification) {
+        var changes = modification.changes();
+        if (modification.hasNewKey()) {
+            var replacement = RestaurantItem.forCreation(restaurant.userId(), changes.applied());
+            log.debug("Replacing {} with {}", restaurant, replacement);
+            return repository.replace(restaurant, replacement)
+                             .thenApply(result -> result.map(RestaurantItem::data));
+        }
+        log.debug("Updating {} with {}", restaurant, changes);
+        return repository.update(restaurant.getKey(), changes.toItemUpdate())
+                         .thenApply(result -> result.map(RestaurantItem::data));
+    }
+
+    private CompletableFuture<ModificationResultType> update(String restaurantName, ItemUpdate update) {
+        return repository.update(new RestaurantKey(restaurantName), update)
+                         .thenApply(ModificationResult::resultType);
+    }
+
+    private CompletableFuture<ModificationResultType> actOnFound(
+            String restaurantName, Function<RestaurantItem, CompletableFuture<ModificationResultType>> action) {
+        return repository.findByKey(new RestaurantKey(restaurantName))
+                         .thenCompose(found -> found.map(action)
+                                                    .orElseGet(() -> completedFuture(NOT_FOUND)));
+    }
+
+    private static Function<RestaurantItem, RestaurantData> dataMapper(RestaurantQueryCriteria criteria) {
+        return criteria.summaryOnly() ? RestaurantItem::summaryData : RestaurantItem::data;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CompletableFuture<ModificationResult<RestaurantData>> completed(ModificationResult result) {
+        return completedFuture(result);
+    }
+
+}
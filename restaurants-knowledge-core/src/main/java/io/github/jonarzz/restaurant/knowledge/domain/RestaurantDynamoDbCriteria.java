@@ -1,38 +1,64 @@
 package io.github.jonarzz.restaurant.knowledge.domain;
 
+import static io.github.jonarzz.restaurant.knowledge.domain.RestaurantAccessPath.*;
 import static io.github.jonarzz.restaurant.knowledge.domain.RestaurantItem.Attributes.*;
 import static io.github.jonarzz.restaurant.knowledge.technical.auth.SecurityContext.*;
 import static io.github.jonarzz.restaurant.knowledge.technical.dynamodb.AttributesCreator.*;
-import static java.lang.Boolean.*;
 import static software.amazon.awssdk.services.dynamodb.model.AttributeValue.*;
 import static software.amazon.awssdk.services.dynamodb.model.ComparisonOperator.*;
 
 import lombok.*;
+import lombok.extern.slf4j.*;
 import software.amazon.awssdk.services.dynamodb.model.*;
 
 import java.util.*;
 
 import io.github.jonarzz.restaurant.knowledge.technical.dynamodb.*;
 
-@AllArgsConstructor
-@EqualsAndHashCode
+/**
+ * Query plan - criteria translated into key conditions of the chosen {@link RestaurantAccessPath},
+ * with the criteria not covered by the key applied as query filters.
+ */
+@Slf4j
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
 class RestaurantDynamoDbCriteria implements DynamoDbQueryCriteria {
 
-    private RestaurantQueryCriteria criteria;
+    @EqualsAndHashCode.Include
+    private final RestaurantQueryCriteria criteria;
+    @EqualsAndHashCode.Include
+    private final RestaurantAccessPath path;
+    private final Map<RestaurantAccessPath, Double> estimatedCosts;
+    private final RestaurantQueryPlanner.PathStatistics statistics;
+
+    RestaurantDynamoDbCriteria(RestaurantQueryCriteria criteria, RestaurantAccessPath path,
+                               Map<RestaurantAccessPath, Double> estimatedCosts,
+                               RestaurantQueryPlanner.PathStatistics statistics) {
+        this.criteria = criteria;
+        this.path = path;
+        this.estimatedCosts = estimatedCosts;
+        this.statistics = statistics;
+    }
+
+    @Override
+    public String indexName() {
+        return path.indexName(criteria);
+    }
+
+    @Override
+    public Set<String> indexAttributes() {
+        return path == TABLE ? null : RestaurantIndexes.INDEX_ATTRIBUTES;
+    }
 
     @Override
     public Map<String, Condition> keyConditions() {
         Map<String, Condition> conditions = new HashMap<>();
-        conditions.put(USER_ID, Condition.builder()
-                                         .comparisonOperator(EQ)
-                                         .attributeValueList(fromS(getUserId()))
-                                         .build());
+        conditions.put(path.partitionKeyAttribute(criteria), condition(EQ, fromS(getUserId())));
         var nameBeginning = criteria.nameBeginsWith();
-        if (nameBeginning != null) {
-            conditions.put(NAME_LOWERCASE, Condition.builder()
-                                                    .comparisonOperator(BEGINS_WITH)
-                                                    .attributeValueList(fromS(nameBeginning.toLowerCase()))
-                                                    .build());
+        if (nameBeginning != null && path.coversName()) {
+            conditions.put(NAME_LOWERCASE, condition(BEGINS_WITH, fromS(nameBeginning.toLowerCase())));
+        }
+        if (path.coversRating()) {
+            conditions.put(RATING, condition(GE, numberAttribute(criteria.ratingAtLeast())));
         }
         return conditions;
     }
@@ -40,25 +66,19 @@ class RestaurantDynamoDbCriteria implements DynamoDbQueryCriteria {
     @Override
     public Map<String, Condition> queryConditions() {
         Map<String, Condition> conditions = new HashMap<>();
-        if (criteria.category() != null) {
-            conditions.put(CATEGORIES, Condition.builder()
-                                                .comparisonOperator(CONTAINS)
-                                                .attributeValueList(fromS(criteria.category()
-                                                                                  .getValue()))
-                                                .build());
+        var nameBeginning = criteria.nameBeginsWith();
+        if (nameBeginning != null && !path.coversName()) {
+            conditions.put(NAME_LOWERCASE, condition(BEGINS_WITH, fromS(nameBeginning.toLowerCase())));
         }
-        if (criteria.triedBefore() != null) {
-            conditions.put(TRIED_BEFORE, Condition.builder()
-                                                  .comparisonOperator(EQ)
-                                                  .attributeValueList(fromBool(criteria.triedBefore()))
-                                                  .build());
+        if (criteria.category() != null && !path.coversCategory()) {
+            conditions.put(CATEGORIES, condition(CONTAINS, fromS(criteria.category()
+                                                                         .getValue())));
         }
-        // rating only set for restaurants tried before
-        if (criteria.ratingAtLeast() != null && !FALSE.equals(criteria.triedBefore())) {
-            conditions.put(RATING, Condition.builder()
-                                            .comparisonOperator(GE)
-                                            .attributeValueList(numberAttribute(criteria.ratingAtLeast()))
-                                            .build());
+        if (criteria.triedBefore() != null && !path.coversTriedBefore()) {
+            conditions.put(TRIED_BEFORE, condition(EQ, fromBool(criteria.triedBefore())));
+        }
+        if (ratingApplicable(criteria) && !path.coversRating()) {
+            conditions.put(RATING, condition(GE, numberAttribute(criteria.ratingAtLeast())));
         }
         return conditions;
     }
@@ -67,4 +87,25 @@ class RestaurantDynamoDbCriteria implements DynamoDbQueryCriteria {
     public boolean isEmpty() {
         return criteria.isEmpty();
     }
+
+    @Override
+    public void recordPage(int scannedCount, int count) {
+        statistics.record(scannedCount, count);
+        log.debug("Query of {} via {} read {} items, returned {}", criteria, path, scannedCount, count);
+    }
+
+    @Override
+    public String toString() {
+        return criteria + " via " + path + Optional.ofNullable(indexName())
+                                                   .map(indexName -> " (" + indexName + ")")
+                                                   .orElse("")
+               + " - estimated costs: " + estimatedCosts + ", statistics: " + statistics;
+    }
+
+    private static Condition condition(ComparisonOperator operator, AttributeValue value) {
+        return Condition.builder()
+                        .comparisonOperator(operator)
+                        .attributeValueList(value)
+                        .build();
+    }
 }
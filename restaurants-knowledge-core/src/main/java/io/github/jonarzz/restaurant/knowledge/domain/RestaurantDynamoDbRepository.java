@@ -3,16 +3,19 @@ package io.github.jonarzz.restaurant.knowledge.domain;
 import static software.amazon.awssdk.services.dynamodb.model.KeyType.*;
 import static software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType.*;
 
+import lombok.extern.slf4j.*;
 import software.amazon.awssdk.services.dynamodb.*;
 import software.amazon.awssdk.services.dynamodb.model.*;
 
 import java.util.*;
 
+import io.github.jonarzz.restaurant.knowledge.common.*;
 import io.github.jonarzz.restaurant.knowledge.technical.dynamodb.*;
 
+@Slf4j
 class RestaurantDynamoDbRepository extends DynamoDbRepository<RestaurantItem, RestaurantKey> {
 
-    private static final String TABLE_NAME = "Restaurant";
+    static final String TABLE_NAME = "Restaurant";
 
     RestaurantDynamoDbRepository(DynamoDbClient client) {
         super(TABLE_NAME, new RestaurantItemMapper(), client);
@@ -24,18 +27,18 @@ class RestaurantDynamoDbRepository extends DynamoDbRepository<RestaurantItem, Re
     }
 
     @Override
-    public void create(RestaurantItem item) {
-        super.create(item);
+    public boolean create(RestaurantItem item) {
+        return super.create(item);
     }
 
     @Override
-    public void update(RestaurantItem item, Map<String, AttributeValueUpdate> updates) {
-        super.update(item, updates);
+    public ModificationResult<RestaurantItem> update(RestaurantKey key, ItemUpdate update) {
+        return super.update(key, update);
     }
 
     @Override
-    public void update(RestaurantItem item, AttributesCreator attributesCreator) {
-        super.update(item, attributesCreator);
+    public ModificationResult<RestaurantItem> replace(RestaurantItem replaced, RestaurantItem replacement) {
+        return super.replace(replaced, replacement);
     }
 
     @Override
@@ -45,6 +48,25 @@ class RestaurantDynamoDbRepository extends DynamoDbRepository<RestaurantItem, Re
 
     @Override
     protected CreateTableRequest prepareCreateTableRequest() {
+        return createTableRequest();
+    }
+
+    /**
+     * Writes the {@link RestaurantIndexes#indexAttributes(RestaurantItem) index attributes}
+     * of the restaurants stored before the indexes were introduced.
+     */
+    @Override
+    protected void prepareItemsForIndexes() {
+        Map<String, String> attributeNames = new HashMap<>();
+        var filter = RestaurantIndexes.notIndexedFilter(attributeNames);
+        var updated = scan(filter, attributeNames)
+                .map(restaurant -> update(restaurant.getKey(), RestaurantIndexes.indexAttributes(restaurant)))
+                .filter(result -> result.resultType() == ModificationResultType.SUCCESS)
+                .count();
+        log.info("Wrote index attributes of {} restaurants stored before the indexes were introduced", updated);
+    }
+
+    static CreateTableRequest createTableRequest() {
         var userIdAttribute = "userId";
         var nameLowercaseAttribute = "nameLowercase";
         return CreateTableRequest.builder()
@@ -59,7 +81,7 @@ class RestaurantDynamoDbRepository extends DynamoDbRepository<RestaurantItem, Re
                                                          .keyType(RANGE)
                                                          .build()
                                  )
-                                 .attributeDefinitions(
+                                 .attributeDefinitions(attributeDefinitions(
                                          AttributeDefinition.builder()
                                                             .attributeName(userIdAttribute)
                                                             .attributeType(S)
@@ -68,11 +90,23 @@ class RestaurantDynamoDbRepository extends DynamoDbRepository<RestaurantItem, Re
                                                             .attributeName(nameLowercaseAttribute)
                                                             .attributeType(S)
                                                             .build()
-                                 )
+                                 ))
+                                 .globalSecondaryIndexes(RestaurantIndexes.globalSecondaryIndexes())
+                                 // keys of modified items are enough to invalidate caches
+                                 .streamSpecification(StreamSpecification.builder()
+                                                                         .streamEnabled(true)
+                                                                         .streamViewType(StreamViewType.KEYS_ONLY)
+                                                                         .build())
                                  .provisionedThroughput(ProvisionedThroughput.builder()
                                                                              .readCapacityUnits(1L)
                                                                              .writeCapacityUnits(1L)
                                                                              .build())
                                  .build();
     }
+
+    private static List<AttributeDefinition> attributeDefinitions(AttributeDefinition... tableKeyDefinitions) {
+        var definitions = new ArrayList<>(List.of(tableKeyDefinitions));
+        definitions.addAll(RestaurantIndexes.attributeDefinitions());
+        return definitions;
+    }
 }
@@ -4,31 +4,46 @@ import static io.github.jonarzz.restaurant.knowledge.common.ModificationResult.*
 import static io.github.jonarzz.restaurant.knowledge.common.ModificationResultType.*;
 import static io.github.jonarzz.restaurant.knowledge.domain.RestaurantItem.Attributes.*;
 import static io.github.jonarzz.restaurant.knowledge.domain.RestaurantModification.*;
-import static io.github.jonarzz.restaurant.knowledge.technical.dynamodb.AttributesCreator.*;
+import static io.github.jonarzz.restaurant.knowledge.technical.auth.SecurityContext.*;
 import static java.util.stream.Collectors.*;
 import static software.amazon.awssdk.services.dynamodb.model.AttributeValue.*;
 
 import lombok.extern.slf4j.*;
-import software.amazon.awssdk.services.dynamodb.model.*;
 
 import java.util.*;
 import java.util.function.*;
-import java.util.stream.Stream;
+import java.util.stream.*;
 
 import io.github.jonarzz.restaurant.knowledge.common.*;
+import io.github.jonarzz.restaurant.knowledge.technical.dynamodb.*;
 
 @Slf4j
 class RestaurantDynamoDbService implements RestaurantService {
 
     private RestaurantDynamoDbRepository repository;
+    private RestaurantQueryPlanner queryPlanner;
+    // null if reads are not served from memory
+    private RestaurantSnapshots snapshots;
 
     RestaurantDynamoDbService(RestaurantDynamoDbRepository repository) {
+        this(repository, null);
+    }
+
+    RestaurantDynamoDbService(RestaurantDynamoDbRepository repository, RestaurantSnapshots snapshots) {
         this.repository = repository;
+        this.snapshots = snapshots;
+        queryPlanner = new RestaurantQueryPlanner(repository::indexActive);
     }
 
     @Override
     public Optional<RestaurantData> fetch(String restaurantName) {
         log.debug("Fetching restaurant by name: {}", restaurantName);
+        if (snapshots != null) {
+            var key = new RestaurantKey(restaurantName);
+            return snapshots.forUser(key.userId())
+                            .find(key.nameLowercase())
+                            .map(RestaurantItem::data);
+        }
         return findRestaurant(restaurantName)
                 .map(RestaurantItem::data);
     }
@@ -36,24 +51,40 @@ class RestaurantDynamoDbService implements RestaurantService {
     @Override
     public List<RestaurantData> query(RestaurantQueryCriteria criteria) {
         log.debug("Querying restaurant by criteria: {}", criteria);
-        return repository.query(new RestaurantDynamoDbCriteria(criteria))
-                         .stream()
-                         .map(RestaurantItem::data)
-                         .collect(toList());
+        return streamData(criteria)
+                .collect(toList());
+    }
+
+    @Override
+    public Stream<RestaurantData> stream(RestaurantQueryCriteria criteria) {
+        log.debug("Streaming restaurants by criteria: {}", criteria);
+        return streamData(criteria);
+    }
+
+    @Override
+    public Page<RestaurantData> query(RestaurantQueryCriteria criteria, String cursor, int limit) {
+        log.debug("Querying restaurant page (cursor: {}, limit: {}) by criteria: {}", cursor, limit, criteria);
+        if (snapshots != null) {
+            return querySnapshot(criteria, cursor, limit);
+        }
+        var plan = queryPlanner.plan(criteria, cursor);
+        var page = criteria.summaryOnly()
+                   ? repository.query(plan, cursor, limit, RestaurantSummaryMapper.INSTANCE)
+                   : repository.query(plan, cursor, limit);
+        return page.map(dataMapper(criteria));
     }
 
     @Override
     public ModificationResultType create(RestaurantData restaurant) {
-        if (findRestaurant(restaurant.name())
-                .isPresent()) {
+        var item = RestaurantItem.forCreation(getUserId(), restaurant);
+        log.debug("Creating {}", item);
+        // existence is checked by the conditional write itself
+        if (!repository.create(item)) {
             return ALREADY_EXISTS;
         }
-        if (Stream.of(restaurant.rating(), restaurant.review())
-                  .anyMatch(Objects::nonNull)) {
-            restaurant.triedBefore(true);
+        if (snapshots != null) {
+            snapshots.written(item);
         }
-        log.debug("Creating {}", restaurant);
-        repository.create(RestaurantItem.from(restaurant));
         return SUCCESS;
     }
 
@@ -68,19 +99,20 @@ class RestaurantDynamoDbService implements RestaurantService {
                         log.debug("Skipping update of {} - no changes", restaurant);
                         return noChanges();
                     }
-                    var newName = updateData.name();
-                    if (newName != null && !restaurantName.equals(newName) && findRestaurant(newName).isPresent()) {
-                        return alreadyExists();
-                    }
-                    var updatedItem = changes.applied();
                     if (modification.hasNewKey()) {
-                        create(updatedItem);
-                        delete(restaurantName);
-                    } else {
-                        log.debug("Updating {} with {}", restaurant, changes);
-                        repository.update(restaurant, changes.toAttributesCreator());
+                        var replacement = RestaurantItem.forCreation(restaurant.userId(), changes.applied());
+                        log.debug("Replacing {} with {}", restaurant, replacement);
+                        // taken target name is detected by the transaction conditions
+                        var result = repository.replace(restaurant, replacement);
+                        if (snapshots != null && SUCCESS == result.resultType()) {
+                            snapshots.deleted(restaurant.getKey());
+                            snapshots.written(result.content());
+                        }
+                        return result.map(RestaurantItem::data);
                     }
-                    return success(updatedItem);
+                    log.debug("Updating {} with {}", restaurant, changes);
+                    return applyUpdate(restaurant.getKey(), changes.toItemUpdate())
+                            .map(RestaurantItem::data);
                 })
                 .orElseGet(ModificationResult::notFound);
     }
@@ -90,84 +122,134 @@ class RestaurantDynamoDbService implements RestaurantService {
         return actOnFound(restaurantName, restaurant -> {
             log.debug("Deleting {}", restaurantName);
             repository.delete(restaurant);
+            if (snapshots != null) {
+                snapshots.deleted(restaurant.getKey());
+            }
             return SUCCESS;
         });
     }
 
     @Override
     public ModificationResultType setRating(String restaurantName, int rating) {
-        return actOnFound(restaurantName, restaurant -> {
-            if (Objects.equals(rating, restaurant.rating())) {
-                return NO_CHANGES;
-            }
-            log.debug("Setting {} rating to {}", restaurant, rating);
-            repository.update(restaurant, Map.of(
-                    RATING, asNumberUpdateAttribute(rating),
-                    TRIED_BEFORE, asUpdateAttribute(fromBool(true))
-            ));
-            return SUCCESS;
-        });
+        log.debug("Setting {} rating to {}", restaurantName, rating);
+        return update(restaurantName, RestaurantUpdates.rating(rating));
     }
 
     @Override
     public ModificationResultType setReview(String restaurantName, String review) {
-        return actOnFound(restaurantName, restaurant -> {
-            if (Objects.equals(review, restaurant.review())) {
-                return NO_CHANGES;
-            }
-            log.debug("Setting {} review: {}", restaurant, review);
-            repository.update(restaurant, Map.of(
-                    REVIEW, asUpdateAttribute(fromS(review)),
-                    TRIED_BEFORE, asUpdateAttribute(fromBool(true))
-            ));
-            return SUCCESS;
-        });
+        log.debug("Setting {} review: {}", restaurantName, review);
+        return update(restaurantName, RestaurantUpdates.review(review));
     }
 
     @Override
     public ModificationResultType setTriedBefore(String restaurantName, boolean tried) {
-        return actOnFound(restaurantName, restaurant -> {
-            if (restaurant.triedBefore() == tried) {
-                return NO_CHANGES;
-            }
-            log.debug("Setting {} tried before flag to {}", restaurantName, tried);
-            Map<String, AttributeValueUpdate> updates = new HashMap<>();
-            updates.put(TRIED_BEFORE, asUpdateAttribute(fromBool(tried)));
-            if (!tried) {
-                updates.put(RATING, asUpdateAttribute(EMPTY_RATING));
-                updates.put(REVIEW, asUpdateAttribute(EMPTY_REVIEW));
-            }
-            repository.update(restaurant, updates);
-            return SUCCESS;
-        });
+        log.debug("Setting {} tried before flag to {}", restaurantName, tried);
+        return update(restaurantName, RestaurantUpdates.triedBefore(tried));
     }
 
     @Override
     public ModificationResultType replaceCategories(String restaurantName, Set<Category> categories) {
-        return actOnFound(restaurantName, restaurant -> {
-            if (Objects.equals(categories, restaurant.categories())) {
-                return NO_CHANGES;
-            }
-            log.debug("Replacing {} categories with {}", restaurantName, categories);
-            repository.update(restaurant, Map.of(
-                    CATEGORIES, asUpdateAttribute(setAttribute(categories, Category::getValue))
-            ));
-            return SUCCESS;
-        });
+        log.debug("Replacing {} categories with {}", restaurantName, categories);
+        return update(restaurantName, RestaurantUpdates.categories(categories));
     }
 
     @Override
     public ModificationResultType replaceNotes(String restaurantName, List<String> notes) {
-        return actOnFound(restaurantName, restaurant -> {
-            if (Objects.equals(notes, restaurant.notes())) {
-                return NO_CHANGES;
+        log.debug("Replacing {} notes with {}", restaurantName, notes);
+        return update(restaurantName, RestaurantUpdates.notes(notes));
+    }
+
+    @Override
+    public ModificationResult<Set<Category>> addCategory(String restaurantName, Category category) {
+        log.debug("Adding category {} to {}", category, restaurantName);
+        return applyUpdate(new RestaurantKey(restaurantName), RestaurantUpdates.addCategory(category))
+                         .map(RestaurantItem::categories);
+    }
+
+    @Override
+    public ModificationResultType removeCategory(String restaurantName, Category category) {
+        log.debug("Removing category {} from {}", category, restaurantName);
+        return update(restaurantName, RestaurantUpdates.removeCategory(category));
+    }
+
+    @Override
+    public ModificationResult<List<String>> addNote(String restaurantName, String note) {
+        log.debug("Adding note to {}: {}", restaurantName, note);
+        return applyUpdate(new RestaurantKey(restaurantName), RestaurantUpdates.addNote(note))
+                         .map(RestaurantItem::notes);
+    }
+
+    @Override
+    public ModificationResult<List<String>> replaceNote(String restaurantName, int noteIndex, String note) {
+        log.debug("Replacing {} note {} with: {}", restaurantName, noteIndex, note);
+        return applyUpdate(new RestaurantKey(restaurantName), RestaurantUpdates.replaceNote(noteIndex, note))
+                         .map(RestaurantItem::notes);
+    }
+
+    @Override
+    public ModificationResultType removeNote(String restaurantName, int noteIndex) {
+        log.debug("Removing {} note {}", restaurantName, noteIndex);
+        return update(restaurantName, RestaurantUpdates.removeNote(noteIndex));
+    }
+
+    private ModificationResultType update(String restaurantName, ItemUpdate update) {
+        var result = applyUpdate(new RestaurantKey(restaurantName), update);
+        if (NO_CHANGES == result.resultType()) {
+            log.debug("Skipping update of {} - no changes", restaurantName);
+        }
+        return result.resultType();
+    }
+
+    private ModificationResult<RestaurantItem> applyUpdate(RestaurantKey key, ItemUpdate update) {
+        var result = repository.update(key, update);
+        if (snapshots != null && SUCCESS == result.resultType()) {
+            snapshots.written(result.content());
+        }
+        return result;
+    }
+
+    /**
+     * Pages of a snapshot are ordered by name - the cursor holds the key of the last returned restaurant,
+     * as the cursor of a table query would.
+     */
+    private Page<RestaurantData> querySnapshot(RestaurantQueryCriteria criteria, String cursor, int limit) {
+        var userId = getUserId();
+        String afterName = null;
+        if (cursor != null) {
+            var lastKey = DynamoDbCursor.decode(cursor);
+            var lastName = lastKey.get(NAME_LOWERCASE);
+            if (lastName == null || lastName.s() == null) {
+                throw new InvalidCursorException(cursor, "no restaurant name");
             }
-            log.debug("Replacing {} notes with {}", restaurantName, notes);
-            repository.update(restaurant, Map.of(
-                    NOTES, asUpdateAttribute(listAttribute(notes))
-            ));
-            return SUCCESS;
-        });
+            afterName = lastName.s();
+        }
+        var found = snapshots.forUser(userId)
+                             .query(criteria, afterName, limit + 1);
+        var items = found.stream()
+                         .limit(limit)
+                         .map(dataMapper(criteria))
+                         .collect(toList());
+        if (found.size() <= limit) {
+            return Page.last(items);
+        }
+        var lastName = found.get(limit - 1)
+                            .getKey()
+                            .nameLowercase();
+        return Page.of(items, DynamoDbCursor.encode(Map.of(USER_ID, fromS(userId),
+                                                           NAME_LOWERCASE, fromS(lastName))));
+    }
+
+    private Stream<RestaurantData> streamData(RestaurantQueryCriteria criteria) {
+        if (snapshots != null) {
+            return snapshots.forUser(getUserId())
+                            .stream(criteria)
+                            .map(dataMapper(criteria));
+        }
+        var plan = queryPlanner.plan(criteria);
+        var items = criteria.summaryOnly()
+                    ? repository.stream(plan, RestaurantSummaryMapper.INSTANCE)
+                    : repository.stream(plan);
+        return items.map(dataMapper(criteria));
     }
 
     private Optional<RestaurantItem> findRestaurant(String restaurantName) {
@@ -181,4 +263,8 @@ class RestaurantDynamoDbService implements RestaurantService {
                 .orElse(NOT_FOUND);
     }
 
+    private static Function<RestaurantItem, RestaurantData> dataMapper(RestaurantQueryCriteria criteria) {
+        return criteria.summaryOnly() ? RestaurantItem::summaryData : RestaurantItem::data;
+    }
+
 }
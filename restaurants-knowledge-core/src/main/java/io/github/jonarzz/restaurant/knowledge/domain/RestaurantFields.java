@@ -0,0 +1,17 @@
+package io.github.jonarzz.restaurant.knowledge.domain;
+
+/**
+ * Restaurant attributes returned by a query.
+ */
+public enum RestaurantFields {
+
+    /**
+     * All attributes, including review and notes.
+     */
+    ALL,
+    /**
+     * Attributes shown on restaurant lists: name, categories, tried before flag and rating.
+     */
+    SUMMARY
+
+}
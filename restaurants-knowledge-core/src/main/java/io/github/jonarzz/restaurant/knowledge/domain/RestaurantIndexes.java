@@ -0,0 +1,203 @@
+package io.github.jonarzz.restaurant.knowledge.domain;
+
+import static io.github.jonarzz.restaurant.knowledge.domain.RestaurantItem.Attributes.*;
+import static io.github.jonarzz.restaurant.knowledge.technical.dynamodb.AttributesCreator.*;
+import static java.util.stream.Collectors.*;
+import static software.amazon.awssdk.services.dynamodb.model.KeyType.*;
+import static software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType.*;
+
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+import io.github.jonarzz.restaurant.knowledge.technical.dynamodb.*;
+
+/**
+ * Global secondary indexes of the restaurant table - criteria are translated into key conditions
+ * on them instead of filters applied to all entries of the user.
+ * <p>
+ * Category and tried before indexes are sparse: their partition key is a copy of the user ID,
+ * present only if the restaurant has given category (or is tried before or not). The copies are written
+ * in the same request as the attributes they reflect, so DynamoDB keeps the indexes up to date.
+ * Rating index uses the rating itself, which is present (and positive) only for restaurants tried before.
+ * <p>
+ * Indexes project the {@link RestaurantFields#SUMMARY summary} attributes only - summaries are read from the index,
+ * whole items (with review and notes, which make the most of their size) are read from the table
+ * by the keys found in the index.
+ * <p>
+ * There is an index per category (18 indexes in total, within the default quota of 20 per table), as an item
+ * appears in an index at most once - a restaurant of several categories could be found by each of them
+ * in a single index only through separate index items, written in a transaction with every modification
+ * (at twice the cost of the write). As the indexes are sparse, a restaurant is written only to the indexes
+ * of its categories, and a change of the categories only to the indexes of the added and removed ones.
+ */
+class RestaurantIndexes {
+
+    static final String RATING_INDEX = "RatingIndex";
+    static final String TRIED_INDEX = "TriedIndex";
+    static final String NOT_TRIED_INDEX = "NotTriedIndex";
+    private static final String CATEGORY_INDEX_PREFIX = "CategoryIndex_";
+
+    static final String TRIED_USER_ID = "triedUserId";
+    static final String NOT_TRIED_USER_ID = "notTriedUserId";
+    private static final String CATEGORY_USER_ID_PREFIX = "categoryUserId_";
+
+    /**
+     * Attributes available in every index, regardless of its keys.
+     */
+    static final Set<String> INDEX_ATTRIBUTES = Set.of(
+            USER_ID, NAME_LOWERCASE, RESTAURANT_NAME, CATEGORIES, TRIED_BEFORE, RATING
+    );
+
+    private static final long READ_CAPACITY_UNITS = 1L;
+    private static final long WRITE_CAPACITY_UNITS = 1L;
+
+    private RestaurantIndexes() {
+    }
+
+    static String categoryIndex(Category category) {
+        return CATEGORY_INDEX_PREFIX + category.getValue();
+    }
+
+    static String categoryUserId(Category category) {
+        return CATEGORY_USER_ID_PREFIX + category.getValue();
+    }
+
+    static String triedIndex(boolean triedBefore) {
+        return triedBefore ? TRIED_INDEX : NOT_TRIED_INDEX;
+    }
+
+    static String triedUserId(boolean triedBefore) {
+        return triedBefore ? TRIED_USER_ID : NOT_TRIED_USER_ID;
+    }
+
+    static AttributesCreator putIndexAttributes(AttributesCreator creator, RestaurantItem restaurant) {
+        var userId = AttributeValue.fromS(restaurant.userId());
+        creator.put(triedUserId(restaurant.triedBefore()), userId);
+        restaurant.categories()
+                  .forEach(category -> creator.put(categoryUserId(category), userId));
+        return creator;
+    }
+
+    static ItemUpdate triedBefore(ItemUpdate update, boolean triedBefore) {
+        return update.copy(triedUserId(triedBefore), USER_ID)
+                     .remove(triedUserId(!triedBefore));
+    }
+
+    static ItemUpdate category(ItemUpdate update, Category category, boolean present) {
+        var attributeName = categoryUserId(category);
+        return present
+               ? update.copy(attributeName, USER_ID)
+               : update.remove(attributeName);
+    }
+
+    /**
+     * Indexes all given categories and removes the index entries of all others -
+     * for updates not knowing the previous categories.
+     */
+    static ItemUpdate categories(ItemUpdate update, Set<Category> categories) {
+        for (var category : Category.values()) {
+            category(update, category, categories.contains(category));
+        }
+        return update;
+    }
+
+    /**
+     * Writes the index attributes of a restaurant stored before the indexes were introduced -
+     * unless the restaurant was modified since it was read (index attributes of a modified restaurant
+     * are written by the modification).
+     */
+    static ItemUpdate indexAttributes(RestaurantItem restaurant) {
+        var update = new ItemUpdate()
+                .expectMissing(TRIED_USER_ID)
+                .expectMissing(NOT_TRIED_USER_ID)
+                .expect(TRIED_BEFORE, AttributeValue.fromBool(restaurant.triedBefore()));
+        if (restaurant.categories()
+                      .isEmpty()) {
+            update.expectMissing(CATEGORIES);
+        } else {
+            update.expect(CATEGORIES, setAttribute(restaurant.categories(), Category::getValue));
+        }
+        triedBefore(update, restaurant.triedBefore());
+        restaurant.categories()
+                  .forEach(category -> category(update, category, true));
+        return update;
+    }
+
+    /**
+     * Filter of the restaurants stored before the indexes were introduced - every restaurant written
+     * since then has one of the tried before index attributes.
+     */
+    static String notIndexedFilter(Map<String, String> attributeNames) {
+        attributeNames.put("#tried", TRIED_USER_ID);
+        attributeNames.put("#notTried", NOT_TRIED_USER_ID);
+        return "attribute_not_exists(#tried) AND attribute_not_exists(#notTried)";
+    }
+
+    static List<GlobalSecondaryIndex> globalSecondaryIndexes() {
+        var categoryIndexes = Arrays.stream(Category.values())
+                                    .map(category -> index(categoryIndex(category),
+                                                           categoryUserId(category), NAME_LOWERCASE));
+        var otherIndexes = Stream.of(index(RATING_INDEX, USER_ID, RATING),
+                                     index(TRIED_INDEX, TRIED_USER_ID, NAME_LOWERCASE),
+                                     index(NOT_TRIED_INDEX, NOT_TRIED_USER_ID, NAME_LOWERCASE));
+        return Stream.concat(categoryIndexes, otherIndexes)
+                     .collect(toList());
+    }
+
+    /**
+     * Definitions of the index key attributes other than the table key attributes.
+     */
+    static List<AttributeDefinition> attributeDefinitions() {
+        var categoryAttributes = Arrays.stream(Category.values())
+                                       .map(category -> attribute(categoryUserId(category), S));
+        var otherAttributes = Stream.of(attribute(RATING, N),
+                                        attribute(TRIED_USER_ID, S),
+                                        attribute(NOT_TRIED_USER_ID, S));
+        return Stream.concat(categoryAttributes, otherAttributes)
+                     .collect(toList());
+    }
+
+    private static GlobalSecondaryIndex index(String indexName, String hashAttribute, String rangeAttribute) {
+        return GlobalSecondaryIndex.builder()
+                                   .indexName(indexName)
+                                   .keySchema(KeySchemaElement.builder()
+                                                              .attributeName(hashAttribute)
+                                                              .keyType(HASH)
+                                                              .build(),
+                                              KeySchemaElement.builder()
+                                                              .attributeName(rangeAttribute)
+                                                              .keyType(RANGE)
+                                                              .build())
+                                   .projection(Projection.builder()
+                                                         .projectionType(ProjectionType.INCLUDE)
+                                                         .nonKeyAttributes(nonKeyAttributes(hashAttribute,
+                                                                                            rangeAttribute))
+                                                         .build())
+                                   .provisionedThroughput(ProvisionedThroughput.builder()
+                                                                               .readCapacityUnits(READ_CAPACITY_UNITS)
+                                                                               .writeCapacityUnits(WRITE_CAPACITY_UNITS)
+                                                                               .build())
+                                   .build();
+    }
+
+    /**
+     * Table and index key attributes are projected anyway - they cannot be listed.
+     */
+    private static List<String> nonKeyAttributes(String hashAttribute, String rangeAttribute) {
+        return INDEX_ATTRIBUTES.stream()
+                               .filter(attribute -> !List.of(USER_ID, NAME_LOWERCASE, hashAttribute, rangeAttribute)
+                                                         .contains(attribute))
+                               .sorted()
+                               .collect(toList());
+    }
+
+    private static AttributeDefinition attribute(String attributeName, ScalarAttributeType type) {
+        return AttributeDefinition.builder()
+                                  .attributeName(attributeName)
+                                  .attributeType(type)
+                                  .build();
+    }
+
+}
@@ -7,9 +7,11 @@ import lombok.*;
 import lombok.experimental.*;
 
 import java.util.*;
+import java.util.stream.Stream;
 
 import io.github.jonarzz.restaurant.knowledge.technical.dynamodb.*;
 
+@DynamoDbItem
 @Builder
 @Getter
 @Accessors(fluent = true)
@@ -22,8 +24,10 @@ class RestaurantItem implements DynamoDbTable<RestaurantKey> {
     private final Set<Category> categories;
     private final boolean triedBefore;
     private final Integer rating;
+    @DynamoDbItem.Compressed
     private final String review;
     @Singular
+    @DynamoDbItem.Compressed
     private final List<String> notes;
 
     static class Attributes {
@@ -41,9 +45,24 @@ class RestaurantItem implements DynamoDbTable<RestaurantKey> {
         }
     }
 
+    /**
+     * Restaurant with rating and/or review is marked as tried before.
+     */
+    static RestaurantItem forCreation(String userId, RestaurantData restaurant) {
+        if (Stream.of(restaurant.rating(), restaurant.review())
+                  .anyMatch(Objects::nonNull)) {
+            restaurant.triedBefore(true);
+        }
+        return from(userId, restaurant);
+    }
+
     static RestaurantItem from(RestaurantData restaurant) {
+        return from(getUserId(), restaurant);
+    }
+
+    static RestaurantItem from(String userId, RestaurantData restaurant) {
         return RestaurantItem.builder()
-                             .userId(getUserId())
+                             .userId(userId)
                              .restaurantName(restaurant.name())
                              .categories(restaurant.categories())
                              .triedBefore(TRUE.equals(restaurant.triedBefore()))
@@ -55,16 +74,26 @@ class RestaurantItem implements DynamoDbTable<RestaurantKey> {
     }
 
     RestaurantData data() {
-        return new RestaurantData()
-                .name(restaurantName)
+        return summaryAttributes(new RestaurantData())
+                .review(review != null && !review.isBlank() ? review : null)
+                .notes(notes);
+    }
+
+    /**
+     * Data with {@link RestaurantFields#SUMMARY} attributes only.
+     */
+    RestaurantData summaryData() {
+        return summaryAttributes(new RestaurantSummaryData());
+    }
+
+    private RestaurantData summaryAttributes(RestaurantData data) {
+        return data.name(restaurantName)
                 .categories(categories)
                 .triedBefore(triedBefore)
                 .rating(Optional.ofNullable(rating)
                                 // rating = 0 - empty value in DynamoDB
                                 .filter(value -> value > 0)
-                                .orElse(null))
-                .review(review != null && !review.isBlank() ? review : null)
-                .notes(notes);
+                                .orElse(null));
     }
 
     @Override
@@ -72,11 +101,5 @@ class RestaurantItem implements DynamoDbTable<RestaurantKey> {
         return new RestaurantKey(userId, restaurantName);
     }
 
-    String ratingString() {
-        return Optional.ofNullable(rating)
-                       .map(String::valueOf)
-                       .orElse(null);
-    }
-
 }
 
@@ -6,32 +6,16 @@ import software.amazon.awssdk.services.dynamodb.model.*;
 
 import io.github.jonarzz.restaurant.knowledge.technical.dynamodb.*;
 
-class RestaurantItemMapper implements ItemMapper<RestaurantItem> {
+/**
+ * Fields of the restaurant are mapped by the {@link DynamoDbItem generated} mapper,
+ * the lowercase name (key) and index attributes are derived from them.
+ */
+class RestaurantItemMapper extends RestaurantItemGeneratedMapper {
 
     @Override
-    public RestaurantItem createItem(ItemExtractor extractor) {
-        return RestaurantItem.builder()
-                             .userId(extractor.string(USER_ID))
-                             .restaurantName(extractor.string(RESTAURANT_NAME))
-                             .categories(extractor.set(CATEGORIES, Category::valueOf))
-                             .triedBefore(extractor.bool(TRIED_BEFORE))
-                             .rating(extractor.integer(RATING))
-                             .review(extractor.string(REVIEW))
-                             .notes(extractor.list(NOTES))
-                             .build();
-    }
-
-    @Override
-    public AttributesCreator attributesCreator(RestaurantItem restaurant) {
-        var restaurantName = restaurant.restaurantName();
-        return new AttributesCreator()
-                .putIfPresent(USER_ID, restaurant.userId(), AttributeValue::fromS)
-                .putIfPresent(NAME_LOWERCASE,  restaurantName.toLowerCase(), AttributeValue::fromS)
-                .putIfPresent(RESTAURANT_NAME, restaurantName,               AttributeValue::fromS)
-                .putIfPresent(REVIEW,          restaurant.review(),          AttributeValue::fromS)
-                .putIfPresent(RATING,          restaurant.ratingString(),    AttributeValue::fromN)
-                .putIfPresent(TRIED_BEFORE,    restaurant.triedBefore(),     AttributeValue::fromBool)
-                .putIfNotEmpty(NOTES,      restaurant.notes())
-                .putIfNotEmpty(CATEGORIES, restaurant.categories(), Category::getValue);
+    protected AttributesCreator additionalAttributes(AttributesCreator creator, RestaurantItem restaurant) {
+        creator.put(NAME_LOWERCASE, AttributeValue.fromS(restaurant.restaurantName()
+                                                                   .toLowerCase()));
+        return RestaurantIndexes.putIndexAttributes(creator, restaurant);
     }
 }
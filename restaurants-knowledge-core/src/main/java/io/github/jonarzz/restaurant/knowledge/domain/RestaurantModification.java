@@ -1,15 +1,18 @@
 package io.github.jonarzz.restaurant.knowledge.domain;
 
 import static io.github.jonarzz.restaurant.knowledge.domain.RestaurantItem.Attributes.*;
+import static io.github.jonarzz.restaurant.knowledge.technical.dynamodb.AttributesCreator.*;
 import static java.lang.Boolean.*;
 import static java.util.Optional.*;
 import static java.util.function.Predicate.*;
 import static java.util.stream.Collectors.*;
+import static software.amazon.awssdk.services.dynamodb.model.AttributeValue.*;
 
 import lombok.*;
 import software.amazon.awssdk.services.dynamodb.model.*;
 
 import java.util.*;
+import java.util.function.*;
 
 import io.github.jonarzz.restaurant.knowledge.technical.dynamodb.*;
 
@@ -38,7 +41,7 @@ class RestaurantModification {
         if (newName == null) {
             return false;
         }
-        var newKey = new RestaurantKey(newName);
+        var newKey = new RestaurantKey(base.userId(), newName);
         return !base.getKey().equals(newKey);
     }
 
@@ -59,92 +62,123 @@ class RestaurantModification {
         }
     }
 
+    /**
+     * Attributes that differ from the base item - only those are written on update.
+     * <p>
+     * Missing review and rating mean "keep the current value", while missing notes are cleared
+     * (if anything else changes).
+     */
     @ToString
     class Changes {
 
         private String restaurantName;
-        private String review;
-        private String rating;
         private Boolean triedBefore;
+        private String review;
+        private Integer rating;
         private List<String> notes;
         private Set<Category> categories;
 
-        private boolean empty = true;
+        private final ItemUpdate itemUpdate = new ItemUpdate();
 
         Changes() {
+            var current = base.data();
             var updatedName = updateData.name();
-            if (updatedName != null && !base.restaurantName().equals(updatedName)) {
+            if (updatedName != null && !current.name().equals(updatedName)) {
                 restaurantName = updatedName;
-                empty = false;
+                if (!hasNewKey()) {
+                    // only the letter case differs - the key stays the same
+                    itemUpdate.set(RESTAURANT_NAME, fromS(updatedName));
+                }
             }
             var updatedTriedBefore = updateData.triedBefore();
-            if (updatedTriedBefore != null && base.triedBefore() != updatedTriedBefore) {
+            if (updatedTriedBefore != null && current.triedBefore() != updatedTriedBefore) {
                 triedBefore = updatedTriedBefore;
-                empty = false;
+                itemUpdate.set(TRIED_BEFORE, fromBool(updatedTriedBefore));
+                RestaurantIndexes.triedBefore(itemUpdate, updatedTriedBefore);
             }
-            var updatedReview = updateData.review();
-            if (!Objects.equals(base.review(), updatedReview)) {
-                review = updatedReview;
-                empty = false;
-            }
-            var updatedRating = updateData.rating();
-            if (!Objects.equals(base.rating(), updatedRating)) {
-                rating = Optional.ofNullable(updatedRating)
-                                 .map(Object::toString)
-                                 .orElse(null);
-                empty = false;
+            if (FALSE.equals(triedBefore)) {
+                itemUpdate.set(REVIEW, EMPTY_REVIEW)
+                          .set(RATING, EMPTY_RATING);
+            } else if (TRUE.equals(triedBefore) || current.triedBefore()) {
+                // review and rating are kept only for restaurants tried before
+                var updatedReview = updateData.review();
+                if (updatedReview != null && !updatedReview.equals(current.review())) {
+                    review = updatedReview;
+                    itemUpdate.set(REVIEW, textAttribute(updatedReview));
+                }
+                var updatedRating = updateData.rating();
+                if (updatedRating != null && !updatedRating.equals(current.rating())) {
+                    rating = updatedRating;
+                    itemUpdate.set(RATING, numberAttribute(updatedRating));
+                }
             }
             var updatedNotes = updateData.notes();
-            if (updatedNotes != null && !updatedNotes.equals(base.notes())) {
-                notes = updatedNotes.stream()
-                                    .filter(not(String::isBlank))
-                                    .collect(toList());
-                empty = false;
+            if (updatedNotes != null) {
+                updatedNotes = updatedNotes.stream()
+                                           .filter(not(String::isBlank))
+                                           .collect(toList());
+                if (!updatedNotes.equals(current.notes())) {
+                    notes = updatedNotes;
+                    setOrClear(NOTES, updatedNotes, AttributesCreator::textListAttribute);
+                }
             }
             var updatedCategories = updateData.categories();
-            if (updatedCategories != null && !base.categories().equals(updatedCategories)) {
+            if (updatedCategories != null && !current.categories().equals(updatedCategories)) {
                 categories = updatedCategories;
-                empty = false;
+                setOrClear(CATEGORIES, updatedCategories, values -> setAttribute(values, Category::getValue));
+                for (var category : Category.values()) {
+                    var present = updatedCategories.contains(category);
+                    if (present != current.categories().contains(category)) {
+                        RestaurantIndexes.category(itemUpdate, category, present);
+                    }
+                }
+            }
+            if (updatedNotes == null && !itemUpdate.isEmpty() && !current.notes().isEmpty()) {
+                // no notes on request => notes cleared
+                itemUpdate.remove(NOTES);
             }
         }
 
         boolean empty() {
-            return empty;
+            return restaurantName == null && itemUpdate.isEmpty();
         }
 
-        AttributesCreator toAttributesCreator() {
-            var creator = new AttributesCreator();
-            if (restaurantName != null) {
-                creator.putIfPresent(RESTAURANT_NAME, restaurantName, AttributeValue::fromS)
-                       .putIfPresent(NAME_LOWERCASE, restaurantName.toLowerCase(), AttributeValue::fromS);
-            }
-            if (FALSE.equals(triedBefore)) {
-                creator.put(REVIEW, EMPTY_REVIEW)
-                       .put(RATING, EMPTY_RATING);
-            } else if (TRUE.equals(triedBefore) || base.triedBefore()) {
-                creator.putIfPresent(REVIEW, review, AttributeValue::fromS)
-                       .putIfPresent(RATING, rating, AttributeValue::fromN);
-            }
-            return creator.putIfPresent(TRIED_BEFORE, triedBefore, AttributeValue::fromBool)
-                          .putIfNotEmpty(CATEGORIES, categories, Category::getValue)
-                          .putOrEmpty(NOTES, notes);
+        /**
+         * Update of the changed attributes only - not applicable if the key {@link #hasNewKey() changes}.
+         */
+        ItemUpdate toItemUpdate() {
+            return itemUpdate;
         }
 
         RestaurantData applied() {
+            var current = base.data();
+            if (FALSE.equals(triedBefore)) {
+                current.rating(null)
+                       .review(null);
+            }
             return new RestaurantData()
                     .name(ofNullable(restaurantName)
-                                  .orElseGet(base::restaurantName))
+                                  .orElseGet(current::name))
                     .categories(ofNullable(categories)
-                                        .orElseGet(base::categories))
+                                        .orElseGet(current::categories))
                     .triedBefore(ofNullable(triedBefore)
-                                         .orElseGet(base::triedBefore))
+                                         .orElseGet(current::triedBefore))
                     .rating(ofNullable(rating)
-                                    .map(Integer::valueOf)
-                                    .orElseGet(base::rating))
+                                    .orElseGet(current::rating))
                     .review(ofNullable(review)
-                                    .orElseGet(base::review))
+                                    .orElseGet(current::review))
                     .notes(ofNullable(notes)
-                                   .orElseGet(base::notes));
+                                   .orElseGet(current::notes));
+        }
+
+        private <T extends Collection<?>> void setOrClear(String attributeName, T values,
+                                                         Function<T, AttributeValue> attributeCreator) {
+            if (values.isEmpty()) {
+                // empty sets cannot be stored, empty lists are not stored for consistency
+                itemUpdate.remove(attributeName);
+            } else {
+                itemUpdate.set(attributeName, attributeCreator.apply(values));
+            }
         }
     }
 }
@@ -0,0 +1,44 @@
+package io.github.jonarzz.restaurant.knowledge.domain;
+
+import static io.github.jonarzz.restaurant.knowledge.domain.RestaurantItem.Attributes.*;
+import static software.amazon.awssdk.services.dynamodb.model.AttributeValue.*;
+import static software.amazon.awssdk.services.dynamodb.model.ComparisonOperator.*;
+
+import lombok.*;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.*;
+
+import io.github.jonarzz.restaurant.knowledge.technical.dynamodb.*;
+
+/**
+ * All restaurants of the user - the whole partition of the table.
+ */
+@ToString
+@EqualsAndHashCode
+class RestaurantPartitionCriteria implements DynamoDbQueryCriteria {
+
+    private final String userId;
+
+    RestaurantPartitionCriteria(String userId) {
+        this.userId = userId;
+    }
+
+    @Override
+    public Map<String, Condition> keyConditions() {
+        return Map.of(USER_ID, Condition.builder()
+                                        .comparisonOperator(EQ)
+                                        .attributeValueList(fromS(userId))
+                                        .build());
+    }
+
+    @Override
+    public Map<String, Condition> queryConditions() {
+        return Map.of();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return false;
+    }
+}
@@ -14,6 +14,14 @@ public class RestaurantQueryCriteria {
     private final Category category;
     private final Boolean triedBefore;
     private final Integer ratingAtLeast;
+    /**
+     * Not a criterion - attributes of the found restaurants to return, all of them if not set.
+     */
+    private final RestaurantFields fields;
+
+    public boolean summaryOnly() {
+        return fields == RestaurantFields.SUMMARY;
+    }
 
     public boolean isEmpty() {
         return nameBeginsWith == null
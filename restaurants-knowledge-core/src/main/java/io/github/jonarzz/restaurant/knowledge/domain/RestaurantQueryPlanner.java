@@ -0,0 +1,182 @@
+package io.github.jonarzz.restaurant.knowledge.domain;
+
+import lombok.extern.slf4j.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+import io.github.jonarzz.restaurant.knowledge.technical.dynamodb.*;
+
+/**
+ * Chooses the {@link RestaurantAccessPath} expected to read the least items for given criteria.
+ * <p>
+ * The estimation is based on the selectivity ({@code ScannedCount} / {@code Count}) of previous queries
+ * using the same path (see {@link RestaurantAccessPath#statisticsKey(RestaurantQueryCriteria)}) -
+ * the cost of a path is the number of items it reads per returned restaurant. The result is the same
+ * whichever path is used, so the costs multiplied by the expected result size would compare the same.
+ * Items read per request are not comparable on their own, as every request reads at most the page limit.
+ * <p>
+ * Indexes project the summary attributes only - whole restaurants found in an index are read from the table
+ * with {@code BatchGetItem}, which adds a read per returned restaurant to the cost of the index.
+ * <p>
+ * Until enough statistics are collected, fixed estimates are used - favouring the category index,
+ * then the name prefix, the rating index and the tried before indexes.
+ * <p>
+ * Indexes that are not active (e.g. still being created in a table created before they were introduced)
+ * are not used - the table is queried instead.
+ */
+@Slf4j
+class RestaurantQueryPlanner {
+
+    private static final int MIN_SAMPLES = 3;
+    // items read from the table per restaurant found in an index
+    private static final double TABLE_READS_PER_RETURNED = 1;
+
+    private final Map<String, PathStatistics> statistics = new ConcurrentHashMap<>();
+    private final Predicate<String> indexActive;
+
+    RestaurantQueryPlanner() {
+        this(indexName -> true);
+    }
+
+    RestaurantQueryPlanner(Predicate<String> indexActive) {
+        this.indexActive = indexActive;
+    }
+
+    RestaurantDynamoDbCriteria plan(RestaurantQueryCriteria criteria) {
+        return plan(criteria, null);
+    }
+
+    /**
+     * Query continued from a cursor uses the path of the query that returned the cursor,
+     * regardless of the current estimates - start key of other index would be rejected.
+     */
+    RestaurantDynamoDbCriteria plan(RestaurantQueryCriteria criteria, String cursor) {
+        Map<RestaurantAccessPath, Double> estimatedCosts = new EnumMap<>(RestaurantAccessPath.class);
+        for (var path : RestaurantAccessPath.values()) {
+            if (available(path, criteria)) {
+                estimatedCosts.put(path, estimatedCost(path, criteria));
+            }
+        }
+        var chosenPath = continuedPath(criteria, cursor)
+                .orElseGet(() -> cheapest(estimatedCosts));
+        var plan = new RestaurantDynamoDbCriteria(criteria, chosenPath, estimatedCosts,
+                                                  statistics(chosenPath, criteria));
+        log.debug("Query plan: {}", plan);
+        return plan;
+    }
+
+    private double estimatedCost(RestaurantAccessPath path, RestaurantQueryCriteria criteria) {
+        var pathStatistics = statistics.get(path.statisticsKey(criteria));
+        var scannedPerReturned = pathStatistics != null && pathStatistics.samples() >= MIN_SAMPLES
+                                 ? pathStatistics.scannedPerReturned()
+                                 : defaultCost(path, criteria);
+        return readsTable(path, criteria) ? scannedPerReturned + TABLE_READS_PER_RETURNED : scannedPerReturned;
+    }
+
+    private static boolean readsTable(RestaurantAccessPath path, RestaurantQueryCriteria criteria) {
+        return path != RestaurantAccessPath.TABLE && !criteria.summaryOnly();
+    }
+
+    private PathStatistics statistics(RestaurantAccessPath path, RestaurantQueryCriteria criteria) {
+        return statistics.computeIfAbsent(path.statisticsKey(criteria), key -> new PathStatistics());
+    }
+
+    private boolean available(RestaurantAccessPath path, RestaurantQueryCriteria criteria) {
+        if (!path.applicableTo(criteria)) {
+            return false;
+        }
+        var indexName = path.indexName(criteria);
+        return indexName == null || indexActive.test(indexName);
+    }
+
+    private Optional<RestaurantAccessPath> continuedPath(RestaurantQueryCriteria criteria, String cursor) {
+        if (cursor == null) {
+            return Optional.empty();
+        }
+        Set<String> startKeyAttributes;
+        try {
+            startKeyAttributes = DynamoDbCursor.decode(cursor)
+                                               .keySet();
+        } catch (InvalidCursorException exception) {
+            // reported by the repository
+            return Optional.empty();
+        }
+        return Arrays.stream(RestaurantAccessPath.values())
+                     .filter(path -> available(path, criteria))
+                     .filter(path -> {
+                         var distinctAttribute = path.distinctKeyAttribute(criteria);
+                         return distinctAttribute == null || startKeyAttributes.contains(distinctAttribute);
+                     })
+                     // the table matches any start key, so it is considered last
+                     .max(Comparator.comparing(path -> path.distinctKeyAttribute(criteria) != null));
+    }
+
+    private static RestaurantAccessPath cheapest(Map<RestaurantAccessPath, Double> estimatedCosts) {
+        return estimatedCosts.entrySet()
+                             .stream()
+                             .min(Map.Entry.comparingByValue())
+                             .map(Map.Entry::getKey)
+                             .orElse(RestaurantAccessPath.TABLE);
+    }
+
+    /**
+     * Rough number of items read per returned restaurant before any statistics are collected.
+     */
+    private static double defaultCost(RestaurantAccessPath path, RestaurantQueryCriteria criteria) {
+        switch (path) {
+            case CATEGORY_INDEX:
+                return 1;
+            case RATING_INDEX:
+                return 5;
+            case TRIED_BEFORE_INDEX:
+                return 10;
+            default:
+                return criteria.nameBeginsWith() == null ? 50 : 2.5;
+        }
+    }
+
+    /**
+     * Moving averages of the items read and returned per query request - only their ratio is meaningful,
+     * as the number of items read by a request is limited by the page size.
+     */
+    static class PathStatistics {
+
+        private static final double SMOOTHING = 0.2;
+
+        private long samples;
+        private double averageScanned;
+        private double averageReturned;
+
+        synchronized void record(int scannedCount, int count) {
+            if (samples++ == 0) {
+                averageScanned = scannedCount;
+                averageReturned = count;
+            } else {
+                averageScanned += SMOOTHING * (scannedCount - averageScanned);
+                averageReturned += SMOOTHING * (count - averageReturned);
+            }
+        }
+
+        synchronized long samples() {
+            return samples;
+        }
+
+        /**
+         * At least one restaurant is assumed to be returned - paths finding nothing are compared
+         * by the number of items they read then.
+         */
+        synchronized double scannedPerReturned() {
+            return averageScanned / Math.max(averageReturned, 1);
+        }
+
+        @Override
+        public synchronized String toString() {
+            var returnedPercent = averageScanned == 0 ? 100 : 100 * averageReturned / averageScanned;
+            return String.format("%.1f items read per returned, %.0f%% returned on average (%d samples)",
+                                 averageScanned / Math.max(averageReturned, 1), returnedPercent, samples);
+        }
+    }
+
+}
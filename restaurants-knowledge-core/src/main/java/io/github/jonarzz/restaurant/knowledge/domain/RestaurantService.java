@@ -1,6 +1,7 @@
 package io.github.jonarzz.restaurant.knowledge.domain;
 
 import java.util.*;
+import java.util.stream.*;
 
 import io.github.jonarzz.restaurant.knowledge.common.*;
 
@@ -10,6 +11,16 @@ public interface RestaurantService {
 
     List<RestaurantData> query(RestaurantQueryCriteria criteria);
 
+    Page<RestaurantData> query(RestaurantQueryCriteria criteria, String cursor, int limit);
+
+    /**
+     * Lazy variant of {@link #query(RestaurantQueryCriteria)} - results are read page by page as the stream
+     * is consumed, so they are never held in memory as a whole.
+     * <p>
+     * The user is resolved when the stream is created - it can be consumed outside of the user's security context.
+     */
+    Stream<RestaurantData> stream(RestaurantQueryCriteria criteria);
+
     ModificationResultType create(RestaurantData restaurantData);
 
     ModificationResult<RestaurantData> update(String restaurantName, RestaurantData updateData);
@@ -25,4 +36,20 @@ public interface RestaurantService {
     ModificationResultType replaceCategories(String restaurantName, Set<Category> categories);
 
     ModificationResultType replaceNotes(String restaurantName, List<String> notes);
+
+    ModificationResult<Set<Category>> addCategory(String restaurantName, Category category);
+
+    ModificationResultType removeCategory(String restaurantName, Category category);
+
+    ModificationResult<List<String>> addNote(String restaurantName, String note);
+
+    /**
+     * @return {@code NO_CHANGES} if there is no note with given index
+     */
+    ModificationResult<List<String>> replaceNote(String restaurantName, int noteIndex, String note);
+
+    /**
+     * @return {@code NO_CHANGES} if there is no note with given index
+     */
+    ModificationResultType removeNote(String restaurantName, int noteIndex);
 }
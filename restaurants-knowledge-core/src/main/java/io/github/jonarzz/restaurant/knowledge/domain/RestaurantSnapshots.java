@@ -0,0 +1,160 @@
+package io.github.jonarzz.restaurant.knowledge.domain;
+
+import static java.util.stream.Collectors.*;
+
+import lombok.extern.slf4j.*;
+
+import java.util.*;
+
+/**
+ * In-memory {@link UserRestaurantsSnapshot snapshots} of the restaurants of the most recently active users.
+ * <p>
+ * A snapshot is loaded with a single query of the user's partition and then maintained by the service writes.
+ * Changes made by other application instances should be passed to {@link #restaurantChanged(String, String)}.
+ * <p>
+ * Every write moves the user to the next version. A snapshot loaded concurrently with a write of the same user
+ * is used only for the query that loaded it, as the write might have been missed by the load. A restaurant
+ * re-read after a remote change is applied only if the user was not written in the meantime - the snapshot
+ * is dropped otherwise, as the read state might be outdated already.
+ */
+@Slf4j
+public class RestaurantSnapshots implements RestaurantChangeListener {
+
+    private final RestaurantDynamoDbRepository repository;
+    // guarded by this
+    private final Map<String, UserRestaurantsSnapshot> snapshots;
+    // user ID -> version, kept while the user has a snapshot or a load in progress; guarded by this
+    private final Map<String, UserVersion> versions = new HashMap<>();
+
+    RestaurantSnapshots(RestaurantDynamoDbRepository repository, int maxUsers) {
+        this.repository = repository;
+        snapshots = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, UserRestaurantsSnapshot> eldest) {
+                if (size() <= maxUsers) {
+                    return false;
+                }
+                forgetVersion(eldest.getKey());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Re-reads the changed restaurant if the user has a snapshot.
+     */
+    @Override
+    public void restaurantChanged(String userId, String nameLowercase) {
+        UserVersion userVersion;
+        long versionBeforeRead;
+        synchronized (this) {
+            if (!snapshots.containsKey(userId)) {
+                // a load in progress might have missed the change
+                nextVersion(userId);
+                return;
+            }
+            userVersion = versions.get(userId);
+            versionBeforeRead = userVersion.version;
+        }
+        var found = repository.findByKey(new RestaurantKey(userId, nameLowercase));
+        synchronized (this) {
+            var snapshot = snapshots.get(userId);
+            if (snapshot == null) {
+                nextVersion(userId);
+                return;
+            }
+            if (versions.get(userId) != userVersion || userVersion.version != versionBeforeRead) {
+                log.debug("Dropping snapshot of user {} - written while {} was read", userId, nameLowercase);
+                snapshots.remove(userId);
+                forgetVersion(userId);
+                nextVersion(userId);
+                return;
+            }
+            userVersion.version++;
+            found.ifPresentOrElse(snapshot::put,
+                                  () -> snapshot.remove(nameLowercase));
+        }
+    }
+
+    /**
+     * Drops all the snapshots - they are loaded again when needed.
+     */
+    @Override
+    public synchronized void changesMissed() {
+        snapshots.clear();
+        versions.values()
+                .removeIf(userVersion -> userVersion.loads == 0);
+        versions.values()
+                .forEach(userVersion -> userVersion.version++);
+    }
+
+    UserRestaurantsSnapshot forUser(String userId) {
+        UserVersion userVersion;
+        long versionBeforeLoad;
+        synchronized (this) {
+            var snapshot = snapshots.get(userId);
+            if (snapshot != null) {
+                return snapshot;
+            }
+            userVersion = versions.computeIfAbsent(userId, id -> new UserVersion());
+            userVersion.loads++;
+            versionBeforeLoad = userVersion.version;
+        }
+        UserRestaurantsSnapshot snapshot = null;
+        try {
+            snapshot = new UserRestaurantsSnapshot(repository.stream(new RestaurantPartitionCriteria(userId))
+                                                             .collect(toList()));
+            log.debug("Loaded snapshot of {} restaurants of user {}", snapshot.size(), userId);
+            return snapshot;
+        } finally {
+            synchronized (this) {
+                userVersion.loads--;
+                if (snapshot != null && userVersion.version == versionBeforeLoad
+                    && versions.get(userId) == userVersion && !snapshots.containsKey(userId)) {
+                    snapshots.put(userId, snapshot);
+                } else if (!snapshots.containsKey(userId)) {
+                    forgetVersion(userId);
+                }
+            }
+        }
+    }
+
+    synchronized void written(RestaurantItem item) {
+        nextVersion(item.userId());
+        var snapshot = snapshots.get(item.userId());
+        if (snapshot != null) {
+            snapshot.put(item);
+        }
+    }
+
+    synchronized void deleted(RestaurantKey key) {
+        nextVersion(key.userId());
+        var snapshot = snapshots.get(key.userId());
+        if (snapshot != null) {
+            snapshot.remove(key.nameLowercase());
+        }
+    }
+
+    // called with the lock held
+    private void nextVersion(String userId) {
+        var userVersion = versions.get(userId);
+        if (userVersion != null) {
+            userVersion.version++;
+        }
+    }
+
+    // called with the lock held
+    private void forgetVersion(String userId) {
+        var userVersion = versions.get(userId);
+        if (userVersion != null && userVersion.loads == 0) {
+            versions.remove(userId);
+        }
+    }
+
+    private static class UserVersion {
+
+        private long version;
+        private int loads;
+    }
+
+}
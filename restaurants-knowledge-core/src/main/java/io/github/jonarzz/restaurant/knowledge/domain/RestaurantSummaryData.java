@@ -0,0 +1,12 @@
+package io.github.jonarzz.restaurant.knowledge.domain;
+
+import com.fasterxml.jackson.annotation.*;
+
+/**
+ * Restaurant data listed in query results - the attributes not read for a summary (review and notes)
+ * are omitted instead of being returned as nulls.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RestaurantSummaryData extends RestaurantData {
+
+}
@@ -0,0 +1,38 @@
+package io.github.jonarzz.restaurant.knowledge.domain;
+
+import static io.github.jonarzz.restaurant.knowledge.domain.RestaurantItem.Attributes.*;
+
+import java.util.*;
+
+import io.github.jonarzz.restaurant.knowledge.technical.dynamodb.*;
+
+/**
+ * Maps items read with {@link RestaurantFields#SUMMARY} attributes only - review and notes are not read.
+ */
+class RestaurantSummaryMapper implements ItemProjection<RestaurantItem> {
+
+    static final RestaurantSummaryMapper INSTANCE = new RestaurantSummaryMapper();
+
+    private static final List<String> ATTRIBUTE_NAMES = List.of(
+            USER_ID, RESTAURANT_NAME, CATEGORIES, TRIED_BEFORE, RATING
+    );
+
+    private RestaurantSummaryMapper() {
+    }
+
+    @Override
+    public List<String> attributeNames() {
+        return ATTRIBUTE_NAMES;
+    }
+
+    @Override
+    public RestaurantItem createItem(ItemExtractor extractor) {
+        return RestaurantItem.builder()
+                             .userId(extractor.string(USER_ID))
+                             .restaurantName(extractor.string(RESTAURANT_NAME))
+                             .categories(extractor.set(CATEGORIES, Category::valueOf))
+                             .triedBefore(extractor.bool(TRIED_BEFORE))
+                             .rating(extractor.integer(RATING))
+                             .build();
+    }
+}
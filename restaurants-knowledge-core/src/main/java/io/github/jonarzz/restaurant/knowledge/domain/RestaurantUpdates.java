@@ -0,0 +1,101 @@
+package io.github.jonarzz.restaurant.knowledge.domain;
+
+import static io.github.jonarzz.restaurant.knowledge.domain.RestaurantItem.Attributes.*;
+import static io.github.jonarzz.restaurant.knowledge.domain.RestaurantModification.*;
+import static io.github.jonarzz.restaurant.knowledge.technical.dynamodb.AttributesCreator.*;
+import static software.amazon.awssdk.services.dynamodb.model.AttributeValue.*;
+
+import java.util.*;
+
+import io.github.jonarzz.restaurant.knowledge.technical.dynamodb.*;
+
+/**
+ * Single attribute updates shared by the blocking and the asynchronous service.
+ * <p>
+ * Each update is conditional on the target attribute being different from the stored one.
+ * Index attributes derived from the updated ones are written in the same request - see {@link RestaurantIndexes}.
+ */
+class RestaurantUpdates {
+
+    private RestaurantUpdates() {
+    }
+
+    static ItemUpdate rating(int rating) {
+        var update = new ItemUpdate()
+                .change(RATING, numberAttribute(rating));
+        return markedAsTried(update);
+    }
+
+    static ItemUpdate review(String review) {
+        if (review == null) {
+            return new ItemUpdate()
+                    .clear(REVIEW);
+        }
+        var update = new ItemUpdate()
+                .change(REVIEW, textAttribute(review));
+        return markedAsTried(update);
+    }
+
+    static ItemUpdate triedBefore(boolean tried) {
+        var update = new ItemUpdate()
+                .change(TRIED_BEFORE, fromBool(tried));
+        if (!tried) {
+            update.set(RATING, EMPTY_RATING)
+                  .set(REVIEW, EMPTY_REVIEW);
+        }
+        return RestaurantIndexes.triedBefore(update, tried);
+    }
+
+    static ItemUpdate categories(Set<Category> categories) {
+        var update = new ItemUpdate();
+        if (categories.isEmpty()) {
+            // empty sets cannot be stored
+            update.clear(CATEGORIES);
+        } else {
+            update.change(CATEGORIES, setAttribute(categories, Category::getValue));
+        }
+        return RestaurantIndexes.categories(update, categories);
+    }
+
+    static ItemUpdate notes(List<String> notes) {
+        if (notes.isEmpty()) {
+            return new ItemUpdate()
+                    .clear(NOTES);
+        }
+        return new ItemUpdate()
+                .change(NOTES, textListAttribute(notes));
+    }
+
+    static ItemUpdate addCategory(Category category) {
+        var update = new ItemUpdate()
+                .addElements(CATEGORIES, setAttribute(Set.of(category), Category::getValue));
+        return RestaurantIndexes.category(update, category, true);
+    }
+
+    static ItemUpdate removeCategory(Category category) {
+        var update = new ItemUpdate()
+                .deleteElements(CATEGORIES, setAttribute(Set.of(category), Category::getValue));
+        return RestaurantIndexes.category(update, category, false);
+    }
+
+    static ItemUpdate addNote(String note) {
+        return new ItemUpdate()
+                .appendElements(NOTES, textListAttribute(List.of(note)));
+    }
+
+    static ItemUpdate replaceNote(int index, String note) {
+        return new ItemUpdate()
+                .setElement(NOTES, index, textAttribute(note));
+    }
+
+    static ItemUpdate removeNote(int index) {
+        return new ItemUpdate()
+                .removeElement(NOTES, index);
+    }
+
+    private static ItemUpdate markedAsTried(ItemUpdate update) {
+        update.set(TRIED_BEFORE, fromBool(true));
+        return RestaurantIndexes.triedBefore(update, true);
+    }
+
+}
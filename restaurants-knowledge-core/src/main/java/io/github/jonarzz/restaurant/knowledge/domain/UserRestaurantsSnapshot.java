@@ -0,0 +1,175 @@
+package io.github.jonarzz.restaurant.knowledge.domain;
+
+import static io.github.jonarzz.restaurant.knowledge.domain.RestaurantAccessPath.*;
+import static java.lang.Boolean.*;
+
+import java.util.*;
+import java.util.stream.*;
+
+/**
+ * All restaurants of a single user, indexed to answer any {@link RestaurantQueryCriteria} in memory.
+ * <p>
+ * Results are ordered by lowercase name (as the results of a table query) - the most selective index
+ * is iterated in that order and the remaining criteria are checked for each of its entries.
+ */
+class UserRestaurantsSnapshot {
+
+    private static final int MAX_RATING = 10;
+    private static final int STREAM_PAGE_SIZE = 100;
+
+    // lowercase name -> restaurant
+    private final NavigableMap<String, RestaurantItem> restaurants = new TreeMap<>();
+    // lowercase name -> categories as a bit vector
+    private final Map<String, EnumSet<Category>> categories = new HashMap<>();
+    private final Map<Category, NavigableSet<String>> namesByCategory = new EnumMap<>(Category.class);
+    // index = rating, restaurants without rating are not indexed
+    private final List<NavigableSet<String>> namesByRating = new ArrayList<>(MAX_RATING + 1);
+    private final NavigableSet<String> triedNames = new TreeSet<>();
+
+    UserRestaurantsSnapshot(Collection<RestaurantItem> items) {
+        for (var category : Category.values()) {
+            namesByCategory.put(category, new TreeSet<>());
+        }
+        for (var rating = 0; rating <= MAX_RATING; rating++) {
+            namesByRating.add(new TreeSet<>());
+        }
+        items.forEach(this::put);
+    }
+
+    synchronized int size() {
+        return restaurants.size();
+    }
+
+    synchronized Optional<RestaurantItem> find(String nameLowercase) {
+        return Optional.ofNullable(restaurants.get(nameLowercase));
+    }
+
+    /**
+     * @param afterName lowercase name of the last restaurant of the previous page, {@code null} for the first page
+     * @param limit     maximum number of returned restaurants
+     */
+    synchronized List<RestaurantItem> query(RestaurantQueryCriteria criteria, String afterName, int limit) {
+        var candidates = candidates(criteria);
+        if (afterName != null) {
+            candidates = candidates.tailSet(afterName, false);
+        }
+        var found = new ArrayList<RestaurantItem>();
+        for (var name : candidates) {
+            if (found.size() == limit) {
+                break;
+            }
+            if (matches(name, criteria)) {
+                found.add(restaurants.get(name));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Lazily iterated results, found a page at a time - restaurants written while the stream is consumed
+     * are found or not depending on the page they fall into (as with a paginated table query).
+     */
+    Stream<RestaurantItem> stream(RestaurantQueryCriteria criteria) {
+        return Stream.iterate(query(criteria, null, STREAM_PAGE_SIZE),
+                              page -> !page.isEmpty(),
+                              page -> page.size() < STREAM_PAGE_SIZE
+                                      ? List.of()
+                                      : query(criteria, page.get(page.size() - 1)
+                                                            .getKey()
+                                                            .nameLowercase(), STREAM_PAGE_SIZE))
+                     .flatMap(List::stream);
+    }
+
+    synchronized void put(RestaurantItem item) {
+        var name = item.getKey()
+                       .nameLowercase();
+        remove(name);
+        restaurants.put(name, item);
+        var itemCategories = item.categories()
+                                 .isEmpty()
+                             ? EnumSet.noneOf(Category.class)
+                             : EnumSet.copyOf(item.categories());
+        categories.put(name, itemCategories);
+        itemCategories.forEach(category -> namesByCategory.get(category)
+                                                          .add(name));
+        namesByRating.get(ratingOf(item))
+                     .add(name);
+        if (item.triedBefore()) {
+            triedNames.add(name);
+        }
+    }
+
+    synchronized void remove(String nameLowercase) {
+        var removed = restaurants.remove(nameLowercase);
+        if (removed == null) {
+            return;
+        }
+        categories.remove(nameLowercase)
+                  .forEach(category -> namesByCategory.get(category)
+                                                      .remove(nameLowercase));
+        namesByRating.get(ratingOf(removed))
+                     .remove(nameLowercase);
+        triedNames.remove(nameLowercase);
+    }
+
+    /**
+     * Names sorted in the result order, narrowed down by the most selective criterion.
+     */
+    private NavigableSet<String> candidates(RestaurantQueryCriteria criteria) {
+        NavigableSet<String> candidates = restaurants.navigableKeySet();
+        var prefix = criteria.nameBeginsWith();
+        if (prefix != null) {
+            var lowercasePrefix = prefix.toLowerCase();
+            candidates = restaurants.subMap(lowercasePrefix, true, lowercasePrefix + Character.MAX_VALUE, false)
+                                    .navigableKeySet();
+        }
+        if (criteria.category() != null) {
+            candidates = smaller(candidates, namesByCategory.get(criteria.category()));
+        }
+        if (TRUE.equals(criteria.triedBefore())) {
+            candidates = smaller(candidates, triedNames);
+        }
+        if (ratingApplicable(criteria)) {
+            var ratingFrom = Math.max(criteria.ratingAtLeast(), 1);
+            var ratedCount = 0;
+            for (var rating = ratingFrom; rating <= MAX_RATING; rating++) {
+                ratedCount += namesByRating.get(rating)
+                                           .size();
+            }
+            if (ratedCount < candidates.size()) {
+                var rated = new TreeSet<String>();
+                for (var rating = ratingFrom; rating <= MAX_RATING; rating++) {
+                    rated.addAll(namesByRating.get(rating));
+                }
+                candidates = rated;
+            }
+        }
+        return candidates;
+    }
+
+    private boolean matches(String name, RestaurantQueryCriteria criteria) {
+        var prefix = criteria.nameBeginsWith();
+        if (prefix != null && !name.startsWith(prefix.toLowerCase())) {
+            return false;
+        }
+        if (criteria.category() != null && !categories.get(name)
+                                                       .contains(criteria.category())) {
+            return false;
+        }
+        if (criteria.triedBefore() != null && criteria.triedBefore() != triedNames.contains(name)) {
+            return false;
+        }
+        return !ratingApplicable(criteria) || ratingOf(restaurants.get(name)) >= criteria.ratingAtLeast();
+    }
+
+    private static NavigableSet<String> smaller(NavigableSet<String> first, NavigableSet<String> second) {
+        return second.size() < first.size() ? second : first;
+    }
+
+    private static int ratingOf(RestaurantItem item) {
+        // rating = 0 - empty value in DynamoDB
+        var rating = item.rating();
+        return rating == null ? 0 : Math.min(Math.max(rating, 0), MAX_RATING);
+    }
+
+}
@@ -3,6 +3,7 @@ package io.github.jonarzz.restaurant.knowledge.technical.auth;
 import lombok.extern.slf4j.*;
 
 import java.util.*;
+import java.util.function.*;
 
 @Slf4j
 public class SecurityContext {
@@ -24,4 +25,22 @@ public class SecurityContext {
                                                                     + SecurityContext.class.getName()));
     }
 
+    /**
+     * Runs the action as the given user - for the work done outside of the thread handling the request.
+     * The user previously set for the current thread is restored afterwards.
+     */
+    public static <T> T runAs(String userId, Supplier<T> action) {
+        var previousUserId = CURRENT_USER.get();
+        setUserId(userId);
+        try {
+            return action.get();
+        } finally {
+            if (previousUserId == null) {
+                CURRENT_USER.remove();
+            } else {
+                CURRENT_USER.set(previousUserId);
+            }
+        }
+    }
+
 }
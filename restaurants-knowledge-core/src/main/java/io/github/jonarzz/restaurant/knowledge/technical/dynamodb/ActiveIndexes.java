@@ -0,0 +1,92 @@
+package io.github.jonarzz.restaurant.knowledge.technical.dynamodb;
+
+import static java.util.stream.Collectors.*;
+
+import lombok.extern.slf4j.*;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+/**
+ * Secondary indexes of a table that can be queried - an index missing in a table created before the index
+ * was introduced, or an index still being created (and backfilled), is not.
+ * <p>
+ * The statuses are read from the table description - again at most once per {@link #REFRESH_INTERVAL},
+ * as long as any of the defined indexes is not active.
+ */
+@Slf4j
+class ActiveIndexes {
+
+    private static final Duration REFRESH_INTERVAL = Duration.ofMinutes(1);
+
+    private final Set<String> definedIndexes;
+    private final Supplier<CompletableFuture<TableDescription>> tableDescription;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private volatile Set<String> activeIndexes = Set.of();
+    private volatile long nextRefreshNanos = System.nanoTime();
+
+    ActiveIndexes(CreateTableRequest tableDefinition, Supplier<CompletableFuture<TableDescription>> tableDescription) {
+        definedIndexes = tableDefinition.globalSecondaryIndexes()
+                                        .stream()
+                                        .map(GlobalSecondaryIndex::indexName)
+                                        .collect(toUnmodifiableSet());
+        this.tableDescription = tableDescription;
+    }
+
+    boolean contains(String indexName) {
+        if (!activeIndexes.contains(indexName) && definedIndexes.contains(indexName)
+            && System.nanoTime() - nextRefreshNanos >= 0) {
+            refresh();
+        }
+        return activeIndexes.contains(indexName);
+    }
+
+    private void refresh() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        nextRefreshNanos = System.nanoTime() + REFRESH_INTERVAL.toNanos();
+        CompletableFuture<TableDescription> description;
+        try {
+            description = tableDescription.get();
+        } catch (RuntimeException exception) {
+            description = CompletableFuture.failedFuture(exception);
+        }
+        description.whenComplete((table, exception) -> {
+            try {
+                if (exception != null) {
+                    log.warn("Could not read statuses of the indexes - querying the table instead", exception);
+                    return;
+                }
+                activeIndexes = activeIndexNames(table);
+                if (!activeIndexes.containsAll(definedIndexes)) {
+                    var inactive = new TreeSet<>(definedIndexes);
+                    inactive.removeAll(activeIndexes);
+                    log.info("Indexes {} of table {} are not active - querying the table instead",
+                             inactive, table.tableName());
+                }
+            } finally {
+                refreshing.set(false);
+            }
+        });
+    }
+
+    private static Set<String> activeIndexNames(TableDescription table) {
+        if (!table.hasGlobalSecondaryIndexes()) {
+            return Set.of();
+        }
+        return table.globalSecondaryIndexes()
+                    .stream()
+                    .filter(index -> index.indexStatus() == IndexStatus.ACTIVE)
+                    // index being backfilled is reported as active already
+                    .filter(index -> !Boolean.TRUE.equals(index.backfilling()))
+                    .map(GlobalSecondaryIndexDescription::indexName)
+                    .collect(toUnmodifiableSet());
+    }
+
+}
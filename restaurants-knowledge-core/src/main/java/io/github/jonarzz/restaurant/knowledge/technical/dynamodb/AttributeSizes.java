@@ -0,0 +1,91 @@
+package io.github.jonarzz.restaurant.knowledge.technical.dynamodb;
+
+import static java.nio.charset.StandardCharsets.*;
+
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.*;
+
+/**
+ * Size estimation following the DynamoDB item size rules - the sizes are used for debugging only,
+ * the values billed by DynamoDB may differ slightly (e.g. for numbers).
+ */
+class AttributeSizes {
+
+    private static final int DOCUMENT_OVERHEAD = 3;
+    private static final int ELEMENT_OVERHEAD = 1;
+
+    private AttributeSizes() {
+    }
+
+    static int sizeOf(String name, AttributeValue value) {
+        return sizeOf(name) + sizeOf(value);
+    }
+
+    static int sizeOf(String text) {
+        return text.getBytes(UTF_8).length;
+    }
+
+    static int sizeOf(AttributeValue value) {
+        switch (value.type()) {
+            case S:
+                return sizeOf(value.s());
+            case N:
+                return numberSize(value.n());
+            case B:
+                return value.b()
+                            .asByteArray().length;
+            case BOOL:
+            case NUL:
+                return 1;
+            case SS:
+                return value.ss()
+                            .stream()
+                            .mapToInt(AttributeSizes::sizeOf)
+                            .sum();
+            case NS:
+                return value.ns()
+                            .stream()
+                            .mapToInt(AttributeSizes::numberSize)
+                            .sum();
+            case BS:
+                return value.bs()
+                            .stream()
+                            .mapToInt(bytes -> bytes.asByteArray().length)
+                            .sum();
+            case L:
+                return DOCUMENT_OVERHEAD + value.l()
+                                                .stream()
+                                                .mapToInt(element -> ELEMENT_OVERHEAD + sizeOf(element))
+                                                .sum();
+            case M:
+                return DOCUMENT_OVERHEAD + value.m()
+                                                .entrySet()
+                                                .stream()
+                                                .mapToInt(entry -> ELEMENT_OVERHEAD
+                                                                   + sizeOf(entry.getKey(), entry.getValue()))
+                                                .sum();
+            default:
+                throw new IllegalArgumentException("Unknown attribute value type: " + value);
+        }
+    }
+
+    static int sizeOf(Map<String, AttributeValue> item) {
+        return item.entrySet()
+                   .stream()
+                   .mapToInt(entry -> sizeOf(entry.getKey(), entry.getValue()))
+                   .sum();
+    }
+
+    /**
+     * Roughly one byte per two significant digits plus one byte.
+     */
+    private static int numberSize(String number) {
+        var significantDigits = number.replaceFirst("^[-+]?0*", "")
+                                      .replaceFirst("[eE].*$", "")
+                                      .replace(".", "")
+                                      .length();
+        return (significantDigits + 1) / 2 + 1;
+    }
+
+}
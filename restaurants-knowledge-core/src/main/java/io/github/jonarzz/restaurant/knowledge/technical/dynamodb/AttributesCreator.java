@@ -25,6 +25,23 @@ public class AttributesCreator {
                            .collect(toList()));
     }
 
+    /**
+     * @see CompressedText
+     */
+    public static AttributeValue textAttribute(String text) {
+        return CompressedText.encode(text);
+    }
+
+    /**
+     * List of {@link #textAttribute(String) text attributes} - each element is compressed separately,
+     * so that the elements can still be appended, replaced and removed one by one.
+     */
+    public static AttributeValue textListAttribute(List<String> values) {
+        return fromL(values.stream()
+                           .map(CompressedText::encode)
+                           .collect(toList()));
+    }
+
     public static <S> AttributeValue setAttribute(Set<S> values, Function<S, String> mapper) {
         return AttributeValue.builder()
                              .ss(values.stream()
@@ -33,18 +50,6 @@ public class AttributesCreator {
                              .build();
     }
 
-    public static AttributeValueUpdate asUpdateAttribute(AttributeValue attributeValue) {
-        return AttributeValueUpdate.builder()
-                                   .value(attributeValue)
-                                   .build();
-    }
-
-    public static AttributeValueUpdate asNumberUpdateAttribute(Integer value) {
-        return AttributeValueUpdate.builder()
-                                   .value(numberAttribute(value))
-                                   .build();
-    }
-
     public AttributesCreator put(String attributeName, AttributeValue attributeValue) {
         attributes.put(attributeName, attributeValue);
         return this;
@@ -65,13 +70,6 @@ public class AttributesCreator {
         return this;
     }
 
-    public AttributesCreator putOrEmpty(String attributeName, List<String> values) {
-        values = Optional.ofNullable(values)
-                         .orElse(List.of());
-        attributes.put(attributeName, listAttribute(values));
-        return this;
-    }
-
     public <S> AttributesCreator putIfNotEmpty(String attributeName, Set<S> values, Function<S, String> mapper) {
         if (values != null && !values.isEmpty()) {
             attributes.put(attributeName, setAttribute(values, mapper));
@@ -83,13 +81,4 @@ public class AttributesCreator {
         return attributes;
     }
 
-    Map<String, AttributeValueUpdate> toUpdateAttributes() {
-        return attributes.entrySet()
-                         .stream()
-                         .collect(toMap(Map.Entry::getKey,
-                                        entry -> AttributeValueUpdate.builder()
-                                                                     .value(entry.getValue())
-                                                                     .build()));
-    }
-
 }
@@ -0,0 +1,101 @@
+package io.github.jonarzz.restaurant.knowledge.technical.dynamodb;
+
+import static java.nio.charset.StandardCharsets.*;
+
+import software.amazon.awssdk.core.*;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.io.*;
+import java.util.zip.*;
+
+/**
+ * Text attributes stored compressed when long enough for it to pay off - as a binary attribute
+ * holding a codec marker byte followed by the compressed UTF-8 bytes.
+ * Shorter texts (and texts that do not compress) are stored as plain string attributes.
+ * <p>
+ * Both forms are read, so items written before the compression was introduced stay readable.
+ * Compressed texts are not comparable with plain ones in conditions or queries ({@code begins_with} etc.) -
+ * only free-form texts that are never searched by should be compressed.
+ */
+public class CompressedText {
+
+    /**
+     * Texts with fewer UTF-8 bytes are stored as strings.
+     */
+    public static final int MIN_COMPRESSED_LENGTH = 512;
+
+    private static final byte DEFLATE = 1;
+
+    private CompressedText() {
+    }
+
+    public static AttributeValue encode(String text) {
+        var bytes = text.getBytes(UTF_8);
+        if (bytes.length < MIN_COMPRESSED_LENGTH) {
+            return AttributeValue.fromS(text);
+        }
+        var compressed = deflate(bytes);
+        if (compressed.length >= bytes.length) {
+            return AttributeValue.fromS(text);
+        }
+        return AttributeValue.fromB(SdkBytes.fromByteArray(compressed));
+    }
+
+    /**
+     * @return the text of a string attribute or of a binary attribute written by {@link #encode(String)}
+     */
+    public static String decode(AttributeValue value) {
+        if (value.s() != null) {
+            return value.s();
+        }
+        var bytes = value.b();
+        if (bytes == null) {
+            return null;
+        }
+        var compressed = bytes.asByteArray();
+        if (compressed.length == 0 || compressed[0] != DEFLATE) {
+            throw new IllegalArgumentException("Unknown text codec marker: "
+                                               + (compressed.length == 0 ? "none" : compressed[0]));
+        }
+        return new String(inflate(compressed), UTF_8);
+    }
+
+    private static byte[] deflate(byte[] bytes) {
+        var deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            var output = new ByteArrayOutputStream(bytes.length / 2);
+            output.write(DEFLATE);
+            var buffer = new byte[1024];
+            while (!deflater.finished()) {
+                output.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] compressed) {
+        var inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed, 1, compressed.length - 1);
+            var output = new ByteArrayOutputStream(compressed.length * 3);
+            var buffer = new byte[1024];
+            while (!inflater.finished()) {
+                var inflated = inflater.inflate(buffer);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated compressed text");
+                }
+                output.write(buffer, 0, inflated);
+            }
+            return output.toByteArray();
+        } catch (DataFormatException exception) {
+            throw new IllegalArgumentException("Malformed compressed text", exception);
+        } finally {
+            inflater.end();
+        }
+    }
+
+}
@@ -0,0 +1,252 @@
+package io.github.jonarzz.restaurant.knowledge.technical.dynamodb;
+
+import static io.github.jonarzz.restaurant.knowledge.technical.dynamodb.DynamoDbRequests.*;
+import static java.util.concurrent.CompletableFuture.*;
+
+import lombok.*;
+import lombok.extern.slf4j.*;
+import software.amazon.awssdk.services.dynamodb.*;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import io.github.jonarzz.restaurant.knowledge.common.*;
+
+/**
+ * Non-blocking counterpart of {@link DynamoDbRepository}.
+ * <p>
+ * Returned futures are completed on the SDK threads, so anything depending on thread-bound state
+ * (e.g. the current user) has to be resolved before calling the repository.
+ * <p>
+ * Indexes and the stream missing in an existing table are created by the blocking repository only.
+ */
+@Slf4j
+public abstract class DynamoDbAsyncRepository<T extends DynamoDbTable<K>, K extends DynamoDbKey> {
+
+    private DynamoDbRequests<T, K> requests;
+    private DynamoDbAsyncClient client;
+    private ActiveIndexes activeIndexes;
+
+    protected DynamoDbAsyncRepository(String tableName, ItemMapper<T> itemMapper, DynamoDbAsyncClient client) {
+        this.requests = new DynamoDbRequests<>(tableName, itemMapper, prepareCreateTableRequest());
+        this.client = client;
+        // statuses are refreshed in the background - the table is queried until they are known
+        activeIndexes = new ActiveIndexes(requests.tableDefinition(),
+                                          () -> client.describeTable(requests.describeTable())
+                                                      .thenApply(DescribeTableResponse::table));
+        if (DynamoDbRepository.createTablesOnInstantiation) {
+            createTable();
+        }
+    }
+
+    /**
+     * @see DynamoDbRepository#indexActive(String)
+     */
+    public boolean indexActive(String indexName) {
+        return activeIndexes.contains(indexName);
+    }
+
+    public CompletableFuture<Optional<T>> findByKey(K key) {
+        return client.getItem(requests.getItem(key))
+                     .thenApply(requests::toItem);
+    }
+
+    public CompletableFuture<List<T>> query(DynamoDbQueryCriteria criteria) {
+        return query(criteria, requests.allAttributes());
+    }
+
+    public CompletableFuture<List<T>> query(DynamoDbQueryCriteria criteria, ItemProjection<T> projection) {
+        QueryRequest request;
+        try {
+            request = requests.query(criteria, projection)
+                              .build();
+        } catch (IllegalArgumentException exception) {
+            return failedFuture(exception);
+        }
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        // the consumer is called sequentially, one page after another
+        return client.queryPaginator(request)
+                     .subscribe(response -> {
+                         criteria.recordPage(response.scannedCount(), response.count());
+                         items.addAll(response.items());
+                     })
+                     .thenCompose(done -> toItems(items, criteria, projection));
+    }
+
+    public CompletableFuture<Page<T>> query(DynamoDbQueryCriteria criteria, String cursor, int limit) {
+        return query(criteria, cursor, limit, requests.allAttributes());
+    }
+
+    public CompletableFuture<Page<T>> query(DynamoDbQueryCriteria criteria, String cursor, int limit,
+                                            ItemProjection<T> projection) {
+        QueryRequest.Builder requestBuilder;
+        Map<String, AttributeValue> startKey;
+        try {
+            validateLimit(limit);
+            requestBuilder = requests.query(criteria, projection);
+            startKey = DynamoDbCursor.decode(cursor);
+        } catch (IllegalArgumentException exception) {
+            return failedFuture(exception);
+        }
+        return queryPage(new PageQuery(criteria, projection, requestBuilder, cursor, limit), startKey,
+                         new ArrayList<>(limit));
+    }
+
+    /**
+     * @return future completed with {@code false} if an item with the same key already exists
+     */
+    public CompletableFuture<Boolean> create(T item) {
+        return client.putItem(requests.putItemIfNotExists(item))
+                     .handle((response, exception) -> {
+                         if (exception == null) {
+                             return true;
+                         }
+                         var cause = exception instanceof CompletionException ? exception.getCause() : exception;
+                         if (cause instanceof ConditionalCheckFailedException) {
+                             log.debug("Item with key {} already exists", item.getKey());
+                             return false;
+                         }
+                         throw new CompletionException(cause);
+                     });
+    }
+
+    /**
+     * @see DynamoDbRepository#update(DynamoDbKey, ItemUpdate)
+     */
+    public CompletableFuture<ModificationResult<T>> update(K key, ItemUpdate update) {
+        log.debug("Updating item with key {} - payload of about {} bytes", key, update.payloadSize());
+        UpdateItemRequest request;
+        try {
+            request = requests.updateItem(key, update);
+        } catch (IllegalArgumentException exception) {
+            return failedFuture(exception);
+        }
+        return client.updateItem(request)
+                     .<CompletableFuture<ModificationResult<T>>>handle((response, exception) -> {
+                         if (exception == null) {
+                             return completedFuture(ModificationResult.success(requests.toItem(response.attributes())));
+                         }
+                         var cause = exception instanceof CompletionException ? exception.getCause() : exception;
+                         if (!(cause instanceof ConditionalCheckFailedException)) {
+                             return failedFuture(cause);
+                         }
+                         return client.getItem(requests.getItemKey(key))
+                                      .thenApply(DynamoDbRequests::<T>rejectedUpdateResult);
+                     })
+                     .thenCompose(result -> result);
+    }
+
+    /**
+     * @see DynamoDbRepository#replace(DynamoDbTable, DynamoDbTable)
+     */
+    public CompletableFuture<ModificationResult<T>> replace(T replaced, T replacement) {
+        TransactWriteItemsRequest request;
+        try {
+            request = requests.replaceItem(replaced, replacement);
+        } catch (IllegalArgumentException exception) {
+            return failedFuture(exception);
+        }
+        return client.transactWriteItems(request)
+                     .<ModificationResult<T>>handle((response, exception) -> {
+                         if (exception == null) {
+                             return ModificationResult.success(replacement);
+                         }
+                         var cause = exception instanceof CompletionException ? exception.getCause() : exception;
+                         if (cause instanceof TransactionCanceledException) {
+                             return cancelledReplacementResult((TransactionCanceledException) cause);
+                         }
+                         throw new CompletionException(cause);
+                     });
+    }
+
+    public CompletableFuture<Void> delete(T item) {
+        return client.deleteItem(requests.deleteItem(item))
+                     .thenApply(response -> null);
+    }
+
+    protected abstract CreateTableRequest prepareCreateTableRequest();
+
+    private CompletableFuture<Page<T>> queryPage(PageQuery query, Map<String, AttributeValue> startKey,
+                                                 List<T> items) {
+        var request = query.requestBuilder.exclusiveStartKey(startKey)
+                                          .limit(query.limit - items.size())
+                                          .build();
+        return client.query(request)
+                     .exceptionally(exception -> {
+                         var cause = exception instanceof CompletionException ? exception.getCause() : exception;
+                         if (cause instanceof DynamoDbException) {
+                             throw translateQueryException((DynamoDbException) cause, query.cursor);
+                         }
+                         throw new CompletionException(cause);
+                     })
+                     .thenCompose(response -> {
+                         query.criteria.recordPage(response.scannedCount(), response.count());
+                         var lastEvaluatedKey = lastEvaluatedKey(response);
+                         return toItems(response.items(), query.criteria, query.projection)
+                                 .thenCompose(found -> {
+                                     items.addAll(found);
+                                     if (lastEvaluatedKey != null && items.size() < query.limit) {
+                                         return queryPage(query, lastEvaluatedKey, items);
+                                     }
+                                     return completedFuture(Page.of(items, DynamoDbCursor.encode(lastEvaluatedKey)));
+                                 });
+                     });
+    }
+
+    /**
+     * Items of a query response - read from the table if the queried index does not project
+     * all the attributes of given projection.
+     */
+    private CompletableFuture<List<T>> toItems(List<Map<String, AttributeValue>> items,
+                                               DynamoDbQueryCriteria criteria, ItemProjection<T> projection) {
+        if (!requests.readsTable(criteria, projection)) {
+            List<T> mapped = new ArrayList<>(items.size());
+            items.forEach(item -> mapped.add(requests.toItem(item, projection)));
+            return completedFuture(mapped);
+        }
+        List<Map<String, AttributeValue>> keys = new ArrayList<>(items.size());
+        items.forEach(item -> keys.add(requests.key(item)));
+        List<Map<String, AttributeValue>> tableItems = new CopyOnWriteArrayList<>();
+        var batches = requests.batchGetItems(keys, projection)
+                              .stream()
+                              .map(request -> batchGet(request, tableItems))
+                              .toArray(CompletableFuture[]::new);
+        return allOf(batches).thenApply(done -> requests.toItems(keys, tableItems, projection));
+    }
+
+    private CompletableFuture<Void> batchGet(BatchGetItemRequest request, List<Map<String, AttributeValue>> found) {
+        return client.batchGetItem(request)
+                     .thenCompose(response -> {
+                         found.addAll(requests.batchGetResponseItems(response));
+                         var unprocessed = requests.unprocessedKeys(response);
+                         return unprocessed == null ? completedFuture((Void) null) : batchGet(unprocessed, found);
+                     });
+    }
+
+    private void createTable() {
+        try {
+            client.createTable(prepareCreateTableRequest())
+                  .join();
+        } catch (CompletionException exception) {
+            if (!(exception.getCause() instanceof ResourceInUseException)) {
+                throw exception;
+            }
+            log.info("Tried to create table {}, but it already exists", requests.tableName());
+        }
+    }
+
+    /**
+     * Parameters shared by the requests filling a single page.
+     */
+    @AllArgsConstructor
+    private class PageQuery {
+
+        private final DynamoDbQueryCriteria criteria;
+        private final ItemProjection<T> projection;
+        private final QueryRequest.Builder requestBuilder;
+        private final String cursor;
+        private final int limit;
+    }
+
+}
@@ -4,6 +4,7 @@ import static software.amazon.awssdk.regions.Region.*;
 
 import software.amazon.awssdk.auth.credentials.*;
 import software.amazon.awssdk.services.dynamodb.*;
+import software.amazon.awssdk.services.dynamodb.streams.*;
 
 import java.net.*;
 
@@ -21,10 +22,44 @@ public class DynamoDbClientFactory {
         if (dynamoDbUrl != null) {
             builder.endpointOverride(URI.create(dynamoDbUrl));
         }
-        var awsCredentials = AwsBasicCredentials.create(amazonAwsAccessKey, amazonAwsSecretKey);
-        return builder.credentialsProvider(StaticCredentialsProvider.create(awsCredentials))
+        return builder.credentialsProvider(credentialsProvider(amazonAwsAccessKey, amazonAwsSecretKey))
+                      .region(EU_CENTRAL_1)
+                      .build();
+    }
+
+    public DynamoDbAsyncClient amazonDynamoDbAsync(String amazonAwsAccessKey,
+                                                   String amazonAwsSecretKey) {
+        return amazonDynamoDbAsync(amazonAwsAccessKey, amazonAwsSecretKey, null);
+    }
+
+    public DynamoDbAsyncClient amazonDynamoDbAsync(String amazonAwsAccessKey,
+                                                   String amazonAwsSecretKey,
+                                                   String dynamoDbUrl) {
+        var builder = DynamoDbAsyncClient.builder();
+        if (dynamoDbUrl != null) {
+            builder.endpointOverride(URI.create(dynamoDbUrl));
+        }
+        return builder.credentialsProvider(credentialsProvider(amazonAwsAccessKey, amazonAwsSecretKey))
                       .region(EU_CENTRAL_1)
                       .build();
     }
 
+    public DynamoDbStreamsClient amazonDynamoDbStreams(String amazonAwsAccessKey,
+                                                       String amazonAwsSecretKey,
+                                                       String dynamoDbUrl) {
+        var builder = DynamoDbStreamsClient.builder();
+        if (dynamoDbUrl != null) {
+            builder.endpointOverride(URI.create(dynamoDbUrl));
+        }
+        return builder.credentialsProvider(credentialsProvider(amazonAwsAccessKey, amazonAwsSecretKey))
+                      .region(EU_CENTRAL_1)
+                      .build();
+    }
+
+    private static AwsCredentialsProvider credentialsProvider(String amazonAwsAccessKey,
+                                                              String amazonAwsSecretKey) {
+        var awsCredentials = AwsBasicCredentials.create(amazonAwsAccessKey, amazonAwsSecretKey);
+        return StaticCredentialsProvider.create(awsCredentials);
+    }
+
 }
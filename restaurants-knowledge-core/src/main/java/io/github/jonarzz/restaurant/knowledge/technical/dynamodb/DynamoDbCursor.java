@@ -0,0 +1,95 @@
+package io.github.jonarzz.restaurant.knowledge.technical.dynamodb;
+
+import software.amazon.awssdk.core.*;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Encodes DynamoDB {@code LastEvaluatedKey} as an opaque, URL-safe string and decodes it back
+ * to be used as {@code ExclusiveStartKey} of the next query.
+ */
+public class DynamoDbCursor {
+
+    private static final byte STRING_TYPE = 'S';
+    private static final byte NUMBER_TYPE = 'N';
+    private static final byte BINARY_TYPE = 'B';
+
+    private DynamoDbCursor() {
+    }
+
+    public static String encode(Map<String, AttributeValue> lastEvaluatedKey) {
+        if (lastEvaluatedKey == null || lastEvaluatedKey.isEmpty()) {
+            return null;
+        }
+        var bytes = new ByteArrayOutputStream();
+        try (var output = new DataOutputStream(bytes)) {
+            output.writeByte(lastEvaluatedKey.size());
+            for (var entry : new TreeMap<>(lastEvaluatedKey).entrySet()) {
+                output.writeUTF(entry.getKey());
+                writeValue(output, entry.getValue());
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        return Base64.getUrlEncoder()
+                     .withoutPadding()
+                     .encodeToString(bytes.toByteArray());
+    }
+
+    public static Map<String, AttributeValue> decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try (var input = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder()
+                                                                            .decode(cursor)))) {
+            var size = input.readUnsignedByte();
+            Map<String, AttributeValue> key = new HashMap<>();
+            for (var i = 0; i < size; i++) {
+                key.put(input.readUTF(), readValue(input));
+            }
+            if (input.available() > 0) {
+                throw new IOException("Unexpected trailing bytes");
+            }
+            return key;
+        } catch (IOException | IllegalArgumentException exception) {
+            throw new InvalidCursorException(cursor, exception);
+        }
+    }
+
+    private static void writeValue(DataOutputStream output, AttributeValue value) throws IOException {
+        if (value.s() != null) {
+            output.writeByte(STRING_TYPE);
+            output.writeUTF(value.s());
+        } else if (value.n() != null) {
+            output.writeByte(NUMBER_TYPE);
+            output.writeUTF(value.n());
+        } else if (value.b() != null) {
+            var bytes = value.b()
+                             .asByteArray();
+            output.writeByte(BINARY_TYPE);
+            output.writeShort(bytes.length);
+            output.write(bytes);
+        } else {
+            throw new IllegalArgumentException("Unsupported key attribute type: " + value);
+        }
+    }
+
+    private static AttributeValue readValue(DataInputStream input) throws IOException {
+        var type = input.readByte();
+        switch (type) {
+            case STRING_TYPE:
+                return AttributeValue.fromS(input.readUTF());
+            case NUMBER_TYPE:
+                return AttributeValue.fromN(input.readUTF());
+            case BINARY_TYPE:
+                var bytes = new byte[input.readUnsignedShort()];
+                input.readFully(bytes);
+                return AttributeValue.fromB(SdkBytes.fromByteArray(bytes));
+            default:
+                throw new IOException("Unknown key attribute type: " + type);
+        }
+    }
+
+}
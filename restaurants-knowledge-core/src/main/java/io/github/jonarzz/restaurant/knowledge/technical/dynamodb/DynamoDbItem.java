@@ -0,0 +1,42 @@
+package io.github.jonarzz.restaurant.knowledge.technical.dynamodb;
+
+import static java.lang.annotation.ElementType.*;
+import static java.lang.annotation.RetentionPolicy.*;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks a {@link DynamoDbTable} to generate an {@link ItemMapper} for at compile time -
+ * {@code <table class name>GeneratedMapper} in the same package.
+ * <p>
+ * Each non-static field is mapped to an attribute of the same name with direct map lookups
+ * (no {@link ItemExtractor} or {@link AttributesCreator#putIfPresent}). Supported field types:
+ * {@code String}, {@code int}/{@code Integer}, {@code long}/{@code Long}, {@code boolean}/{@code Boolean}, enums
+ * (stored by name) and {@code Set}s (string sets) or {@code List}s of strings and enums.
+ * Missing attributes are read as {@code null} ({@code 0}/{@code false} for primitives) or empty collections,
+ * empty collections are not written.
+ * <p>
+ * The table class has to expose a builder ({@code builder()}) and fluent accessors -
+ * as created by Lombok {@code @Builder} and {@code @Getter @Accessors(fluent = true)}.
+ * Attributes which are not fields (e.g. keys of indexes) can be added by overriding
+ * {@code additionalAttributes} of the generated mapper.
+ * <p>
+ * {@code String} and {@code List<String>} fields marked as {@link Compressed} are stored as {@link CompressedText}.
+ */
+@Documented
+@Target(TYPE)
+@Retention(SOURCE)
+public @interface DynamoDbItem {
+
+    /**
+     * Free-form text (or list of texts) stored compressed when long -
+     * not to be searched by (e.g. with {@code begins_with}).
+     */
+    @Documented
+    @Target(FIELD)
+    @Retention(SOURCE)
+    @interface Compressed {
+
+    }
+
+}
@@ -6,9 +6,34 @@ import java.util.*;
 
 public interface DynamoDbQueryCriteria {
 
+    /**
+     * @return name of the secondary index to query or {@code null} to query the table itself
+     */
+    default String indexName() {
+        return null;
+    }
+
+    /**
+     * @return names of the attributes projected into the queried index (including the key attributes),
+     *         {@code null} if all attributes are - items with attributes outside of the projection
+     *         are read from the table by the keys found in the index
+     */
+    default Set<String> indexAttributes() {
+        return null;
+    }
+
     Map<String, Condition> keyConditions();
 
     Map<String, Condition> queryConditions();
 
     boolean isEmpty();
+
+    /**
+     * Called for every page of query results, e.g. to collect selectivity statistics.
+     *
+     * @param scannedCount number of items read before applying the query filter
+     * @param count        number of items returned
+     */
+    default void recordPage(int scannedCount, int count) {
+    }
 }
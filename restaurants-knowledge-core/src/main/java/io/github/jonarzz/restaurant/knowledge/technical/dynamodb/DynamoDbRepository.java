@@ -1,5 +1,7 @@
 package io.github.jonarzz.restaurant.knowledge.technical.dynamodb;
 
+import static io.github.jonarzz.restaurant.knowledge.technical.dynamodb.DynamoDbRequests.*;
+import static java.util.concurrent.CompletableFuture.*;
 import static java.util.stream.Collectors.*;
 
 import lombok.extern.slf4j.*;
@@ -7,96 +9,244 @@ import software.amazon.awssdk.services.dynamodb.*;
 import software.amazon.awssdk.services.dynamodb.model.*;
 
 import java.util.*;
+import java.util.stream.Stream;
+
+import io.github.jonarzz.restaurant.knowledge.common.*;
 
 @Slf4j
 public abstract class DynamoDbRepository<T extends DynamoDbTable<K>, K extends DynamoDbKey> {
 
     public static boolean createTablesOnInstantiation = false;
 
-    private String tableName;
-    private ItemMapper<T> itemMapper;
+    private DynamoDbRequests<T, K> requests;
     private DynamoDbClient client;
+    private ActiveIndexes activeIndexes;
 
     protected DynamoDbRepository(String tableName, ItemMapper<T> itemMapper, DynamoDbClient client) {
-        this.tableName = tableName;
-        this.itemMapper = itemMapper;
+        this.requests = new DynamoDbRequests<>(tableName, itemMapper, prepareCreateTableRequest());
         this.client = client;
+        activeIndexes = new ActiveIndexes(requests.tableDefinition(), () -> completedFuture(describeTable()));
         if (createTablesOnInstantiation) {
             createTable();
         }
     }
 
+    /**
+     * @return {@code false} if the index cannot be queried (yet) - see {@link ActiveIndexes}
+     */
+    public boolean indexActive(String indexName) {
+        return activeIndexes.contains(indexName);
+    }
+
     public Optional<T> findByKey(K key) {
-        var request = GetItemRequest.builder()
-                                    .tableName(tableName)
-                                    .key(key.asAttributes())
-                                    .build();
-        var response = client.getItem(request);
-        if (!response.hasItem()) {
-            return Optional.empty();
-        }
-        var extractor = new ItemExtractor(response.item());
-        return Optional.of(itemMapper.createItem(extractor));
+        var response = client.getItem(requests.getItem(key));
+        return requests.toItem(response);
     }
 
     public List<T> query(DynamoDbQueryCriteria criteria) {
-        if (criteria.isEmpty()) {
-            throw new IllegalArgumentException("Query criteria cannot be empty");
-        }
-        var request = QueryRequest.builder()
-                                  .tableName(tableName)
-                                  .keyConditions(criteria.keyConditions())
-                                  .queryFilter(criteria.queryConditions())
-                                  .build();
-        return client.query(request)
-                     .items()
+        return query(criteria, requests.allAttributes());
+    }
+
+    public List<T> query(DynamoDbQueryCriteria criteria, ItemProjection<T> projection) {
+        return stream(criteria, projection).collect(toList());
+    }
+
+    public Stream<T> stream(DynamoDbQueryCriteria criteria) {
+        return stream(criteria, requests.allAttributes());
+    }
+
+    /**
+     * Lazily follows {@code LastEvaluatedKey} - next page is fetched only when the items
+     * of the previous one were consumed.
+     */
+    public Stream<T> stream(DynamoDbQueryCriteria criteria, ItemProjection<T> projection) {
+        var request = requests.query(criteria, projection)
+                              .build();
+        return client.queryPaginator(request)
                      .stream()
-                     .map(item -> {
-                         var extractor = new ItemExtractor(item);
-                         return itemMapper.createItem(extractor);
-                     })
-                     .collect(toList());
+                     .peek(response -> criteria.recordPage(response.scannedCount(), response.count()))
+                     .flatMap(response -> toItems(response.items(), criteria, projection).stream());
     }
 
-    public void create(T item) {
-        var request = PutItemRequest.builder()
-                                    .tableName(tableName)
-                                    .item(itemMapper.attributesCreator(item)
-                                                    .toAttributes())
-                                    .build();
-        client.putItem(request);
+    public Page<T> query(DynamoDbQueryCriteria criteria, String cursor, int limit) {
+        return query(criteria, cursor, limit, requests.allAttributes());
     }
 
-    public void update(T item, Map<String, AttributeValueUpdate> updates) {
-        var request = UpdateItemRequest.builder()
-                                       .tableName(tableName)
-                                       .key(item.getKey()
-                                                .asAttributes())
-                                       .attributeUpdates(updates)
-                                       .build();
-        client.updateItem(request);
+    public Page<T> query(DynamoDbQueryCriteria criteria, String cursor, int limit, ItemProjection<T> projection) {
+        validateLimit(limit);
+        var requestBuilder = requests.query(criteria, projection);
+        var lastEvaluatedKey = DynamoDbCursor.decode(cursor);
+        List<T> items = new ArrayList<>(limit);
+        do {
+            var request = requestBuilder.exclusiveStartKey(lastEvaluatedKey)
+                                        // the limit is applied before the query filter,
+                                        // so more than one request might be needed to fill the page
+                                        .limit(limit - items.size())
+                                        .build();
+            var response = execute(request, cursor);
+            criteria.recordPage(response.scannedCount(), response.count());
+            items.addAll(toItems(response.items(), criteria, projection));
+            lastEvaluatedKey = lastEvaluatedKey(response);
+        } while (lastEvaluatedKey != null && items.size() < limit);
+        return Page.of(items, DynamoDbCursor.encode(lastEvaluatedKey));
     }
 
-    public void update(T item, AttributesCreator attributesCreator) {
-        update(item, attributesCreator.toUpdateAttributes());
+    /**
+     * @return {@code false} if an item with the same key already exists - nothing is written then
+     */
+    public boolean create(T item) {
+        try {
+            client.putItem(requests.putItemIfNotExists(item));
+            return true;
+        } catch (ConditionalCheckFailedException exception) {
+            log.debug("Item with key {} already exists", item.getKey());
+            return false;
+        }
+    }
+
+    /**
+     * Applies the update in a single request if the item exists and any of the compared values differs.
+     * <p>
+     * Only when the condition fails, the key is read to tell a missing item apart from an unchanged one.
+     */
+    public ModificationResult<T> update(K key, ItemUpdate update) {
+        log.debug("Updating item with key {} - payload of about {} bytes", key, update.payloadSize());
+        try {
+            var response = client.updateItem(requests.updateItem(key, update));
+            return ModificationResult.success(requests.toItem(response.attributes()));
+        } catch (ConditionalCheckFailedException exception) {
+            return rejectedUpdateResult(client.getItem(requests.getItemKey(key)));
+        }
+    }
+
+    /**
+     * Atomically replaces the item with one having a different key.
+     *
+     * @return {@code ALREADY_EXISTS} if the key of the replacement is taken,
+     *         {@code NOT_FOUND} if the replaced item does not exist anymore
+     */
+    public ModificationResult<T> replace(T replaced, T replacement) {
+        try {
+            client.transactWriteItems(requests.replaceItem(replaced, replacement));
+            return ModificationResult.success(replacement);
+        } catch (TransactionCanceledException exception) {
+            return cancelledReplacementResult(exception);
+        }
     }
 
     public void delete(T item) {
-        var request = DeleteItemRequest.builder()
-                                       .tableName(tableName)
-                                       .key(item.getKey()
-                                                .asAttributes())
-                                       .build();
-        client.deleteItem(request);
+        client.deleteItem(requests.deleteItem(item));
     }
 
     protected abstract CreateTableRequest prepareCreateTableRequest();
 
+    /**
+     * Called before creating the secondary indexes missing in an existing table, e.g. to write the index
+     * key attributes of the items stored before the indexes were introduced - such items are not indexed otherwise.
+     */
+    protected void prepareItemsForIndexes() {
+    }
+
+    /**
+     * Reads all items matching given filter expression, page after page.
+     */
+    protected Stream<T> scan(String filterExpression, Map<String, String> attributeNames) {
+        return client.scanPaginator(requests.scan(filterExpression, attributeNames))
+                     .items()
+                     .stream()
+                     .map(requests::toItem);
+    }
+
+    private List<T> toItems(List<Map<String, AttributeValue>> items, DynamoDbQueryCriteria criteria,
+                            ItemProjection<T> projection) {
+        if (!requests.readsTable(criteria, projection)) {
+            return items.stream()
+                        .map(item -> requests.toItem(item, projection))
+                        .collect(toList());
+        }
+        var keys = items.stream()
+                        .map(requests::key)
+                        .collect(toList());
+        List<Map<String, AttributeValue>> tableItems = new ArrayList<>(keys.size());
+        for (var batch : requests.batchGetItems(keys, projection)) {
+            var request = batch;
+            while (request != null) {
+                var response = client.batchGetItem(request);
+                tableItems.addAll(requests.batchGetResponseItems(response));
+                request = requests.unprocessedKeys(response);
+            }
+        }
+        return requests.toItems(keys, tableItems, projection);
+    }
+
+    private QueryResponse execute(QueryRequest request, String cursor) {
+        try {
+            return client.query(request);
+        } catch (DynamoDbException exception) {
+            throw translateQueryException(exception, cursor);
+        }
+    }
+
+    private TableDescription describeTable() {
+        return client.describeTable(requests.describeTable())
+                     .table();
+    }
+
     private void createTable() {
         try {
-            client.createTable(prepareCreateTableRequest());
+            client.createTable(requests.tableDefinition());
         } catch (ResourceInUseException exception) {
-            log.info("Tried to create table {}, but it already exists", tableName);
+            log.info("Tried to create table {}, but it already exists", requests.tableName());
+            var table = describeTable();
+            enableMissingStream(table);
+            createMissingIndexes(table);
+        }
+    }
+
+    /**
+     * Enables the stream introduced after the table was created - the table cannot be updated otherwise
+     * until the change is applied, so it is awaited.
+     */
+    private void enableMissingStream(TableDescription table) {
+        var enableRequest = requests.enableMissingStream(table);
+        if (enableRequest.isEmpty()) {
+            return;
+        }
+        log.info("Enabling stream of table {}", requests.tableName());
+        try {
+            client.updateTable(enableRequest.get());
+            client.waiter()
+                  .waitUntilTableExists(requests.describeTable());
+        } catch (DynamoDbException exception) {
+            // e.g. missing permission - listeners of the stream cannot be started then
+            log.warn("Could not enable stream of table {}: {}", requests.tableName(), exception.getMessage());
+        }
+    }
+
+    /**
+     * Creates the indexes introduced after the table was created. DynamoDB builds them in the background -
+     * until they are {@link #indexActive(String) active}, queries are expected to use the table instead.
+     */
+    private void createMissingIndexes(TableDescription table) {
+        var createRequests = requests.createMissingIndexes(table);
+        if (createRequests.isEmpty()) {
+            return;
+        }
+        log.info("Creating {} indexes missing in table {}", createRequests.size(), requests.tableName());
+        prepareItemsForIndexes();
+        for (var request : createRequests) {
+            try {
+                client.updateTable(request);
+            } catch (LimitExceededException | ResourceInUseException exception) {
+                // e.g. too many indexes created at once
+                log.warn("Could not create index {} of table {} now, it will be created on next start: {}",
+                         request.globalSecondaryIndexUpdates()
+                                .get(0)
+                                .create()
+                                .indexName(),
+                         requests.tableName(), exception.getMessage());
+                return;
+            }
         }
     }
 
@@ -0,0 +1,411 @@
+package io.github.jonarzz.restaurant.knowledge.technical.dynamodb;
+
+import static io.github.jonarzz.restaurant.knowledge.common.ModificationResult.*;
+import static java.util.stream.Collectors.*;
+
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.*;
+
+import io.github.jonarzz.restaurant.knowledge.common.*;
+
+/**
+ * Requests and response mapping shared by the blocking and the asynchronous repository.
+ */
+class DynamoDbRequests<T extends DynamoDbTable<K>, K extends DynamoDbKey> {
+
+    private static final String VALIDATION_ERROR_CODE = "ValidationException";
+    private static final String MISSING_INDEX_MESSAGE = "does not have the specified index";
+    private static final String CONDITIONAL_CHECK_FAILED_CODE = "ConditionalCheckFailed";
+    private static final int REPLACEMENT_PUT_INDEX = 0;
+    private static final int REPLACED_DELETE_INDEX = 1;
+    private static final int BATCH_GET_LIMIT = 100;
+
+    private final String tableName;
+    private final ItemMapper<T> itemMapper;
+    private final CreateTableRequest tableDefinition;
+    private final List<String> tableKeyAttributes;
+
+    DynamoDbRequests(String tableName, ItemMapper<T> itemMapper, CreateTableRequest tableDefinition) {
+        this.tableName = tableName;
+        this.itemMapper = itemMapper;
+        this.tableDefinition = tableDefinition;
+        tableKeyAttributes = tableDefinition.keySchema()
+                                            .stream()
+                                            .map(KeySchemaElement::attributeName)
+                                            .collect(toUnmodifiableList());
+    }
+
+    String tableName() {
+        return tableName;
+    }
+
+    CreateTableRequest tableDefinition() {
+        return tableDefinition;
+    }
+
+    GetItemRequest getItem(K key) {
+        return GetItemRequest.builder()
+                             .tableName(tableName)
+                             .key(key.asAttributes())
+                             .build();
+    }
+
+    /**
+     * Get request fetching only the key attributes - enough to check whether the item exists.
+     */
+    GetItemRequest getItemKey(K key) {
+        var keyAttributeNames = keyAttributeNames(key);
+        return GetItemRequest.builder()
+                             .tableName(tableName)
+                             .key(key.asAttributes())
+                             .projectionExpression(String.join(", ", keyAttributeNames.keySet()))
+                             .expressionAttributeNames(keyAttributeNames)
+                             .build();
+    }
+
+    ItemProjection<T> allAttributes() {
+        return itemMapper;
+    }
+
+    /**
+     * Query request reading only the attributes of given projection - note that the read capacity
+     * consumed depends on the size of whole items anyway, only the response gets smaller.
+     */
+    QueryRequest.Builder query(DynamoDbQueryCriteria criteria, ItemProjection<T> projection) {
+        var builder = query(criteria);
+        // only the keys are needed to read the items from the table
+        var attributeNames = readsTable(criteria, projection) ? tableKeyAttributes : projection.attributeNames();
+        if (!attributeNames.isEmpty()) {
+            // legacy counterpart of ProjectionExpression - expressions cannot be mixed with key conditions
+            builder.select(Select.SPECIFIC_ATTRIBUTES)
+                   .attributesToGet(attributeNames);
+        }
+        return builder;
+    }
+
+    /**
+     * @return {@code true} if the queried index does not project all attributes of given projection -
+     *         the items found have to be {@link #batchGetItems(List, ItemProjection) read from the table} then
+     */
+    boolean readsTable(DynamoDbQueryCriteria criteria, ItemProjection<T> projection) {
+        var indexAttributes = criteria.indexAttributes();
+        if (criteria.indexName() == null || indexAttributes == null) {
+            return false;
+        }
+        var attributeNames = projection.attributeNames();
+        return attributeNames.isEmpty() || !indexAttributes.containsAll(attributeNames);
+    }
+
+    /**
+     * Requests reading the items of given keys from the table, with up to {@value #BATCH_GET_LIMIT} keys each.
+     */
+    List<BatchGetItemRequest> batchGetItems(List<Map<String, AttributeValue>> keys, ItemProjection<T> projection) {
+        var attributeNames = projection.attributeNames();
+        List<BatchGetItemRequest> batches = new ArrayList<>();
+        for (var from = 0; from < keys.size(); from += BATCH_GET_LIMIT) {
+            var batchKeys = keys.subList(from, Math.min(from + BATCH_GET_LIMIT, keys.size()));
+            var keysAndAttributes = KeysAndAttributes.builder()
+                                                     .keys(batchKeys)
+                                                     .attributesToGet(attributeNames.isEmpty() ? null : attributeNames)
+                                                     .build();
+            batches.add(BatchGetItemRequest.builder()
+                                           .requestItems(Map.of(tableName, keysAndAttributes))
+                                           .build());
+        }
+        return batches;
+    }
+
+    /**
+     * @return request reading the keys not processed by a batch read (e.g. due to throttling),
+     *         {@code null} if all of them were processed
+     */
+    BatchGetItemRequest unprocessedKeys(BatchGetItemResponse response) {
+        if (!response.hasUnprocessedKeys() || response.unprocessedKeys()
+                                                      .isEmpty()) {
+            return null;
+        }
+        return BatchGetItemRequest.builder()
+                                  .requestItems(response.unprocessedKeys())
+                                  .build();
+    }
+
+    List<Map<String, AttributeValue>> batchGetResponseItems(BatchGetItemResponse response) {
+        return response.responses()
+                       .getOrDefault(tableName, List.of());
+    }
+
+    Map<String, AttributeValue> key(Map<String, AttributeValue> item) {
+        Map<String, AttributeValue> key = new HashMap<>();
+        tableKeyAttributes.forEach(attributeName -> key.put(attributeName, item.get(attributeName)));
+        return key;
+    }
+
+    /**
+     * @param keys  keys in the order of the query results
+     * @param items items read from the table - in any order, without the ones deleted in the meantime
+     */
+    List<T> toItems(List<Map<String, AttributeValue>> keys, Collection<Map<String, AttributeValue>> items,
+                    ItemProjection<T> projection) {
+        Map<Map<String, AttributeValue>, Map<String, AttributeValue>> itemsByKey = new HashMap<>();
+        items.forEach(item -> itemsByKey.put(key(item), item));
+        return keys.stream()
+                   .map(itemsByKey::get)
+                   .filter(Objects::nonNull)
+                   .map(item -> toItem(item, projection))
+                   .collect(toList());
+    }
+
+    ScanRequest scan(String filterExpression, Map<String, String> attributeNames) {
+        return ScanRequest.builder()
+                          .tableName(tableName)
+                          .filterExpression(filterExpression)
+                          .expressionAttributeNames(attributeNames)
+                          .build();
+    }
+
+    QueryRequest.Builder query(DynamoDbQueryCriteria criteria) {
+        if (criteria.isEmpty()) {
+            throw new IllegalArgumentException("Query criteria cannot be empty");
+        }
+        return QueryRequest.builder()
+                           .tableName(tableName)
+                           .indexName(criteria.indexName())
+                           .keyConditions(criteria.keyConditions())
+                           .queryFilter(criteria.queryConditions());
+    }
+
+    /**
+     * Put request that fails with {@link ConditionalCheckFailedException}
+     * if an item with the same key already exists.
+     */
+    PutItemRequest putItemIfNotExists(T item) {
+        var keyAttributeNames = keyAttributeNames(item.getKey());
+        return PutItemRequest.builder()
+                             .tableName(tableName)
+                             .item(itemMapper.attributesCreator(item)
+                                             .toAttributes())
+                             .conditionExpression(keyCondition("attribute_not_exists", keyAttributeNames))
+                             .expressionAttributeNames(keyAttributeNames)
+                             .build();
+    }
+
+    /**
+     * Update request applied only to an existing item (and only if any of the compared values differs),
+     * returning all attributes of the updated item.
+     */
+    UpdateItemRequest updateItem(K key, ItemUpdate update) {
+        if (update.isEmpty()) {
+            throw new IllegalArgumentException("Update of item " + key + " has no actions");
+        }
+        var attributeNames = new HashMap<>(update.attributeNames());
+        var keyAttributeNames = keyAttributeNames(key);
+        attributeNames.putAll(keyAttributeNames);
+        var condition = keyCondition("attribute_exists", keyAttributeNames)
+                        + update.condition()
+                                .map(updateCondition -> " AND " + updateCondition)
+                                .orElse("");
+        var attributeValues = update.attributeValues();
+        return UpdateItemRequest.builder()
+                                .tableName(tableName)
+                                .key(key.asAttributes())
+                                .updateExpression(update.updateExpression())
+                                .conditionExpression(condition)
+                                .expressionAttributeNames(attributeNames)
+                                // empty map of values is rejected by DynamoDB
+                                .expressionAttributeValues(attributeValues.isEmpty() ? null : attributeValues)
+                                .returnValues(ReturnValue.ALL_NEW)
+                                .build();
+    }
+
+    /**
+     * Transaction putting the replacement (if its key is not taken) and deleting the replaced item
+     * (if it still exists) - both or none of the writes are applied.
+     */
+    TransactWriteItemsRequest replaceItem(T replaced, T replacement) {
+        var replacedKey = replaced.getKey();
+        var replacementKey = replacement.getKey();
+        if (replacedKey.equals(replacementKey)) {
+            throw new IllegalArgumentException("Replacement of item " + replacedKey + " has the same key");
+        }
+        var replacementKeyNames = keyAttributeNames(replacementKey);
+        var put = Put.builder()
+                     .tableName(tableName)
+                     .item(itemMapper.attributesCreator(replacement)
+                                     .toAttributes())
+                     .conditionExpression(keyCondition("attribute_not_exists", replacementKeyNames))
+                     .expressionAttributeNames(replacementKeyNames)
+                     .build();
+        var replacedKeyNames = keyAttributeNames(replacedKey);
+        var delete = Delete.builder()
+                           .tableName(tableName)
+                           .key(replacedKey.asAttributes())
+                           .conditionExpression(keyCondition("attribute_exists", replacedKeyNames))
+                           .expressionAttributeNames(replacedKeyNames)
+                           .build();
+        var transactItems = new TransactWriteItem[2];
+        transactItems[REPLACEMENT_PUT_INDEX] = TransactWriteItem.builder()
+                                                                .put(put)
+                                                                .build();
+        transactItems[REPLACED_DELETE_INDEX] = TransactWriteItem.builder()
+                                                                .delete(delete)
+                                                                .build();
+        return TransactWriteItemsRequest.builder()
+                                        .transactItems(transactItems)
+                                        .build();
+    }
+
+    DeleteItemRequest deleteItem(T item) {
+        return DeleteItemRequest.builder()
+                                .tableName(tableName)
+                                .key(item.getKey()
+                                         .asAttributes())
+                                .build();
+    }
+
+    Optional<T> toItem(GetItemResponse response) {
+        if (!response.hasItem()) {
+            return Optional.empty();
+        }
+        return Optional.of(toItem(response.item()));
+    }
+
+    T toItem(Map<String, AttributeValue> item) {
+        return toItem(item, itemMapper);
+    }
+
+    T toItem(Map<String, AttributeValue> item, ItemProjection<T> projection) {
+        return projection.createItem(item);
+    }
+
+    /**
+     * Result of an update rejected by its condition, based on the key read afterwards.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> ModificationResult<T> rejectedUpdateResult(GetItemResponse keyResponse) {
+        return keyResponse.hasItem() ? noChanges() : notFound();
+    }
+
+    /**
+     * Result of a {@link #replaceItem(DynamoDbTable, DynamoDbTable) replacement} cancelled by one of its conditions.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> ModificationResult<T> cancelledReplacementResult(TransactionCanceledException exception) {
+        if (!exception.hasCancellationReasons()) {
+            throw exception;
+        }
+        var reasons = exception.cancellationReasons();
+        if (CONDITIONAL_CHECK_FAILED_CODE.equals(reasons.get(REPLACEMENT_PUT_INDEX)
+                                                        .code())) {
+            return alreadyExists();
+        }
+        if (CONDITIONAL_CHECK_FAILED_CODE.equals(reasons.get(REPLACED_DELETE_INDEX)
+                                                        .code())) {
+            return notFound();
+        }
+        // e.g. a conflicting concurrent transaction
+        throw exception;
+    }
+
+    static Map<String, AttributeValue> lastEvaluatedKey(QueryResponse response) {
+        return response.hasLastEvaluatedKey() ? response.lastEvaluatedKey() : null;
+    }
+
+    static void validateLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Query limit has to be positive, got: " + limit);
+        }
+    }
+
+    DescribeTableRequest describeTable() {
+        return DescribeTableRequest.builder()
+                                   .tableName(tableName)
+                                   .build();
+    }
+
+    /**
+     * Requests creating the secondary indexes of the table definition missing in the existing table -
+     * one per request, as DynamoDB requires.
+     */
+    List<UpdateTableRequest> createMissingIndexes(TableDescription table) {
+        Set<String> existingIndexes = new HashSet<>();
+        if (table.hasGlobalSecondaryIndexes()) {
+            table.globalSecondaryIndexes()
+                 .forEach(index -> existingIndexes.add(index.indexName()));
+        }
+        return tableDefinition.globalSecondaryIndexes()
+                              .stream()
+                              .filter(index -> !existingIndexes.contains(index.indexName()))
+                              .map(this::createIndex)
+                              .collect(toList());
+    }
+
+    /**
+     * Requests enabling the stream of the table definition, if the existing table has none.
+     */
+    Optional<UpdateTableRequest> enableMissingStream(TableDescription table) {
+        var definedStream = tableDefinition.streamSpecification();
+        var existingStream = table.streamSpecification();
+        if (definedStream == null || !Boolean.TRUE.equals(definedStream.streamEnabled())
+            || existingStream != null && Boolean.TRUE.equals(existingStream.streamEnabled())) {
+            return Optional.empty();
+        }
+        return Optional.of(UpdateTableRequest.builder()
+                                             .tableName(tableName)
+                                             .streamSpecification(definedStream)
+                                             .build());
+    }
+
+    static RuntimeException translateQueryException(DynamoDbException exception, String cursor) {
+        var errorDetails = exception.awsErrorDetails();
+        if (cursor != null && VALIDATION_ERROR_CODE.equals(errorDetails.errorCode())
+            // e.g. index missing in a table created before the index was introduced
+            && !String.valueOf(errorDetails.errorMessage())
+                      .contains(MISSING_INDEX_MESSAGE)) {
+            // start key not matching the key conditions
+            return new InvalidCursorException(cursor, exception);
+        }
+        return exception;
+    }
+
+    private UpdateTableRequest createIndex(GlobalSecondaryIndex index) {
+        Set<String> keyAttributes = new HashSet<>(tableKeyAttributes);
+        index.keySchema()
+             .forEach(element -> keyAttributes.add(element.attributeName()));
+        // definitions of attributes not used by the keys are rejected
+        var attributeDefinitions = tableDefinition.attributeDefinitions()
+                                                  .stream()
+                                                  .filter(each -> keyAttributes.contains(each.attributeName()))
+                                                  .collect(toList());
+        var create = CreateGlobalSecondaryIndexAction.builder()
+                                                     .indexName(index.indexName())
+                                                     .keySchema(index.keySchema())
+                                                     .projection(index.projection())
+                                                     .provisionedThroughput(index.provisionedThroughput())
+                                                     .build();
+        return UpdateTableRequest.builder()
+                                 .tableName(tableName)
+                                 .attributeDefinitions(attributeDefinitions)
+                                 .globalSecondaryIndexUpdates(GlobalSecondaryIndexUpdate.builder()
+                                                                                        .create(create)
+                                                                                        .build())
+                                 .build();
+    }
+
+    private static Map<String, String> keyAttributeNames(DynamoDbKey key) {
+        var keyAttributeNames = new TreeMap<String, String>();
+        for (var keyAttribute : key.asAttributes()
+                                   .keySet()) {
+            keyAttributeNames.put("#key" + keyAttributeNames.size(), keyAttribute);
+        }
+        return keyAttributeNames;
+    }
+
+    private static String keyCondition(String function, Map<String, String> keyAttributeNames) {
+        var condition = new StringJoiner(" AND ");
+        keyAttributeNames.keySet()
+                         .forEach(placeholder -> condition.add(function + "(" + placeholder + ")"));
+        return condition.toString();
+    }
+
+}
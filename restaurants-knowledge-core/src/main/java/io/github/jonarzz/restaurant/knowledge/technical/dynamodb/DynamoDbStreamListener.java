@@ -0,0 +1,156 @@
+package io.github.jonarzz.restaurant.knowledge.technical.dynamodb;
+
+import static java.util.concurrent.TimeUnit.*;
+import static software.amazon.awssdk.services.dynamodb.model.ShardIteratorType.*;
+
+import lombok.extern.slf4j.*;
+import software.amazon.awssdk.services.dynamodb.*;
+import software.amazon.awssdk.services.dynamodb.model.*;
+import software.amazon.awssdk.services.dynamodb.streams.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * Polls the stream of a table and passes the keys of modified items to the listener.
+ * <p>
+ * By default only the records written after the listener was created are read - it is meant for notifications,
+ * not for replication. Shards opened later (after the previous ones were closed) are read from the beginning.
+ * <p>
+ * Given a point in time, the listener catches up from it instead - all the shards are read from the beginning
+ * (as far as the stream retention allows) and the records written before that point are skipped.
+ * A record may be delivered more than once, so handling it should be idempotent.
+ * <p>
+ * Records not read before their shard iterator expired (e.g. after polling was stalled for long) are skipped -
+ * the shard is read from the latest record instead, and the given callback is notified that changes were missed.
+ */
+@Slf4j
+public class DynamoDbStreamListener implements AutoCloseable {
+
+    private final DynamoDbStreamsClient streamsClient;
+    private final String streamArn;
+    private final Consumer<Map<String, AttributeValue>> listener;
+    private final Runnable recordsMissedListener;
+    // shard ID -> iterator, accessed only by the polling thread after the initial discovery
+    private final Map<String, String> shardIterators = new HashMap<>();
+    private final Set<String> finishedShards = new HashSet<>();
+    private final ScheduledExecutorService executor;
+
+    private final Instant since;
+
+    private boolean discoveryRequired;
+
+    public DynamoDbStreamListener(DynamoDbClient client, DynamoDbStreamsClient streamsClient, String tableName,
+                                  Duration pollInterval, Consumer<Map<String, AttributeValue>> listener) {
+        this(client, streamsClient, tableName, pollInterval, null, listener, () -> {});
+    }
+
+    /**
+     * @param since                 time to catch up from, {@code null} to read only the records written from now on
+     * @param recordsMissedListener notified when records were skipped, as they could not be read anymore
+     */
+    public DynamoDbStreamListener(DynamoDbClient client, DynamoDbStreamsClient streamsClient, String tableName,
+                                  Duration pollInterval, Instant since,
+                                  Consumer<Map<String, AttributeValue>> listener, Runnable recordsMissedListener) {
+        this.streamsClient = streamsClient;
+        this.listener = listener;
+        this.recordsMissedListener = recordsMissedListener;
+        this.since = since;
+        streamArn = client.describeTable(request -> request.tableName(tableName))
+                          .table()
+                          .latestStreamArn();
+        if (streamArn == null) {
+            throw new IllegalStateException("Stream is not enabled for table " + tableName);
+        }
+        discoverShards(since == null ? LATEST : TRIM_HORIZON);
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, tableName + "-stream-listener");
+            thread.setDaemon(true);
+            return thread;
+        });
+        var pollIntervalMillis = pollInterval.toMillis();
+        executor.scheduleWithFixedDelay(this::poll, pollIntervalMillis, pollIntervalMillis, MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void poll() {
+        try {
+            if (discoveryRequired) {
+                discoverShards(TRIM_HORIZON);
+            }
+            for (var shardId : List.copyOf(shardIterators.keySet())) {
+                readShard(shardId);
+            }
+        } catch (RuntimeException exception) {
+            log.warn("Failed to poll stream {}", streamArn, exception);
+        }
+    }
+
+    private void readShard(String shardId) {
+        GetRecordsResponse response;
+        try {
+            response = streamsClient.getRecords(request -> request.shardIterator(shardIterators.get(shardId)));
+        } catch (ExpiredIteratorException exception) {
+            // replaying the shard from the beginning would take long and deliver mostly outdated changes
+            log.warn("Iterator of shard {} of stream {} expired, reading from the latest record", shardId, streamArn);
+            shardIterators.put(shardId, shardIterator(shardId, LATEST));
+            recordsMissedListener.run();
+            return;
+        }
+        for (var streamRecord : response.records()) {
+            var change = streamRecord.dynamodb();
+            if (since != null && change.approximateCreationDateTime() != null
+                && change.approximateCreationDateTime().isBefore(since)) {
+                continue;
+            }
+            listener.accept(change.keys());
+        }
+        var nextIterator = response.nextShardIterator();
+        if (nextIterator == null) {
+            log.debug("Shard {} closed", shardId);
+            shardIterators.remove(shardId);
+            finishedShards.add(shardId);
+            discoveryRequired = true;
+        } else {
+            shardIterators.put(shardId, nextIterator);
+        }
+    }
+
+    private void discoverShards(ShardIteratorType iteratorType) {
+        String lastShardId = null;
+        do {
+            var exclusiveStartShardId = lastShardId;
+            var description = streamsClient.describeStream(request -> request.streamArn(streamArn)
+                                                                             .exclusiveStartShardId(exclusiveStartShardId))
+                                           .streamDescription();
+            for (var shard : description.shards()) {
+                var shardId = shard.shardId();
+                if (shardIterators.containsKey(shardId) || finishedShards.contains(shardId)) {
+                    continue;
+                }
+                if (iteratorType == LATEST && shard.sequenceNumberRange().endingSequenceNumber() != null) {
+                    // closed before the listener was created - nothing new will be written there
+                    finishedShards.add(shardId);
+                    continue;
+                }
+                shardIterators.put(shardId, shardIterator(shardId, iteratorType));
+            }
+            lastShardId = description.lastEvaluatedShardId();
+        } while (lastShardId != null);
+        discoveryRequired = false;
+    }
+
+    private String shardIterator(String shardId, ShardIteratorType iteratorType) {
+        return streamsClient.getShardIterator(request -> request.streamArn(streamArn)
+                                                                .shardId(shardId)
+                                                                .shardIteratorType(iteratorType))
+                            .shardIterator();
+    }
+
+}
@@ -0,0 +1,13 @@
+package io.github.jonarzz.restaurant.knowledge.technical.dynamodb;
+
+public class InvalidCursorException extends IllegalArgumentException {
+
+    InvalidCursorException(String cursor, Throwable cause) {
+        super("Invalid cursor: " + cursor, cause);
+    }
+
+    public InvalidCursorException(String cursor, String reason) {
+        super("Invalid cursor: " + cursor + " - " + reason);
+    }
+
+}
@@ -16,6 +16,10 @@ public class ItemExtractor {
         this.item = item;
     }
 
+    public Map<String, AttributeValue> attributes() {
+        return item;
+    }
+
     public String string(String attributeName) {
         return get(attributeName, AttributeValue::s);
     }
@@ -1,8 +1,6 @@
 package io.github.jonarzz.restaurant.knowledge.technical.dynamodb;
 
-public interface ItemMapper<T extends DynamoDbTable<? extends DynamoDbKey>> {
-
-    T createItem(ItemExtractor extractor);
+public interface ItemMapper<T extends DynamoDbTable<? extends DynamoDbKey>> extends ItemProjection<T> {
 
     AttributesCreator attributesCreator(T item);
 
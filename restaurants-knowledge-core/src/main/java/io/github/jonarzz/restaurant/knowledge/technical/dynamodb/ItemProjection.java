@@ -0,0 +1,28 @@
+package io.github.jonarzz.restaurant.knowledge.technical.dynamodb;
+
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.*;
+
+/**
+ * Mapping of items read with a subset of attributes.
+ */
+public interface ItemProjection<T> {
+
+    /**
+     * @return names of the attributes to read - all of them are read if empty
+     */
+    default List<String> attributeNames() {
+        return List.of();
+    }
+
+    T createItem(ItemExtractor extractor);
+
+    /**
+     * Creates the item directly from the read attributes - through {@link ItemExtractor} by default.
+     */
+    default T createItem(Map<String, AttributeValue> attributes) {
+        return createItem(new ItemExtractor(attributes));
+    }
+
+}
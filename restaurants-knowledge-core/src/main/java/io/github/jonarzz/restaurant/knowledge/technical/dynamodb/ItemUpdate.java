@@ -0,0 +1,217 @@
+package io.github.jonarzz.restaurant.knowledge.technical.dynamodb;
+
+import static software.amazon.awssdk.services.dynamodb.model.AttributeValue.*;
+
+import lombok.*;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.*;
+
+/**
+ * Builder of an {@code UpdateExpression} with accompanying condition.
+ * <p>
+ * Attributes modified with {@link #change(String, AttributeValue)} or {@link #clear(String)} are compared
+ * with the stored values - the update is applied only if at least one of them differs.
+ * Attributes modified with {@link #set(String, AttributeValue)} or {@link #remove(String)} do not take part
+ * in the comparison.
+ * <p>
+ * Element operations ({@link #addElements(String, AttributeValue)}, {@link #setElement(String, int, AttributeValue)} etc.)
+ * modify a part of a set or a list, so concurrent edits of other elements are not overwritten.
+ */
+@ToString
+@EqualsAndHashCode
+public class ItemUpdate {
+
+    private static final AttributeValue ZERO = fromN("0");
+    private static final AttributeValue EMPTY_LIST = fromL(List.of());
+
+    private final Map<String, String> names = new HashMap<>();
+    private final Map<String, AttributeValue> values = new HashMap<>();
+    private final List<String> setActions = new ArrayList<>();
+    private final List<String> removeActions = new ArrayList<>();
+    private final List<String> addActions = new ArrayList<>();
+    private final List<String> deleteActions = new ArrayList<>();
+    private final List<String> differenceConditions = new ArrayList<>();
+    private final List<String> requiredConditions = new ArrayList<>();
+
+    public ItemUpdate set(String attributeName, AttributeValue value) {
+        setActions.add(name(attributeName) + " = " + value(value));
+        return this;
+    }
+
+    public ItemUpdate change(String attributeName, AttributeValue value) {
+        var name = name(attributeName);
+        var valuePlaceholder = value(value);
+        setActions.add(name + " = " + valuePlaceholder);
+        differenceConditions.add("attribute_not_exists(" + name + ") OR " + name + " <> " + valuePlaceholder);
+        return this;
+    }
+
+    /**
+     * Sets the attribute to the value of another attribute of the same item (e.g. a key attribute
+     * duplicated for a secondary index).
+     */
+    public ItemUpdate copy(String attributeName, String sourceAttributeName) {
+        setActions.add(name(attributeName) + " = " + name(sourceAttributeName));
+        return this;
+    }
+
+    public ItemUpdate remove(String attributeName) {
+        removeActions.add(name(attributeName));
+        return this;
+    }
+
+    /**
+     * Removes the attribute - applicable to strings, sets and lists, for which an empty value
+     * is considered equal to a missing attribute.
+     */
+    public ItemUpdate clear(String attributeName) {
+        var name = name(attributeName);
+        removeActions.add(name);
+        differenceConditions.add("size(" + name + ") > " + value(ZERO));
+        return this;
+    }
+
+    /**
+     * Adds elements of given set to the set attribute (creating it if needed).
+     */
+    public ItemUpdate addElements(String setAttributeName, AttributeValue elements) {
+        addActions.add(name(setAttributeName) + " " + value(elements));
+        return this;
+    }
+
+    /**
+     * Removes elements of given set from the set attribute - the attribute is removed when it becomes empty.
+     */
+    public ItemUpdate deleteElements(String setAttributeName, AttributeValue elements) {
+        deleteActions.add(name(setAttributeName) + " " + value(elements));
+        return this;
+    }
+
+    /**
+     * Appends elements of given list to the list attribute (creating it if needed).
+     */
+    public ItemUpdate appendElements(String listAttributeName, AttributeValue elements) {
+        var name = name(listAttributeName);
+        setActions.add(name + " = list_append(if_not_exists(" + name + ", " + value(EMPTY_LIST) + "), "
+                       + value(elements) + ")");
+        return this;
+    }
+
+    /**
+     * Replaces the list element - the update is not applied if there is no element with given index.
+     */
+    public ItemUpdate setElement(String listAttributeName, int index, AttributeValue element) {
+        var path = elementPath(listAttributeName, index);
+        setActions.add(path + " = " + value(element));
+        requiredConditions.add("attribute_exists(" + path + ")");
+        return this;
+    }
+
+    /**
+     * Removes the list element shifting the following ones - the update is not applied
+     * if there is no element with given index.
+     */
+    public ItemUpdate removeElement(String listAttributeName, int index) {
+        var path = elementPath(listAttributeName, index);
+        removeActions.add(path);
+        requiredConditions.add("attribute_exists(" + path + ")");
+        return this;
+    }
+
+    /**
+     * Applies the update only if the stored value of the attribute is equal to given one -
+     * e.g. when the update is based on a previously read value.
+     */
+    public ItemUpdate expect(String attributeName, AttributeValue value) {
+        requiredConditions.add(name(attributeName) + " = " + value(value));
+        return this;
+    }
+
+    /**
+     * Applies the update only if the item has no such attribute.
+     */
+    public ItemUpdate expectMissing(String attributeName) {
+        requiredConditions.add("attribute_not_exists(" + name(attributeName) + ")");
+        return this;
+    }
+
+    boolean isEmpty() {
+        return setActions.isEmpty() && removeActions.isEmpty()
+               && addActions.isEmpty() && deleteActions.isEmpty();
+    }
+
+    String updateExpression() {
+        var expression = new StringJoiner(" ");
+        if (!setActions.isEmpty()) {
+            expression.add("SET " + String.join(", ", setActions));
+        }
+        if (!removeActions.isEmpty()) {
+            expression.add("REMOVE " + String.join(", ", removeActions));
+        }
+        if (!addActions.isEmpty()) {
+            expression.add("ADD " + String.join(", ", addActions));
+        }
+        if (!deleteActions.isEmpty()) {
+            expression.add("DELETE " + String.join(", ", deleteActions));
+        }
+        return expression.toString();
+    }
+
+    /**
+     * Conditions that all have to be met, followed by the alternative of the difference conditions.
+     */
+    Optional<String> condition() {
+        var condition = new StringJoiner(" AND ");
+        requiredConditions.forEach(condition::add);
+        if (!differenceConditions.isEmpty()) {
+            var difference = new StringJoiner(" OR ", "(", ")");
+            differenceConditions.forEach(single -> difference.add("(" + single + ")"));
+            condition.add(difference.toString());
+        }
+        return condition.length() == 0 ? Optional.empty() : Optional.of(condition.toString());
+    }
+
+    /**
+     * Approximate number of bytes of the attribute names and values sent with the update
+     * (including the values used only in the condition).
+     */
+    int payloadSize() {
+        return names.values()
+                    .stream()
+                    .mapToInt(AttributeSizes::sizeOf)
+                    .sum()
+               + values.values()
+                       .stream()
+                       .mapToInt(AttributeSizes::sizeOf)
+                       .sum();
+    }
+
+    Map<String, String> attributeNames() {
+        return names;
+    }
+
+    Map<String, AttributeValue> attributeValues() {
+        return values;
+    }
+
+    private String name(String attributeName) {
+        var placeholder = "#attr" + names.size();
+        names.put(placeholder, attributeName);
+        return placeholder;
+    }
+
+    private String elementPath(String listAttributeName, int index) {
+        if (index < 0) {
+            throw new IllegalArgumentException("List index cannot be negative, got: " + index);
+        }
+        return name(listAttributeName) + "[" + index + "]";
+    }
+
+    private String value(AttributeValue value) {
+        var placeholder = ":val" + values.size();
+        values.put(placeholder, value);
+        return placeholder;
+    }
+
+}
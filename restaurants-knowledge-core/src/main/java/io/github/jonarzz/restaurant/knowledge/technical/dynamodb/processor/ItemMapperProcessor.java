@@ -0,0 +1,442 @@
+package io.github.jonarzz.restaurant.knowledge.technical.dynamodb.processor;
+
+import static javax.tools.Diagnostic.Kind.*;
+
+import javax.annotation.processing.*;
+import javax.lang.model.*;
+import javax.lang.model.element.*;
+import javax.lang.model.type.*;
+import javax.lang.model.util.*;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Generates {@code ItemMapper}s of the tables annotated with {@code DynamoDbItem} -
+ * see the annotation for the supported fields.
+ * <p>
+ * The processor is compiled before the rest of the module (and does not depend on it),
+ * so the types it generates code for are referenced by names.
+ */
+@SupportedAnnotationTypes(ItemMapperProcessor.ANNOTATION)
+public class ItemMapperProcessor extends AbstractProcessor {
+
+    static final String MAPPER_SUFFIX = "GeneratedMapper";
+
+    private static final String DYNAMODB_PACKAGE = "io.github.jonarzz.restaurant.knowledge.technical.dynamodb";
+    static final String ANNOTATION = DYNAMODB_PACKAGE + ".DynamoDbItem";
+    private static final String COMPRESSED_ANNOTATION = ANNOTATION + ".Compressed";
+    private static final String COMPRESSED_TEXT = DYNAMODB_PACKAGE + ".CompressedText";
+    private static final String TABLE = DYNAMODB_PACKAGE + ".DynamoDbTable";
+    private static final String ATTRIBUTE_VALUE = "software.amazon.awssdk.services.dynamodb.model.AttributeValue";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnvironment) {
+        for (var annotation : annotations) {
+            for (var element : roundEnvironment.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.CLASS || !isTable(element)) {
+                    error(element, "@DynamoDbItem can be placed on a class implementing DynamoDbTable only");
+                    continue;
+                }
+                generateMapper((TypeElement) element);
+            }
+        }
+        return true;
+    }
+
+    private boolean isTable(Element element) {
+        var types = processingEnv.getTypeUtils();
+        var table = processingEnv.getElementUtils()
+                                 .getTypeElement(TABLE);
+        return table != null
+               && types.isAssignable(types.erasure(element.asType()), types.erasure(table.asType()));
+    }
+
+    private void generateMapper(TypeElement table) {
+        var fields = new ArrayList<ItemField>();
+        for (var field : ElementFilter.fieldsIn(table.getEnclosedElements())) {
+            if (field.getModifiers()
+                     .contains(Modifier.STATIC)) {
+                continue;
+            }
+            var itemField = itemField(field);
+            if (itemField == null) {
+                error(field, "Unsupported type of a DynamoDB item field: " + field.asType());
+                return;
+            }
+            if (itemField.compressed
+                && (itemField.scalar.type != ScalarType.STRING || itemField.collection == CollectionType.SET)) {
+                error(field, "Only String and List<String> fields can be compressed, got: " + field.asType());
+                return;
+            }
+            fields.add(itemField);
+        }
+        var packageName = processingEnv.getElementUtils()
+                                       .getPackageOf(table)
+                                       .getQualifiedName()
+                                       .toString();
+        var mapperName = table.getSimpleName() + MAPPER_SUFFIX;
+        var source = new MapperSource(packageName, mapperName, table.getQualifiedName().toString(), fields)
+                .toString();
+        var qualifiedMapperName = packageName.isEmpty() ? mapperName : packageName + "." + mapperName;
+        try (var writer = processingEnv.getFiler()
+                                       .createSourceFile(qualifiedMapperName, table)
+                                       .openWriter()) {
+            writer.write(source);
+        } catch (IOException exception) {
+            error(table, "Failed to write " + qualifiedMapperName + ": " + exception.getMessage());
+        }
+    }
+
+    private ItemField itemField(VariableElement field) {
+        var name = field.getSimpleName()
+                        .toString();
+        var type = field.asType();
+        var compressed = isCompressed(field);
+        var collection = collectionType(type);
+        if (collection != CollectionType.NONE) {
+            var typeArguments = ((DeclaredType) type).getTypeArguments();
+            if (typeArguments.size() != 1) {
+                return null;
+            }
+            var element = scalar(typeArguments.get(0));
+            if (element == null || (element.type != ScalarType.STRING && element.type != ScalarType.ENUM)) {
+                return null;
+            }
+            return new ItemField(name, collection, element, compressed);
+        }
+        var scalar = scalar(type);
+        return scalar == null ? null : new ItemField(name, CollectionType.NONE, scalar, compressed);
+    }
+
+    private static boolean isCompressed(VariableElement field) {
+        return field.getAnnotationMirrors()
+                    .stream()
+                    .map(annotation -> (TypeElement) annotation.getAnnotationType()
+                                                               .asElement())
+                    .anyMatch(annotation -> COMPRESSED_ANNOTATION.equals(annotation.getQualifiedName()
+                                                                                   .toString()));
+    }
+
+    private CollectionType collectionType(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return CollectionType.NONE;
+        }
+        var typeName = ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName()
+                                                                        .toString();
+        switch (typeName) {
+            case "java.util.Set":
+                return CollectionType.SET;
+            case "java.util.List":
+                return CollectionType.LIST;
+            default:
+                return CollectionType.NONE;
+        }
+    }
+
+    private Scalar scalar(TypeMirror type) {
+        switch (type.getKind()) {
+            case INT:
+                return new Scalar(ScalarType.INTEGER, true, null);
+            case LONG:
+                return new Scalar(ScalarType.LONG, true, null);
+            case BOOLEAN:
+                return new Scalar(ScalarType.BOOLEAN, true, null);
+            case DECLARED:
+                var element = (TypeElement) ((DeclaredType) type).asElement();
+                var typeName = element.getQualifiedName()
+                                      .toString();
+                if (element.getKind() == ElementKind.ENUM) {
+                    return new Scalar(ScalarType.ENUM, false, typeName);
+                }
+                switch (typeName) {
+                    case "java.lang.String":
+                        return new Scalar(ScalarType.STRING, false, null);
+                    case "java.lang.Integer":
+                        return new Scalar(ScalarType.INTEGER, false, null);
+                    case "java.lang.Long":
+                        return new Scalar(ScalarType.LONG, false, null);
+                    case "java.lang.Boolean":
+                        return new Scalar(ScalarType.BOOLEAN, false, null);
+                    default:
+                        return null;
+                }
+            default:
+                return null;
+        }
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager()
+                     .printMessage(ERROR, message, element);
+    }
+
+    private enum CollectionType {
+        NONE, SET, LIST
+    }
+
+    private enum ScalarType {
+        STRING, INTEGER, LONG, BOOLEAN, ENUM
+    }
+
+    private static class Scalar {
+
+        private final ScalarType type;
+        private final boolean primitive;
+        private final String enumName;
+
+        private Scalar(ScalarType type, boolean primitive, String enumName) {
+            this.type = type;
+            this.primitive = primitive;
+            this.enumName = enumName;
+        }
+
+        /**
+         * @return expression reading the value from a non-null attribute value (e.g. {@code attribute.s()})
+         */
+        private String read(String attributeValue) {
+            switch (type) {
+                case STRING:
+                    return attributeValue;
+                case INTEGER:
+                    return (primitive ? "Integer.parseInt(" : "Integer.valueOf(") + attributeValue + ")";
+                case LONG:
+                    return (primitive ? "Long.parseLong(" : "Long.valueOf(") + attributeValue + ")";
+                case BOOLEAN:
+                    return attributeValue;
+                default:
+                    return enumName + ".valueOf(" + attributeValue + ")";
+            }
+        }
+
+        /**
+         * @return expression reading the value of the attribute - from {@code attribute} variable
+         */
+        private String readAttribute() {
+            switch (type) {
+                case INTEGER:
+                case LONG:
+                    return (primitive ? "attribute == null ? 0 : " : "attribute == null ? null : ")
+                           + read("attribute.n()");
+                case BOOLEAN:
+                    return primitive
+                           ? "attribute != null && Boolean.TRUE.equals(attribute.bool())"
+                           : "attribute == null ? null : attribute.bool()";
+                default:
+                    return "attribute == null ? null : " + read("attribute.s()");
+            }
+        }
+
+        /**
+         * @return expression creating an attribute value from a non-null value
+         */
+        private String write(String value) {
+            switch (type) {
+                case STRING:
+                    return ATTRIBUTE_VALUE + ".fromS(" + value + ")";
+                case INTEGER:
+                case LONG:
+                    return ATTRIBUTE_VALUE + ".fromN(String.valueOf(" + value + "))";
+                case BOOLEAN:
+                    return ATTRIBUTE_VALUE + ".fromBool(" + value + ")";
+                default:
+                    return ATTRIBUTE_VALUE + ".fromS(" + value + ".name())";
+            }
+        }
+
+        /**
+         * @return string value of a non-null set element
+         */
+        private String string(String value) {
+            return type == ScalarType.ENUM ? value + ".name()" : value;
+        }
+
+        private String typeName() {
+            return type == ScalarType.ENUM ? enumName : "String";
+        }
+    }
+
+    private static class ItemField {
+
+        private final String name;
+        private final CollectionType collection;
+        private final Scalar scalar;
+        private final boolean compressed;
+
+        private ItemField(String name, CollectionType collection, Scalar scalar, boolean compressed) {
+            this.name = name;
+            this.collection = collection;
+            this.scalar = scalar;
+            this.compressed = compressed;
+        }
+
+        /**
+         * @return expression reading the value from a non-null attribute value (or list element)
+         */
+        private String read(String attributeValue) {
+            return compressed
+                   ? COMPRESSED_TEXT + ".decode(" + attributeValue + ")"
+                   : scalar.read(attributeValue + ".s()");
+        }
+
+        /**
+         * @return expression creating an attribute value (or list element) from a non-null value
+         */
+        private String write(String value) {
+            return compressed ? COMPRESSED_TEXT + ".encode(" + value + ")" : scalar.write(value);
+        }
+    }
+
+    private static class MapperSource {
+
+        private final StringBuilder source = new StringBuilder();
+        private final String packageName;
+        private final String mapperName;
+        private final String tableName;
+        private final List<ItemField> fields;
+
+        private MapperSource(String packageName, String mapperName, String tableName, List<ItemField> fields) {
+            this.packageName = packageName;
+            this.mapperName = mapperName;
+            this.tableName = tableName;
+            this.fields = fields;
+        }
+
+        @Override
+        public String toString() {
+            if (!packageName.isEmpty()) {
+                line(0, "package " + packageName + ";");
+                line(0, "");
+            }
+            line(0, "@javax.annotation.processing.Generated(\"" + ItemMapperProcessor.class.getName() + "\")");
+            line(0, "class " + mapperName + " implements " + DYNAMODB_PACKAGE + ".ItemMapper<" + tableName + "> {");
+            line(0, "");
+            createItemFromExtractor();
+            createItem();
+            attributesCreator();
+            additionalAttributes();
+            line(0, "}");
+            return source.toString();
+        }
+
+        private void createItemFromExtractor() {
+            line(1, "@Override");
+            line(1, "public " + tableName + " createItem(" + DYNAMODB_PACKAGE + ".ItemExtractor extractor) {");
+            line(2, "return createItem(extractor.attributes());");
+            line(1, "}");
+            line(0, "");
+        }
+
+        private void createItem() {
+            line(1, "@Override");
+            line(1, "public " + tableName + " createItem(java.util.Map<String, " + ATTRIBUTE_VALUE + "> attributes) {");
+            line(2, "var builder = " + tableName + ".builder();");
+            line(2, ATTRIBUTE_VALUE + " attribute;");
+            for (var field : fields) {
+                line(2, "attribute = attributes.get(\"" + field.name + "\");");
+                var scalar = field.scalar;
+                switch (field.collection) {
+                    case SET:
+                        line(2, "{");
+                        line(3, "var values = new java.util.HashSet<" + scalar.typeName() + ">();");
+                        line(3, "if (attribute != null) {");
+                        line(4, "for (var element : attribute.ss()) {");
+                        line(5, "values.add(" + scalar.read("element") + ");");
+                        line(4, "}");
+                        line(3, "}");
+                        line(3, "builder." + field.name + "(values);");
+                        line(2, "}");
+                        break;
+                    case LIST:
+                        line(2, "{");
+                        line(3, "var values = new java.util.ArrayList<" + scalar.typeName() + ">();");
+                        line(3, "if (attribute != null) {");
+                        line(4, "for (var element : attribute.l()) {");
+                        line(5, "values.add(" + field.read("element") + ");");
+                        line(4, "}");
+                        line(3, "}");
+                        line(3, "builder." + field.name + "(values);");
+                        line(2, "}");
+                        break;
+                    default:
+                        var value = field.compressed
+                                    ? "attribute == null ? null : " + field.read("attribute")
+                                    : scalar.readAttribute();
+                        line(2, "builder." + field.name + "(" + value + ");");
+                }
+            }
+            line(2, "return builder.build();");
+            line(1, "}");
+            line(0, "");
+        }
+
+        private void attributesCreator() {
+            line(1, "@Override");
+            line(1, "public " + DYNAMODB_PACKAGE + ".AttributesCreator attributesCreator(" + tableName + " item) {");
+            line(2, "var creator = new " + DYNAMODB_PACKAGE + ".AttributesCreator();");
+            for (var field : fields) {
+                var scalar = field.scalar;
+                var attributeName = "\"" + field.name + "\"";
+                if (field.collection == CollectionType.NONE && scalar.primitive) {
+                    line(2, "creator.put(" + attributeName + ", " + scalar.write("item." + field.name + "()") + ");");
+                    continue;
+                }
+                line(2, "{");
+                line(3, "var value = item." + field.name + "();");
+                switch (field.collection) {
+                    case SET:
+                        line(3, "if (value != null && !value.isEmpty()) {");
+                        line(4, "var strings = new java.util.ArrayList<String>(value.size());");
+                        line(4, "for (var element : value) {");
+                        line(5, "strings.add(" + scalar.string("element") + ");");
+                        line(4, "}");
+                        line(4, "creator.put(" + attributeName + ", " + ATTRIBUTE_VALUE + ".fromSs(strings));");
+                        line(3, "}");
+                        break;
+                    case LIST:
+                        line(3, "if (value != null && !value.isEmpty()) {");
+                        line(4, "var values = new java.util.ArrayList<" + ATTRIBUTE_VALUE + ">(value.size());");
+                        line(4, "for (var element : value) {");
+                        line(5, "values.add(" + field.write("element") + ");");
+                        line(4, "}");
+                        line(4, "creator.put(" + attributeName + ", " + ATTRIBUTE_VALUE + ".fromL(values));");
+                        line(3, "}");
+                        break;
+                    default:
+                        line(3, "if (value != null) {");
+                        line(4, "creator.put(" + attributeName + ", " + field.write("value") + ");");
+                        line(3, "}");
+                }
+                line(2, "}");
+            }
+            line(2, "return additionalAttributes(creator, item);");
+            line(1, "}");
+            line(0, "");
+        }
+
+        private void additionalAttributes() {
+            line(1, "/**");
+            line(1, " * Puts the attributes which are not fields of the item - none by default.");
+            line(1, " */");
+            line(1, "protected " + DYNAMODB_PACKAGE + ".AttributesCreator additionalAttributes(");
+            line(3, DYNAMODB_PACKAGE + ".AttributesCreator creator, " + tableName + " item) {");
+            line(2, "return creator;");
+            line(1, "}");
+            line(0, "");
+        }
+
+        private void line(int indentation, String line) {
+            if (!line.isEmpty()) {
+                source.append("    ".repeat(indentation))
+                      .append(line);
+            }
+            source.append('\n');
+        }
+    }
+
+}
@@ -0,0 +1,122 @@
+package io.github.jonarzz.restaurant.knowledge.domain;
+
+import static io.github.jonarzz.restaurant.knowledge.domain.Category.*;
+import static io.github.jonarzz.restaurant.knowledge.domain.RestaurantAccessPath.*;
+import static io.github.jonarzz.restaurant.knowledge.domain.RestaurantItem.Attributes.*;
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+
+class RestaurantAccessPathTest {
+
+    static final RestaurantQueryCriteria ALL_CRITERIA = RestaurantQueryCriteria.builder()
+                                                                               .nameBeginsWith("Bu")
+                                                                               .category(BURGER)
+                                                                               .triedBefore(true)
+                                                                               .ratingAtLeast(5)
+                                                                               .build();
+
+    @Test
+    void allCriteria_allPathsApplicable() {
+        assertThat(RestaurantAccessPath.values())
+                .allMatch(path -> path.applicableTo(ALL_CRITERIA));
+    }
+
+    @Test
+    void notTried_ratingIndexNotApplicable() {
+        var criteria = RestaurantQueryCriteria.builder()
+                                              .triedBefore(false)
+                                              .ratingAtLeast(5)
+                                              .build();
+
+        assertThat(RATING_INDEX.applicableTo(criteria))
+                .isFalse();
+        assertThat(TRIED_BEFORE_INDEX.applicableTo(criteria))
+                .isTrue();
+    }
+
+    @Test
+    void namePrefixOnly_onlyTableApplicable() {
+        var criteria = RestaurantQueryCriteria.builder()
+                                              .nameBeginsWith("Bu")
+                                              .build();
+
+        assertThat(RestaurantAccessPath.values())
+                .filteredOn(path -> path.applicableTo(criteria))
+                .containsExactly(TABLE);
+    }
+
+    @Test
+    void indexNames() {
+        assertThat(TABLE.indexName(ALL_CRITERIA))
+                .isNull();
+        assertThat(CATEGORY_INDEX.indexName(ALL_CRITERIA))
+                .isEqualTo(RestaurantIndexes.categoryIndex(BURGER));
+        assertThat(RATING_INDEX.indexName(ALL_CRITERIA))
+                .isEqualTo(RestaurantIndexes.RATING_INDEX);
+        assertThat(TRIED_BEFORE_INDEX.indexName(ALL_CRITERIA))
+                .isEqualTo(RestaurantIndexes.TRIED_INDEX);
+    }
+
+    @Test
+    void distinctKeyAttributes() {
+        assertThat(TABLE.distinctKeyAttribute(ALL_CRITERIA))
+                .isNull();
+        assertThat(CATEGORY_INDEX.distinctKeyAttribute(ALL_CRITERIA))
+                .isEqualTo(RestaurantIndexes.categoryUserId(BURGER));
+        assertThat(RATING_INDEX.distinctKeyAttribute(ALL_CRITERIA))
+                .isEqualTo(RATING);
+        assertThat(TRIED_BEFORE_INDEX.distinctKeyAttribute(ALL_CRITERIA))
+                .isEqualTo(RestaurantIndexes.TRIED_USER_ID);
+    }
+
+    @Test
+    void statisticsKeys_distinguishNamePrefix() {
+        var withoutPrefix = RestaurantQueryCriteria.builder()
+                                                   .category(BURGER)
+                                                   .triedBefore(true)
+                                                   .ratingAtLeast(5)
+                                                   .build();
+
+        assertThat(RestaurantAccessPath.values())
+                .allSatisfy(path -> assertThat(path.statisticsKey(ALL_CRITERIA))
+                        .isNotEqualTo(path.statisticsKey(withoutPrefix)));
+    }
+
+    @Test
+    void statisticsKeys_distinguishMinimalRating() {
+        var otherRating = RestaurantQueryCriteria.builder()
+                                                 .nameBeginsWith("Bu")
+                                                 .category(BURGER)
+                                                 .triedBefore(true)
+                                                 .ratingAtLeast(8)
+                                                 .build();
+
+        assertThat(RATING_INDEX.statisticsKey(ALL_CRITERIA))
+                .isNotEqualTo(RATING_INDEX.statisticsKey(otherRating));
+        assertThat(CATEGORY_INDEX.statisticsKey(ALL_CRITERIA))
+                .isEqualTo(CATEGORY_INDEX.statisticsKey(otherRating));
+    }
+
+    @Test
+    void coveredCriteria() {
+        assertThat(TABLE.coversName())
+                .isTrue();
+        assertThat(RATING_INDEX.coversName())
+                .isFalse();
+        assertThat(CATEGORY_INDEX.coversCategory())
+                .isTrue();
+        assertThat(TRIED_BEFORE_INDEX.coversCategory())
+                .isFalse();
+        assertThat(RATING_INDEX.coversTriedBefore())
+                .as("rated restaurants are tried before")
+                .isTrue();
+        assertThat(TABLE.coversTriedBefore())
+                .isFalse();
+        assertThat(RATING_INDEX.coversRating())
+                .isTrue();
+        assertThat(CATEGORY_INDEX.coversRating())
+                .isFalse();
+    }
+
+}
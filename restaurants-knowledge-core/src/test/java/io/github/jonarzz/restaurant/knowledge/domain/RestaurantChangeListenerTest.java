@@ -0,0 +1,82 @@
+package io.github.jonarzz.restaurant.knowledge.domain;
+
+import static io.github.jonarzz.restaurant.knowledge.domain.Category.*;
+import static java.util.concurrent.TimeUnit.*;
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.*;
+
+import org.junit.jupiter.api.*;
+import org.testcontainers.containers.*;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import io.github.jonarzz.restaurant.knowledge.technical.auth.*;
+import io.github.jonarzz.restaurant.knowledge.technical.dynamodb.*;
+
+@Testcontainers
+@TestInstance(PER_CLASS)
+class RestaurantChangeListenerTest {
+
+    static final String TEST_USER = "stream-test-user";
+
+    @Container
+    static final GenericContainer<?> dynamoDbContainer = new GenericContainer<>("amazon/dynamodb-local:latest")
+            .withCommand("-jar DynamoDBLocal.jar -inMemory -sharedDb")
+            .withExposedPorts(8000);
+
+    static {
+        dynamoDbContainer.start();
+    }
+
+    BlockingQueue<String> changes = new LinkedBlockingQueue<>();
+    RestaurantService restaurantService;
+    DynamoDbStreamListener changesListener;
+
+    @BeforeAll
+    void beforeAll() {
+        var dynamoDbUrl = "http://localhost:" + dynamoDbContainer.getFirstMappedPort();
+        var factory = new RestaurantDomainFactory(DynamoDbTestUtil.createClient(dynamoDbUrl));
+        DynamoDbTestUtil.enableTableCreation();
+        restaurantService = factory.restaurantDynamoDbService(factory.restaurantDynamoDbRepository());
+        changesListener = factory.restaurantChangesListener(DynamoDbTestUtil.createStreamsClient(dynamoDbUrl),
+                                                            Duration.ofMillis(100),
+                                                            (userId, nameLowercase) -> changes.add(userId + "/" + nameLowercase));
+    }
+
+    @BeforeEach
+    void setUp() {
+        SecurityContext.setUserId(TEST_USER);
+    }
+
+    @AfterAll
+    void afterAll() {
+        changesListener.close();
+        dynamoDbContainer.close();
+    }
+
+    @Test
+    void createUpdateAndDelete_keysReceived() throws InterruptedException {
+        restaurantService.create(new RestaurantData()
+                                         .name("Bobby Burger")
+                                         .categories(Set.of(BURGER)));
+        restaurantService.setRating("Bobby Burger", 8);
+        restaurantService.delete("Bobby Burger");
+
+        var received = new ArrayList<String>();
+        while (received.size() < 3) {
+            var change = changes.poll(10, SECONDS);
+            assertThat(change)
+                    .as("Change received in time, got so far: " + received)
+                    .isNotNull();
+            received.add(change);
+        }
+
+        assertThat(received)
+                .containsOnly(TEST_USER + "/bobby burger");
+    }
+
+}
@@ -0,0 +1,141 @@
+package io.github.jonarzz.restaurant.knowledge.domain;
+
+import static io.github.jonarzz.restaurant.knowledge.common.ModificationResultType.*;
+import static io.github.jonarzz.restaurant.knowledge.domain.Category.*;
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.*;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.MethodOrderer.*;
+import org.testcontainers.containers.*;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import io.github.jonarzz.restaurant.knowledge.technical.auth.*;
+import io.github.jonarzz.restaurant.knowledge.technical.dynamodb.*;
+
+@Testcontainers
+@TestInstance(PER_CLASS)
+@TestMethodOrder(OrderAnnotation.class)
+class RestaurantDynamoDbAsyncServiceTest {
+
+    static final String TEST_USER = "async-test-user";
+    static final String RESTAURANT_NAME = "Pizza Hut";
+    static final String RESTAURANT_RENAMED = "Pizza Hut Express";
+
+    @Container
+    static final GenericContainer<?> dynamoDbContainer = new GenericContainer<>("amazon/dynamodb-local:latest")
+            .withCommand("-jar DynamoDBLocal.jar -inMemory -sharedDb")
+            .withExposedPorts(8000);
+
+    static {
+        dynamoDbContainer.start();
+    }
+
+    RestaurantAsyncService restaurantService;
+
+    @BeforeAll
+    void beforeAll() {
+        var amazonDynamoDb = DynamoDbTestUtil.createAsyncClient(
+                "http://localhost:" + dynamoDbContainer.getFirstMappedPort()
+        );
+        DynamoDbTestUtil.enableTableCreation();
+        restaurantService = new RestaurantDynamoDbAsyncService(new RestaurantDynamoDbAsyncRepository(amazonDynamoDb));
+    }
+
+    @BeforeEach
+    void setUp() {
+        SecurityContext.setUserId(TEST_USER);
+    }
+
+    @AfterAll
+    static void afterAll() {
+        dynamoDbContainer.close();
+    }
+
+    @Test
+    @Order(10)
+    void create() {
+        var restaurant = new RestaurantData()
+                .name(RESTAURANT_NAME)
+                .categories(Set.of(PIZZA));
+
+        var result = join(restaurantService.create(restaurant));
+
+        assertThat(result)
+                .isEqualTo(SUCCESS);
+        assertThat(join(restaurantService.create(restaurant)))
+                .isEqualTo(ALREADY_EXISTS);
+    }
+
+    @Test
+    @Order(20)
+    void fetch_userIdResolvedOnCallingThread() {
+        var future = restaurantService.fetch(RESTAURANT_NAME);
+        SecurityContext.setUserId("other-user");
+
+        assertThat(join(future))
+                .get()
+                .returns(RESTAURANT_NAME, RestaurantData::name)
+                .returns(Set.of(PIZZA), RestaurantData::categories);
+    }
+
+    @Test
+    @Order(30)
+    void setRating() {
+        assertThat(join(restaurantService.setRating(RESTAURANT_NAME, 8)))
+                .isEqualTo(SUCCESS);
+        assertThat(join(restaurantService.setRating(RESTAURANT_NAME, 8)))
+                .isEqualTo(NO_CHANGES);
+        assertThat(join(restaurantService.setRating("Unknown", 8)))
+                .isEqualTo(NOT_FOUND);
+    }
+
+    @Test
+    @Order(40)
+    void queryPage() {
+        var criteria = RestaurantQueryCriteria.builder()
+                                              .nameBeginsWith("pizza")
+                                              .build();
+
+        var page = join(restaurantService.query(criteria, null, 10));
+
+        assertThat(page.items())
+                .extracting(RestaurantData::name)
+                .containsExactly(RESTAURANT_NAME);
+        assertThat(page.hasNext())
+                .isFalse();
+    }
+
+    @Test
+    @Order(50)
+    void rename() {
+        var result = join(restaurantService.update(RESTAURANT_NAME, new RestaurantData()
+                .name(RESTAURANT_RENAMED)));
+
+        assertThat(result.resultType())
+                .isEqualTo(SUCCESS);
+        assertThat(join(restaurantService.fetch(RESTAURANT_NAME)))
+                .isEmpty();
+        assertThat(join(restaurantService.fetch(RESTAURANT_RENAMED)))
+                .get()
+                .returns(8, RestaurantData::rating);
+    }
+
+    @Test
+    @Order(60)
+    void delete() {
+        assertThat(join(restaurantService.delete(RESTAURANT_RENAMED)))
+                .isEqualTo(SUCCESS);
+        assertThat(join(restaurantService.fetch(RESTAURANT_RENAMED)))
+                .isEmpty();
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        return future.orTimeout(10, TimeUnit.SECONDS)
+                     .join();
+    }
+}
@@ -1,11 +1,15 @@
 package io.github.jonarzz.restaurant.knowledge.domain;
 
+import static io.github.jonarzz.restaurant.knowledge.common.ModificationResultType.*;
 import static io.github.jonarzz.restaurant.knowledge.domain.Category.*;
+import static io.github.jonarzz.restaurant.knowledge.domain.RestaurantItem.Attributes.*;
+import static java.util.stream.Collectors.*;
 import static org.assertj.core.api.Assertions.*;
 import static org.assertj.core.api.InstanceOfAssertFactories.*;
 import static org.junit.jupiter.api.TestInstance.Lifecycle.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
+import static software.amazon.awssdk.services.dynamodb.model.AttributeValue.*;
 
 import org.assertj.core.api.*;
 import org.junit.jupiter.api.*;
@@ -15,8 +19,10 @@ import org.junit.jupiter.params.provider.*;
 import org.testcontainers.containers.*;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.*;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.*;
 import java.util.stream.*;
 
@@ -32,6 +38,7 @@ class RestaurantDynamoDbServiceTest {
     static final String TRIED_RESTAURANT_NAME = "Subway";
     static final String TRIED_RESTAURANT_RENAMED = "Subway Nowy Świat";
     static final String NOT_TRIED_RESTAURANT_NAME = "Burger King";
+    static final String ELEMENTS_RESTAURANT_NAME = "Sushi Point";
     static final int FILLER_ENTRIES_COUNT = 50;
 
     @Container
@@ -43,12 +50,13 @@ class RestaurantDynamoDbServiceTest {
         dynamoDbContainer.start();
     }
 
+    DynamoDbClient amazonDynamoDb;
     RestaurantDynamoDbRepository repositorySpy;
     RestaurantService restaurantService;
 
     @BeforeAll
     void beforeAll() {
-        var amazonDynamoDb = DynamoDbTestUtil.createClient(
+        amazonDynamoDb = DynamoDbTestUtil.createClient(
                 "http://localhost:" + dynamoDbContainer.getFirstMappedPort()
         );
         DynamoDbTestUtil.enableTableCreation();
@@ -117,6 +125,26 @@ class RestaurantDynamoDbServiceTest {
                 .isThrownBy(() -> restaurantService.create(toSave));
     }
 
+    @Test
+    @Order(21)
+    void tryToCreateExistingRestaurant_differentCase() {
+        clearInvocations(repositorySpy);
+        var toSave = new RestaurantData()
+                .name(NOT_TRIED_RESTAURANT_NAME.toUpperCase())
+                .categories(Set.of(OTHER));
+
+        var result = restaurantService.create(toSave);
+
+        assertThat(result)
+                .isEqualTo(ALREADY_EXISTS);
+        verify(repositorySpy, never())
+                .findByKey(any());
+        assertThat(restaurantService.fetch(NOT_TRIED_RESTAURANT_NAME))
+                .get()
+                .returns(NOT_TRIED_RESTAURANT_NAME, RestaurantData::name)
+                .returns(Set.of(FAST_FOOD, BURGER), RestaurantData::categories);
+    }
+
     IntStream intRange() {
         return IntStream.rangeClosed(1, FILLER_ENTRIES_COUNT);
     }
@@ -370,6 +398,84 @@ class RestaurantDynamoDbServiceTest {
                 .hasMessage("Query criteria cannot be empty");
     }
 
+    @Test
+    @Order(30)
+    void queryPageByPage() {
+        var criteria = RestaurantQueryCriteria.builder()
+                                              .triedBefore(false)
+                                              .build();
+        var pageSize = 20;
+        List<RestaurantData> allResults = new ArrayList<>();
+        var pagesCount = 0;
+
+        String cursor = null;
+        do {
+            var page = restaurantService.query(criteria, cursor, pageSize);
+            assertThat(page.items())
+                    .hasSizeLessThanOrEqualTo(pageSize);
+            allResults.addAll(page.items());
+            cursor = page.nextCursor();
+            pagesCount++;
+        } while (cursor != null);
+
+        assertThat(pagesCount)
+                .isEqualTo(FILLER_ENTRIES_COUNT / pageSize + 1);
+        assertThat(allResults)
+                .hasSize(1 + FILLER_ENTRIES_COUNT)
+                .extracting(RestaurantData::name)
+                .doesNotHaveDuplicates();
+    }
+
+    @Test
+    @Order(30)
+    void streamConsumedOutsideOfSecurityContext() {
+        var criteria = RestaurantQueryCriteria.builder()
+                                              .triedBefore(false)
+                                              .build();
+        var queried = restaurantService.query(criteria)
+                                       .stream()
+                                       .map(RestaurantData::name)
+                                       .collect(toList());
+
+        var stream = restaurantService.stream(criteria);
+        var result = CompletableFuture.supplyAsync(() -> stream.collect(toList()))
+                                      .join();
+
+        assertThat(result)
+                .hasSize(1 + FILLER_ENTRIES_COUNT)
+                .extracting(RestaurantData::name)
+                .containsExactlyElementsOf(queried);
+    }
+
+    @Test
+    @Order(30)
+    void queryPage_invalidCursor() {
+        var criteria = RestaurantQueryCriteria.builder()
+                                              .triedBefore(false)
+                                              .build();
+
+        ThrowableAssert.ThrowingCallable queryMethod = () -> restaurantService.query(criteria, "not-a-cursor", 10);
+
+        assertThatThrownBy(queryMethod)
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    @Order(30)
+    void queryPage_cursorOfOtherUser() {
+        var criteria = RestaurantQueryCriteria.builder()
+                                              .triedBefore(false)
+                                              .build();
+        var cursor = restaurantService.query(criteria, null, 1)
+                                      .nextCursor();
+        setUpSecurityContext("some other user");
+
+        ThrowableAssert.ThrowingCallable queryMethod = () -> restaurantService.query(criteria, cursor, 10);
+
+        assertThatThrownBy(queryMethod)
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
     @Test
     @Order(35)
     void tryToFindRestaurantWithDifferentUsed_cacheShouldBeOmitted() {
@@ -426,6 +532,22 @@ class RestaurantDynamoDbServiceTest {
                 ), RestaurantData::notes);
     }
 
+    @Test
+    @Order(45)
+    void renameRestaurant_toExistingName() {
+        var updateData = new RestaurantData()
+                .name(NOT_TRIED_RESTAURANT_NAME.toLowerCase());
+
+        var result = restaurantService.update(TRIED_RESTAURANT_RENAMED, updateData);
+
+        assertThat(result.resultType())
+                .isEqualTo(ALREADY_EXISTS);
+        assertRestaurantFound(TRIED_RESTAURANT_RENAMED)
+                .returns(6, RestaurantData::rating);
+        assertRestaurantFound(NOT_TRIED_RESTAURANT_NAME)
+                .returns(NOT_TRIED_RESTAURANT_NAME, RestaurantData::name);
+    }
+
     @Test
     @Order(50)
     void replaceCategories() {
@@ -466,6 +588,32 @@ class RestaurantDynamoDbServiceTest {
                 .returns(true, RestaurantData::triedBefore);
     }
 
+    @Test
+    @Order(55)
+    void setRating_sameValue() {
+        clearInvocations(repositorySpy);
+
+        var result = restaurantService.setRating(NOT_TRIED_RESTAURANT_NAME, 7);
+
+        assertThat(result)
+                .isEqualTo(NO_CHANGES);
+        verify(repositorySpy, never())
+                .findByKey(any());
+    }
+
+    @Test
+    @Order(55)
+    void setRating_nonExistent() {
+        clearInvocations(repositorySpy);
+
+        var result = restaurantService.setRating("i do not exist", 7);
+
+        assertThat(result)
+                .isEqualTo(NOT_FOUND);
+        verify(repositorySpy, never())
+                .findByKey(any());
+    }
+
     @Test
     @Order(60)
     void setNotVisited_afterSettingRating() {
@@ -620,6 +768,182 @@ class RestaurantDynamoDbServiceTest {
                 .returns(review, RestaurantData::review);
     }
 
+    @Test
+    @Order(105)
+    void updateRestaurant_onlyChangedAttributesWritten() {
+        clearInvocations(repositorySpy);
+        var updateData = new RestaurantData()
+                .categories(Set.of(PIZZA, PASTA, OTHER))
+                .rating(5)
+                .review("Changed review text");
+
+        var result = restaurantService.update(NOT_TRIED_RESTAURANT_NAME, updateData);
+
+        assertThat(result.resultType())
+                .isEqualTo(SUCCESS);
+        assertThat(result.content())
+                .returns(5, RestaurantData::rating)
+                .returns("Changed review text", RestaurantData::review);
+        verify(repositorySpy)
+                .update(new RestaurantKey(TEST_USER, NOT_TRIED_RESTAURANT_NAME),
+                        new ItemUpdate().set(RATING, fromN("5")));
+    }
+
+    @Test
+    @Order(110)
+    void addCategory() {
+        restaurantService.create(new RestaurantData()
+                                         .name(ELEMENTS_RESTAURANT_NAME)
+                                         .categories(Set.of(SUSHI)));
+
+        var result = restaurantService.addCategory(ELEMENTS_RESTAURANT_NAME, ASIAN);
+
+        assertThat(result.resultType())
+                .isEqualTo(SUCCESS);
+        assertThat(result.content())
+                .containsExactlyInAnyOrder(SUSHI, ASIAN);
+        assertRestaurantFound(ELEMENTS_RESTAURANT_NAME)
+                .returns(Set.of(SUSHI, ASIAN), RestaurantData::categories);
+    }
+
+    @Test
+    @Order(111)
+    void removeCategory() {
+        assertThat(restaurantService.removeCategory(ELEMENTS_RESTAURANT_NAME, SUSHI))
+                .isEqualTo(SUCCESS);
+        assertThat(restaurantService.removeCategory(ELEMENTS_RESTAURANT_NAME, PIZZA))
+                .isEqualTo(SUCCESS);
+        assertThat(restaurantService.removeCategory("i do not exist", PIZZA))
+                .isEqualTo(NOT_FOUND);
+
+        assertRestaurantFound(ELEMENTS_RESTAURANT_NAME)
+                .returns(Set.of(ASIAN), RestaurantData::categories);
+    }
+
+    @Test
+    @Order(112)
+    void addNote_noNotesBefore() {
+        restaurantService.addNote(ELEMENTS_RESTAURANT_NAME, "First");
+
+        var result = restaurantService.addNote(ELEMENTS_RESTAURANT_NAME, "Second");
+
+        assertThat(result.content())
+                .containsExactly("First", "Second");
+        assertRestaurantFound(ELEMENTS_RESTAURANT_NAME)
+                .returns(List.of("First", "Second"), RestaurantData::notes);
+    }
+
+    @Test
+    @Order(113)
+    void replaceNote() {
+        var result = restaurantService.replaceNote(ELEMENTS_RESTAURANT_NAME, 1, "Replaced");
+
+        assertThat(result.content())
+                .containsExactly("First", "Replaced");
+        assertThat(restaurantService.replaceNote(ELEMENTS_RESTAURANT_NAME, 2, "Out of bounds")
+                                    .resultType())
+                .isEqualTo(NO_CHANGES);
+        assertThat(restaurantService.replaceNote("i do not exist", 0, "Irrelevant")
+                                    .resultType())
+                .isEqualTo(NOT_FOUND);
+    }
+
+    @Test
+    @Order(114)
+    void removeNote() {
+        assertThat(restaurantService.removeNote(ELEMENTS_RESTAURANT_NAME, 5))
+                .isEqualTo(NO_CHANGES);
+        assertThat(restaurantService.removeNote(ELEMENTS_RESTAURANT_NAME, 0))
+                .isEqualTo(SUCCESS);
+
+        assertRestaurantFound(ELEMENTS_RESTAURANT_NAME)
+                .returns(List.of("Replaced"), RestaurantData::notes);
+    }
+
+    @Test
+    @Order(115)
+    void queryByCategory_indexFollowsCategoryChanges() {
+        var sushiCriteria = RestaurantQueryCriteria.builder()
+                                                   .category(SUSHI)
+                                                   .build();
+        var asianCriteria = RestaurantQueryCriteria.builder()
+                                                   .category(ASIAN)
+                                                   .build();
+        assertThat(restaurantService.query(sushiCriteria))
+                .extracting(RestaurantData::name)
+                .doesNotContain(ELEMENTS_RESTAURANT_NAME);
+        assertThat(restaurantService.query(asianCriteria))
+                .extracting(RestaurantData::name)
+                .contains(ELEMENTS_RESTAURANT_NAME);
+
+        restaurantService.replaceCategories(ELEMENTS_RESTAURANT_NAME, Set.of(SUSHI));
+
+        assertThat(restaurantService.query(sushiCriteria))
+                .extracting(RestaurantData::name)
+                .contains(ELEMENTS_RESTAURANT_NAME);
+        assertThat(restaurantService.query(asianCriteria))
+                .extracting(RestaurantData::name)
+                .doesNotContain(ELEMENTS_RESTAURANT_NAME);
+    }
+
+    @Test
+    @Order(116)
+    void querySummary_reviewAndNotesNotRead() {
+        var criteria = RestaurantQueryCriteria.builder()
+                                              .category(SUSHI)
+                                              .fields(RestaurantFields.SUMMARY)
+                                              .build();
+
+        var result = restaurantService.query(criteria);
+
+        assertThat(result)
+                .filteredOn(restaurant -> ELEMENTS_RESTAURANT_NAME.equals(restaurant.name()))
+                .singleElement()
+                .returns(Set.of(SUSHI), RestaurantData::categories)
+                .returns(null, RestaurantData::notes)
+                .returns(null, RestaurantData::review);
+    }
+
+    @Test
+    @Order(120)
+    void longReviewAndNotes_storedCompressed() {
+        var user = "essay-writer";
+        setUpSecurityContext(user);
+        var review = essay("Review");
+        var note = essay("Note");
+        var addedNote = essay("Added note");
+        restaurantService.create(new RestaurantData()
+                                         .name(ELEMENTS_RESTAURANT_NAME)
+                                         .categories(Set.of(SUSHI))
+                                         .review(review)
+                                         .notes(List.of("Short note", note)));
+
+        restaurantService.addNote(ELEMENTS_RESTAURANT_NAME, addedNote);
+        restaurantService.replaceNote(ELEMENTS_RESTAURANT_NAME, 0, note);
+
+        assertRestaurantFound(ELEMENTS_RESTAURANT_NAME)
+                .returns(review, RestaurantData::review)
+                .returns(List.of(note, note, addedNote), RestaurantData::notes);
+        assertThat(restaurantService.setReview(ELEMENTS_RESTAURANT_NAME, review))
+                .isEqualTo(NO_CHANGES);
+        var key = Map.of(USER_ID, fromS(user),
+                         NAME_LOWERCASE, fromS(ELEMENTS_RESTAURANT_NAME.toLowerCase()));
+        var storedItem = amazonDynamoDb.getItem(request -> request.tableName(RestaurantDynamoDbRepository.TABLE_NAME)
+                                                                  .key(key))
+                                       .item();
+        assertThat(storedItem.get(REVIEW).b())
+                .as("Compressed review")
+                .isNotNull();
+        assertThat(storedItem.get(NOTES).l())
+                .allSatisfy(storedNote -> assertThat(storedNote.b())
+                        .as("Compressed note")
+                        .isNotNull());
+    }
+
+    private static String essay(String title) {
+        return title + ": " + "The fish was fresh and the rice was seasoned just right. ".repeat(20);
+    }
+
     private void actOn(String restaurantName, Consumer<RestaurantData> action) {
         var restaurant = restaurantService.fetch(restaurantName)
                                           .orElseThrow(() -> new IllegalStateException("Not found restaurant with name "
@@ -0,0 +1,112 @@
+package io.github.jonarzz.restaurant.knowledge.domain;
+
+import static io.github.jonarzz.restaurant.knowledge.domain.Category.*;
+import static io.github.jonarzz.restaurant.knowledge.domain.RestaurantDynamoDbRepository.*;
+import static io.github.jonarzz.restaurant.knowledge.domain.RestaurantIndexes.*;
+import static io.github.jonarzz.restaurant.knowledge.domain.RestaurantItem.Attributes.*;
+import static java.util.stream.Collectors.*;
+import static org.assertj.core.api.Assertions.*;
+import static software.amazon.awssdk.services.dynamodb.model.AttributeValue.*;
+
+import org.junit.jupiter.api.*;
+import org.testcontainers.containers.*;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.*;
+import software.amazon.awssdk.services.dynamodb.*;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.*;
+
+import io.github.jonarzz.restaurant.knowledge.technical.auth.*;
+import io.github.jonarzz.restaurant.knowledge.technical.dynamodb.*;
+
+/**
+ * Restaurant table created before the secondary indexes and the stream were introduced.
+ */
+@Testcontainers
+class RestaurantIndexesMigrationTest {
+
+    static final String TEST_USER = "migration-test-user";
+    static final Map<String, AttributeValue> STORED_RESTAURANT = Map.of(
+            USER_ID, fromS(TEST_USER),
+            NAME_LOWERCASE, fromS("burger king"),
+            RESTAURANT_NAME, fromS("Burger King"),
+            CATEGORIES, AttributeValue.builder()
+                                      .ss(BURGER.getValue(), FAST_FOOD.getValue())
+                                      .build(),
+            TRIED_BEFORE, fromBool(false)
+    );
+
+    @Container
+    static final GenericContainer<?> dynamoDbContainer = new GenericContainer<>("amazon/dynamodb-local:latest")
+            .withCommand("-jar DynamoDBLocal.jar -inMemory -sharedDb")
+            .withExposedPorts(8000);
+
+    DynamoDbClient amazonDynamoDb;
+
+    @BeforeEach
+    void setUp() {
+        amazonDynamoDb = DynamoDbTestUtil.createClient(
+                "http://localhost:" + dynamoDbContainer.getFirstMappedPort()
+        );
+        var tableDefinition = createTableRequest();
+        var keyAttributes = tableDefinition.keySchema()
+                                           .stream()
+                                           .map(KeySchemaElement::attributeName)
+                                           .collect(toSet());
+        var keyDefinitions = tableDefinition.attributeDefinitions()
+                                            .stream()
+                                            .filter(definition -> keyAttributes.contains(definition.attributeName()))
+                                            .collect(toList());
+        amazonDynamoDb.createTable(tableDefinition.toBuilder()
+                                                  .globalSecondaryIndexes((Collection<GlobalSecondaryIndex>) null)
+                                                  .streamSpecification((StreamSpecification) null)
+                                                  .attributeDefinitions(keyDefinitions)
+                                                  .build());
+        amazonDynamoDb.putItem(PutItemRequest.builder()
+                                             .tableName(TABLE_NAME)
+                                             .item(STORED_RESTAURANT)
+                                             .build());
+        SecurityContext.setUserId(TEST_USER);
+    }
+
+    @Test
+    void storedRestaurantIndexed_missingIndexesAndStreamCreated() {
+        DynamoDbTestUtil.enableTableCreation();
+
+        var restaurantService = new RestaurantDynamoDbService(new RestaurantDynamoDbRepository(amazonDynamoDb));
+
+        assertThat(storedRestaurant())
+                .containsEntry(NOT_TRIED_USER_ID, fromS(TEST_USER))
+                .containsEntry(categoryUserId(BURGER), fromS(TEST_USER))
+                .containsEntry(categoryUserId(FAST_FOOD), fromS(TEST_USER))
+                .doesNotContainKey(TRIED_USER_ID)
+                .doesNotContainKey(categoryUserId(SUSHI));
+        var table = amazonDynamoDb.describeTable(builder -> builder.tableName(TABLE_NAME))
+                                  .table();
+        assertThat(table.latestStreamArn())
+                .isNotNull();
+        assertThat(table.globalSecondaryIndexes())
+                .extracting(GlobalSecondaryIndexDescription::indexName)
+                .isNotEmpty()
+                .isSubsetOf(globalSecondaryIndexes().stream()
+                                                    .map(GlobalSecondaryIndex::indexName)
+                                                    .collect(toList()));
+        // found through the index if it is active already, through the table otherwise
+        assertThat(restaurantService.query(RestaurantQueryCriteria.builder()
+                                                                  .category(BURGER)
+                                                                  .triedBefore(false)
+                                                                  .build()))
+                .extracting(RestaurantData::name)
+                .containsExactly("Burger King");
+    }
+
+    private Map<String, AttributeValue> storedRestaurant() {
+        var key = Map.of(USER_ID, STORED_RESTAURANT.get(USER_ID),
+                         NAME_LOWERCASE, STORED_RESTAURANT.get(NAME_LOWERCASE));
+        return amazonDynamoDb.getItem(builder -> builder.tableName(TABLE_NAME)
+                                                        .key(key))
+                             .item();
+    }
+
+}
@@ -0,0 +1,154 @@
+package io.github.jonarzz.restaurant.knowledge.domain;
+
+import static io.github.jonarzz.restaurant.knowledge.domain.Category.*;
+import static io.github.jonarzz.restaurant.knowledge.domain.RestaurantItem.Attributes.*;
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.*;
+import org.junit.jupiter.params.provider.*;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.*;
+
+import io.github.jonarzz.restaurant.knowledge.technical.dynamodb.*;
+
+class RestaurantItemMapperTest {
+
+    static final String TEST_USER = "mapper-test-user";
+
+    RestaurantItemMapper generatedMapper = new RestaurantItemMapper();
+    ExtractorRestaurantItemMapper handWrittenMapper = new ExtractorRestaurantItemMapper();
+
+    @ParameterizedTest
+    @MethodSource("restaurants")
+    void attributesCreatedAsByHandWrittenMapper(RestaurantItem restaurant) {
+        var attributes = DynamoDbTestUtil.attributes(generatedMapper.attributesCreator(restaurant));
+
+        assertThat(comparable(attributes))
+                .isEqualTo(comparable(DynamoDbTestUtil.attributes(handWrittenMapper.attributesCreator(restaurant))));
+    }
+
+    @ParameterizedTest
+    @MethodSource("restaurants")
+    void itemCreatedAsByHandWrittenMapper(RestaurantItem restaurant) {
+        var attributes = DynamoDbTestUtil.attributes(handWrittenMapper.attributesCreator(restaurant));
+
+        assertThat(generatedMapper.createItem(attributes))
+                .usingRecursiveComparison()
+                .isEqualTo(handWrittenMapper.createItem(new ItemExtractor(attributes)));
+    }
+
+    @Test
+    void longReviewAndNotes_compressed() {
+        var restaurant = longTextRestaurant();
+
+        var attributes = DynamoDbTestUtil.attributes(generatedMapper.attributesCreator(restaurant));
+
+        assertThat(attributes.get(REVIEW).b())
+                .isNotNull();
+        assertThat(attributes.get(NOTES).l())
+                .extracting(AttributeValue::s)
+                .containsExactly("Expensive", null);
+        assertThat(generatedMapper.createItem(attributes))
+                .usingRecursiveComparison()
+                .isEqualTo(restaurant);
+    }
+
+    @Test
+    void longReviewAndNotesStoredUncompressed_read() {
+        var restaurant = longTextRestaurant();
+        var attributes = DynamoDbTestUtil.attributes(handWrittenMapper.attributesCreator(restaurant));
+
+        var item = generatedMapper.createItem(attributes);
+
+        assertThat(item)
+                .usingRecursiveComparison()
+                .isEqualTo(restaurant);
+    }
+
+    static RestaurantItem longTextRestaurant() {
+        var text = "Great ramen, but the queue was long and the music was too loud. ".repeat(20);
+        return RestaurantItem.builder()
+                             .userId(TEST_USER)
+                             .restaurantName("Ramen Bar")
+                             .category(RAMEN)
+                             .triedBefore(true)
+                             .rating(7)
+                             .review(text)
+                             .note("Expensive")
+                             .note(text)
+                             .build();
+    }
+
+    static List<RestaurantItem> restaurants() {
+        return List.of(
+                RestaurantItem.builder()
+                              .userId(TEST_USER)
+                              .restaurantName("Bobby Burger")
+                              .category(BURGER)
+                              .category(FAST_FOOD)
+                              .triedBefore(true)
+                              .rating(8)
+                              .review("Very nice")
+                              .note("Expensive")
+                              .note("Order fries")
+                              .build(),
+                RestaurantItem.builder()
+                              .userId(TEST_USER)
+                              .restaurantName("Subway")
+                              .build(),
+                RestaurantItem.builder()
+                              .userId(TEST_USER)
+                              .restaurantName("Pizza Hut")
+                              .category(PIZZA)
+                              .rating(0)
+                              .review("")
+                              .build()
+        );
+    }
+
+    /**
+     * String sets are compared regardless of the order of elements.
+     */
+    private static Map<String, Object> comparable(Map<String, AttributeValue> attributes) {
+        var comparable = new HashMap<String, Object>();
+        attributes.forEach((name, value) -> comparable.put(name, value.hasSs() ? new HashSet<>(value.ss()) : value));
+        return comparable;
+    }
+
+    /**
+     * The mapper written by hand before the {@link DynamoDbItem generated} one.
+     */
+    private static class ExtractorRestaurantItemMapper implements ItemMapper<RestaurantItem> {
+
+        @Override
+        public RestaurantItem createItem(ItemExtractor extractor) {
+            return RestaurantItem.builder()
+                                 .userId(extractor.string(USER_ID))
+                                 .restaurantName(extractor.string(RESTAURANT_NAME))
+                                 .categories(extractor.set(CATEGORIES, Category::valueOf))
+                                 .triedBefore(extractor.bool(TRIED_BEFORE))
+                                 .rating(extractor.integer(RATING))
+                                 .review(extractor.string(REVIEW))
+                                 .notes(extractor.list(NOTES))
+                                 .build();
+        }
+
+        @Override
+        public AttributesCreator attributesCreator(RestaurantItem restaurant) {
+            var restaurantName = restaurant.restaurantName();
+            var creator = new AttributesCreator()
+                    .putIfPresent(USER_ID, restaurant.userId(), AttributeValue::fromS)
+                    .putIfPresent(NAME_LOWERCASE,  restaurantName.toLowerCase(), AttributeValue::fromS)
+                    .putIfPresent(RESTAURANT_NAME, restaurantName,               AttributeValue::fromS)
+                    .putIfPresent(REVIEW,          restaurant.review(),          AttributeValue::fromS)
+                    .putIfPresent(RATING,          restaurant.rating(),          AttributesCreator::numberAttribute)
+                    .putIfPresent(TRIED_BEFORE,    restaurant.triedBefore(),     AttributeValue::fromBool)
+                    .putIfNotEmpty(NOTES,      restaurant.notes())
+                    .putIfNotEmpty(CATEGORIES, restaurant.categories(), Category::getValue);
+            return RestaurantIndexes.putIndexAttributes(creator, restaurant);
+        }
+    }
+
+}
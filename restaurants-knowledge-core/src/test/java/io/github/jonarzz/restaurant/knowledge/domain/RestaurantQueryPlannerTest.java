@@ -0,0 +1,233 @@
+package io.github.jonarzz.restaurant.knowledge.domain;
+
+import static io.github.jonarzz.restaurant.knowledge.domain.Category.*;
+import static io.github.jonarzz.restaurant.knowledge.domain.RestaurantIndexes.*;
+import static io.github.jonarzz.restaurant.knowledge.domain.RestaurantItem.Attributes.*;
+import static org.assertj.core.api.Assertions.*;
+import static software.amazon.awssdk.services.dynamodb.model.AttributeValue.*;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+import io.github.jonarzz.restaurant.knowledge.technical.dynamodb.*;
+
+class RestaurantQueryPlannerTest {
+
+    static final String TEST_USER = "planner-test-user";
+
+    RestaurantQueryPlanner planner = new RestaurantQueryPlanner();
+
+    @Test
+    void noStatistics_categoryIndexFavoured() {
+        var criteria = RestaurantQueryCriteria.builder()
+                                              .nameBeginsWith("Bu")
+                                              .category(BURGER)
+                                              .triedBefore(true)
+                                              .ratingAtLeast(5)
+                                              .build();
+
+        assertThat(planner.plan(criteria)
+                          .indexName())
+                .isEqualTo(categoryIndex(BURGER));
+    }
+
+    @Test
+    void noStatistics_namePrefixOnly_tableQueried() {
+        var criteria = RestaurantQueryCriteria.builder()
+                                              .nameBeginsWith("Bu")
+                                              .build();
+
+        assertThat(planner.plan(criteria)
+                          .indexName())
+                .isNull();
+    }
+
+    @Test
+    void noStatistics_ratingIndexFavouredOverTriedIndex() {
+        var criteria = RestaurantQueryCriteria.builder()
+                                              .triedBefore(true)
+                                              .ratingAtLeast(5)
+                                              .build();
+
+        assertThat(planner.plan(criteria)
+                          .indexName())
+                .isEqualTo(RATING_INDEX);
+    }
+
+    @Test
+    void notTriedOnly_ratingIndexNotApplicable() {
+        var criteria = RestaurantQueryCriteria.builder()
+                                              .triedBefore(false)
+                                              .ratingAtLeast(5)
+                                              .build();
+
+        assertThat(planner.plan(criteria)
+                          .indexName())
+                .isEqualTo(NOT_TRIED_INDEX);
+    }
+
+    @Test
+    void indexReadingMoreItemsThanEstimated_otherPathChosen() {
+        var criteria = RestaurantQueryCriteria.builder()
+                                              .category(BURGER)
+                                              .triedBefore(false)
+                                              .build();
+        for (var i = 0; i < 3; i++) {
+            planner.plan(criteria)
+                   .recordPage(500, 1);
+        }
+
+        assertThat(planner.plan(criteria)
+                          .indexName())
+                .isEqualTo(NOT_TRIED_INDEX);
+    }
+
+    @Test
+    void sameItemsReadPerRequest_pathReturningMoreOfThemChosen() {
+        var criteria = RestaurantQueryCriteria.builder()
+                                              .category(BURGER)
+                                              .triedBefore(false)
+                                              .build();
+        for (var i = 0; i < 3; i++) {
+            // requests read up to the page limit
+            planner.plan(criteria)
+                   .recordPage(100, 2);
+        }
+        for (var i = 0; i < 3; i++) {
+            planner.plan(criteria)
+                   .recordPage(100, 50);
+        }
+
+        assertThat(planner.plan(criteria)
+                          .indexName())
+                .isEqualTo(NOT_TRIED_INDEX);
+    }
+
+    @Test
+    void wholeRestaurantsReadFromTable_tableQueriedInsteadOfIndex() {
+        var criteria = RestaurantQueryCriteria.builder()
+                                              .nameBeginsWith("Bu")
+                                              .category(BURGER);
+        for (var i = 0; i < 3; i++) {
+            planner.plan(criteria.fields(RestaurantFields.SUMMARY)
+                                 .build())
+                   .recordPage(10, 5);
+        }
+
+        assertThat(planner.plan(criteria.fields(RestaurantFields.SUMMARY)
+                                        .build())
+                          .indexName())
+                .isEqualTo(categoryIndex(BURGER));
+        assertThat(planner.plan(criteria.fields(null)
+                                        .build())
+                          .indexName())
+                .as("Restaurants found in the index read again by their keys")
+                .isNull();
+    }
+
+    @Test
+    void tooFewSamples_estimatesKept() {
+        var criteria = RestaurantQueryCriteria.builder()
+                                              .category(BURGER)
+                                              .triedBefore(false)
+                                              .build();
+        for (var i = 0; i < 2; i++) {
+            planner.plan(criteria)
+                   .recordPage(500, 1);
+        }
+
+        assertThat(planner.plan(criteria)
+                          .indexName())
+                .isEqualTo(categoryIndex(BURGER));
+    }
+
+    @Test
+    void statisticsWithoutNamePrefix_notAppliedToQueriesWithNamePrefix() {
+        var withoutPrefix = RestaurantQueryCriteria.builder()
+                                                   .category(BURGER)
+                                                   .triedBefore(false)
+                                                   .build();
+        var withPrefix = RestaurantQueryCriteria.builder()
+                                                .nameBeginsWith("Bu")
+                                                .category(BURGER)
+                                                .triedBefore(false)
+                                                .build();
+        for (var i = 0; i < 3; i++) {
+            planner.plan(withoutPrefix)
+                   .recordPage(500, 1);
+        }
+
+        assertThat(planner.plan(withPrefix)
+                          .indexName())
+                .isEqualTo(categoryIndex(BURGER));
+    }
+
+    @Test
+    void inactiveIndex_notUsed() {
+        var planner = new RestaurantQueryPlanner(indexName -> !indexName.equals(categoryIndex(BURGER)));
+        var criteria = RestaurantQueryCriteria.builder()
+                                              .category(BURGER)
+                                              .triedBefore(false)
+                                              .build();
+
+        assertThat(planner.plan(criteria)
+                          .indexName())
+                .isEqualTo(NOT_TRIED_INDEX);
+    }
+
+    @Test
+    void noActiveIndexes_tableQueried() {
+        var planner = new RestaurantQueryPlanner(indexName -> false);
+        var criteria = RestaurantQueryCriteria.builder()
+                                              .category(BURGER)
+                                              .triedBefore(true)
+                                              .ratingAtLeast(5)
+                                              .build();
+
+        assertThat(planner.plan(criteria)
+                          .indexName())
+                .isNull();
+    }
+
+    @Test
+    void cursorOfOtherIndex_pathContinued() {
+        var criteria = RestaurantQueryCriteria.builder()
+                                              .category(BURGER)
+                                              .triedBefore(false)
+                                              .build();
+        var cursor = DynamoDbCursor.encode(Map.of(USER_ID, fromS(TEST_USER),
+                                                  NAME_LOWERCASE, fromS("burger king"),
+                                                  NOT_TRIED_USER_ID, fromS(TEST_USER)));
+
+        assertThat(planner.plan(criteria, cursor)
+                          .indexName())
+                .isEqualTo(NOT_TRIED_INDEX);
+    }
+
+    @Test
+    void cursorOfTable_pathContinued() {
+        var criteria = RestaurantQueryCriteria.builder()
+                                              .nameBeginsWith("Bu")
+                                              .category(BURGER)
+                                              .build();
+        var cursor = DynamoDbCursor.encode(Map.of(USER_ID, fromS(TEST_USER),
+                                                  NAME_LOWERCASE, fromS("burger king")));
+
+        assertThat(planner.plan(criteria, cursor)
+                          .indexName())
+                .isNull();
+    }
+
+    @Test
+    void invalidCursor_cheapestPathChosen() {
+        var criteria = RestaurantQueryCriteria.builder()
+                                              .category(BURGER)
+                                              .build();
+
+        assertThat(planner.plan(criteria, "not-a-cursor")
+                          .indexName())
+                .isEqualTo(categoryIndex(BURGER));
+    }
+
+}
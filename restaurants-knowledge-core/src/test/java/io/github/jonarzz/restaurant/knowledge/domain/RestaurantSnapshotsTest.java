@@ -0,0 +1,221 @@
+package io.github.jonarzz.restaurant.knowledge.domain;
+
+import static io.github.jonarzz.restaurant.knowledge.domain.Category.*;
+import static java.util.stream.Collectors.*;
+import static org.assertj.core.api.Assertions.*;
+import static org.junit.jupiter.api.TestInstance.Lifecycle.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.jupiter.api.*;
+import org.testcontainers.containers.*;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.*;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.util.*;
+
+import io.github.jonarzz.restaurant.knowledge.technical.auth.*;
+import io.github.jonarzz.restaurant.knowledge.technical.dynamodb.*;
+
+/**
+ * Reads of {@link RestaurantDynamoDbService} served from {@link RestaurantSnapshots}.
+ */
+@Testcontainers
+@TestInstance(PER_CLASS)
+class RestaurantSnapshotsTest {
+
+    @Container
+    static final GenericContainer<?> dynamoDbContainer = new GenericContainer<>("amazon/dynamodb-local:latest")
+            .withCommand("-jar DynamoDBLocal.jar -inMemory -sharedDb")
+            .withExposedPorts(8000);
+
+    static {
+        dynamoDbContainer.start();
+    }
+
+    RestaurantDynamoDbRepository repositorySpy;
+    RestaurantSnapshots snapshots;
+    RestaurantService restaurantService;
+    // writes of another application instance
+    RestaurantService otherInstanceService;
+
+    @BeforeAll
+    void beforeAll() {
+        DynamoDbClient amazonDynamoDb = DynamoDbTestUtil.createClient(
+                "http://localhost:" + dynamoDbContainer.getFirstMappedPort()
+        );
+        DynamoDbTestUtil.enableTableCreation();
+        repositorySpy = spy(new RestaurantDynamoDbRepository(amazonDynamoDb));
+        otherInstanceService = new RestaurantDynamoDbService(new RestaurantDynamoDbRepository(amazonDynamoDb));
+    }
+
+    @BeforeEach
+    void setUp(TestInfo testInfo) {
+        // separate partition per test
+        SecurityContext.setUserId(testInfo.getDisplayName());
+        reset(repositorySpy);
+        snapshots = new RestaurantSnapshots(repositorySpy, 10);
+        restaurantService = new RestaurantDynamoDbService(repositorySpy, snapshots);
+        createRestaurant("Burger King", BURGER);
+        createRestaurant("KFC", CHICKEN);
+    }
+
+    @AfterAll
+    static void afterAll() {
+        dynamoDbContainer.close();
+    }
+
+    @Test
+    void loadedSnapshot_readsServedFromMemory() {
+        assertThat(queryNames(BURGER))
+                .containsExactly("Burger King");
+        clearInvocations(repositorySpy);
+
+        assertThat(queryNames(CHICKEN))
+                .containsExactly("KFC");
+        assertThat(restaurantService.fetch("kfc"))
+                .map(RestaurantData::name)
+                .contains("KFC");
+        assertThat(restaurantService.query(RestaurantQueryCriteria.builder()
+                                                                  .category(BURGER)
+                                                                  .build(),
+                                           null, 10)
+                                    .items())
+                .extracting(RestaurantData::name)
+                .containsExactly("Burger King");
+        verify(repositorySpy, never())
+                .stream(any());
+        verify(repositorySpy, never())
+                .findByKey(any());
+    }
+
+    @Test
+    void writeAfterLoad_appliedToSnapshot() {
+        queryNames(BURGER);
+        clearInvocations(repositorySpy);
+
+        restaurantService.setRating("KFC", 7);
+        restaurantService.delete("Burger King");
+        createRestaurant("Burger House", BURGER);
+
+        assertThat(restaurantService.query(RestaurantQueryCriteria.builder()
+                                                                  .ratingAtLeast(7)
+                                                                  .build()))
+                .extracting(RestaurantData::name)
+                .containsExactly("KFC");
+        assertThat(queryNames(BURGER))
+                .containsExactly("Burger House");
+        verify(repositorySpy, never())
+                .stream(any());
+    }
+
+    @Test
+    void writeDuringLoad_snapshotNotKept() {
+        doAnswer(invocation -> {
+            // stream is read after the write, but the write might have been missed by a real concurrent load
+            createRestaurant("Chicken King", CHICKEN);
+            return invocation.callRealMethod();
+        }).doCallRealMethod()
+          .when(repositorySpy)
+          .stream(any());
+
+        queryNames(CHICKEN);
+        assertThat(queryNames(CHICKEN))
+                .containsExactly("Chicken King", "KFC");
+        queryNames(BURGER);
+
+        // the second load is kept
+        verify(repositorySpy, times(2))
+                .stream(any());
+    }
+
+    @Test
+    void writeOfOtherUser_snapshotKept() {
+        var userId = SecurityContext.getUserId();
+        doAnswer(invocation -> {
+            SecurityContext.setUserId(userId + " (other)");
+            createRestaurant("Chicken King", CHICKEN);
+            SecurityContext.setUserId(userId);
+            return invocation.callRealMethod();
+        }).doCallRealMethod()
+          .when(repositorySpy)
+          .stream(any());
+
+        queryNames(CHICKEN);
+        assertThat(queryNames(CHICKEN))
+                .containsExactly("KFC");
+
+        verify(repositorySpy, times(1))
+                .stream(any());
+    }
+
+    @Test
+    void remoteChange_restaurantReRead() {
+        queryNames(BURGER);
+        otherInstanceService.setRating("Burger King", 9);
+        otherInstanceService.delete("KFC");
+
+        snapshots.restaurantChanged(SecurityContext.getUserId(), "burger king");
+        snapshots.restaurantChanged(SecurityContext.getUserId(), "kfc");
+
+        assertThat(restaurantService.fetch("Burger King"))
+                .map(RestaurantData::rating)
+                .contains(9);
+        assertThat(queryNames(CHICKEN))
+                .isEmpty();
+        verify(repositorySpy, times(1))
+                .stream(any());
+    }
+
+    @Test
+    void remoteChangeReadConcurrentlyWithWrite_snapshotDropped() {
+        queryNames(BURGER);
+        otherInstanceService.setRating("Burger King", 9);
+        doAnswer(invocation -> {
+            // written after the remote change was read
+            restaurantService.setRating("KFC", 3);
+            return invocation.callRealMethod();
+        }).when(repositorySpy)
+          .findByKey(new RestaurantKey(SecurityContext.getUserId(), "burger king"));
+
+        snapshots.restaurantChanged(SecurityContext.getUserId(), "burger king");
+
+        assertThat(restaurantService.query(RestaurantQueryCriteria.builder()
+                                                                  .ratingAtLeast(1)
+                                                                  .build()))
+                .extracting(RestaurantData::name, RestaurantData::rating)
+                .containsExactly(tuple("Burger King", 9),
+                                 tuple("KFC", 3));
+        verify(repositorySpy, times(2))
+                .stream(any());
+    }
+
+    @Test
+    void changesMissed_snapshotsReloaded() {
+        queryNames(BURGER);
+        otherInstanceService.delete("Burger King");
+
+        snapshots.changesMissed();
+
+        assertThat(queryNames(BURGER))
+                .isEmpty();
+        verify(repositorySpy, times(2))
+                .stream(any());
+    }
+
+    private void createRestaurant(String name, Category category) {
+        restaurantService.create(new RestaurantData().name(name)
+                                                     .categories(Set.of(category)));
+    }
+
+    private List<String> queryNames(Category category) {
+        return restaurantService.query(RestaurantQueryCriteria.builder()
+                                                              .category(category)
+                                                              .build())
+                                .stream()
+                                .map(RestaurantData::name)
+                                .collect(toList());
+    }
+
+}
@@ -0,0 +1,146 @@
+package io.github.jonarzz.restaurant.knowledge.domain;
+
+import static io.github.jonarzz.restaurant.knowledge.domain.Category.*;
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+
+import java.util.*;
+
+class UserRestaurantsSnapshotTest {
+
+    static final String TEST_USER = "snapshot-test-user";
+
+    UserRestaurantsSnapshot snapshot = new UserRestaurantsSnapshot(List.of(
+            restaurant("Burger King", false, null, FAST_FOOD, BURGER),
+            restaurant("Bobby Burger", true, 8, BURGER),
+            restaurant("Subway", true, 6, FAST_FOOD, SANDWICH),
+            restaurant("Sushi Point", true, 9, SUSHI, ASIAN),
+            restaurant("Pizza Hut", false, 0, PIZZA)
+    ));
+
+    @Test
+    void queryByNamePrefix_caseInsensitive() {
+        var criteria = RestaurantQueryCriteria.builder()
+                                              .nameBeginsWith("BU")
+                                              .build();
+
+        assertThat(namesFound(criteria, null, 10))
+                .containsExactly("Burger King");
+    }
+
+    @Test
+    void queryByCategoryAndRating() {
+        var criteria = RestaurantQueryCriteria.builder()
+                                              .category(BURGER)
+                                              .ratingAtLeast(7)
+                                              .build();
+
+        assertThat(namesFound(criteria, null, 10))
+                .containsExactly("Bobby Burger");
+    }
+
+    @Test
+    void queryNotTried_ratingIgnored() {
+        var criteria = RestaurantQueryCriteria.builder()
+                                              .triedBefore(false)
+                                              .ratingAtLeast(5)
+                                              .build();
+
+        assertThat(namesFound(criteria, null, 10))
+                .containsExactly("Burger King", "Pizza Hut");
+    }
+
+    @Test
+    void queryTriedByRating_orderedByName() {
+        var criteria = RestaurantQueryCriteria.builder()
+                                              .triedBefore(true)
+                                              .ratingAtLeast(6)
+                                              .build();
+
+        assertThat(namesFound(criteria, null, 10))
+                .containsExactly("Bobby Burger", "Subway", "Sushi Point");
+    }
+
+    @Test
+    void queryPages() {
+        var criteria = RestaurantQueryCriteria.builder()
+                                              .triedBefore(true)
+                                              .build();
+
+        assertThat(namesFound(criteria, null, 2))
+                .containsExactly("Bobby Burger", "Subway");
+        assertThat(namesFound(criteria, "subway", 2))
+                .containsExactly("Sushi Point");
+    }
+
+    @Test
+    void streamOfManyPages_allFoundInOrder() {
+        for (var i = 0; i < 250; i++) {
+            snapshot.put(restaurant(String.format("Noodle Bar %03d", i), false, null, ASIAN));
+        }
+        var criteria = RestaurantQueryCriteria.builder()
+                                              .category(ASIAN)
+                                              .build();
+
+        var names = new ArrayList<String>();
+        snapshot.stream(criteria)
+                .forEach(item -> names.add(item.restaurantName()));
+
+        assertThat(names)
+                .hasSize(251)
+                .startsWith("Noodle Bar 000", "Noodle Bar 001")
+                .endsWith("Noodle Bar 249", "Sushi Point")
+                .doesNotHaveDuplicates();
+    }
+
+    @Test
+    void put_replacesIndexedRestaurant() {
+        snapshot.put(restaurant("Subway", false, null, SANDWICH));
+
+        assertThat(namesFound(RestaurantQueryCriteria.builder()
+                                                     .category(FAST_FOOD)
+                                                     .build(), null, 10))
+                .containsExactly("Burger King");
+        assertThat(namesFound(RestaurantQueryCriteria.builder()
+                                                     .ratingAtLeast(1)
+                                                     .build(), null, 10))
+                .containsExactly("Bobby Burger", "Sushi Point");
+        assertThat(snapshot.find("subway"))
+                .get()
+                .returns(false, RestaurantItem::triedBefore);
+    }
+
+    @Test
+    void remove() {
+        snapshot.remove("sushi point");
+
+        assertThat(namesFound(RestaurantQueryCriteria.builder()
+                                                     .category(ASIAN)
+                                                     .build(), null, 10))
+                .isEmpty();
+        assertThat(snapshot.find("sushi point"))
+                .isEmpty();
+        assertThat(snapshot.size())
+                .isEqualTo(4);
+    }
+
+    private List<String> namesFound(RestaurantQueryCriteria criteria, String afterName, int limit) {
+        var names = new ArrayList<String>();
+        for (var item : snapshot.query(criteria, afterName, limit)) {
+            names.add(item.restaurantName());
+        }
+        return names;
+    }
+
+    private static RestaurantItem restaurant(String name, boolean tried, Integer rating, Category... categories) {
+        return RestaurantItem.builder()
+                             .userId(TEST_USER)
+                             .restaurantName(name)
+                             .categories(List.of(categories))
+                             .triedBefore(tried)
+                             .rating(rating)
+                             .build();
+    }
+
+}
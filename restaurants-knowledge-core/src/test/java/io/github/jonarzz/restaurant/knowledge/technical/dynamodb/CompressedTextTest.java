@@ -0,0 +1,76 @@
+package io.github.jonarzz.restaurant.knowledge.technical.dynamodb;
+
+import static io.github.jonarzz.restaurant.knowledge.technical.dynamodb.CompressedText.*;
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+import software.amazon.awssdk.core.*;
+import software.amazon.awssdk.services.dynamodb.model.*;
+
+import java.util.*;
+
+class CompressedTextTest {
+
+    static final String LONG_TEXT = "Zażółć gęślą jaźń - the soup was too salty. ".repeat(20);
+
+    @Test
+    void shortText_storedAsString() {
+        var text = "Good enough";
+
+        var attribute = encode(text);
+
+        assertThat(attribute.s())
+                .isEqualTo(text);
+        assertThat(decode(attribute))
+                .isEqualTo(text);
+    }
+
+    @Test
+    void longText_storedCompressed() {
+        var attribute = encode(LONG_TEXT);
+
+        assertThat(attribute.b())
+                .isNotNull();
+        assertThat(attribute.b()
+                            .asByteArray())
+                .hasSizeLessThan(LONG_TEXT.length());
+        assertThat(decode(attribute))
+                .isEqualTo(LONG_TEXT);
+    }
+
+    @Test
+    void sameText_compressedToSameBytes() {
+        // stored values are compared with the new ones in update conditions
+        assertThat(encode(LONG_TEXT))
+                .isEqualTo(encode(LONG_TEXT));
+    }
+
+    @Test
+    void longTextStoredAsString_read() {
+        assertThat(decode(AttributeValue.fromS(LONG_TEXT)))
+                .isEqualTo(LONG_TEXT);
+    }
+
+    @Test
+    void unknownCodecMarker_rejected() {
+        var compressed = encode(LONG_TEXT).b()
+                                          .asByteArray();
+        compressed[0] = 42;
+
+        assertThatThrownBy(() -> decode(AttributeValue.fromB(SdkBytes.fromByteArray(compressed))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("42");
+    }
+
+    @Test
+    void truncatedCompressedText_rejected() {
+        var compressed = encode(LONG_TEXT).b()
+                                          .asByteArray();
+
+        var truncated = Arrays.copyOf(compressed, compressed.length / 2);
+
+        assertThatThrownBy(() -> decode(AttributeValue.fromB(SdkBytes.fromByteArray(truncated))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+}
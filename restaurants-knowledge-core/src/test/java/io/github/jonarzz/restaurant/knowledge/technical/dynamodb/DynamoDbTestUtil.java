@@ -1,6 +1,10 @@
 package io.github.jonarzz.restaurant.knowledge.technical.dynamodb;
 
 import software.amazon.awssdk.services.dynamodb.*;
+import software.amazon.awssdk.services.dynamodb.model.*;
+import software.amazon.awssdk.services.dynamodb.streams.*;
+
+import java.util.*;
 
 public class DynamoDbTestUtil {
 
@@ -15,4 +19,18 @@ public class DynamoDbTestUtil {
         var clientFactory = new DynamoDbClientFactory();
         return clientFactory.amazonDynamoDb("testaccess", "testsecret", dynamoDbUrl);
     }
+
+    public static DynamoDbAsyncClient createAsyncClient(String dynamoDbUrl) {
+        var clientFactory = new DynamoDbClientFactory();
+        return clientFactory.amazonDynamoDbAsync("testaccess", "testsecret", dynamoDbUrl);
+    }
+
+    public static DynamoDbStreamsClient createStreamsClient(String dynamoDbUrl) {
+        var clientFactory = new DynamoDbClientFactory();
+        return clientFactory.amazonDynamoDbStreams("testaccess", "testsecret", dynamoDbUrl);
+    }
+
+    public static Map<String, AttributeValue> attributes(AttributesCreator creator) {
+        return creator.toAttributes();
+    }
 }
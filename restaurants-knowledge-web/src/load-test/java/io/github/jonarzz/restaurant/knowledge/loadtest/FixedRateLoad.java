@@ -0,0 +1,123 @@
+package io.github.jonarzz.restaurant.knowledge.loadtest;
+
+import static java.util.concurrent.TimeUnit.*;
+
+import lombok.extern.slf4j.*;
+import org.HdrHistogram.*;
+
+import java.io.*;
+import java.net.http.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+import java.util.function.*;
+
+import io.github.jonarzz.restaurant.knowledge.loadtest.RestaurantOperations.*;
+
+/**
+ * Open workload - requests are started at a fixed rate, regardless of how long the previous ones take.
+ * <p>
+ * Latency of a request is measured from the time it was scheduled to start, not from the time it was sent,
+ * so requests waiting for a free connection (because the server slowed down) are not left out
+ * of the percentiles (no coordinated omission). Requests scheduled during the warm-up are not measured.
+ */
+@Slf4j
+class FixedRateLoad {
+
+    static final int SIGNIFICANT_DIGITS = 3;
+
+    private final double requestsPerSecond;
+    private final Duration warmUp;
+    private final Duration duration;
+    private final int concurrency;
+
+    FixedRateLoad(double requestsPerSecond, Duration warmUp, Duration duration, int concurrency) {
+        this.requestsPerSecond = requestsPerSecond;
+        this.warmUp = warmUp;
+        this.duration = duration;
+        this.concurrency = concurrency;
+    }
+
+    static class OperationResults {
+
+        /**
+         * Latencies in nanoseconds.
+         */
+        final Histogram latencies = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+        final LongAdder errors = new LongAdder();
+
+        long count() {
+            return latencies.getTotalCount();
+        }
+
+        double errorRate() {
+            var count = count();
+            return count == 0 ? 0 : (double) errors.sum() / count;
+        }
+    }
+
+    /**
+     * @return results of the measured requests by operation ID
+     */
+    Map<String, OperationResults> run(HttpClient client, Supplier<LoadRequest> requests) throws InterruptedException {
+        Map<String, OperationResults> results = new ConcurrentHashMap<>();
+        var executor = Executors.newFixedThreadPool(concurrency);
+        var start = System.nanoTime();
+        var measurementStart = start + warmUp.toNanos();
+        var end = measurementStart + duration.toNanos();
+        var nanosPerRequest = SECONDS.toNanos(1) / requestsPerSecond;
+        log.info("Sending {} requests per second for {} (after {} of warm-up)", requestsPerSecond, duration, warmUp);
+        try {
+            for (long i = 0; ; i++) {
+                var scheduledAt = start + (long) (i * nanosPerRequest);
+                if (scheduledAt >= end) {
+                    break;
+                }
+                long delay;
+                while ((delay = scheduledAt - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(delay);
+                }
+                var request = requests.get();
+                var measured = scheduledAt >= measurementStart;
+                executor.execute(() -> send(client, request, scheduledAt, measured, results));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        if (!executor.awaitTermination(1, MINUTES)) {
+            executor.shutdownNow();
+            log.warn("Requests still in progress after the load ended were abandoned");
+        }
+        return results;
+    }
+
+    private static void send(HttpClient client, LoadRequest request, long scheduledAt, boolean measured,
+                             Map<String, OperationResults> results) {
+        var successful = false;
+        try {
+            var response = client.send(request.httpRequest(), HttpResponse.BodyHandlers.ofByteArray());
+            successful = response.statusCode() / 100 == 2;
+            if (!successful) {
+                log.debug("{} {} responded with {}", request.operationId(), request.httpRequest().uri(),
+                          response.statusCode());
+            }
+        } catch (IOException exception) {
+            log.debug("{} {} failed", request.operationId(), request.httpRequest().uri(), exception);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (!measured) {
+            return;
+        }
+        var latency = System.nanoTime() - scheduledAt;
+        var operationResults = results.computeIfAbsent(request.operationId(), operationId -> new OperationResults());
+        operationResults.latencies.recordValue(latency);
+        if (!successful) {
+            operationResults.errors.increment();
+        }
+    }
+
+}
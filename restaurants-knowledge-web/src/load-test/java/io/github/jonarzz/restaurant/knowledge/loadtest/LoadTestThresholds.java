@@ -0,0 +1,93 @@
+package io.github.jonarzz.restaurant.knowledge.loadtest;
+
+import static java.util.concurrent.TimeUnit.*;
+
+import org.yaml.snakeyaml.*;
+
+import java.io.*;
+import java.util.*;
+
+import io.github.jonarzz.restaurant.knowledge.loadtest.FixedRateLoad.*;
+
+/**
+ * Regression thresholds of the load test results, read from a YAML resource:
+ * <pre>
+ * min-throughput-ratio: 0.95   # requests completed per second / requests scheduled per second
+ * default:                     # applied to each operation, unless overridden
+ *   p50: 25                    # latency percentiles (milliseconds)
+ *   p99: 250
+ *   max-error-rate: 0.001
+ * operations:
+ *   queryRestaurantsByCriteria:
+ *     p99: 400
+ * </pre>
+ * Any percentile can be given - {@code p50}, {@code p99}, {@code p99.9} etc.
+ */
+class LoadTestThresholds {
+
+    private static final String ERROR_RATE = "max-error-rate";
+
+    private final double minThroughputRatio;
+    private final Map<String, Number> defaults;
+    private final Map<String, Map<String, Number>> operations;
+
+    private LoadTestThresholds(double minThroughputRatio, Map<String, Number> defaults,
+                               Map<String, Map<String, Number>> operations) {
+        this.minThroughputRatio = minThroughputRatio;
+        this.defaults = defaults;
+        this.operations = operations;
+    }
+
+    @SuppressWarnings("unchecked")
+    static LoadTestThresholds load(String resource) throws IOException {
+        try (var input = LoadTestThresholds.class.getClassLoader()
+                                                 .getResourceAsStream(resource)) {
+            if (input == null) {
+                throw new FileNotFoundException("Thresholds resource not found: " + resource);
+            }
+            Map<String, Object> thresholds = new Yaml().load(input);
+            return new LoadTestThresholds(
+                    ((Number) thresholds.getOrDefault("min-throughput-ratio", 0)).doubleValue(),
+                    (Map<String, Number>) thresholds.getOrDefault("default", Map.of()),
+                    (Map<String, Map<String, Number>>) thresholds.getOrDefault("operations", Map.of())
+            );
+        }
+    }
+
+    /**
+     * @return descriptions of the exceeded thresholds, empty if none was exceeded
+     */
+    List<String> violations(Map<String, OperationResults> results, double scheduledPerSecond, double seconds) {
+        var violations = new ArrayList<String>();
+        var completedPerSecond = results.values()
+                                        .stream()
+                                        .mapToLong(OperationResults::count)
+                                        .sum() / seconds;
+        if (completedPerSecond < scheduledPerSecond * minThroughputRatio) {
+            violations.add(String.format("throughput %.1f/s is lower than %.0f%% of the scheduled %.1f/s",
+                                         completedPerSecond, minThroughputRatio * 100, scheduledPerSecond));
+        }
+        results.forEach((operationId, operationResults) -> {
+            var thresholds = new HashMap<>(defaults);
+            thresholds.putAll(operations.getOrDefault(operationId, Map.of()));
+            thresholds.forEach((name, threshold) -> {
+                if (ERROR_RATE.equals(name)) {
+                    if (operationResults.errorRate() > threshold.doubleValue()) {
+                        violations.add(String.format("%s error rate %.4f is higher than %s",
+                                                     operationId, operationResults.errorRate(), threshold));
+                    }
+                    return;
+                }
+                var percentile = Double.parseDouble(name.substring(1));
+                var latencyMillis = operationResults.latencies.getValueAtPercentile(percentile)
+                                    / (double) MILLISECONDS.toNanos(1);
+                if (latencyMillis > threshold.doubleValue()) {
+                    violations.add(String.format("%s %s latency %.1f ms is higher than %s ms",
+                                                 operationId, name, latencyMillis, threshold));
+                }
+            });
+        });
+        return violations;
+    }
+
+}
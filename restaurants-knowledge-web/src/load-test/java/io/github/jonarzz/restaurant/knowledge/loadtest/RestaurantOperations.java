@@ -0,0 +1,162 @@
+package io.github.jonarzz.restaurant.knowledge.loadtest;
+
+import static io.github.jonarzz.restaurant.knowledge.loadtest.SyntheticRestaurants.*;
+import static java.nio.charset.StandardCharsets.*;
+
+import com.fasterxml.jackson.core.*;
+import com.fasterxml.jackson.databind.*;
+
+import java.io.*;
+import java.net.*;
+import java.net.http.*;
+import java.time.*;
+import java.util.*;
+
+import io.github.jonarzz.restaurant.knowledge.domain.*;
+
+/**
+ * Mix of the {@code RestaurantsApi} operations sent by the load test - mostly reads, as when browsing
+ * the collection in the frontend, with occasional edits, creations and deletions.
+ * <p>
+ * Seeded restaurants are read and edited, but never deleted or renamed - only the restaurants created
+ * during the test are deleted, so that the size of the collections stays the same.
+ * Not thread-safe - requests are created by the thread scheduling them.
+ */
+class RestaurantOperations {
+
+    record LoadRequest(String operationId, HttpRequest httpRequest) {
+
+    }
+
+    private record CreatedRestaurant(String userId, String name) {
+
+    }
+
+    private enum Operation {
+
+        QUERY("queryRestaurantsByCriteria", 35),
+        DETAILS("getRestaurantDetails", 35),
+        RATING("updateRestaurantRating", 10),
+        REVIEW("updateRestaurantReview", 5),
+        UPDATE("updateRestaurant", 5),
+        CREATE("createRestaurant", 5),
+        DELETE("deleteRestaurant", 5);
+
+        private final String operationId;
+        private final int weight;
+
+        Operation(String operationId, int weight) {
+            this.operationId = operationId;
+            this.weight = weight;
+        }
+    }
+
+    private static final Operation[] OPERATIONS = Operation.values();
+    private static final int TOTAL_WEIGHT = Arrays.stream(OPERATIONS)
+                                                  .mapToInt(operation -> operation.weight)
+                                                  .sum();
+    private static final String PATH = "/restaurants";
+
+    private final URI baseUri;
+    private final SyntheticRestaurants restaurants;
+    private final int reviewLength;
+    private final ObjectMapper objectMapper;
+    private final Random random;
+    private final Deque<CreatedRestaurant> created = new ArrayDeque<>();
+
+    private int createdCount;
+
+    RestaurantOperations(URI baseUri, SyntheticRestaurants restaurants, int reviewLength,
+                         ObjectMapper objectMapper, long seed) {
+        this.baseUri = baseUri;
+        this.restaurants = restaurants;
+        this.reviewLength = reviewLength;
+        this.objectMapper = objectMapper;
+        random = new Random(seed);
+    }
+
+    LoadRequest next() {
+        var operation = randomOperation();
+        var userIndex = random.nextInt(restaurants.users());
+        var userId = userId(userIndex);
+        var restaurantIndex = random.nextInt(restaurants.restaurantsPerUser());
+        var restaurantPath = restaurantPath(restaurantName(restaurantIndex));
+        if (operation == Operation.DELETE && created.isEmpty()) {
+            operation = Operation.CREATE;
+        }
+        var request = switch (operation) {
+            case QUERY -> request(userId, PATH + query()).GET();
+            case DETAILS -> request(userId, restaurantPath).GET();
+            case RATING -> put(userId, restaurantPath + "/rating", Map.of("rating", 1 + random.nextInt(10)));
+            case REVIEW -> put(userId, restaurantPath + "/review", Map.of("review", text(Math.max(reviewLength, 1))));
+            // the whole restaurant is sent, as by the edit form
+            case UPDATE -> put(userId, restaurantPath, restaurants.restaurant(userIndex, restaurantIndex)
+                                                                  .categories(categories(random)));
+            case CREATE -> create(userId);
+            case DELETE -> {
+                var restaurant = created.poll();
+                yield request(restaurant.userId(), restaurantPath(restaurant.name())).DELETE();
+            }
+        };
+        return new LoadRequest(operation.operationId, request.build());
+    }
+
+    private Operation randomOperation() {
+        var value = random.nextInt(TOTAL_WEIGHT);
+        for (var operation : OPERATIONS) {
+            value -= operation.weight;
+            if (value < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException("Operation weights do not sum up to " + TOTAL_WEIGHT);
+    }
+
+    private String query() {
+        var word = NAME_WORDS[random.nextInt(NAME_WORDS.length)];
+        return switch (random.nextInt(5)) {
+            case 0 -> "?nameBeginsWith=" + word.substring(0, 3);
+            case 1 -> "?category=" + category(random);
+            case 2 -> "?category=" + category(random) + "&ratingAtLeast=" + (5 + random.nextInt(5));
+            case 3 -> "?triedBefore=true&fields=SUMMARY";
+            default -> "?nameBeginsWith=" + word.substring(0, 2) + "&limit=20";
+        };
+    }
+
+    private HttpRequest.Builder create(String userId) {
+        var name = "Load test restaurant " + createdCount++;
+        created.add(new CreatedRestaurant(userId, name));
+        var restaurant = new RestaurantData()
+                .name(name)
+                .categories(categories(random))
+                .triedBefore(false)
+                .notes(List.of());
+        return request(userId, PATH).header("Content-Type", "application/json")
+                                    .POST(HttpRequest.BodyPublishers.ofString(json(restaurant)));
+    }
+
+    private HttpRequest.Builder put(String userId, String path, Object body) {
+        return request(userId, path).header("Content-Type", "application/json")
+                                    .PUT(HttpRequest.BodyPublishers.ofString(json(body)));
+    }
+
+    private HttpRequest.Builder request(String userId, String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                          .header(RestaurantsLoadTest.USER_HEADER, userId)
+                          .timeout(Duration.ofSeconds(30));
+    }
+
+    private String json(Object body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    private static String restaurantPath(String restaurantName) {
+        return PATH + "/" + URLEncoder.encode(restaurantName, UTF_8)
+                                      .replace("+", "%20");
+    }
+
+}
@@ -0,0 +1,210 @@
+package io.github.jonarzz.restaurant.knowledge.loadtest;
+
+import static io.github.jonarzz.restaurant.knowledge.loadtest.SyntheticRestaurants.*;
+import static java.util.concurrent.TimeUnit.*;
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.*;
+
+import com.fasterxml.jackson.databind.*;
+import lombok.extern.slf4j.*;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.boot.test.context.*;
+import org.springframework.boot.test.web.server.*;
+import org.springframework.test.context.*;
+import org.springframework.web.servlet.*;
+import org.springframework.web.servlet.config.annotation.*;
+import org.testcontainers.containers.*;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.*;
+
+import javax.servlet.http.*;
+import java.io.*;
+import java.net.*;
+import java.net.http.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.stream.*;
+
+import io.github.jonarzz.restaurant.knowledge.*;
+import io.github.jonarzz.restaurant.knowledge.domain.*;
+import io.github.jonarzz.restaurant.knowledge.loadtest.FixedRateLoad.*;
+import io.github.jonarzz.restaurant.knowledge.technical.auth.SecurityContext;
+
+/**
+ * Load test of the REST API, with the application running against DynamoDB Local (as with {@code run-local.sh}).
+ * Run from the web module, with the core installed: {@code mvn -P load-test test}.
+ * <p>
+ * Collections of synthetic users are created first, then the {@link RestaurantOperations mix of operations}
+ * is sent at a {@link FixedRateLoad fixed rate}. Throughput and latency percentiles (HdrHistogram) of each operation
+ * are logged and written to {@code target/load-test}, together with the full percentile distributions.
+ * The test fails if any of the thresholds of {@code load-test-thresholds.yaml} is exceeded.
+ * <p>
+ * Settings (system properties, e.g. {@code -Dload-test.rate=500}):
+ * <ul>
+ *     <li>{@code load-test.users} (20), {@code load-test.restaurants-per-user} (200), {@code load-test.max-notes} (20),
+ *     {@code load-test.review-length} (1000) - size of the seeded collections</li>
+ *     <li>{@code load-test.rate} (200) - requests per second</li>
+ *     <li>{@code load-test.warm-up} (10s), {@code load-test.duration} (60s)</li>
+ *     <li>{@code load-test.concurrency} (64) - maximum number of requests in progress</li>
+ *     <li>{@code load-test.seed} (1) - seed of the generated restaurants and operations</li>
+ * </ul>
+ */
+@Slf4j
+@Testcontainers
+@SpringBootTest(
+        webEnvironment = RANDOM_PORT,
+        classes = {PersonalRestaurantsKnowledgeBaseApplication.class, RestaurantsLoadTest.Config.class}
+)
+@ActiveProfiles("local")
+@TestPropertySource(properties = "logging.level.io.github.jonarzz = info")
+class RestaurantsLoadTest {
+
+    static final String USER_HEADER = "X-Load-Test-User";
+
+    private static final Path RESULTS_DIRECTORY = Path.of("target", "load-test");
+    private static final String THRESHOLDS_RESOURCE = "load-test-thresholds.yaml";
+
+    @Container
+    static final GenericContainer<?> dynamoDbContainer = new GenericContainer<>("amazon/dynamodb-local:latest")
+            .withCommand("-jar DynamoDBLocal.jar -inMemory -sharedDb")
+            .withExposedPorts(8000);
+
+    static {
+        dynamoDbContainer.start();
+    }
+
+    @DynamicPropertySource
+    static void dynamicProperties(DynamicPropertyRegistry registry) {
+        registry.add("amazon.aws.dynamodb-url",
+                     () -> "http://localhost:" + dynamoDbContainer.getFirstMappedPort());
+    }
+
+    /**
+     * Requests are made on behalf of the user given in the header - there is no authentication.
+     */
+    @TestConfiguration
+    static class Config implements WebMvcConfigurer {
+
+        @Override
+        public void addInterceptors(InterceptorRegistry registry) {
+            registry.addInterceptor(new HandlerInterceptor() {
+                @Override
+                public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                    var userId = request.getHeader(USER_HEADER);
+                    if (userId != null) {
+                        SecurityContext.setUserId(userId);
+                    }
+                    return true;
+                }
+            });
+        }
+
+    }
+
+    @LocalServerPort
+    int port;
+    @Autowired
+    RestaurantService restaurantService;
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Value("${load-test.users:20}")
+    int users;
+    @Value("${load-test.restaurants-per-user:200}")
+    int restaurantsPerUser;
+    @Value("${load-test.max-notes:20}")
+    int maxNotes;
+    @Value("${load-test.review-length:1000}")
+    int reviewLength;
+    @Value("${load-test.rate:200}")
+    double rate;
+    @Value("${load-test.warm-up:10s}")
+    Duration warmUp;
+    @Value("${load-test.duration:60s}")
+    Duration duration;
+    @Value("${load-test.concurrency:64}")
+    int concurrency;
+    @Value("${load-test.seed:1}")
+    long seed;
+
+    @Test
+    void fixedRateLoad() throws Exception {
+        var restaurants = new SyntheticRestaurants(seed, users, restaurantsPerUser, maxNotes, reviewLength);
+        seed(restaurants);
+        var client = HttpClient.newBuilder()
+                               .version(HttpClient.Version.HTTP_1_1)
+                               .connectTimeout(Duration.ofSeconds(5))
+                               .build();
+        var operations = new RestaurantOperations(URI.create("http://localhost:" + port), restaurants,
+                                                  reviewLength, objectMapper, seed);
+
+        var results = new FixedRateLoad(rate, warmUp, duration, concurrency)
+                .run(client, operations::next);
+
+        var summary = summary(results);
+        log.info("Load test results:\n{}", summary);
+        write(results, summary);
+        var thresholds = LoadTestThresholds.load(THRESHOLDS_RESOURCE);
+        assertThat(thresholds.violations(results, rate, seconds(duration)))
+                .as("Thresholds of %s exceeded", THRESHOLDS_RESOURCE)
+                .isEmpty();
+    }
+
+    private void seed(SyntheticRestaurants restaurants) {
+        var start = System.nanoTime();
+        IntStream.range(0, restaurants.users())
+                 .parallel()
+                 .forEach(userIndex -> SecurityContext.runAs(userId(userIndex), () -> {
+                     for (var restaurantIndex = 0; restaurantIndex < restaurants.restaurantsPerUser(); restaurantIndex++) {
+                         restaurantService.create(restaurants.restaurant(userIndex, restaurantIndex));
+                     }
+                     return null;
+                 }));
+        log.info("Seeded {} users with {} restaurants each in {} ms", restaurants.users(),
+                 restaurants.restaurantsPerUser(), NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private String summary(Map<String, OperationResults> results) {
+        var seconds = seconds(duration);
+        var summary = new StringBuilder(String.format("%-28s %8s %8s %8s %8s %8s %8s %8s %7s%n", "operation",
+                                                      "count", "req/s", "p50", "p90", "p99", "p99.9", "max", "errors"));
+        new TreeMap<>(results).forEach((operationId, operationResults) -> {
+            var latencies = operationResults.latencies;
+            summary.append(String.format("%-28s %8d %8.1f %8.1f %8.1f %8.1f %8.1f %8.1f %7d%n", operationId,
+                                         operationResults.count(), operationResults.count() / seconds,
+                                         millis(latencies.getValueAtPercentile(50)),
+                                         millis(latencies.getValueAtPercentile(90)),
+                                         millis(latencies.getValueAtPercentile(99)),
+                                         millis(latencies.getValueAtPercentile(99.9)),
+                                         millis(latencies.getMaxValue()),
+                                         operationResults.errors.sum()));
+        });
+        return summary.append("latencies in milliseconds, measured from the scheduled start of a request")
+                      .toString();
+    }
+
+    private static void write(Map<String, OperationResults> results, String summary) throws IOException {
+        Files.createDirectories(RESULTS_DIRECTORY);
+        Files.writeString(RESULTS_DIRECTORY.resolve("summary.txt"), summary);
+        for (var entry : results.entrySet()) {
+            var file = RESULTS_DIRECTORY.resolve(entry.getKey() + ".hgrm");
+            try (var output = new PrintStream(Files.newOutputStream(file))) {
+                entry.getValue()
+                     .latencies
+                     .outputPercentileDistribution(output, (double) MILLISECONDS.toNanos(1));
+            }
+        }
+        log.info("Results written to {}", RESULTS_DIRECTORY.toAbsolutePath());
+    }
+
+    private static double millis(long nanos) {
+        return nanos / (double) MILLISECONDS.toNanos(1);
+    }
+
+    private static double seconds(Duration duration) {
+        return duration.toMillis() / 1000.0;
+    }
+
+}
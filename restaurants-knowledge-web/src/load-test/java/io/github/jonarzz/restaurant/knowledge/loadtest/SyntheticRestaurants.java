@@ -0,0 +1,97 @@
+package io.github.jonarzz.restaurant.knowledge.loadtest;
+
+import java.util.*;
+
+import io.github.jonarzz.restaurant.knowledge.domain.*;
+
+/**
+ * Users and restaurants of the load test - derived from their indexes and the seed,
+ * so that the same collections are created in each run.
+ */
+class SyntheticRestaurants {
+
+    static final String[] NAME_WORDS = {
+            "Burger", "Pizzeria", "Sushi", "Kebab", "Ramen", "Pasta", "Bistro", "Curry", "Taco", "Noodle"
+    };
+
+    private static final Category[] CATEGORIES = Category.values();
+    private static final String SENTENCE = "The food was good, the service was quick and the prices were fair. ";
+
+    private final long seed;
+    private final int users;
+    private final int restaurantsPerUser;
+    private final int maxNotes;
+    private final int reviewLength;
+
+    SyntheticRestaurants(long seed, int users, int restaurantsPerUser, int maxNotes, int reviewLength) {
+        this.seed = seed;
+        this.users = users;
+        this.restaurantsPerUser = restaurantsPerUser;
+        this.maxNotes = maxNotes;
+        this.reviewLength = reviewLength;
+    }
+
+    int users() {
+        return users;
+    }
+
+    int restaurantsPerUser() {
+        return restaurantsPerUser;
+    }
+
+    static String userId(int userIndex) {
+        return "load-test-user-" + userIndex;
+    }
+
+    static String restaurantName(int restaurantIndex) {
+        return NAME_WORDS[restaurantIndex % NAME_WORDS.length] + " " + restaurantIndex;
+    }
+
+    /**
+     * Every other restaurant is tried before - with a rating and a review.
+     */
+    RestaurantData restaurant(int userIndex, int restaurantIndex) {
+        var random = new Random(seed * 31 + userIndex * 1_000_003L + restaurantIndex);
+        var tried = restaurantIndex % 2 == 0;
+        var restaurant = new RestaurantData()
+                .name(restaurantName(restaurantIndex))
+                .categories(categories(random))
+                .triedBefore(tried)
+                .notes(notes(random, random.nextInt(maxNotes + 1)));
+        if (tried) {
+            restaurant.rating(1 + random.nextInt(10))
+                      .review(reviewLength > 0 ? text(reviewLength) : null);
+        }
+        return restaurant;
+    }
+
+    static Set<Category> categories(Random random) {
+        var categories = EnumSet.noneOf(Category.class);
+        var count = 1 + random.nextInt(3);
+        while (categories.size() < count) {
+            categories.add(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+        }
+        return categories;
+    }
+
+    static Category category(Random random) {
+        return CATEGORIES[random.nextInt(CATEGORIES.length)];
+    }
+
+    static String text(int length) {
+        var text = new StringBuilder(length);
+        while (text.length() < length) {
+            text.append(SENTENCE);
+        }
+        return text.substring(0, length);
+    }
+
+    private static List<String> notes(Random random, int count) {
+        var notes = new ArrayList<String>(count);
+        for (var i = 0; i < count; i++) {
+            notes.add("Note " + i + " - " + SENTENCE.substring(0, 20 + random.nextInt(SENTENCE.length() - 20)));
+        }
+        return notes;
+    }
+
+}
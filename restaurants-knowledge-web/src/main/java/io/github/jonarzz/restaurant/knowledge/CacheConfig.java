@@ -1,19 +1,157 @@
 package io.github.jonarzz.restaurant.knowledge;
 
-import org.springframework.cache.*;
+import com.github.benmanes.caffeine.cache.*;
+import org.springframework.beans.factory.annotation.*;
+import org.springframework.boot.autoconfigure.condition.*;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.*;
-import org.springframework.cache.concurrent.*;
+import org.springframework.cache.caffeine.*;
 import org.springframework.context.annotation.*;
+import org.springframework.util.unit.*;
+import software.amazon.awssdk.services.dynamodb.streams.*;
 
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+
+import io.github.jonarzz.restaurant.knowledge.domain.*;
+
+/**
+ * Restaurant caches bounded by the estimated size of the entries in bytes.
+ * <p>
+ * Caffeine evicts with W-TinyLFU - entries fetched frequently survive a burst of one-time reads.
+ * Hit, miss and eviction counters are published as {@code cache.*} metrics.
+ * Both caches (single restaurants and query results) share the configuration, but each of them
+ * is bounded separately.
+ * <p>
+ * Restaurants not found are cached as well, with a separate (shorter) time to live.
+ * <p>
+ * Restaurants read after the refresh time are {@link RestaurantCacheRefresher reloaded} in the background,
+ * so that the frequently read ones do not expire on the request path.
+ * <p>
+ * With the off-heap capacity set, restaurants evicted from the heap due to its size are moved to
+ * the {@link TieredRestaurantCache second tier} instead of being dropped.
+ * <p>
+ * With the dump file set and the invalidations read from DynamoDB Streams (which catch up with the changes made
+ * while the instance was down), the most frequently read restaurants are {@link RestaurantCacheDump dumped}
+ * on shutdown and loaded on the next start.
+ */
 @Configuration
 @EnableCaching
 public class CacheConfig {
 
-    static final String RESTAURANT_CACHE_NAME = "RestaurantCache";
+    public static final String RESTAURANT_CACHE_NAME = "RestaurantCache";
+    static final String RESTAURANT_QUERY_CACHE_NAME = "RestaurantQueryCache";
+    static final String INVALIDATION_PROPERTY = "restaurants.cache.invalidation";
+    static final String DUMP_FILE_PROPERTY = "restaurants.cache.dump.file";
+    static final String STREAMS_INVALIDATION = "dynamodb-streams";
+
+    @Value("${restaurants.cache.time-to-live:10m}")
+    private Duration timeToLive;
+    @Value("${restaurants.cache.not-found-time-to-live:1m}")
+    private Duration notFoundTimeToLive;
 
     @Bean
-    CacheManager cacheManager() {
-        return new ConcurrentMapCacheManager(RESTAURANT_CACHE_NAME);
+    CacheManager cacheManager(@Value("${restaurants.cache.maximum-size:32MB}") DataSize maximumSize,
+                              @Value("${restaurants.cache.refresh-after-write:8m}") Duration refreshAfterWrite,
+                              @Value("${restaurants.cache.off-heap-capacity:0}") DataSize offHeapCapacity,
+                              RestaurantCacheRefresher refresher) {
+        var offHeapStore = offHeapCapacity.toBytes() > 0
+                           ? new OffHeapRestaurantStore(offHeapCapacity, timeToLive)
+                           : null;
+        var cacheManager = new CaffeineCacheManager(RESTAURANT_QUERY_CACHE_NAME) {
+            @Override
+            protected org.springframework.cache.Cache adaptCaffeineCache(String name, Cache<Object, Object> cache) {
+                if (offHeapStore != null && RESTAURANT_CACHE_NAME.equals(name)) {
+                    return new TieredRestaurantCache(name, cache, offHeapStore, isAllowNullValues());
+                }
+                return super.adaptCaffeineCache(name, cache);
+            }
+        };
+        cacheManager.setCaffeine(cacheBuilder(maximumSize));
+        var restaurantCacheBuilder = cacheBuilder(maximumSize).refreshAfterWrite(refreshAfterWrite);
+        if (offHeapStore == null) {
+            cacheManager.registerCustomCache(RESTAURANT_CACHE_NAME, restaurantCacheBuilder.build(refresher));
+            return cacheManager;
+        }
+        var offHeapDemotion = TieredRestaurantCache.offHeapDemotion(offHeapStore);
+        var restaurantCache = restaurantCacheBuilder.evictionListener(offHeapDemotion)
+                                                    .build(refresher);
+        offHeapDemotion.expiringAs(restaurantCache);
+        cacheManager.registerCustomCache(RESTAURANT_CACHE_NAME, restaurantCache);
+        return cacheManager;
+    }
+
+    @Bean
+    QueryGenerations queryGenerations() {
+        // a user idle for longer than the time to live has no cached results left
+        return new QueryGenerations(timeToLive);
+    }
+
+    @Bean
+    RestaurantCacheRefresher restaurantCacheRefresher(QueryGenerations queryGenerations) {
+        return new RestaurantCacheRefresher(queryGenerations);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = INVALIDATION_PROPERTY, havingValue = "loopback", matchIfMissing = true)
+    CacheInvalidationChannel loopbackInvalidationChannel() {
+        return new LoopbackInvalidationChannel();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = INVALIDATION_PROPERTY, havingValue = STREAMS_INVALIDATION)
+    CacheInvalidationChannel dynamoDbStreamsInvalidationChannel(
+            RestaurantDomainFactory factory, DynamoDbStreamsClient streamsClient,
+            @Value("${restaurants.cache.invalidation-poll-interval:1s}") Duration pollInterval,
+            Optional<RestaurantCacheDump> cacheDump) {
+        // changes made while this instance was down invalidate the restaurants loaded from the dump;
+        // creation times of stream records are approximate (rounded down)
+        var catchUpFrom = cacheDump.flatMap(RestaurantCacheDump::loadedDumpTime)
+                                   .map(dumpedAt -> dumpedAt.minus(Duration.ofMinutes(1)))
+                                   .orElse(null);
+        return new DynamoDbStreamsInvalidationChannel(factory, streamsClient, pollInterval, catchUpFrom);
+    }
+
+    @Bean
+    @Conditional(CacheDumpCondition.class)
+    RestaurantCacheDump restaurantCacheDump(CacheManager cacheManager,
+                                            @Value("${" + DUMP_FILE_PROPERTY + "}") String file,
+                                            @Value("${restaurants.cache.dump.max-entries:10000}") int maxEntries,
+                                            @Value("${restaurants.cache.dump.max-age:5m}") Duration maxAge) {
+        @SuppressWarnings("unchecked")
+        var restaurantCache = (Cache<Object, Object>) cacheManager.getCache(RESTAURANT_CACHE_NAME)
+                                                                  .getNativeCache();
+        var dump = new RestaurantCacheDump(restaurantCache, Path.of(file), maxEntries, maxAge);
+        dump.load();
+        return dump;
+    }
+
+    private Caffeine<Object, Object> cacheBuilder(DataSize maximumSize) {
+        return Caffeine.newBuilder()
+                       .maximumWeight(maximumSize.toBytes())
+                       .weigher(new RestaurantCacheWeigher())
+                       .expireAfter(new RestaurantCacheExpiry(timeToLive, notFoundTimeToLive))
+                       .recordStats();
+    }
+
+    /**
+     * Dump file set and invalidations read from DynamoDB Streams - restaurants modified while the instance
+     * was down would be served from the dump until they expire with the loopback invalidation.
+     */
+    static class CacheDumpCondition extends AllNestedConditions {
+
+        CacheDumpCondition() {
+            super(ConfigurationPhase.REGISTER_BEAN);
+        }
+
+        @ConditionalOnProperty(name = DUMP_FILE_PROPERTY)
+        static class DumpFileSet {
+        }
+
+        @ConditionalOnProperty(name = INVALIDATION_PROPERTY, havingValue = STREAMS_INVALIDATION)
+        static class StreamsInvalidation {
+        }
     }
 
 }
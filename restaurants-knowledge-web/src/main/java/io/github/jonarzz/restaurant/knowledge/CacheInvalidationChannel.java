@@ -0,0 +1,29 @@
+package io.github.jonarzz.restaurant.knowledge;
+
+import java.util.function.*;
+
+/**
+ * Notifies application instances about restaurants modified by any of them, so that they stop serving
+ * cached data of such restaurants.
+ * <p>
+ * An instance may be notified about its own modifications - handling an invalidation should be idempotent.
+ */
+public interface CacheInvalidationChannel {
+
+    void publish(CacheInvalidation invalidation);
+
+    void subscribe(Consumer<CacheInvalidation> listener);
+
+    /**
+     * @param origin identifier of the instance that made the modification, {@code null} if not known
+     * @param key    key of the modified restaurant, {@code null} if any restaurant might have been modified
+     *               (e.g. some of the modifications could not be delivered)
+     */
+    record CacheInvalidation(String origin, RestaurantCacheKey key) {
+
+        static CacheInvalidation all(String origin) {
+            return new CacheInvalidation(origin, null);
+        }
+    }
+
+}
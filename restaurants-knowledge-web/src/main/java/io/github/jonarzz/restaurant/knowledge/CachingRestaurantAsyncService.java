@@ -0,0 +1,230 @@
+package io.github.jonarzz.restaurant.knowledge;
+
+import static io.github.jonarzz.restaurant.knowledge.CacheInvalidationChannel.*;
+import static io.github.jonarzz.restaurant.knowledge.technical.auth.SecurityContext.*;
+
+import org.springframework.cache.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+import io.github.jonarzz.restaurant.knowledge.CachingRestaurantService.*;
+import io.github.jonarzz.restaurant.knowledge.common.*;
+import io.github.jonarzz.restaurant.knowledge.domain.*;
+
+/**
+ * Caches fetched restaurants and query results of the {@link RestaurantAsyncService} - in the same caches
+ * and under the same keys as the {@link CachingRestaurantService}.
+ * <p>
+ * Modifications are not written through - the modified restaurant is evicted once the modification completes
+ * (also if it failed, as it might have been applied nevertheless) and its user is moved to the next
+ * {@link QueryGenerations query generation}. Written modifications are published to the other application
+ * instances through the {@link CacheInvalidationChannel}, invalidations received from it are applied
+ * as by the {@link CachingRestaurantService}.
+ * <p>
+ * A restaurant loaded while its user was moved to the next generation is not kept in the cache,
+ * as it might have been read before the modification.
+ * <p>
+ * The current user is resolved when a method is called - completions run on the threads of the client.
+ */
+class CachingRestaurantAsyncService implements RestaurantAsyncService {
+
+    private final RestaurantAsyncService decorated;
+    private final Cache restaurantCache;
+    private final Cache queryCache;
+    private final QueryGenerations queryGenerations;
+    private final CacheInvalidationChannel invalidationChannel;
+    private final String instanceId = UUID.randomUUID()
+                                          .toString();
+
+    CachingRestaurantAsyncService(RestaurantAsyncService decorated, Cache restaurantCache, Cache queryCache,
+                                  QueryGenerations queryGenerations, CacheInvalidationChannel invalidationChannel) {
+        this.decorated = decorated;
+        this.restaurantCache = restaurantCache;
+        this.queryCache = queryCache;
+        this.queryGenerations = queryGenerations;
+        this.invalidationChannel = invalidationChannel;
+        invalidationChannel.subscribe(this::invalidate);
+    }
+
+    @Override
+    public CompletableFuture<Optional<RestaurantData>> fetch(String restaurantName) {
+        var key = RestaurantCacheKey.of(restaurantName);
+        var cached = restaurantCache.get(key);
+        if (cached != null) {
+            // empty Optional is cached as null
+            return CompletableFuture.completedFuture(Optional.ofNullable((RestaurantData) cached.get()));
+        }
+        var generation = queryGenerations.current(key.userId());
+        return decorated.fetch(restaurantName)
+                        .whenComplete((found, failure) -> {
+                            if (failure == null) {
+                                cacheLoaded(key, generation, found.orElse(null));
+                            }
+                        });
+    }
+
+    @Override
+    public CompletableFuture<List<RestaurantData>> query(RestaurantQueryCriteria criteria) {
+        return cachedQuery(queryCacheKey(criteria, null, null), () -> decorated.query(criteria));
+    }
+
+    @Override
+    public CompletableFuture<Page<RestaurantData>> query(RestaurantQueryCriteria criteria, String cursor, int limit) {
+        return cachedQuery(queryCacheKey(criteria, cursor, limit), () -> decorated.query(criteria, cursor, limit));
+    }
+
+    @Override
+    public CompletableFuture<ModificationResultType> create(RestaurantData restaurantData) {
+        // also if it already existed - the restaurant might have been cached as not existing
+        return modifying(restaurantData.name(), () -> decorated.create(restaurantData));
+    }
+
+    @Override
+    public CompletableFuture<ModificationResult<RestaurantData>> update(String restaurantName,
+                                                                        RestaurantData updateData) {
+        // the new name might have been cached as not existing
+        return modifying(restaurantName, updateData.name(), () -> decorated.update(restaurantName, updateData));
+    }
+
+    @Override
+    public CompletableFuture<ModificationResultType> delete(String restaurantName) {
+        return modifying(restaurantName, () -> decorated.delete(restaurantName));
+    }
+
+    @Override
+    public CompletableFuture<ModificationResultType> setRating(String restaurantName, int rating) {
+        return modifying(restaurantName, () -> decorated.setRating(restaurantName, rating));
+    }
+
+    @Override
+    public CompletableFuture<ModificationResultType> setReview(String restaurantName, String review) {
+        return modifying(restaurantName, () -> decorated.setReview(restaurantName, review));
+    }
+
+    @Override
+    public CompletableFuture<ModificationResultType> setTriedBefore(String restaurantName, boolean tried) {
+        return modifying(restaurantName, () -> decorated.setTriedBefore(restaurantName, tried));
+    }
+
+    @Override
+    public CompletableFuture<ModificationResultType> replaceCategories(String restaurantName,
+                                                                       Set<Category> categories) {
+        return modifying(restaurantName, () -> decorated.replaceCategories(restaurantName, categories));
+    }
+
+    @Override
+    public CompletableFuture<ModificationResultType> replaceNotes(String restaurantName, List<String> notes) {
+        return modifying(restaurantName, () -> decorated.replaceNotes(restaurantName, notes));
+    }
+
+    @Override
+    public CompletableFuture<ModificationResult<Set<Category>>> addCategory(String restaurantName,
+                                                                            Category category) {
+        return modifying(restaurantName, () -> decorated.addCategory(restaurantName, category));
+    }
+
+    @Override
+    public CompletableFuture<ModificationResultType> removeCategory(String restaurantName, Category category) {
+        return modifying(restaurantName, () -> decorated.removeCategory(restaurantName, category));
+    }
+
+    @Override
+    public CompletableFuture<ModificationResult<List<String>>> addNote(String restaurantName, String note) {
+        return modifying(restaurantName, () -> decorated.addNote(restaurantName, note));
+    }
+
+    @Override
+    public CompletableFuture<ModificationResult<List<String>>> replaceNote(String restaurantName, int noteIndex,
+                                                                           String note) {
+        return modifying(restaurantName, () -> decorated.replaceNote(restaurantName, noteIndex, note));
+    }
+
+    @Override
+    public CompletableFuture<ModificationResultType> removeNote(String restaurantName, int noteIndex) {
+        return modifying(restaurantName, () -> decorated.removeNote(restaurantName, noteIndex));
+    }
+
+    private QueryCacheKey queryCacheKey(RestaurantQueryCriteria criteria, String cursor, Integer limit) {
+        var userId = getUserId();
+        return new QueryCacheKey(userId, queryGenerations.current(userId), criteria, cursor, limit);
+    }
+
+    /**
+     * Results loaded under a generation that is not current anymore are never read.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> cachedQuery(QueryCacheKey key, Supplier<CompletableFuture<T>> query) {
+        var cached = queryCache.get(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture((T) cached.get());
+        }
+        return query.get()
+                    .whenComplete((found, failure) -> {
+                        if (failure == null) {
+                            queryCache.put(key, found);
+                        }
+                    });
+    }
+
+    /**
+     * Checked after the put - an invalidation moves the user to the next generation before it evicts
+     * the restaurant, so either the invalidation or this check evicts the loaded restaurant.
+     */
+    private void cacheLoaded(RestaurantCacheKey key, long generation, RestaurantData restaurant) {
+        if (generation != queryGenerations.current(key.userId())) {
+            return;
+        }
+        restaurantCache.putIfAbsent(key, restaurant);
+        if (generation != queryGenerations.current(key.userId())) {
+            restaurantCache.evict(key);
+        }
+    }
+
+    private <T> CompletableFuture<T> modifying(String restaurantName, Supplier<CompletableFuture<T>> modification) {
+        return modifying(restaurantName, null, modification);
+    }
+
+    /**
+     * @param newName name the restaurant might be given by the modification, {@code null} if none
+     */
+    private <T> CompletableFuture<T> modifying(String restaurantName, String newName,
+                                               Supplier<CompletableFuture<T>> modification) {
+        var key = RestaurantCacheKey.of(restaurantName);
+        var keys = new LinkedHashSet<>(List.of(key));
+        if (newName != null) {
+            keys.add(new RestaurantCacheKey(key.userId(), newName.toLowerCase()));
+        }
+        return modification.get()
+                           .whenComplete((result, failure) -> {
+                               queryGenerations.next(key.userId());
+                               keys.forEach(restaurantCache::evict);
+                               // other instances are notified by the invalidation channel only about
+                               // the applied modifications (e.g. by the stream record of the write)
+                               if (failure == null && CachingRestaurantService.written(result)) {
+                                   keys.forEach(this::publishInvalidation);
+                               }
+                           });
+    }
+
+    private void publishInvalidation(RestaurantCacheKey key) {
+        invalidationChannel.publish(new CacheInvalidation(instanceId, key));
+    }
+
+    private void invalidate(CacheInvalidation invalidation) {
+        if (instanceId.equals(invalidation.origin())) {
+            // already evicted
+            return;
+        }
+        var key = invalidation.key();
+        if (key == null) {
+            queryGenerations.nextForAll();
+            restaurantCache.clear();
+            return;
+        }
+        queryGenerations.next(key.userId());
+        restaurantCache.evict(key);
+    }
+
+}
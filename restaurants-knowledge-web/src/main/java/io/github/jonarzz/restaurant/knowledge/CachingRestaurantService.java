@@ -1,81 +1,362 @@
 package io.github.jonarzz.restaurant.knowledge;
 
 import static io.github.jonarzz.restaurant.knowledge.CacheConfig.*;
+import static io.github.jonarzz.restaurant.knowledge.CacheInvalidationChannel.*;
+import static io.github.jonarzz.restaurant.knowledge.common.ModificationResultType.*;
+import static io.github.jonarzz.restaurant.knowledge.technical.auth.SecurityContext.*;
 
-import lombok.*;
+import org.springframework.cache.*;
 import org.springframework.cache.annotation.*;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import java.util.stream.*;
 
 import io.github.jonarzz.restaurant.knowledge.common.*;
 import io.github.jonarzz.restaurant.knowledge.domain.*;
 
-@AllArgsConstructor
+/**
+ * Caches fetched restaurants and query results.
+ * <p>
+ * Modifications are written through - the cached restaurant is replaced with its new state
+ * (moved to the new key on rename), so that reading it right after an edit does not reach DynamoDB.
+ * Cached restaurants are never modified in place, as they might have been returned to other callers.
+ * <p>
+ * Query results are cached under the current {@link QueryGenerations generation} of the user -
+ * every modification moves the user to the next one, so a cached list never outlives a change.
+ * <p>
+ * Modifications are published to the other application instances through the {@link CacheInvalidationChannel}.
+ * Invalidations received from it evict the restaurant and move its user to the next query generation.
+ * <p>
+ * Restaurants not found are cached as well (see {@link CacheConfig}), so that repeated lookups and modifications
+ * of a missing restaurant do not reach DynamoDB. Creation and renaming onto the name evict such an entry.
+ * <p>
+ * Loads are synchronized per key - concurrent misses of the same key wait for a single load
+ * instead of each of them reaching DynamoDB.
+ */
 @org.springframework.cache.annotation.CacheConfig(cacheNames = RESTAURANT_CACHE_NAME)
 public class CachingRestaurantService implements RestaurantService {
 
     private RestaurantService decorated;
+    private Cache restaurantCache;
+    private ConcurrentMap<Object, Object> heapRestaurantCache;
+    private QueryGenerations queryGenerations;
+    private CacheInvalidationChannel invalidationChannel;
+    private String instanceId = UUID.randomUUID()
+                                    .toString();
+    private List<RestaurantChangeListener> remoteChangeListeners = new CopyOnWriteArrayList<>();
+
+    @SuppressWarnings("unchecked")
+    CachingRestaurantService(RestaurantService decorated, Cache restaurantCache,
+                             QueryGenerations queryGenerations, CacheInvalidationChannel invalidationChannel) {
+        this.decorated = decorated;
+        this.restaurantCache = restaurantCache;
+        heapRestaurantCache = ((com.github.benmanes.caffeine.cache.Cache<Object, Object>)
+                                       restaurantCache.getNativeCache()).asMap();
+        this.queryGenerations = queryGenerations;
+        this.invalidationChannel = invalidationChannel;
+        invalidationChannel.subscribe(this::invalidate);
+    }
 
     @Override
-    @Cacheable(key = "T(io.github.jonarzz.restaurant.knowledge.technical.auth.SecurityContext).getUserId() + #a0")
+    @Cacheable(key = "T(io.github.jonarzz.restaurant.knowledge.RestaurantCacheKey).of(#a0)", sync = true)
     public Optional<RestaurantData> fetch(String restaurantName) {
         return decorated.fetch(restaurantName);
     }
 
     @Override
+    @Cacheable(cacheNames = RESTAURANT_QUERY_CACHE_NAME, key = "#root.target.queryCacheKey(#a0, null, null)",
+               sync = true)
     public List<RestaurantData> query(RestaurantQueryCriteria criteria) {
         return decorated.query(criteria);
     }
 
     @Override
-    @CacheEvict(key = "T(io.github.jonarzz.restaurant.knowledge.technical.auth.SecurityContext).getUserId() + #a0.name()")
+    @Cacheable(cacheNames = RESTAURANT_QUERY_CACHE_NAME, key = "#root.target.queryCacheKey(#a0, #a1, #a2)",
+               sync = true)
+    public Page<RestaurantData> query(RestaurantQueryCriteria criteria, String cursor, int limit) {
+        return decorated.query(criteria, cursor, limit);
+    }
+
+    /**
+     * Not cached - streamed results are not meant to be held in memory as a whole.
+     */
+    @Override
+    public Stream<RestaurantData> stream(RestaurantQueryCriteria criteria) {
+        return decorated.stream(criteria);
+    }
+
+    @Override
     public ModificationResultType create(RestaurantData restaurantData) {
-        return decorated.create(restaurantData);
+        var result = modifying(restaurantData.name(), () -> decorated.create(restaurantData));
+        // also if it already existed - the restaurant might have been cached as not existing;
+        // stored data may differ from the given one (e.g. blank notes are skipped), so it is not cached
+        restaurantCache.evict(RestaurantCacheKey.of(restaurantData.name()));
+        return result;
     }
 
     @Override
-    @CacheEvict(key = "T(io.github.jonarzz.restaurant.knowledge.technical.auth.SecurityContext).getUserId() + #a0")
+    @SuppressWarnings("unchecked")
     public ModificationResult<RestaurantData> update(String restaurantName, RestaurantData updateData) {
-        return decorated.update(restaurantName, updateData);
+        ModificationResult<RestaurantData> result = modifyingExisting(
+                restaurantName, ModificationResult.notFound(),
+                () -> decorated.update(restaurantName, updateData));
+        var key = RestaurantCacheKey.of(restaurantName);
+        if (SUCCESS == result.resultType()) {
+            var updated = result.content();
+            var newKey = RestaurantCacheKey.of(updated.name());
+            restaurantCache.put(newKey, updated);
+            if (!key.equals(newKey)) {
+                // the old name is not taken anymore
+                restaurantCache.put(key, null);
+                publishInvalidation(newKey);
+            }
+        } else if (NOT_FOUND == result.resultType()) {
+            restaurantCache.put(key, null);
+        } else if (ALREADY_EXISTS == result.resultType() && updateData.name() != null) {
+            // the new name is taken - it must not be remembered as not existing
+            restaurantCache.evict(RestaurantCacheKey.of(updateData.name()));
+        }
+        return result;
     }
 
     @Override
-    @CacheEvict(key = "T(io.github.jonarzz.restaurant.knowledge.technical.auth.SecurityContext).getUserId() + #a0")
     public ModificationResultType delete(String restaurantName) {
-        return decorated.delete(restaurantName);
+        var result = modifyingExisting(restaurantName, NOT_FOUND,
+                                       () -> decorated.delete(restaurantName));
+        restaurantCache.put(RestaurantCacheKey.of(restaurantName), null);
+        return result;
     }
 
     @Override
-    @CacheEvict(key = "T(io.github.jonarzz.restaurant.knowledge.technical.auth.SecurityContext).getUserId() + #a0")
     public ModificationResultType setRating(String restaurantName, int rating) {
-        return decorated.setRating(restaurantName, rating);
+        var result = modifyingExisting(restaurantName, NOT_FOUND,
+                                       () -> decorated.setRating(restaurantName, rating));
+        writeThrough(restaurantName, result, restaurant -> restaurant.rating(rating)
+                                                                     .triedBefore(true));
+        return result;
     }
 
     @Override
-    @CacheEvict(key = "T(io.github.jonarzz.restaurant.knowledge.technical.auth.SecurityContext).getUserId() + #a0")
     public ModificationResultType setReview(String restaurantName, String review) {
-        return decorated.setReview(restaurantName, review);
+        var result = modifyingExisting(restaurantName, NOT_FOUND,
+                                       () -> decorated.setReview(restaurantName, review));
+        writeThrough(restaurantName, result, restaurant -> {
+            restaurant.review(review);
+            return review == null ? restaurant : restaurant.triedBefore(true);
+        });
+        return result;
     }
 
     @Override
-    @CacheEvict(key = "T(io.github.jonarzz.restaurant.knowledge.technical.auth.SecurityContext).getUserId() + #a0")
     public ModificationResultType setTriedBefore(String restaurantName, boolean tried) {
-        return decorated.setTriedBefore(restaurantName, tried);
+        var result = modifyingExisting(restaurantName, NOT_FOUND,
+                                       () -> decorated.setTriedBefore(restaurantName, tried));
+        writeThrough(restaurantName, result, restaurant -> {
+            restaurant.triedBefore(tried);
+            return tried ? restaurant : restaurant.rating(null).review(null);
+        });
+        return result;
     }
 
     @Override
-    @CacheEvict(key = "T(io.github.jonarzz.restaurant.knowledge.technical.auth.SecurityContext).getUserId() + #a0")
     public ModificationResultType replaceCategories(String restaurantName, Set<Category> categories) {
-        return decorated.replaceCategories(restaurantName, categories);
+        var result = modifyingExisting(restaurantName, NOT_FOUND,
+                                       () -> decorated.replaceCategories(restaurantName, categories));
+        writeThrough(restaurantName, result, restaurant -> restaurant.categories(Set.copyOf(categories)));
+        return result;
     }
 
     @Override
-    @CacheEvict(key = "T(io.github.jonarzz.restaurant.knowledge.technical.auth.SecurityContext).getUserId() + #a0")
     public ModificationResultType replaceNotes(String restaurantName, List<String> notes) {
-        return decorated.replaceNotes(restaurantName, notes);
+        var result = modifyingExisting(restaurantName, NOT_FOUND,
+                                       () -> decorated.replaceNotes(restaurantName, notes));
+        writeThrough(restaurantName, result, restaurant -> restaurant.notes(List.copyOf(notes)));
+        return result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public ModificationResult<Set<Category>> addCategory(String restaurantName, Category category) {
+        ModificationResult<Set<Category>> result = modifyingExisting(
+                restaurantName, ModificationResult.notFound(),
+                () -> decorated.addCategory(restaurantName, category));
+        writeThrough(restaurantName, result.resultType(), restaurant -> restaurant.categories(result.content()));
+        return result;
+    }
+
+    @Override
+    public ModificationResultType removeCategory(String restaurantName, Category category) {
+        var result = modifyingExisting(restaurantName, NOT_FOUND,
+                                       () -> decorated.removeCategory(restaurantName, category));
+        writeThrough(restaurantName, result, restaurant -> {
+            var categories = new HashSet<>(restaurant.categories());
+            categories.remove(category);
+            return restaurant.categories(categories);
+        });
+        return result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public ModificationResult<List<String>> addNote(String restaurantName, String note) {
+        ModificationResult<List<String>> result = modifyingExisting(
+                restaurantName, ModificationResult.notFound(),
+                () -> decorated.addNote(restaurantName, note));
+        writeThrough(restaurantName, result.resultType(), restaurant -> restaurant.notes(result.content()));
+        return result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public ModificationResult<List<String>> replaceNote(String restaurantName, int noteIndex, String note) {
+        ModificationResult<List<String>> result = modifyingExisting(
+                restaurantName, ModificationResult.notFound(),
+                () -> decorated.replaceNote(restaurantName, noteIndex, note));
+        writeThrough(restaurantName, result.resultType(), restaurant -> restaurant.notes(result.content()));
+        return result;
+    }
+
+    @Override
+    public ModificationResultType removeNote(String restaurantName, int noteIndex) {
+        var result = modifyingExisting(restaurantName, NOT_FOUND,
+                                       () -> decorated.removeNote(restaurantName, noteIndex));
+        writeThrough(restaurantName, result, restaurant -> {
+            var notes = new ArrayList<>(restaurant.notes());
+            if (noteIndex >= notes.size()) {
+                // cached notes are outdated
+                return null;
+            }
+            notes.remove(noteIndex);
+            return restaurant.notes(notes);
+        });
+        return result;
+    }
+
+    public QueryCacheKey queryCacheKey(RestaurantQueryCriteria criteria, String cursor, Integer limit) {
+        var userId = getUserId();
+        return new QueryCacheKey(userId, queryGenerations.current(userId), criteria, cursor, limit);
+    }
+
+    /**
+     * Registers a listener of the modifications made by other application instances.
+     */
+    void notifyAboutRemoteChanges(RestaurantChangeListener listener) {
+        remoteChangeListeners.add(listener);
     }
 
     RestaurantService getDecoratedService() {
         return decorated;
     }
+
+    /**
+     * Skips the modification if the restaurant is cached as not existing.
+     */
+    private <T> T modifyingExisting(String restaurantName, T notFoundResult, Supplier<T> modification) {
+        if (knownMissing(restaurantName)) {
+            return notFoundResult;
+        }
+        return modifying(restaurantName, modification);
+    }
+
+    private boolean knownMissing(String restaurantName) {
+        var cached = restaurantCache.get(RestaurantCacheKey.of(restaurantName));
+        // empty Optional is cached as null
+        return cached != null && cached.get() == null;
+    }
+
+    private <T> T modifying(String restaurantName, Supplier<T> modification) {
+        var key = RestaurantCacheKey.of(restaurantName);
+        T result;
+        try {
+            result = modification.get();
+        } catch (RuntimeException exception) {
+            // the modification might have been applied nevertheless - other instances are notified
+            // by the invalidation channel only if it was (e.g. by the stream record of the write)
+            queryGenerations.next(getUserId());
+            restaurantCache.evict(key);
+            throw exception;
+        }
+        queryGenerations.next(getUserId());
+        if (written(result)) {
+            publishInvalidation(key);
+        }
+        return result;
+    }
+
+    static boolean written(Object result) {
+        var resultType = result instanceof ModificationResult<?> modificationResult
+                         ? modificationResult.resultType()
+                         : result;
+        return SUCCESS == resultType;
+    }
+
+    private void publishInvalidation(RestaurantCacheKey key) {
+        invalidationChannel.publish(new CacheInvalidation(instanceId, key));
+    }
+
+    private void invalidate(CacheInvalidation invalidation) {
+        if (instanceId.equals(invalidation.origin())) {
+            // already reflected in the cache
+            return;
+        }
+        var key = invalidation.key();
+        if (key == null) {
+            queryGenerations.nextForAll();
+            restaurantCache.clear();
+            remoteChangeListeners.forEach(RestaurantChangeListener::changesMissed);
+            return;
+        }
+        // next generation first - a refresh in progress cannot put back the evicted restaurant then
+        queryGenerations.next(key.userId());
+        restaurantCache.evict(key);
+        remoteChangeListeners.forEach(listener -> listener.restaurantChanged(key.userId(), key.nameLowercase()));
+    }
+
+    /**
+     * Applies the change to a copy of the cached restaurant, if there is one - the change returns
+     * {@code null} if it cannot be applied, in which case the cached restaurant is evicted.
+     * If the modification did not change anything, the cached restaurant is left as it is.
+     * <p>
+     * The change is applied atomically with the replacement of the cached restaurant, so a concurrent
+     * write-through, eviction or refresh of the same key is not overwritten with a change of a stale copy.
+     */
+    private void writeThrough(String restaurantName, ModificationResultType result,
+                              UnaryOperator<RestaurantData> change) {
+        var key = RestaurantCacheKey.of(restaurantName);
+        switch (result) {
+            case SUCCESS -> {
+                var changed = heapRestaurantCache.computeIfPresent(
+                        key, (cachedKey, cached) -> cached instanceof RestaurantData restaurant
+                                                    ? change.apply(copyOf(restaurant))
+                                                    : null);
+                if (changed == null) {
+                    // not cached on the heap, cached as not existing or outdated
+                    restaurantCache.evict(key);
+                }
+            }
+            case NOT_FOUND -> restaurantCache.put(key, null);
+            case NO_CHANGES, ALREADY_EXISTS -> {
+                // nothing was written
+            }
+        }
+    }
+
+    private static RestaurantData copyOf(RestaurantData restaurant) {
+        return new RestaurantData()
+                .name(restaurant.name())
+                .categories(restaurant.categories())
+                .triedBefore(restaurant.triedBefore())
+                .rating(restaurant.rating())
+                .review(restaurant.review())
+                .notes(restaurant.notes());
+    }
+
+    /**
+     * Key of cached query results - {@code cursor} and {@code limit} are {@code null} for unpaginated queries.
+     */
+    record QueryCacheKey(String userId, long generation, RestaurantQueryCriteria criteria,
+                         String cursor, Integer limit) {
+    }
 }
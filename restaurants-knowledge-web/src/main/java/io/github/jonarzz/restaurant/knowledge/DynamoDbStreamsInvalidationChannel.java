@@ -0,0 +1,147 @@
+package io.github.jonarzz.restaurant.knowledge;
+
+import lombok.extern.slf4j.*;
+import software.amazon.awssdk.core.exception.*;
+import software.amazon.awssdk.services.dynamodb.streams.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+import io.github.jonarzz.restaurant.knowledge.domain.*;
+import io.github.jonarzz.restaurant.knowledge.technical.dynamodb.*;
+
+/**
+ * Invalidations read from the stream of the restaurant table - every write is published by DynamoDB itself,
+ * whichever instance made it.
+ * <p>
+ * Stream records carry no information about the writer, so the writes {@link #publish(CacheInvalidation) published}
+ * by this instance are remembered for a few poll intervals and the first record of each of them is skipped -
+ * the cache already reflects it. A record arriving later evicts the written restaurant, which is only
+ * a redundant read.
+ * <p>
+ * If some of the records could not be read (the stream listener fell behind the stream retention),
+ * all the restaurants are invalidated.
+ * <p>
+ * If the stream cannot be read at all (e.g. it is not enabled for the table), the invalidations are delivered
+ * within this instance only - as by the {@link LoopbackInvalidationChannel}. All the restaurants are invalidated
+ * then if the channel was supposed to catch up with earlier changes (e.g. of the restaurants loaded from a dump).
+ */
+@Slf4j
+class DynamoDbStreamsInvalidationChannel implements CacheInvalidationChannel, AutoCloseable {
+
+    private static final int OWN_WRITE_POLL_INTERVALS = 10;
+
+    private final List<Consumer<CacheInvalidation>> listeners = new CopyOnWriteArrayList<>();
+    private final Map<RestaurantCacheKey, OwnWrites> ownWrites = new ConcurrentHashMap<>();
+    private final RestaurantDomainFactory factory;
+    private final DynamoDbStreamsClient streamsClient;
+    private final Duration pollInterval;
+    private final Instant catchUpFrom;
+
+    private DynamoDbStreamListener changesListener;
+    private volatile boolean loopback;
+
+    /**
+     * @param catchUpFrom time to read the changes from, {@code null} to read only the changes made from now on
+     */
+    DynamoDbStreamsInvalidationChannel(RestaurantDomainFactory factory, DynamoDbStreamsClient streamsClient,
+                                       Duration pollInterval, Instant catchUpFrom) {
+        this.factory = factory;
+        this.streamsClient = streamsClient;
+        this.pollInterval = pollInterval;
+        this.catchUpFrom = catchUpFrom;
+    }
+
+    @Override
+    public void publish(CacheInvalidation invalidation) {
+        if (loopback) {
+            listeners.forEach(listener -> listener.accept(invalidation));
+            return;
+        }
+        // published by DynamoDB
+        var now = System.nanoTime();
+        ownWrites.values()
+                 .removeIf(writes -> writes.expired(now));
+        var expiresAt = now + pollInterval.multipliedBy(OWN_WRITE_POLL_INTERVALS)
+                                          .toNanos();
+        ownWrites.merge(invalidation.key(), new OwnWrites(1, expiresAt),
+                        (pending, added) -> new OwnWrites(pending.count() + 1, expiresAt));
+    }
+
+    @Override
+    public synchronized void subscribe(Consumer<CacheInvalidation> listener) {
+        listeners.add(listener);
+        if (changesListener != null || loopback) {
+            return;
+        }
+        // started with the first subscriber - the table might not exist before
+        try {
+            changesListener = factory.restaurantChangesListener(streamsClient, pollInterval, catchUpFrom,
+                                                                new StreamChanges());
+        } catch (IllegalStateException | SdkException exception) {
+            log.warn("Cannot read the stream of the restaurant table, modifications made by other instances "
+                     + "will not invalidate the cache", exception);
+            loopback = true;
+            if (catchUpFrom != null) {
+                listener.accept(CacheInvalidation.all(null));
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (changesListener != null) {
+            changesListener.close();
+        }
+    }
+
+    /**
+     * @return {@code true} if the change was expected as a write of this instance
+     */
+    private boolean ownWrite(RestaurantCacheKey key) {
+        var now = System.nanoTime();
+        var own = new boolean[1];
+        ownWrites.computeIfPresent(key, (writtenKey, pending) -> {
+            if (pending.expired(now)) {
+                return null;
+            }
+            own[0] = true;
+            return pending.count() > 1 ? new OwnWrites(pending.count() - 1, pending.expiresAt()) : null;
+        });
+        return own[0];
+    }
+
+    private void notifyListeners(CacheInvalidation invalidation) {
+        listeners.forEach(listener -> listener.accept(invalidation));
+    }
+
+    private class StreamChanges implements RestaurantChangeListener {
+
+        @Override
+        public void restaurantChanged(String userId, String nameLowercase) {
+            var key = new RestaurantCacheKey(userId, nameLowercase);
+            if (!ownWrite(key)) {
+                notifyListeners(new CacheInvalidation(null, key));
+            }
+        }
+
+        @Override
+        public void changesMissed() {
+            ownWrites.clear();
+            notifyListeners(CacheInvalidation.all(null));
+        }
+    }
+
+    /**
+     * Writes of this instance not read from the stream yet.
+     */
+    private record OwnWrites(int count, long expiresAt) {
+
+        boolean expired(long now) {
+            return now - expiresAt > 0;
+        }
+    }
+
+}
@@ -0,0 +1,25 @@
+package io.github.jonarzz.restaurant.knowledge;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * Delivers invalidations synchronously to the subscribers within the same process - sufficient for
+ * a single instance and for tests simulating multiple instances.
+ */
+class LoopbackInvalidationChannel implements CacheInvalidationChannel {
+
+    private final List<Consumer<CacheInvalidation>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(CacheInvalidation invalidation) {
+        listeners.forEach(listener -> listener.accept(invalidation));
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidation> listener) {
+        listeners.add(listener);
+    }
+
+}
@@ -0,0 +1,242 @@
+package io.github.jonarzz.restaurant.knowledge;
+
+import org.springframework.util.unit.*;
+
+import java.nio.*;
+import java.time.*;
+import java.util.*;
+
+import io.github.jonarzz.restaurant.knowledge.domain.*;
+
+/**
+ * Restaurants {@link RestaurantDataSerializer serialized} into direct (off-heap) memory - they are not
+ * traversed by the garbage collector, only the keys are kept on the heap.
+ * <p>
+ * The memory is allocated in pages of {@value #PAGE_SIZE} bytes, up to the capacity. A page is assigned
+ * to a slot size class on its allocation and split into slots of that size - a restaurant is stored
+ * in a slot of the smallest class it fits in, so the size of every entry is known up front.
+ * When there is no free slot in the class and no page left, the least recently used restaurant
+ * of the class is evicted. Restaurants larger than the largest slot are not stored.
+ * <p>
+ * A restaurant expires at the time given when storing it - by default after the time to live counted from storing it.
+ * Restaurants moved between the heap cache and the store keep their original expiration time.
+ */
+class OffHeapRestaurantStore {
+
+    static final int PAGE_SIZE = 1 << 20;
+
+    private static final int[] SLOT_SIZES = {128, 256, 512, 1024, 2048, 4096, 8192};
+    // length of the serialized restaurant + expiration time
+    private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES;
+    private static final int NO_SLOT = -1;
+
+    private final int maxPages;
+    private final long timeToLiveMillis;
+    private final SlabClass[] slabClasses = new SlabClass[SLOT_SIZES.length];
+    private final Map<Object, SlabClass> slabClassByKey = new HashMap<>();
+
+    private int allocatedPages;
+
+    OffHeapRestaurantStore(DataSize capacity, Duration timeToLive) {
+        maxPages = (int) Math.min(capacity.toBytes() / PAGE_SIZE, Integer.MAX_VALUE);
+        if (maxPages == 0) {
+            throw new IllegalArgumentException("Off-heap capacity must be at least " + PAGE_SIZE + " bytes, got: "
+                                               + capacity);
+        }
+        timeToLiveMillis = timeToLive.toMillis();
+        for (var i = 0; i < SLOT_SIZES.length; i++) {
+            slabClasses[i] = new SlabClass(SLOT_SIZES[i]);
+        }
+    }
+
+    Optional<RestaurantData> find(Object key) {
+        return Optional.ofNullable(read(key, false, new long[1]))
+                       .map(RestaurantDataSerializer::deserialize);
+    }
+
+    /**
+     * Finds the restaurant and removes it from the store.
+     */
+    Optional<StoredRestaurant> take(Object key) {
+        var now = System.currentTimeMillis();
+        var expiresAt = new long[1];
+        return Optional.ofNullable(read(key, true, expiresAt))
+                       .map(serialized -> new StoredRestaurant(RestaurantDataSerializer.deserialize(serialized),
+                                                               Duration.ofMillis(expiresAt[0] - now)));
+    }
+
+    void put(Object key, RestaurantData restaurant) {
+        put(key, restaurant, Duration.ofMillis(timeToLiveMillis));
+    }
+
+    /**
+     * @param lifetime time left until the restaurant expires
+     */
+    void put(Object key, RestaurantData restaurant, Duration lifetime) {
+        var serialized = RestaurantDataSerializer.serialize(restaurant);
+        write(key, serialized, System.currentTimeMillis() + lifetime.toMillis());
+    }
+
+    synchronized boolean remove(Object key) {
+        var slabClass = slabClassByKey.remove(key);
+        if (slabClass == null) {
+            return false;
+        }
+        slabClass.free(slabClass.entries.remove(key));
+        return true;
+    }
+
+    synchronized void clear() {
+        for (var key : List.copyOf(slabClassByKey.keySet())) {
+            remove(key);
+        }
+    }
+
+    synchronized int size() {
+        return slabClassByKey.size();
+    }
+
+    synchronized long allocatedBytes() {
+        return (long) allocatedPages * PAGE_SIZE;
+    }
+
+    private synchronized void write(Object key, byte[] serialized, long expiresAt) {
+        remove(key);
+        var slabClass = slabClassFor(HEADER_SIZE + serialized.length);
+        if (slabClass == null) {
+            return;
+        }
+        var slot = allocate(slabClass);
+        if (slot == NO_SLOT) {
+            return;
+        }
+        slabClass.write(slot, serialized, expiresAt);
+        slabClass.entries.put(key, slot);
+        slabClassByKey.put(key, slabClass);
+    }
+
+    /**
+     * @param expiresAt filled with the expiration time of the found restaurant
+     */
+    private synchronized byte[] read(Object key, boolean remove, long[] expiresAt) {
+        var slabClass = slabClassByKey.get(key);
+        if (slabClass == null) {
+            return null;
+        }
+        // updates the access order
+        int slot = slabClass.entries.get(key);
+        expiresAt[0] = slabClass.expiresAt(slot);
+        if (System.currentTimeMillis() >= expiresAt[0]) {
+            remove(key);
+            return null;
+        }
+        var serialized = slabClass.read(slot);
+        if (remove) {
+            remove(key);
+        }
+        return serialized;
+    }
+
+    private int allocate(SlabClass slabClass) {
+        var slot = slabClass.allocate();
+        if (slot == NO_SLOT && allocatedPages < maxPages) {
+            slabClass.addPage(ByteBuffer.allocateDirect(PAGE_SIZE));
+            allocatedPages++;
+            slot = slabClass.allocate();
+        }
+        if (slot == NO_SLOT && !slabClass.entries.isEmpty()) {
+            var eldest = slabClass.entries.keySet()
+                                          .iterator()
+                                          .next();
+            remove(eldest);
+            slot = slabClass.allocate();
+        }
+        return slot;
+    }
+
+    private SlabClass slabClassFor(int size) {
+        for (var slabClass : slabClasses) {
+            if (size <= slabClass.slotSize) {
+                return slabClass;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param lifetime time left until the restaurant expires
+     */
+    record StoredRestaurant(RestaurantData restaurant, Duration lifetime) {
+    }
+
+    /**
+     * Slots of a single size. Free slots are linked through their first bytes, so the free list
+     * takes no heap memory.
+     */
+    private static class SlabClass {
+
+        private final int slotSize;
+        private final int slotsPerPage;
+        private final List<ByteBuffer> pages = new ArrayList<>();
+        // key -> slot, in access order
+        private final LinkedHashMap<Object, Integer> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        private int freeSlot = NO_SLOT;
+        // slots with higher numbers have never been used
+        private int usedSlots;
+
+        SlabClass(int slotSize) {
+            this.slotSize = slotSize;
+            slotsPerPage = PAGE_SIZE / slotSize;
+        }
+
+        void addPage(ByteBuffer page) {
+            pages.add(page);
+        }
+
+        int allocate() {
+            if (freeSlot != NO_SLOT) {
+                var slot = freeSlot;
+                freeSlot = page(slot).getInt(offset(slot));
+                return slot;
+            }
+            if (usedSlots < pages.size() * slotsPerPage) {
+                return usedSlots++;
+            }
+            return NO_SLOT;
+        }
+
+        void free(int slot) {
+            page(slot).putInt(offset(slot), freeSlot);
+            freeSlot = slot;
+        }
+
+        void write(int slot, byte[] serialized, long expiresAt) {
+            var offset = offset(slot);
+            page(slot).putInt(offset, serialized.length)
+                      .putLong(offset + Integer.BYTES, expiresAt)
+                      .put(offset + HEADER_SIZE, serialized);
+        }
+
+        long expiresAt(int slot) {
+            return page(slot).getLong(offset(slot) + Integer.BYTES);
+        }
+
+        byte[] read(int slot) {
+            var offset = offset(slot);
+            var page = page(slot);
+            var serialized = new byte[page.getInt(offset)];
+            page.get(offset + HEADER_SIZE, serialized);
+            return serialized;
+        }
+
+        private ByteBuffer page(int slot) {
+            return pages.get(slot / slotsPerPage);
+        }
+
+        private int offset(int slot) {
+            return slot % slotsPerPage * slotSize;
+        }
+    }
+
+}
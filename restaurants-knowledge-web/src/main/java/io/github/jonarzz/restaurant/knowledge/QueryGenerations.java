@@ -0,0 +1,44 @@
+package io.github.jonarzz.restaurant.knowledge;
+
+import com.github.benmanes.caffeine.cache.*;
+
+import java.time.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Per-user generation of the cached query results - part of the query cache key, so moving a user
+ * to the next generation makes all of their cached results unreachable (they are evicted eventually).
+ * <p>
+ * A change of the generation also tells a {@link RestaurantCacheRefresher refresh} in progress
+ * that the restaurants of the user were modified in the meantime.
+ * <p>
+ * Generations are drawn from a single sequence, so a user forgotten after a period of inactivity
+ * never gets a generation that was used before - stale results cannot be hit even then.
+ */
+class QueryGenerations {
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final Cache<String, Long> generations;
+
+    QueryGenerations(Duration idleTime) {
+        generations = Caffeine.newBuilder()
+                              .expireAfterAccess(idleTime)
+                              .build();
+    }
+
+    long current(String userId) {
+        return generations.get(userId, id -> sequence.incrementAndGet());
+    }
+
+    void next(String userId) {
+        generations.put(userId, sequence.incrementAndGet());
+    }
+
+    /**
+     * Moves all the users to the next generation - the next one is drawn when the generation is needed.
+     */
+    void nextForAll() {
+        generations.invalidateAll();
+    }
+
+}
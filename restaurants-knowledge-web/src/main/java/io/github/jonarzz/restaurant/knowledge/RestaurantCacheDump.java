@@ -0,0 +1,202 @@
+package io.github.jonarzz.restaurant.knowledge;
+
+import static java.nio.channels.FileChannel.MapMode.*;
+import static java.nio.charset.StandardCharsets.*;
+import static java.nio.file.StandardCopyOption.*;
+import static java.nio.file.StandardOpenOption.*;
+import static java.util.concurrent.TimeUnit.*;
+
+import com.github.benmanes.caffeine.cache.*;
+import lombok.extern.slf4j.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+
+import io.github.jonarzz.restaurant.knowledge.domain.*;
+
+/**
+ * Dump of the most frequently read restaurants of the cache, written on shutdown and loaded on the next start,
+ * so that a restarted instance does not begin with an empty cache.
+ * <p>
+ * The file is memory-mapped and has the following format (big-endian):
+ * <pre>
+ * int magic, int version, long dumped at (epoch millis), int entry count, entries:
+ *     string user ID, string lowercase name, long expires at (epoch millis),
+ *     int length + {@link RestaurantDataSerializer serialized} restaurant
+ * </pre>
+ * where a string is an int length followed by UTF-8 bytes.
+ * <p>
+ * A dump of another version or older than the maximum age is ignored. Restaurants keep their remaining
+ * time to live. Restaurants modified since the dump by other instances are evicted when the invalidation
+ * channel catches up with the {@link #loadedDumpTime() time of dumping} - the dump should be loaded only
+ * if the channel is able to. The dump is deleted once loaded.
+ */
+@Slf4j
+class RestaurantCacheDump implements AutoCloseable {
+
+    static final int VERSION = 1;
+
+    private static final int MAGIC = 0x52435354;
+
+    private final Cache<Object, Object> cache;
+    private final Path file;
+    private final int maxEntries;
+    private final Duration maxAge;
+
+    private Instant loadedDumpTime;
+
+    RestaurantCacheDump(Cache<Object, Object> cache, Path file, int maxEntries, Duration maxAge) {
+        this.cache = cache;
+        this.file = file;
+        this.maxEntries = maxEntries;
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * @return time of writing the dump loaded on start, empty if none was loaded
+     */
+    Optional<Instant> loadedDumpTime() {
+        return Optional.ofNullable(loadedDumpTime);
+    }
+
+    void load() {
+        if (!Files.exists(file)) {
+            log.info("No cache dump found at {}", file);
+            return;
+        }
+        try (var channel = FileChannel.open(file, READ)) {
+            var buffer = channel.map(READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                log.warn("Ignoring cache dump {} - unknown format or version", file);
+                return;
+            }
+            var dumpedAt = Instant.ofEpochMilli(buffer.getLong());
+            if (dumpedAt.plus(maxAge).isBefore(Instant.now())) {
+                log.info("Ignoring cache dump {} - written at {}, older than {}", file, dumpedAt, maxAge);
+                return;
+            }
+            var loaded = loadEntries(buffer);
+            loadedDumpTime = dumpedAt;
+            log.info("Loaded {} restaurants from cache dump {} written at {}", loaded, file, dumpedAt);
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException exception) {
+            log.warn("Failed to load cache dump {}", file, exception);
+        } finally {
+            delete();
+        }
+    }
+
+    @Override
+    public void close() {
+        dump();
+    }
+
+    void dump() {
+        var now = System.currentTimeMillis();
+        var entries = new ArrayList<byte[]>();
+        var size = Integer.BYTES * 3 + Long.BYTES;
+        var expiration = cache.policy()
+                              .expireVariably()
+                              .orElseThrow();
+        var hottest = cache.policy()
+                           .eviction()
+                           .orElseThrow()
+                           .hottest(maxEntries);
+        for (var entry : hottest.entrySet()) {
+            // not found results are not dumped
+            if (entry.getKey() instanceof RestaurantCacheKey key
+                && entry.getValue() instanceof RestaurantData restaurant) {
+                var expiresAfter = expiration.getExpiresAfter(key, MILLISECONDS);
+                if (expiresAfter.isPresent()) {
+                    var serialized = serialize(key, now + expiresAfter.getAsLong(), restaurant);
+                    entries.add(serialized);
+                    size += serialized.length;
+                }
+            }
+        }
+        var temporaryFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(file.toAbsolutePath()
+                                        .getParent());
+        } catch (IOException exception) {
+            log.warn("Failed to create directory of cache dump {}", file, exception);
+            return;
+        }
+        try (var channel = FileChannel.open(temporaryFile, CREATE, TRUNCATE_EXISTING, READ, WRITE)) {
+            var buffer = channel.map(READ_WRITE, 0, size);
+            buffer.putInt(MAGIC)
+                  .putInt(VERSION)
+                  .putLong(now)
+                  .putInt(entries.size());
+            entries.forEach(buffer::put);
+            buffer.force();
+        } catch (IOException exception) {
+            log.warn("Failed to write cache dump {}", temporaryFile, exception);
+            return;
+        }
+        try {
+            Files.move(temporaryFile, file, REPLACE_EXISTING, ATOMIC_MOVE);
+            log.info("Dumped {} restaurants to {}", entries.size(), file);
+        } catch (IOException exception) {
+            log.warn("Failed to move cache dump to {}", file, exception);
+        }
+    }
+
+    private int loadEntries(MappedByteBuffer buffer) {
+        var expiration = cache.policy()
+                              .expireVariably()
+                              .orElseThrow();
+        var now = System.currentTimeMillis();
+        var count = buffer.getInt();
+        var loaded = 0;
+        for (var i = 0; i < count; i++) {
+            var userId = getString(buffer);
+            var key = new RestaurantCacheKey(userId, getString(buffer));
+            var expiresAt = buffer.getLong();
+            var serialized = new byte[buffer.getInt()];
+            buffer.get(serialized);
+            if (expiresAt > now) {
+                // entries written since the start are newer
+                expiration.putIfAbsent(key, RestaurantDataSerializer.deserialize(serialized),
+                                       expiresAt - now, MILLISECONDS);
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+
+    private void delete() {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException exception) {
+            log.warn("Failed to delete cache dump {}", file, exception);
+        }
+    }
+
+    private static byte[] serialize(RestaurantCacheKey key, long expiresAt, RestaurantData restaurant) {
+        var userId = key.userId()
+                        .getBytes(UTF_8);
+        var name = key.nameLowercase()
+                      .getBytes(UTF_8);
+        var data = RestaurantDataSerializer.serialize(restaurant);
+        return ByteBuffer.allocate(Integer.BYTES * 3 + Long.BYTES + userId.length + name.length + data.length)
+                         .putInt(userId.length)
+                         .put(userId)
+                         .putInt(name.length)
+                         .put(name)
+                         .putLong(expiresAt)
+                         .putInt(data.length)
+                         .put(data)
+                         .array();
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        var value = new byte[buffer.getInt()];
+        buffer.get(value);
+        return new String(value, UTF_8);
+    }
+
+}
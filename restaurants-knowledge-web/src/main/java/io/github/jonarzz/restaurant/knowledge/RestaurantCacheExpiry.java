@@ -0,0 +1,40 @@
+package io.github.jonarzz.restaurant.knowledge;
+
+import com.github.benmanes.caffeine.cache.*;
+import org.springframework.cache.support.*;
+
+import java.time.*;
+
+/**
+ * Expires cached "not found" results (stored by Spring as {@link NullValue}) sooner than the found ones -
+ * they are invalidated on creation by this instance, but a short time to live limits the damage
+ * of a missed invalidation.
+ * <p>
+ * Reads do not extend the lifetime of an entry.
+ */
+class RestaurantCacheExpiry implements Expiry<Object, Object> {
+
+    private final long timeToLiveNanos;
+    private final long notFoundTimeToLiveNanos;
+
+    RestaurantCacheExpiry(Duration timeToLive, Duration notFoundTimeToLive) {
+        timeToLiveNanos = timeToLive.toNanos();
+        notFoundTimeToLiveNanos = notFoundTimeToLive.toNanos();
+    }
+
+    @Override
+    public long expireAfterCreate(Object key, Object value, long currentTime) {
+        return value == NullValue.INSTANCE ? notFoundTimeToLiveNanos : timeToLiveNanos;
+    }
+
+    @Override
+    public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+        return expireAfterCreate(key, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+        return currentDuration;
+    }
+
+}
@@ -0,0 +1,15 @@
+package io.github.jonarzz.restaurant.knowledge;
+
+import io.github.jonarzz.restaurant.knowledge.technical.auth.*;
+
+/**
+ * Key of a cached restaurant - names differing only in letter case point to the same restaurant
+ * (as in DynamoDB).
+ */
+public record RestaurantCacheKey(String userId, String nameLowercase) {
+
+    public static RestaurantCacheKey of(String restaurantName) {
+        return new RestaurantCacheKey(SecurityContext.getUserId(), restaurantName.toLowerCase());
+    }
+
+}
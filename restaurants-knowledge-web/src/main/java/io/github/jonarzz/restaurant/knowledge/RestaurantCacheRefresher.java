@@ -0,0 +1,61 @@
+package io.github.jonarzz.restaurant.knowledge;
+
+import com.github.benmanes.caffeine.cache.*;
+import lombok.extern.slf4j.*;
+import org.springframework.cache.support.*;
+
+import io.github.jonarzz.restaurant.knowledge.domain.*;
+import io.github.jonarzz.restaurant.knowledge.technical.auth.*;
+
+/**
+ * Reloads cached restaurants read after the refresh time (before they expire) - in the background,
+ * while the readers keep getting the current value.
+ * <p>
+ * Entries are not loaded here - the cached methods load them themselves on a miss.
+ * <p>
+ * A refresh overlapping a modification of the restaurants of the user (detected by a change of their
+ * {@link QueryGenerations generation}) is discarded, so that it cannot bring back a state read before
+ * the modification. The entry is removed then and loaded by the next read.
+ */
+@Slf4j
+class RestaurantCacheRefresher implements CacheLoader<Object, Object> {
+
+    private final QueryGenerations generations;
+
+    private volatile RestaurantService service;
+
+    RestaurantCacheRefresher(QueryGenerations generations) {
+        this.generations = generations;
+    }
+
+    /**
+     * @param service service reading DynamoDB (not the caching one)
+     */
+    void refreshFrom(RestaurantService service) {
+        this.service = service;
+    }
+
+    @Override
+    public Object load(Object key) {
+        return null;
+    }
+
+    @Override
+    public Object reload(Object key, Object oldValue) {
+        var currentService = service;
+        if (currentService == null || !(key instanceof RestaurantCacheKey restaurantKey)) {
+            return oldValue;
+        }
+        var userId = restaurantKey.userId();
+        var generation = generations.current(userId);
+        Object refreshed = SecurityContext.runAs(userId, () -> currentService.fetch(restaurantKey.nameLowercase()))
+                                          .<Object>map(restaurant -> restaurant)
+                                          .orElse(NullValue.INSTANCE);
+        if (generation != generations.current(userId)) {
+            log.debug("Discarding refresh of {} - modified in the meantime", key);
+            return null;
+        }
+        return refreshed;
+    }
+
+}
@@ -0,0 +1,61 @@
+package io.github.jonarzz.restaurant.knowledge;
+
+import com.github.benmanes.caffeine.cache.*;
+
+import java.util.*;
+
+import io.github.jonarzz.restaurant.knowledge.CachingRestaurantService.*;
+import io.github.jonarzz.restaurant.knowledge.common.*;
+import io.github.jonarzz.restaurant.knowledge.domain.*;
+
+/**
+ * Approximate heap size of a cache entry in bytes - good enough to bound the cache,
+ * not an exact measurement of the object graph.
+ */
+class RestaurantCacheWeigher implements Weigher<Object, Object> {
+
+    // headers of the entry, the data object, its collections and boxed values
+    private static final int ENTRY_OVERHEAD = 160;
+    private static final int STRING_OVERHEAD = 40;
+    private static final int ELEMENT_OVERHEAD = 32;
+
+    @Override
+    public int weigh(Object key, Object value) {
+        return ENTRY_OVERHEAD + sizeOf(key) + sizeOf(value);
+    }
+
+    private static int sizeOf(Object value) {
+        if (value instanceof String string) {
+            return STRING_OVERHEAD + string.length();
+        }
+        if (value instanceof RestaurantData data) {
+            return sizeOf(data.name())
+                   + sizeOf(data.review())
+                   + sizeOf(data.categories())
+                   + sizeOf(data.notes());
+        }
+        if (value instanceof Collection<?> collection) {
+            var size = ELEMENT_OVERHEAD * collection.size();
+            for (var element : collection) {
+                size += sizeOf(element);
+            }
+            return size;
+        }
+        if (value instanceof RestaurantCacheKey key) {
+            return ELEMENT_OVERHEAD + sizeOf(key.userId()) + sizeOf(key.nameLowercase());
+        }
+        if (value instanceof Page<?> page) {
+            return ELEMENT_OVERHEAD + sizeOf(page.items()) + sizeOf(page.nextCursor());
+        }
+        if (value instanceof QueryCacheKey key) {
+            var criteria = key.criteria();
+            return ELEMENT_OVERHEAD * 2
+                   + sizeOf(key.userId())
+                   + sizeOf(criteria.nameBeginsWith())
+                   + sizeOf(key.cursor());
+        }
+        // enum constants are shared - only the reference is counted
+        return 0;
+    }
+
+}
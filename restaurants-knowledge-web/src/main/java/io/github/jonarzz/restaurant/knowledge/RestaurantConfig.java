@@ -1,9 +1,13 @@
 package io.github.jonarzz.restaurant.knowledge;
 
+import com.fasterxml.jackson.databind.*;
 import lombok.*;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.*;
+import org.springframework.cache.*;
 import org.springframework.context.annotation.*;
 import software.amazon.awssdk.services.dynamodb.*;
+import software.amazon.awssdk.services.dynamodb.streams.*;
 
 import java.util.*;
 import java.util.function.*;
@@ -16,25 +20,72 @@ import io.github.jonarzz.restaurant.knowledge.technical.dynamodb.*;
 @RequiredArgsConstructor
 public class RestaurantConfig {
 
+    private static final String API_MODE_PROPERTY = "restaurants.api.mode";
+
+    @Bean
+    @ConditionalOnProperty(name = API_MODE_PROPERTY, havingValue = "blocking", matchIfMissing = true)
+    public RestaurantController restaurantController(RestaurantService restaurantService, ObjectMapper objectMapper) {
+        return new RestaurantController(restaurantService, objectMapper);
+    }
+
     @Bean
-    public RestaurantController restaurantController(RestaurantService restaurantService) {
-        return new RestaurantController(restaurantService);
+    @ConditionalOnProperty(name = API_MODE_PROPERTY, havingValue = "async")
+    public RestaurantAsyncController restaurantAsyncController(RestaurantAsyncService restaurantAsyncService) {
+        return new RestaurantAsyncController(restaurantAsyncService);
     }
 
     @Bean
-    CachingRestaurantService restaurantService(DynamoDbClient dynamoDbClient,
-                                               Optional<Consumer<RestaurantService>> decoratedServiceWrapper) {
+    CachingRestaurantService restaurantService(RestaurantDomainFactory factory,
+                                               CacheManager cacheManager,
+                                               QueryGenerations queryGenerations,
+                                               CacheInvalidationChannel invalidationChannel,
+                                               RestaurantCacheRefresher cacheRefresher,
+                                               Optional<Consumer<RestaurantService>> decoratedServiceWrapper,
+                                               @Value("${restaurants.snapshots.enabled:false}")
+                                               boolean snapshotsEnabled,
+                                               @Value("${restaurants.snapshots.max-users:1000}")
+                                               int snapshotsMaxUsers) {
         DynamoDbRepository.createTablesOnInstantiation = true;
-        var factory = restaurantDomainDynamoDbFactory(dynamoDbClient);
         var restaurantRepository = factory.restaurantDynamoDbRepository();
-        var restaurantService = factory.restaurantDynamoDbService(restaurantRepository);
+        RestaurantSnapshots snapshots = null;
+        RestaurantService restaurantService;
+        if (snapshotsEnabled) {
+            snapshots = factory.restaurantSnapshots(restaurantRepository, snapshotsMaxUsers);
+            restaurantService = factory.restaurantDynamoDbService(restaurantRepository, snapshots);
+        } else {
+            restaurantService = factory.restaurantDynamoDbService(restaurantRepository);
+        }
         decoratedServiceWrapper.ifPresent(wrapper -> wrapper.accept(restaurantService));
-        return new CachingRestaurantService(restaurantService);
+        cacheRefresher.refreshFrom(restaurantService);
+        var cachingService = new CachingRestaurantService(restaurantService,
+                                                          cacheManager.getCache(CacheConfig.RESTAURANT_CACHE_NAME),
+                                                          queryGenerations,
+                                                          invalidationChannel);
+        if (snapshots != null) {
+            cachingService.notifyAboutRemoteChanges(snapshots);
+        }
+        return cachingService;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = API_MODE_PROPERTY, havingValue = "async")
+    CachingRestaurantAsyncService restaurantAsyncService(RestaurantDomainFactory factory,
+                                                         CacheManager cacheManager,
+                                                         QueryGenerations queryGenerations,
+                                                         CacheInvalidationChannel invalidationChannel) {
+        DynamoDbRepository.createTablesOnInstantiation = true;
+        var restaurantRepository = factory.restaurantDynamoDbAsyncRepository();
+        return new CachingRestaurantAsyncService(factory.restaurantDynamoDbAsyncService(restaurantRepository),
+                                                 cacheManager.getCache(CacheConfig.RESTAURANT_CACHE_NAME),
+                                                 cacheManager.getCache(CacheConfig.RESTAURANT_QUERY_CACHE_NAME),
+                                                 queryGenerations,
+                                                 invalidationChannel);
     }
 
     @Bean
-    RestaurantDomainFactory restaurantDomainDynamoDbFactory(DynamoDbClient dynamoDbClient) {
-        return new RestaurantDomainFactory(dynamoDbClient);
+    RestaurantDomainFactory restaurantDomainDynamoDbFactory(DynamoDbClient dynamoDbClient,
+                                                            Optional<DynamoDbAsyncClient> dynamoDbAsyncClient) {
+        return new RestaurantDomainFactory(dynamoDbClient, dynamoDbAsyncClient.orElse(null));
     }
 
     @Bean
@@ -45,4 +96,22 @@ public class RestaurantConfig {
         return factory.amazonDynamoDb(amazonAwsAccessKey, amazonAwsSecretKey, dynamoDbUrl);
     }
 
+    @Bean
+    @ConditionalOnProperty(name = API_MODE_PROPERTY, havingValue = "async")
+    DynamoDbAsyncClient dynamoDbAsyncClient(@Value("${amazon.aws.accesskey}") String amazonAwsAccessKey,
+                                            @Value("${amazon.aws.secretkey}") String amazonAwsSecretKey,
+                                            @Value("${amazon.aws.dynamodb-url:#{null}}") String dynamoDbUrl) {
+        var factory = new DynamoDbClientFactory();
+        return factory.amazonDynamoDbAsync(amazonAwsAccessKey, amazonAwsSecretKey, dynamoDbUrl);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = CacheConfig.INVALIDATION_PROPERTY, havingValue = CacheConfig.STREAMS_INVALIDATION)
+    DynamoDbStreamsClient dynamoDbStreamsClient(@Value("${amazon.aws.accesskey}") String amazonAwsAccessKey,
+                                                @Value("${amazon.aws.secretkey}") String amazonAwsSecretKey,
+                                                @Value("${amazon.aws.dynamodb-url:#{null}}") String dynamoDbUrl) {
+        var factory = new DynamoDbClientFactory();
+        return factory.amazonDynamoDbStreams(amazonAwsAccessKey, amazonAwsSecretKey, dynamoDbUrl);
+    }
+
 }
@@ -0,0 +1,156 @@
+package io.github.jonarzz.restaurant.knowledge;
+
+import static java.nio.charset.StandardCharsets.*;
+
+import java.nio.*;
+import java.util.*;
+
+import io.github.jonarzz.restaurant.knowledge.domain.*;
+
+/**
+ * Compact binary form of {@link RestaurantData} - a byte of flags telling which attributes are present,
+ * categories as a bit set of their ordinals and length-prefixed UTF-8 strings.
+ * <p>
+ * Missing ({@code null}) attributes are distinguished from empty ones, so a deserialized restaurant
+ * is equal to the serialized one attribute by attribute.
+ * <p>
+ * The format is a part of the {@link RestaurantCacheDump} - changing it requires a new version of the dump.
+ */
+class RestaurantDataSerializer {
+
+    private static final int NAME = 1;
+    private static final int CATEGORIES = 1 << 1;
+    private static final int TRIED_BEFORE = 1 << 2;
+    private static final int TRIED = 1 << 3;
+    private static final int RATING = 1 << 4;
+    private static final int REVIEW = 1 << 5;
+    private static final int NOTES = 1 << 6;
+
+    private static final Category[] CATEGORY_VALUES = Category.values();
+
+    static {
+        if (CATEGORY_VALUES.length > Integer.SIZE) {
+            throw new ExceptionInInitializerError("Categories do not fit in an int bit set");
+        }
+    }
+
+    private RestaurantDataSerializer() {
+    }
+
+    static byte[] serialize(RestaurantData restaurant) {
+        var name = bytesOf(restaurant.name());
+        var review = bytesOf(restaurant.review());
+        var notes = restaurant.notes() == null
+                    ? null
+                    : restaurant.notes()
+                                .stream()
+                                .map(RestaurantDataSerializer::bytesOf)
+                                .toArray(byte[][]::new);
+        var flags = 0;
+        var size = Byte.BYTES;
+        if (name != null) {
+            flags |= NAME;
+            size += Integer.BYTES + name.length;
+        }
+        if (restaurant.categories() != null) {
+            flags |= CATEGORIES;
+            size += Integer.BYTES;
+        }
+        if (restaurant.triedBefore() != null) {
+            flags |= restaurant.triedBefore() ? TRIED_BEFORE | TRIED : TRIED_BEFORE;
+        }
+        if (restaurant.rating() != null) {
+            flags |= RATING;
+            size += Integer.BYTES;
+        }
+        if (review != null) {
+            flags |= REVIEW;
+            size += Integer.BYTES + review.length;
+        }
+        if (notes != null) {
+            flags |= NOTES;
+            size += Integer.BYTES;
+            for (var note : notes) {
+                size += Integer.BYTES + note.length;
+            }
+        }
+        var buffer = ByteBuffer.allocate(size)
+                               .put((byte) flags);
+        if (name != null) {
+            putString(buffer, name);
+        }
+        if (restaurant.categories() != null) {
+            var categories = 0;
+            for (var category : restaurant.categories()) {
+                categories |= 1 << category.ordinal();
+            }
+            buffer.putInt(categories);
+        }
+        if (restaurant.rating() != null) {
+            buffer.putInt(restaurant.rating());
+        }
+        if (review != null) {
+            putString(buffer, review);
+        }
+        if (notes != null) {
+            buffer.putInt(notes.length);
+            for (var note : notes) {
+                putString(buffer, note);
+            }
+        }
+        return buffer.array();
+    }
+
+    static RestaurantData deserialize(byte[] bytes) {
+        var buffer = ByteBuffer.wrap(bytes);
+        var flags = buffer.get();
+        var restaurant = new RestaurantData();
+        if ((flags & NAME) != 0) {
+            restaurant.name(getString(buffer));
+        }
+        if ((flags & CATEGORIES) != 0) {
+            var categories = buffer.getInt();
+            var categorySet = EnumSet.noneOf(Category.class);
+            for (var category : CATEGORY_VALUES) {
+                if ((categories & 1 << category.ordinal()) != 0) {
+                    categorySet.add(category);
+                }
+            }
+            restaurant.categories(categorySet);
+        }
+        if ((flags & TRIED_BEFORE) != 0) {
+            restaurant.triedBefore((flags & TRIED) != 0);
+        }
+        if ((flags & RATING) != 0) {
+            restaurant.rating(buffer.getInt());
+        }
+        if ((flags & REVIEW) != 0) {
+            restaurant.review(getString(buffer));
+        }
+        if ((flags & NOTES) != 0) {
+            var count = buffer.getInt();
+            var notes = new ArrayList<String>(count);
+            for (var i = 0; i < count; i++) {
+                notes.add(getString(buffer));
+            }
+            restaurant.notes(notes);
+        }
+        return restaurant;
+    }
+
+    private static byte[] bytesOf(String value) {
+        return value == null ? null : value.getBytes(UTF_8);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        buffer.putInt(value.length)
+              .put(value);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        var value = new byte[buffer.getInt()];
+        buffer.get(value);
+        return new String(value, UTF_8);
+    }
+
+}
@@ -0,0 +1,193 @@
+package io.github.jonarzz.restaurant.knowledge;
+
+import static java.util.concurrent.TimeUnit.*;
+
+import com.github.benmanes.caffeine.cache.*;
+import org.springframework.cache.support.*;
+
+import java.time.*;
+import java.util.concurrent.*;
+
+import io.github.jonarzz.restaurant.knowledge.domain.*;
+
+/**
+ * Restaurant cache with two tiers - restaurants evicted from the heap (Caffeine) cache due to its size
+ * are moved to the {@link OffHeapRestaurantStore} and moved back to the heap on the next load.
+ * <p>
+ * A restaurant is kept in a single tier at a time. Moves between the tiers, writes and evictions are done
+ * under the lock of the key in the heap cache, so a restaurant evicted due to a modification
+ * cannot reappear in the other tier. Cached "not found" results are kept on the heap only.
+ * <p>
+ * Restaurants keep their expiration time when moved between the tiers - as long as the heap cache expires
+ * its entries {@link Policy#expireVariably() variably}; the full time to live of the tier they are moved to
+ * applies otherwise.
+ */
+class TieredRestaurantCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final Cache<Object, Object> heapCache;
+    private final OffHeapRestaurantStore offHeapStore;
+    // null if the heap cache expiration cannot be adjusted
+    private final Policy.VarExpiration<Object, Object> heapExpiration;
+
+    TieredRestaurantCache(String name, Cache<Object, Object> heapCache, OffHeapRestaurantStore offHeapStore,
+                          boolean allowNullValues) {
+        super(allowNullValues);
+        this.name = name;
+        this.heapCache = heapCache;
+        this.offHeapStore = offHeapStore;
+        heapExpiration = heapCache.policy()
+                                  .expireVariably()
+                                  .orElse(null);
+    }
+
+    /**
+     * Eviction listener of the heap cache moving the restaurants evicted due to its size off the heap -
+     * see {@link OffHeapDemotion#expiringAs(Cache)}.
+     */
+    static OffHeapDemotion offHeapDemotion(OffHeapRestaurantStore offHeapStore) {
+        return new OffHeapDemotion(offHeapStore);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return heapCache;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        var cached = heapCache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        return offHeapStore.find(key)
+                           .orElse(null);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        var promoted = new OffHeapRestaurantStore.StoredRestaurant[1];
+        var value = heapCache.get(key, cachedKey -> {
+            var demoted = offHeapStore.take(cachedKey);
+            if (demoted.isPresent()) {
+                promoted[0] = demoted.get();
+                return promoted[0].restaurant();
+            }
+            try {
+                return toStoreValue(valueLoader.call());
+            } catch (Exception exception) {
+                throw new ValueRetrievalException(cachedKey, valueLoader, exception);
+            }
+        });
+        keepExpiration(key, promoted[0]);
+        return (T) fromStoreValue(value);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        var storeValue = toStoreValue(value);
+        heapCache.asMap()
+                 .compute(key, (cachedKey, cached) -> {
+                     offHeapStore.remove(cachedKey);
+                     return storeValue;
+                 });
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        var storeValue = toStoreValue(value);
+        var existing = new Object[1];
+        var promoted = new OffHeapRestaurantStore.StoredRestaurant[1];
+        heapCache.asMap()
+                 .compute(key, (cachedKey, cached) -> {
+                     if (cached == null) {
+                         promoted[0] = offHeapStore.take(cachedKey)
+                                                   .orElse(null);
+                     }
+                     existing[0] = promoted[0] != null ? promoted[0].restaurant() : cached;
+                     return existing[0] != null ? existing[0] : storeValue;
+                 });
+        keepExpiration(key, promoted[0]);
+        return toValueWrapper(existing[0]);
+    }
+
+    @Override
+    public void evict(Object key) {
+        evictIfPresent(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        var present = new boolean[1];
+        heapCache.asMap()
+                 .compute(key, (cachedKey, cached) -> {
+                     present[0] = offHeapStore.remove(cachedKey) || cached != null;
+                     return null;
+                 });
+        return present[0];
+    }
+
+    @Override
+    public void clear() {
+        heapCache.invalidateAll();
+        offHeapStore.clear();
+    }
+
+    /**
+     * Sets the expiration time of a restaurant moved back to the heap - if it was written in the meantime,
+     * the entry just expires earlier than it would.
+     */
+    private void keepExpiration(Object key, OffHeapRestaurantStore.StoredRestaurant promoted) {
+        if (promoted != null && heapExpiration != null) {
+            heapExpiration.setExpiresAfter(key, promoted.lifetime()
+                                                        .toNanos(), NANOSECONDS);
+        }
+    }
+
+    /**
+     * Moves the restaurants evicted from the heap due to its size off the heap, keeping the time left
+     * until they expire. Called atomically with the eviction, while the evicted entry can still be looked up.
+     */
+    static class OffHeapDemotion implements RemovalListener<Object, Object> {
+
+        private final OffHeapRestaurantStore offHeapStore;
+
+        private volatile Policy.VarExpiration<Object, Object> heapExpiration;
+
+        private OffHeapDemotion(OffHeapRestaurantStore offHeapStore) {
+            this.offHeapStore = offHeapStore;
+        }
+
+        /**
+         * @param heapCache the cache the listener was registered in - the full time to live of the store
+         *                  applies to the demoted restaurants until it is given
+         */
+        void expiringAs(Cache<Object, Object> heapCache) {
+            heapExpiration = heapCache.policy()
+                                      .expireVariably()
+                                      .orElse(null);
+        }
+
+        @Override
+        public void onRemoval(Object key, Object value, RemovalCause cause) {
+            if (cause != RemovalCause.SIZE || !(value instanceof RestaurantData restaurant)) {
+                return;
+            }
+            var expiration = heapExpiration;
+            if (expiration == null) {
+                offHeapStore.put(key, restaurant);
+                return;
+            }
+            // not found if already expired
+            expiration.getExpiresAfter(key, NANOSECONDS)
+                      .ifPresent(lifetime -> offHeapStore.put(key, restaurant, Duration.ofNanos(lifetime)));
+        }
+    }
+
+}
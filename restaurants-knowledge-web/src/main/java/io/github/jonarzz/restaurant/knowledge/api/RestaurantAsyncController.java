@@ -0,0 +1,211 @@
+package io.github.jonarzz.restaurant.knowledge.api;
+
+import static io.github.jonarzz.restaurant.knowledge.api.RestaurantController.*;
+import static io.github.jonarzz.restaurant.knowledge.common.ModificationResultType.NOT_FOUND;
+import static io.github.jonarzz.restaurant.knowledge.common.ModificationResultType.*;
+import static java.nio.charset.StandardCharsets.*;
+import static java.util.concurrent.CompletableFuture.*;
+import static org.springframework.http.HttpStatus.*;
+import static org.springframework.http.ResponseEntity.*;
+
+import org.springframework.http.*;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import io.github.jonarzz.restaurant.knowledge.common.*;
+import io.github.jonarzz.restaurant.knowledge.domain.Category;
+import io.github.jonarzz.restaurant.knowledge.domain.RestaurantData;
+import io.github.jonarzz.restaurant.knowledge.domain.*;
+import io.github.jonarzz.restaurant.knowledge.model.*;
+import io.github.jonarzz.restaurant.knowledge.technical.dynamodb.InvalidCursorException;
+
+/**
+ * Non-blocking variant of {@link RestaurantController} - the servlet thread is released
+ * while waiting for DynamoDB responses.
+ */
+@RestController
+public class RestaurantAsyncController implements io.github.jonarzz.restaurant.knowledge.api.async.RestaurantsApi {
+
+    private RestaurantAsyncService restaurantService;
+
+    public RestaurantAsyncController(RestaurantAsyncService restaurantService) {
+        this.restaurantService = restaurantService;
+    }
+
+    @Override
+    public CompletableFuture<ResponseEntity<RestaurantData>> getRestaurantDetails(String restaurantName) {
+        return restaurantService.fetch(restaurantName)
+                                .thenApply(restaurant -> restaurant.map(ResponseEntity::ok)
+                                                                   .orElseGet(() -> notFound().build()));
+    }
+
+    @Override
+    public CompletableFuture<ResponseEntity<List<RestaurantData>>> queryRestaurantsByCriteria(String nameBeginsWith,
+                                                                                              Category category,
+                                                                                              Boolean triedBefore,
+                                                                                              Integer ratingAtLeast,
+                                                                                              String cursor,
+                                                                                              Integer limit,
+                                                                                              RestaurantFields fields) {
+        var criteria = criteria(nameBeginsWith, category, triedBefore, ratingAtLeast, fields);
+        if (criteria.isEmpty()) {
+            return completedFuture(badRequest().build());
+        }
+        if (cursor == null && limit == null) {
+            return restaurantService.query(criteria)
+                                    .thenApply(ResponseEntity::ok);
+        }
+        return restaurantService.query(criteria, cursor, limit == null ? DEFAULT_PAGE_SIZE : limit)
+                                .thenApply(RestaurantAsyncController::toPageResponse)
+                                .exceptionally(exception -> {
+                                    var cause = exception instanceof CompletionException
+                                                ? exception.getCause()
+                                                : exception;
+                                    if (cause instanceof InvalidCursorException) {
+                                        return badRequest().build();
+                                    }
+                                    throw new CompletionException(cause);
+                                });
+    }
+
+    @Override
+    public CompletableFuture<ResponseEntity<Void>> createRestaurant(RestaurantData restaurant) {
+        return restaurantService.create(restaurant)
+                                .thenApply(result -> {
+                                    if (ALREADY_EXISTS == result) {
+                                        return status(CONFLICT).build();
+                                    }
+                                    var targetUrl = PATH + "/" + URLEncoder.encode(restaurant.name(), UTF_8);
+                                    return created(URI.create(targetUrl))
+                                            .build();
+                                });
+    }
+
+    @Override
+    public CompletableFuture<ResponseEntity<RestaurantData>> updateRestaurant(String restaurantName,
+                                                                              RestaurantData newData) {
+        return restaurantService.update(restaurantName, newData)
+                                .thenApply(result -> switch (result.resultType()) {
+                                    case SUCCESS -> ok(result.content());
+                                    case NOT_FOUND -> notFound().build();
+                                    case NO_CHANGES -> status(NO_CONTENT).build();
+                                    case ALREADY_EXISTS -> status(CONFLICT).build();
+                                });
+    }
+
+    @Override
+    public CompletableFuture<ResponseEntity<Void>> deleteRestaurant(String restaurantName) {
+        return restaurantService.delete(restaurantName)
+                                .thenApply(result -> noContent().build());
+    }
+
+    @Override
+    public CompletableFuture<ResponseEntity<Void>> updateRestaurantRating(String restaurantName,
+                                                                          UpdateRestaurantRatingRequest ratingRequest) {
+        return restaurantService.setRating(restaurantName, ratingRequest.getRating())
+                                .thenApply(RestaurantAsyncController::noContentIfFound);
+    }
+
+    @Override
+    public CompletableFuture<ResponseEntity<Void>> updateRestaurantReview(String restaurantName,
+                                                                          UpdateRestaurantReviewRequest reviewRequest) {
+        return restaurantService.setReview(restaurantName, reviewRequest.getReview())
+                                .thenApply(RestaurantAsyncController::noContentIfFound);
+    }
+
+    @Override
+    public CompletableFuture<ResponseEntity<Void>> deleteRestaurantReview(String restaurantName) {
+        return restaurantService.setReview(restaurantName, null)
+                                .thenApply(RestaurantAsyncController::noContentIfFound);
+    }
+
+    @Override
+    public CompletableFuture<ResponseEntity<Void>> markRestaurantAsTried(String restaurantName) {
+        return restaurantService.setTriedBefore(restaurantName, true)
+                                .thenApply(RestaurantAsyncController::noContentIfFound);
+    }
+
+    @Override
+    public CompletableFuture<ResponseEntity<Void>> markRestaurantAsNotTried(String restaurantName) {
+        return restaurantService.setTriedBefore(restaurantName, false)
+                                .thenApply(RestaurantAsyncController::noContentIfFound);
+    }
+
+    @Override
+    public CompletableFuture<ResponseEntity<Set<Category>>> addRestaurantCategory(
+            String restaurantName, AddRestaurantCategoryRequest categoryRequest) {
+        return restaurantService.addCategory(restaurantName, categoryRequest.getCategory())
+                                .thenApply(RestaurantAsyncController::contentIfFound);
+    }
+
+    @Override
+    public CompletableFuture<ResponseEntity<Void>> replaceRestaurantCategories(String restaurantName,
+                                                                               Set<Category> categories) {
+        return restaurantService.replaceCategories(restaurantName, categories)
+                                .thenApply(RestaurantAsyncController::noContentIfFound);
+    }
+
+    @Override
+    public CompletableFuture<ResponseEntity<Void>> removeRestaurantCategory(String restaurantName,
+                                                                            Category category) {
+        return restaurantService.removeCategory(restaurantName, category)
+                                .thenApply(RestaurantAsyncController::noContentIfFound);
+    }
+
+    @Override
+    public CompletableFuture<ResponseEntity<List<String>>> addRestaurantNote(String restaurantName,
+                                                                             AddRestaurantNoteRequest noteRequest) {
+        return restaurantService.addNote(restaurantName, noteRequest.getNote())
+                                .thenApply(RestaurantAsyncController::contentIfFound);
+    }
+
+    @Override
+    public CompletableFuture<ResponseEntity<List<String>>> replaceRestaurantNote(
+            String restaurantName, Integer noteIndex, AddRestaurantNoteRequest addNoteRequest) {
+        if (isInvalidIndex(noteIndex)) {
+            return completedFuture(badRequest().build());
+        }
+        return restaurantService.replaceNote(restaurantName, noteIndex, addNoteRequest.getNote())
+                                .thenApply(result -> switch (result.resultType()) {
+                                    case SUCCESS -> ok(result.content());
+                                    case NOT_FOUND -> notFound().build();
+                                    // no note with given index
+                                    case NO_CHANGES, ALREADY_EXISTS -> badRequest().build();
+                                });
+    }
+
+    @Override
+    public CompletableFuture<ResponseEntity<Void>> removeRestaurantNote(String restaurantName, Integer noteIndex) {
+        if (isInvalidIndex(noteIndex)) {
+            return completedFuture(badRequest().build());
+        }
+        return restaurantService.removeNote(restaurantName, noteIndex)
+                                .thenApply(RestaurantAsyncController::noContentIfFound);
+    }
+
+    private static ResponseEntity<List<RestaurantData>> toPageResponse(Page<RestaurantData> page) {
+        var response = ok();
+        if (page.hasNext()) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.items());
+    }
+
+    private static <T> ResponseEntity<T> contentIfFound(ModificationResult<T> result) {
+        if (NOT_FOUND == result.resultType()) {
+            return notFound().build();
+        }
+        return ok(result.content());
+    }
+
+    private static ResponseEntity<Void> noContentIfFound(ModificationResultType result) {
+        if (NOT_FOUND == result) {
+            return notFound().build();
+        }
+        return noContent().build();
+    }
+
+}
@@ -4,31 +4,42 @@ import static io.github.jonarzz.restaurant.knowledge.common.ModificationResultTy
 import static io.github.jonarzz.restaurant.knowledge.common.ModificationResultType.*;
 import static java.nio.charset.StandardCharsets.*;
 import static org.springframework.http.HttpStatus.*;
+import static org.springframework.http.MediaType.*;
 import static org.springframework.http.ResponseEntity.*;
 
+import com.fasterxml.jackson.core.*;
+import com.fasterxml.jackson.databind.*;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.*;
 
+import java.io.*;
 import java.net.*;
 import java.util.*;
 import java.util.function.*;
 import java.util.stream.*;
 
+import io.github.jonarzz.restaurant.knowledge.common.*;
 import io.github.jonarzz.restaurant.knowledge.domain.Category;
 import io.github.jonarzz.restaurant.knowledge.domain.RestaurantData;
 import io.github.jonarzz.restaurant.knowledge.domain.*;
 import io.github.jonarzz.restaurant.knowledge.model.*;
+import io.github.jonarzz.restaurant.knowledge.technical.dynamodb.InvalidCursorException;
 
 @RestController
 // @PreAuthorize("isAuthenticated()")
 public class RestaurantController implements RestaurantsApi {
 
-    private static final String PATH = "/restaurants";
+    static final String PATH = "/restaurants";
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final int DEFAULT_PAGE_SIZE = 50;
 
     private RestaurantService restaurantService;
+    private ObjectMapper objectMapper;
 
-    public RestaurantController(RestaurantService restaurantService) {
+    public RestaurantController(RestaurantService restaurantService, ObjectMapper objectMapper) {
         this.restaurantService = restaurantService;
+        this.objectMapper = objectMapper;
     }
 
     @Override
@@ -40,18 +51,56 @@ public class RestaurantController implements RestaurantsApi {
     public ResponseEntity<List<RestaurantData>> queryRestaurantsByCriteria(String nameBeginsWith,
                                                                            Category category,
                                                                            Boolean triedBefore,
-                                                                           Integer ratingAtLeast) {
-        var criteria = RestaurantQueryCriteria.builder()
-                                              .nameBeginsWith(nameBeginsWith)
-                                              .category(category)
-                                              .triedBefore(triedBefore)
-                                              .ratingAtLeast(ratingAtLeast)
-                                              .build();
+                                                                           Integer ratingAtLeast,
+                                                                           String cursor,
+                                                                           Integer limit,
+                                                                           RestaurantFields fields) {
+        var criteria = criteria(nameBeginsWith, category, triedBefore, ratingAtLeast, fields);
         if (criteria.isEmpty()) {
             return badRequest()
                     .build();
         }
-        return ok(restaurantService.query(criteria));
+        if (cursor == null && limit == null) {
+            return ok(restaurantService.query(criteria));
+        }
+        Page<RestaurantData> page;
+        try {
+            page = restaurantService.query(criteria, cursor, limit == null ? DEFAULT_PAGE_SIZE : limit);
+        } catch (InvalidCursorException exception) {
+            return badRequest()
+                    .build();
+        }
+        var response = ok();
+        if (page.hasNext()) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.items());
+    }
+
+    /**
+     * Unpaginated variant of {@link #queryRestaurantsByCriteria}, selected with {@code stream=true} -
+     * restaurants are written to the response one by one, as the pages are read from DynamoDB,
+     * so the memory used by the request does not grow with the number of results.
+     * <p>
+     * The status is sent before the results are read - a failure while reading them aborts the response.
+     */
+    @GetMapping(path = PATH, params = "stream=true", produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamRestaurantsByCriteria(
+            @RequestParam(required = false) String nameBeginsWith,
+            @RequestParam(required = false) Category category,
+            @RequestParam(required = false) Boolean triedBefore,
+            @RequestParam(required = false) Integer ratingAtLeast,
+            @RequestParam(required = false) RestaurantFields fields) {
+        var criteria = criteria(nameBeginsWith, category, triedBefore, ratingAtLeast, fields);
+        if (criteria.isEmpty()) {
+            return badRequest()
+                    .build();
+        }
+        // created in the request thread, as the user is resolved on creation -
+        // the response body is written by another thread
+        var restaurants = restaurantService.stream(criteria);
+        return ok().contentType(APPLICATION_JSON)
+                   .body(output -> writeArray(restaurants, output));
     }
 
     @Override
@@ -125,15 +174,11 @@ public class RestaurantController implements RestaurantsApi {
     @Override
     public ResponseEntity<Set<Category>> addRestaurantCategory(String restaurantName,
                                                                AddRestaurantCategoryRequest categoryRequest) {
-        return actOnFound(restaurantName, restaurant -> {
-            var categoryToAdd = categoryRequest.getCategory();
-            var categories = new HashSet<>(restaurant.categories());
-            if (!categories.contains(categoryToAdd)) {
-                categories.add(categoryToAdd);
-                restaurantService.replaceCategories(restaurantName, categories);
-            }
-            return ok(categories);
-        });
+        var result = restaurantService.addCategory(restaurantName, categoryRequest.getCategory());
+        if (NOT_FOUND == result.resultType()) {
+            return notFound().build();
+        }
+        return ok(result.content());
     }
 
     @Override
@@ -147,25 +192,21 @@ public class RestaurantController implements RestaurantsApi {
 
     @Override
     public ResponseEntity<Void> removeRestaurantCategory(String restaurantName, Category category) {
-        return actOnFound(restaurantName, restaurant -> {
-            if (restaurant.categories().contains(category)) {
-                var categories = new HashSet<>(restaurant.categories());
-                categories.remove(category);
-                restaurantService.replaceCategories(restaurantName, categories);
-            }
-            return noContent().build();
-        });
+        var result = restaurantService.removeCategory(restaurantName, category);
+        if (NOT_FOUND == result) {
+            return notFound().build();
+        }
+        return noContent().build();
     }
 
     @Override
     public ResponseEntity<List<String>> addRestaurantNote(String restaurantName,
                                                           AddRestaurantNoteRequest noteRequest) {
-        return actOnFound(restaurantName, restaurant -> {
-            var notes = new ArrayList<>(restaurant.notes());
-            notes.add(noteRequest.getNote());
-            restaurantService.replaceNotes(restaurantName, notes);
-            return ok(notes);
-        });
+        var result = restaurantService.addNote(restaurantName, noteRequest.getNote());
+        if (NOT_FOUND == result.resultType()) {
+            return notFound().build();
+        }
+        return ok(result.content());
     }
 
     @Override
@@ -174,16 +215,13 @@ public class RestaurantController implements RestaurantsApi {
         if (isInvalidIndex(noteIndex)) {
             return badRequest().build();
         }
-        return actOnFound(restaurantName, restaurant -> {
-            var currentNotes = restaurant.notes();
-            var notesCount = currentNotes.size();
-            if (notesCount <= noteIndex) {
-                return badRequest().build();
-            }
-            var notes = splice(currentNotes, noteIndex, addNoteRequest.getNote());
-            restaurantService.replaceNotes(restaurantName, notes);
-            return ok(notes);
-        });
+        var result = restaurantService.replaceNote(restaurantName, noteIndex, addNoteRequest.getNote());
+        return switch (result.resultType()) {
+            case SUCCESS -> ok(result.content());
+            case NOT_FOUND -> notFound().build();
+            // no note with given index
+            case NO_CHANGES, ALREADY_EXISTS -> badRequest().build();
+        };
     }
 
     @Override
@@ -191,15 +229,11 @@ public class RestaurantController implements RestaurantsApi {
         if (isInvalidIndex(noteIndex)) {
             return badRequest().build();
         }
-        return actOnFound(restaurantName, restaurant -> {
-            var currentNotes = restaurant.notes();
-            var notesCount = currentNotes.size();
-            if (notesCount > noteIndex) {
-                var notes = splice(currentNotes, noteIndex);
-                restaurantService.replaceNotes(restaurantName, notes);
-            }
-            return noContent().build();
-        });
+        var result = restaurantService.removeNote(restaurantName, noteIndex);
+        if (NOT_FOUND == result) {
+            return notFound().build();
+        }
+        return noContent().build();
     }
 
     private ResponseEntity<Void> changeTriedFlag(String restaurantName, boolean tried) {
@@ -217,16 +251,30 @@ public class RestaurantController implements RestaurantsApi {
                                 .orElseGet(() -> notFound().build());
     }
 
-    @SafeVarargs
-    private static <T> List<T> splice(List<T> values, int index, T... toInsert) {
-        return Stream.of(values.subList(0, index),
-                         List.of(toInsert),
-                         values.subList(index + 1, values.size()))
-                     .flatMap(Collection::stream)
-                     .toList();
+    private void writeArray(Stream<RestaurantData> restaurants, OutputStream output) throws IOException {
+        try (restaurants;
+             var generator = objectMapper.createGenerator(output)
+                                         .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            generator.writeStartArray();
+            for (var iterator = restaurants.iterator(); iterator.hasNext(); ) {
+                generator.writeObject(iterator.next());
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    static RestaurantQueryCriteria criteria(String nameBeginsWith, Category category, Boolean triedBefore,
+                                            Integer ratingAtLeast, RestaurantFields fields) {
+        return RestaurantQueryCriteria.builder()
+                                      .nameBeginsWith(nameBeginsWith)
+                                      .category(category)
+                                      .triedBefore(triedBefore)
+                                      .ratingAtLeast(ratingAtLeast)
+                                      .fields(fields)
+                                      .build();
     }
 
-    private static boolean isInvalidIndex(Integer noteIndex) {
+    static boolean isInvalidIndex(Integer noteIndex) {
         return noteIndex == null || noteIndex < 0;
     }
 
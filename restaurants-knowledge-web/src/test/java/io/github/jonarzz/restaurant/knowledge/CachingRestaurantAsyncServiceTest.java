@@ -0,0 +1,132 @@
+package io.github.jonarzz.restaurant.knowledge;
+
+import static io.github.jonarzz.restaurant.knowledge.CacheConfig.*;
+import static io.github.jonarzz.restaurant.knowledge.common.ModificationResultType.*;
+import static java.util.concurrent.CompletableFuture.*;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.jupiter.api.*;
+import org.springframework.cache.caffeine.*;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import io.github.jonarzz.restaurant.knowledge.CacheInvalidationChannel.*;
+import io.github.jonarzz.restaurant.knowledge.domain.*;
+import io.github.jonarzz.restaurant.knowledge.technical.auth.*;
+
+class CachingRestaurantAsyncServiceTest {
+
+    static final String TEST_USER = "async-test-user";
+
+    RestaurantAsyncService decorated = mock(RestaurantAsyncService.class);
+    LoopbackInvalidationChannel invalidationChannel = new LoopbackInvalidationChannel();
+    List<CacheInvalidation> published = new CopyOnWriteArrayList<>();
+    CachingRestaurantAsyncService service;
+
+    @BeforeEach
+    void setUp() {
+        SecurityContext.setUserId(TEST_USER);
+        var cacheManager = new CaffeineCacheManager(RESTAURANT_CACHE_NAME, RESTAURANT_QUERY_CACHE_NAME);
+        service = new CachingRestaurantAsyncService(decorated,
+                                                    cacheManager.getCache(RESTAURANT_CACHE_NAME),
+                                                    cacheManager.getCache(RESTAURANT_QUERY_CACHE_NAME),
+                                                    new QueryGenerations(Duration.ofMinutes(1)),
+                                                    invalidationChannel);
+        invalidationChannel.subscribe(published::add);
+        when(decorated.fetch("Subway"))
+                .thenReturn(completedFuture(Optional.of(new RestaurantData().name("Subway"))));
+    }
+
+    @Test
+    void fetchRepeated_cacheShouldBeUsed() {
+        service.fetch("Subway")
+               .join();
+
+        assertThat(service.fetch("subway")
+                          .join())
+                .map(RestaurantData::name)
+                .contains("Subway");
+        verify(decorated, times(1))
+                .fetch(any());
+    }
+
+    @Test
+    void fetchAfterModification_cacheShouldNotBeUsed() {
+        when(decorated.setRating("Subway", 7))
+                .thenReturn(completedFuture(SUCCESS));
+        service.fetch("Subway")
+               .join();
+
+        service.setRating("Subway", 7)
+               .join();
+        service.fetch("Subway")
+               .join();
+
+        verify(decorated, times(2))
+                .fetch(any());
+        assertThat(published)
+                .extracting(CacheInvalidation::key)
+                .containsExactly(new RestaurantCacheKey(TEST_USER, "subway"));
+    }
+
+    @Test
+    void fetchAfterFailedModification_cacheShouldNotBeUsed() {
+        when(decorated.setRating("Subway", 7))
+                .thenReturn(failedFuture(new IllegalStateException("Write failed")));
+        service.fetch("Subway")
+               .join();
+
+        assertThatThrownBy(() -> service.setRating("Subway", 7)
+                                        .join())
+                .hasCauseInstanceOf(IllegalStateException.class);
+        service.fetch("Subway")
+               .join();
+
+        verify(decorated, times(2))
+                .fetch(any());
+        assertThat(published)
+                .as("Invalidations of a write that might not have happened")
+                .isEmpty();
+    }
+
+    @Test
+    void fetchAfterModificationOnOtherInstance_cacheShouldNotBeUsed() {
+        service.fetch("Subway")
+               .join();
+
+        invalidationChannel.publish(new CacheInvalidation("other-instance",
+                                                          new RestaurantCacheKey(TEST_USER, "subway")));
+        service.fetch("Subway")
+               .join();
+
+        verify(decorated, times(2))
+                .fetch(any());
+    }
+
+    @Test
+    void queryAfterModification_cacheShouldNotBeUsed() {
+        var criteria = RestaurantQueryCriteria.builder()
+                                              .category(Category.SANDWICH)
+                                              .build();
+        when(decorated.query(criteria))
+                .thenReturn(completedFuture(List.of(new RestaurantData().name("Subway"))));
+        when(decorated.delete("Subway"))
+                .thenReturn(completedFuture(SUCCESS));
+
+        service.query(criteria)
+               .join();
+        service.query(criteria)
+               .join();
+        service.delete("Subway")
+               .join();
+        service.query(criteria)
+               .join();
+
+        verify(decorated, times(2))
+                .query(criteria);
+    }
+
+}
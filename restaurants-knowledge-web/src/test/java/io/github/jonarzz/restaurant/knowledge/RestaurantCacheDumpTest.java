@@ -0,0 +1,93 @@
+package io.github.jonarzz.restaurant.knowledge;
+
+import static io.github.jonarzz.restaurant.knowledge.domain.Category.*;
+import static java.util.concurrent.TimeUnit.*;
+import static org.assertj.core.api.Assertions.*;
+
+import com.github.benmanes.caffeine.cache.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+import org.springframework.cache.support.*;
+
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+
+import io.github.jonarzz.restaurant.knowledge.domain.*;
+
+class RestaurantCacheDumpTest {
+
+    static final Duration TIME_TO_LIVE = Duration.ofMinutes(10);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void dumpedAndLoaded() {
+        var file = directory.resolve("cache.dump");
+        var cache = newCache();
+        var subway = new RestaurantData()
+                .name("Subway")
+                .categories(Set.of(FAST_FOOD, SANDWICH))
+                .triedBefore(true)
+                .rating(6)
+                .notes(List.of());
+        cache.put(key("subway"), subway);
+        cache.put(key("kfc"), NullValue.INSTANCE);
+
+        new RestaurantCacheDump(cache, file, 100, Duration.ofMinutes(5))
+                .dump();
+        var restarted = newCache();
+        var dump = new RestaurantCacheDump(restarted, file, 100, Duration.ofMinutes(5));
+        dump.load();
+
+        assertThat(restarted.getIfPresent(key("subway")))
+                .usingRecursiveComparison()
+                .isEqualTo(subway);
+        assertThat(restarted.getIfPresent(key("kfc")))
+                .isNull();
+        assertThat(restarted.policy()
+                            .expireVariably()
+                            .orElseThrow()
+                            .getExpiresAfter(key("subway"), MILLISECONDS)
+                            .orElseThrow())
+                .as("Remaining time to live")
+                .isPositive()
+                .isLessThanOrEqualTo(TIME_TO_LIVE.toMillis());
+        assertThat(dump.loadedDumpTime())
+                .isPresent();
+        assertThat(file)
+                .doesNotExist();
+    }
+
+    @Test
+    void dumpTooOld_ignored() throws Exception {
+        var file = directory.resolve("cache.dump");
+        var cache = newCache();
+        cache.put(key("subway"), new RestaurantData().name("Subway"));
+        new RestaurantCacheDump(cache, file, 100, Duration.ofMillis(1))
+                .dump();
+        Thread.sleep(10);
+
+        var restarted = newCache();
+        var dump = new RestaurantCacheDump(restarted, file, 100, Duration.ofMillis(1));
+        dump.load();
+
+        assertThat(restarted.estimatedSize())
+                .isZero();
+        assertThat(dump.loadedDumpTime())
+                .isEmpty();
+    }
+
+    private static Cache<Object, Object> newCache() {
+        return Caffeine.newBuilder()
+                       .maximumSize(100)
+                       .expireAfter(new RestaurantCacheExpiry(TIME_TO_LIVE, Duration.ofMinutes(1)))
+                       .build();
+    }
+
+    private static RestaurantCacheKey key(String nameLowercase) {
+        return new RestaurantCacheKey("test-user", nameLowercase);
+    }
+
+}
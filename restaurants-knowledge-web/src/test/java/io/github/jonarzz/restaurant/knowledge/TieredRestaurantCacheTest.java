@@ -0,0 +1,175 @@
+package io.github.jonarzz.restaurant.knowledge;
+
+import static io.github.jonarzz.restaurant.knowledge.domain.Category.*;
+import static java.util.concurrent.TimeUnit.*;
+import static org.assertj.core.api.Assertions.*;
+
+import com.github.benmanes.caffeine.cache.*;
+import org.junit.jupiter.api.*;
+import org.springframework.util.unit.*;
+
+import java.time.*;
+import java.util.*;
+
+import io.github.jonarzz.restaurant.knowledge.domain.*;
+
+class TieredRestaurantCacheTest {
+
+    static final String TEST_USER = "test-user";
+
+    OffHeapRestaurantStore offHeapStore = new OffHeapRestaurantStore(DataSize.ofMegabytes(1), Duration.ofMinutes(1));
+    Cache<Object, Object> heapCache = Caffeine.newBuilder()
+                                              .maximumSize(1)
+                                              .executor(Runnable::run)
+                                              .evictionListener(TieredRestaurantCache.offHeapDemotion(offHeapStore))
+                                              .build();
+    TieredRestaurantCache cache = new TieredRestaurantCache("test", heapCache, offHeapStore, true);
+
+    @Test
+    void evictedFromHeap_movedOffHeap() {
+        var subway = restaurant("Subway");
+        var burgerKing = restaurant("Burger King");
+        cache.put(key("Subway"), subway);
+        cache.put(key("Burger King"), burgerKing);
+        heapCache.cleanUp();
+
+        assertThat(heapCache.estimatedSize())
+                .isOne();
+        assertThat(offHeapStore.size())
+                .isOne();
+        assertThat(cache.get(key("Subway"), TieredRestaurantCacheTest::notLoaded))
+                .usingRecursiveComparison()
+                .isEqualTo(subway);
+        assertThat(cache.get(key("Burger King"), TieredRestaurantCacheTest::notLoaded))
+                .usingRecursiveComparison()
+                .isEqualTo(burgerKing);
+    }
+
+    @Test
+    void evictedAfterMovingOffHeap_notFound() {
+        cache.put(key("Subway"), restaurant("Subway"));
+        cache.put(key("Burger King"), restaurant("Burger King"));
+        heapCache.cleanUp();
+
+        cache.evict(key("Subway"));
+        cache.evict(key("Burger King"));
+
+        assertThat(cache.get(key("Subway")))
+                .isNull();
+        assertThat(cache.get(key("Burger King")))
+                .isNull();
+        assertThat(offHeapStore.size())
+                .isZero();
+    }
+
+    @Test
+    void notFoundResult_keptOnHeapOnly() {
+        cache.put(key("Subway"), null);
+        cache.put(key("Burger King"), restaurant("Burger King"));
+        heapCache.cleanUp();
+
+        assertThat(offHeapStore.size())
+                .isZero();
+    }
+
+    @Test
+    void movedBetweenTiers_expirationTimeKept() {
+        var ticker = new FakeTicker();
+        var offHeapDemotion = TieredRestaurantCache.offHeapDemotion(offHeapStore);
+        Cache<Object, Object> expiringHeapCache = Caffeine.newBuilder()
+                                                          .maximumSize(1)
+                                                          .executor(Runnable::run)
+                                                          .ticker(ticker)
+                                                          .expireAfter(new RestaurantCacheExpiry(Duration.ofMinutes(1),
+                                                                                                 Duration.ofMinutes(1)))
+                                                          .evictionListener(offHeapDemotion)
+                                                          .build();
+        offHeapDemotion.expiringAs(expiringHeapCache);
+        var tieredCache = new TieredRestaurantCache("test", expiringHeapCache, offHeapStore, true);
+        tieredCache.put(key("Subway"), restaurant("Subway"));
+
+        ticker.advance(Duration.ofSeconds(40));
+        tieredCache.put(key("Burger King"), restaurant("Burger King"));
+        expiringHeapCache.cleanUp();
+        tieredCache.get(key("Subway"), TieredRestaurantCacheTest::notLoaded);
+
+        assertThat(expiringHeapCache.policy()
+                                    .expireVariably()
+                                    .orElseThrow()
+                                    .getExpiresAfter(key("Subway"), SECONDS)
+                                    .orElseThrow())
+                .as("seconds left of the original time to live")
+                .isBetween(15L, 20L);
+    }
+
+    @Test
+    void serializedAttributesPreserved() {
+        var restaurant = new RestaurantData()
+                .name("Żabka")
+                .categories(Set.of())
+                .triedBefore(false)
+                .notes(List.of("", "open 24/7"));
+
+        offHeapStore.put(key("Żabka"), restaurant);
+
+        assertThat(offHeapStore.find(key("Żabka")))
+                .get()
+                .usingRecursiveComparison()
+                .isEqualTo(restaurant);
+    }
+
+    @Test
+    void capacityExceeded_leastRecentlyUsedEvicted() {
+        var review = "x".repeat(3000);
+        var slots = OffHeapRestaurantStore.PAGE_SIZE / 4096;
+        for (var i = 0; i <= slots; i++) {
+            offHeapStore.put(key("Restaurant " + i), restaurant("Restaurant " + i).review(review));
+            if (i == 1) {
+                // the second one is the least recently used now
+                offHeapStore.find(key("Restaurant 0"));
+            }
+        }
+
+        assertThat(offHeapStore.size())
+                .isEqualTo(slots);
+        assertThat(offHeapStore.allocatedBytes())
+                .isEqualTo(OffHeapRestaurantStore.PAGE_SIZE);
+        assertThat(offHeapStore.find(key("Restaurant 0")))
+                .isPresent();
+        assertThat(offHeapStore.find(key("Restaurant 1")))
+                .isEmpty();
+    }
+
+    private static class FakeTicker implements Ticker {
+
+        private long nanos;
+
+        @Override
+        public long read() {
+            return nanos;
+        }
+
+        void advance(Duration duration) {
+            nanos += duration.toNanos();
+        }
+    }
+
+    private static RestaurantData notLoaded() {
+        throw new AssertionError("Restaurant should not be loaded");
+    }
+
+    private static RestaurantCacheKey key(String restaurantName) {
+        return new RestaurantCacheKey(TEST_USER, restaurantName.toLowerCase());
+    }
+
+    private static RestaurantData restaurant(String name) {
+        return new RestaurantData()
+                .name(name)
+                .categories(Set.of(FAST_FOOD, BURGER))
+                .triedBefore(true)
+                .rating(7)
+                .review("Good")
+                .notes(List.of("Cheap"));
+    }
+
+}
@@ -0,0 +1,82 @@
+package io.github.jonarzz.restaurant.knowledge.api;
+
+import static io.github.jonarzz.restaurant.knowledge.domain.Category.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.*;
+import org.junit.jupiter.api.*;
+import org.springframework.test.web.servlet.*;
+import org.springframework.test.web.servlet.setup.*;
+
+import java.util.*;
+import java.util.stream.*;
+
+import io.github.jonarzz.restaurant.knowledge.domain.*;
+
+class RestaurantControllerStreamingTest {
+
+    RestaurantService restaurantService = mock(RestaurantService.class);
+    MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new RestaurantController(restaurantService, new ObjectMapper()))
+                                     .build();
+
+    @Test
+    void streamRestaurants() throws Exception {
+        when(restaurantService.stream(any()))
+                .thenReturn(Stream.of(new RestaurantSummaryData().name("KFC City Centre")
+                                                                 .categories(Set.of(CHICKEN))
+                                                                 .triedBefore(true)
+                                                                 .rating(4),
+                                      new RestaurantSummaryData().name("KFC Some Street")
+                                                                 .categories(Set.of(CHICKEN))
+                                                                 .triedBefore(false)));
+
+        var result = mockMvc.perform(get(RestaurantController.PATH).param("nameBeginsWith", "KF")
+                                                                   .param("stream", "true"))
+                            .andExpect(request().asyncStarted())
+                            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+               .andExpect(status().isOk())
+               .andExpect(content().json("""
+                                                 [
+                                                   {
+                                                     "name": "KFC City Centre",
+                                                     "categories": [ "CHICKEN" ],
+                                                     "triedBefore": true,
+                                                     "rating": 4
+                                                   },
+                                                   {
+                                                     "name": "KFC Some Street",
+                                                     "categories": [ "CHICKEN" ],
+                                                     "triedBefore": false
+                                                   }
+                                                 ]""", true));
+    }
+
+    @Test
+    void streamRestaurants_noResults() throws Exception {
+        when(restaurantService.stream(any()))
+                .thenReturn(Stream.empty());
+
+        var result = mockMvc.perform(get(RestaurantController.PATH).param("category", "SUSHI")
+                                                                   .param("stream", "true"))
+                            .andExpect(request().asyncStarted())
+                            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+               .andExpect(status().isOk())
+               .andExpect(content().json("[]", true));
+    }
+
+    @Test
+    void streamRestaurants_noCriteria() throws Exception {
+        mockMvc.perform(get(RestaurantController.PATH).param("stream", "true"))
+               .andExpect(status().isBadRequest());
+
+        verify(restaurantService, never())
+                .stream(any());
+    }
+
+}
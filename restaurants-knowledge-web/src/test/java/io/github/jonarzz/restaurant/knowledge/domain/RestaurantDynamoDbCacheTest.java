@@ -7,6 +7,8 @@ import static org.junit.jupiter.api.TestInstance.Lifecycle.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.boot.test.context.SpringBootTest.WebEnvironment.*;
 
+import com.github.benmanes.caffeine.cache.*;
+import com.github.benmanes.caffeine.cache.stats.*;
 import org.assertj.core.api.*;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.MethodOrderer.*;
@@ -15,6 +17,8 @@ import org.junit.jupiter.params.provider.*;
 import org.mockito.*;
 import org.springframework.beans.factory.annotation.*;
 import org.springframework.boot.test.context.*;
+import org.springframework.cache.*;
+import org.springframework.cache.caffeine.*;
 import org.springframework.context.annotation.*;
 import org.springframework.test.context.*;
 import org.testcontainers.containers.*;
@@ -23,8 +27,11 @@ import org.testcontainers.junit.jupiter.*;
 import software.amazon.awssdk.services.dynamodb.*;
 
 import java.util.*;
+import java.util.concurrent.*;
 
 import io.github.jonarzz.restaurant.knowledge.*;
+import io.github.jonarzz.restaurant.knowledge.CacheInvalidationChannel.*;
+import io.github.jonarzz.restaurant.knowledge.common.*;
 import io.github.jonarzz.restaurant.knowledge.technical.auth.*;
 import io.github.jonarzz.restaurant.knowledge.technical.dynamodb.*;
 
@@ -86,6 +93,10 @@ class RestaurantDynamoDbCacheTest {
     DynamoDbClient amazonDynamoDb;
     @Autowired
     RestaurantService restaurantService;
+    @Autowired
+    CacheManager cacheManager;
+    @Autowired
+    CacheInvalidationChannel invalidationChannel;
 
     @BeforeEach
     @SuppressWarnings("unchecked")
@@ -175,6 +186,236 @@ class RestaurantDynamoDbCacheTest {
                 .findByKey(any());
     }
 
+    @Test
+    @Order(30)
+    void cacheStatisticsRecorded() {
+        var cache = (CaffeineCache) cacheManager.getCache(CacheConfig.RESTAURANT_CACHE_NAME);
+        var nativeCache = cache.getNativeCache();
+        var statsBefore = nativeCache.stats();
+
+        assertRestaurantFound(TRIED_RESTAURANT_NAME);
+        optionalRestaurantWithName("restaurant not stored")
+                .isEmpty();
+
+        assertThat(nativeCache.stats()
+                              .minus(statsBefore))
+                .returns(1L, CacheStats::hitCount)
+                .returns(1L, CacheStats::missCount);
+        assertThat(nativeCache.policy()
+                              .eviction())
+                .get()
+                .satisfies(eviction -> assertThat(eviction.weightedSize()
+                                                          .orElseThrow()).isPositive());
+    }
+
+    @Test
+    @Order(40)
+    void queryRepeated_cacheShouldBeUsed() {
+        var criteria = fastFoodCriteria();
+
+        assertThat(restaurantService.query(criteria))
+                .hasSize(2);
+        assertThat(restaurantService.query(criteria))
+                .hasSize(2);
+
+        verify(repositorySpy, times(1))
+                .stream(any());
+    }
+
+    @Test
+    @Order(41)
+    void queryAfterModification_cacheShouldNotBeUsed() {
+        restaurantService.setRating(TRIED_RESTAURANT_NAME, 8);
+
+        assertThat(restaurantService.query(fastFoodCriteria()))
+                .extracting(RestaurantData::rating)
+                .contains(8);
+        verify(repositorySpy)
+                .stream(any());
+    }
+
+    @Test
+    @Order(42)
+    void queryForOtherUser_cacheShouldNotBeUsed() {
+        setUpSecurityContext("some other user");
+
+        assertThat(restaurantService.query(fastFoodCriteria()))
+                .isEmpty();
+        verify(repositorySpy)
+                .stream(any());
+    }
+
+    @Test
+    @Order(50)
+    void fetchAfterSingleAttributeUpdate_cacheShouldBeUpdated() {
+        assertRestaurantFound(NOT_TRIED_RESTAURANT_NAME);
+
+        restaurantService.setRating(NOT_TRIED_RESTAURANT_NAME, 7);
+        Mockito.clearInvocations(repositorySpy);
+
+        assertRestaurantFound(NOT_TRIED_RESTAURANT_NAME)
+                .returns(true, RestaurantData::triedBefore)
+                .returns(7, RestaurantData::rating);
+        verifyNoInteractions(repositorySpy);
+    }
+
+    @Test
+    @Order(51)
+    void fetchAfterRename_cacheEntryShouldBeMoved() {
+        var newName = "Burger Queen";
+
+        restaurantService.update(NOT_TRIED_RESTAURANT_NAME, new RestaurantData()
+                .name(newName)
+                .categories(Set.of(BURGER)));
+        Mockito.clearInvocations(repositorySpy);
+
+        assertRestaurantFound(newName.toUpperCase())
+                .returns(newName, RestaurantData::name)
+                .returns(Set.of(BURGER), RestaurantData::categories)
+                .returns(7, RestaurantData::rating);
+        verifyNoInteractions(repositorySpy);
+        optionalRestaurantWithName(NOT_TRIED_RESTAURANT_NAME)
+                .isEmpty();
+    }
+
+    @Test
+    @Order(60)
+    void concurrentFetches_singleLoadExpected() throws Exception {
+        var restaurantName = "Pizza Hut";
+        restaurantService.create(new RestaurantData()
+                                         .name(restaurantName)
+                                         .categories(Set.of(PIZZA)));
+        Mockito.clearInvocations(repositorySpy);
+        doAnswer(invocation -> {
+            // keep the load in flight while the other fetches miss the cache
+            Thread.sleep(200);
+            return invocation.callRealMethod();
+        }).when(repositorySpy)
+          .findByKey(any());
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            var fetches = new ArrayList<Callable<Optional<RestaurantData>>>();
+            for (var i = 0; i < 4; i++) {
+                fetches.add(() -> {
+                    setUpSecurityContext(TEST_USER);
+                    return restaurantService.fetch(restaurantName);
+                });
+            }
+
+            for (var fetched : executor.invokeAll(fetches)) {
+                assertThat(fetched.get())
+                        .get(type(RestaurantData.class))
+                        .returns(restaurantName, RestaurantData::name);
+            }
+        } finally {
+            executor.shutdown();
+            doCallRealMethod().when(repositorySpy)
+                              .findByKey(any());
+        }
+        verify(repositorySpy, times(1))
+                .findByKey(any());
+    }
+
+    @Test
+    @Order(70)
+    void fetchAfterModificationOnOtherInstance_cacheShouldNotBeUsed() {
+        assertRestaurantFound(TRIED_RESTAURANT_NAME);
+        restaurantService.query(fastFoodCriteria());
+        Mockito.clearInvocations(repositorySpy);
+
+        invalidationChannel.publish(new CacheInvalidation("other-instance",
+                                                          new RestaurantCacheKey(TEST_USER, "subway")));
+
+        assertRestaurantFound(TRIED_RESTAURANT_NAME);
+        restaurantService.query(fastFoodCriteria());
+        verify(repositorySpy)
+                .findByKey(any());
+        verify(repositorySpy)
+                .stream(any());
+    }
+
+    @Test
+    @Order(71)
+    void fetchAfterFailedModification_cacheShouldNotBeUsed() {
+        assertRestaurantFound(TRIED_RESTAURANT_NAME);
+        var published = new CopyOnWriteArrayList<CacheInvalidation>();
+        invalidationChannel.subscribe(published::add);
+        doThrow(new IllegalStateException("Write failed"))
+                .when(repositorySpy)
+                .update(any(), any());
+        try {
+            assertThatThrownBy(() -> restaurantService.setRating(TRIED_RESTAURANT_NAME, 7))
+                    .isInstanceOf(IllegalStateException.class);
+        } finally {
+            doCallRealMethod().when(repositorySpy)
+                              .update(any(), any());
+        }
+        Mockito.clearInvocations(repositorySpy);
+
+        assertRestaurantFound(TRIED_RESTAURANT_NAME);
+        verify(repositorySpy)
+                .findByKey(any());
+        assertThat(published)
+                .as("Invalidations of a write that might not have happened")
+                .isEmpty();
+    }
+
+    @Test
+    @Order(80)
+    void fetchAndModifyNotExisting_cachedNotFoundExpected() {
+        var restaurantName = "KFC";
+
+        optionalRestaurantWithName(restaurantName)
+                .isEmpty();
+        optionalRestaurantWithName(restaurantName)
+                .isEmpty();
+        assertThat(restaurantService.setRating(restaurantName, 5))
+                .isEqualTo(ModificationResultType.NOT_FOUND);
+
+        verify(repositorySpy, times(1))
+                .findByKey(any());
+    }
+
+    @Test
+    @Order(81)
+    void fetchAfterCreation_cachedNotFoundShouldBeEvicted() {
+        var restaurantName = "KFC";
+
+        restaurantService.create(new RestaurantData()
+                                         .name(restaurantName)
+                                         .categories(Set.of(CHICKEN)));
+
+        assertRestaurantFound(restaurantName)
+                .returns(Set.of(CHICKEN), RestaurantData::categories);
+    }
+
+    @Test
+    @Order(90)
+    @SuppressWarnings("unchecked")
+    void refreshInBackground_currentValueServedMeanwhile() {
+        assertRestaurantFound(TRIED_RESTAURANT_NAME);
+        Mockito.clearInvocations(repositorySpy);
+        var nativeCache = (LoadingCache<Object, Object>) cacheManager.getCache(CacheConfig.RESTAURANT_CACHE_NAME)
+                                                                     .getNativeCache();
+
+        nativeCache.refresh(new RestaurantCacheKey(TEST_USER, "subway"));
+        assertRestaurantFound(TRIED_RESTAURANT_NAME);
+
+        // loaded as the owner of the restaurant on the refresh thread
+        verify(repositorySpy, timeout(5_000))
+                .findByKey(new RestaurantKey(TEST_USER, "subway"));
+        assertRestaurantFound(TRIED_RESTAURANT_NAME)
+                .returns(TRIED_RESTAURANT_NAME, RestaurantData::name);
+        verify(repositorySpy, times(1))
+                .findByKey(any());
+    }
+
+    private static RestaurantQueryCriteria fastFoodCriteria() {
+        return RestaurantQueryCriteria.builder()
+                                      .category(FAST_FOOD)
+                                      .build();
+    }
+
     private ObjectAssert<RestaurantData> assertRestaurantFound(String restaurantName) {
         return optionalRestaurantWithName(restaurantName)
                 .get(type(RestaurantData.class));
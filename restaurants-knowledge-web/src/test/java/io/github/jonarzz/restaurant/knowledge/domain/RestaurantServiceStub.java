@@ -5,23 +5,20 @@ import static io.github.jonarzz.restaurant.knowledge.domain.RestaurantEntryContr
 import static org.mockito.Mockito.*;
 
 import java.util.*;
+import java.util.stream.*;
+
+import io.github.jonarzz.restaurant.knowledge.common.*;
+import io.github.jonarzz.restaurant.knowledge.technical.dynamodb.*;
 
 class RestaurantServiceStub {
 
     private static final RestaurantDynamoDbRepository REPOSITORY = mock(RestaurantDynamoDbRepository.class);
+    private static final RestaurantQueryPlanner PLANNER = new RestaurantQueryPlanner();
     private static final RestaurantDomainFactory FACTORY = new RestaurantDomainFactory(null);
     static final RestaurantService INSTANCE = spy(FACTORY.restaurantDynamoDbService(REPOSITORY));
 
-    static final RestaurantItem KFC_CITY_CENTRE = RestaurantItem.builder()
-                                                                .userId(TEST_USER)
-                                                                .restaurantName("KFC City Centre")
-                                                                .category(FAST_FOOD)
-                                                                .category(CHICKEN)
-                                                                .triedBefore(true)
-                                                                .rating(4)
-                                                                .review("Not my gig")
-                                                                .note("Try to avoid it")
-                                                                .build();
+    static final RestaurantItem KFC_CITY_CENTRE = kfcCityCentre().note("Try to avoid it")
+                                                                 .build();
     static final RestaurantItem KFC_SOME_STREET = RestaurantItem.builder()
                                                                 .userId(TEST_USER)
                                                                 .restaurantName("KFC Some Street")
@@ -34,21 +31,105 @@ class RestaurantServiceStub {
     static {
         mockFetch();
         mockQuery();
+        mockCreate();
+        mockUpdate();
+        mockReplace();
     }
 
     private RestaurantServiceStub() {
     }
 
     private static void mockQuery() {
-        when(REPOSITORY.query(new RestaurantDynamoDbCriteria(
+        when(REPOSITORY.indexActive(any()))
+                .thenReturn(true);
+        when(REPOSITORY.stream(PLANNER.plan(
                 RestaurantQueryCriteria.builder()
                                        .nameBeginsWith("KF")
                                        .category(FAST_FOOD)
                                        .triedBefore(true)
                                        .ratingAtLeast(3)
                                        .build())))
-                .thenReturn(List.of(KFC_CITY_CENTRE,
-                                    KFC_SOME_STREET));
+                .thenAnswer(invocation -> Stream.of(KFC_CITY_CENTRE,
+                                                    KFC_SOME_STREET));
+        var summaryCriteria = PLANNER.plan(
+                RestaurantQueryCriteria.builder()
+                                       .nameBeginsWith("KF")
+                                       .fields(RestaurantFields.SUMMARY)
+                                       .build());
+        when(REPOSITORY.stream(summaryCriteria, RestaurantSummaryMapper.INSTANCE))
+                .thenAnswer(invocation -> Stream.of(KFC_CITY_CENTRE));
+        var nameCriteria = PLANNER.plan(
+                RestaurantQueryCriteria.builder()
+                                       .nameBeginsWith("KF")
+                                       .build());
+        when(REPOSITORY.query(nameCriteria, null, 1))
+                .thenReturn(Page.of(List.of(KFC_CITY_CENTRE),
+                                    "next-page-cursor"));
+        when(REPOSITORY.query(eq(nameCriteria), eq("not-a-cursor"), anyInt()))
+                .thenAnswer(invocation -> {
+                    DynamoDbCursor.decode(invocation.getArgument(1));
+                    throw new IllegalStateException("Cursor expected to be invalid");
+                });
+    }
+
+    private static void mockCreate() {
+        when(REPOSITORY.create(any()))
+                .thenAnswer(invocation -> {
+                    RestaurantItem item = invocation.getArgument(0);
+                    return REPOSITORY.findByKey(item.getKey())
+                                     .isEmpty();
+                });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void mockUpdate() {
+        when(REPOSITORY.update(any(RestaurantKey.class), any(ItemUpdate.class)))
+                .thenAnswer(invocation -> REPOSITORY.findByKey(invocation.getArgument(0))
+                                                    .map(ModificationResult::success)
+                                                    .orElseGet(ModificationResult::notFound));
+        var key = KFC_CITY_CENTRE.getKey();
+        when(REPOSITORY.update(key, RestaurantUpdates.addCategory(SANDWICH)))
+                .thenReturn(ModificationResult.success(kfcCityCentre().category(SANDWICH)
+                                                                      .note("Try to avoid it")
+                                                                      .build()));
+        when(REPOSITORY.update(key, RestaurantUpdates.addNote("Note text to add")))
+                .thenReturn(ModificationResult.success(kfcCityCentre().note("Try to avoid it")
+                                                                      .note("Note text to add")
+                                                                      .build()));
+        when(REPOSITORY.update(key, RestaurantUpdates.replaceNote(0, "Replaced note text")))
+                .thenReturn(ModificationResult.success(kfcCityCentre().note("Replaced note text")
+                                                                      .build()));
+        when(REPOSITORY.update(key, RestaurantUpdates.replaceNote(1, "Irrelevant")))
+                .thenReturn(ModificationResult.noChanges());
+    }
+
+    private static RestaurantItem.RestaurantItemBuilder kfcCityCentre() {
+        return RestaurantItem.builder()
+                             .userId(TEST_USER)
+                             .restaurantName("KFC City Centre")
+                             .category(FAST_FOOD)
+                             .category(CHICKEN)
+                             .triedBefore(true)
+                             .rating(4)
+                             .review("Not my gig");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void mockReplace() {
+        when(REPOSITORY.replace(any(), any()))
+                .thenAnswer(invocation -> {
+                    RestaurantItem replaced = invocation.getArgument(0);
+                    RestaurantItem replacement = invocation.getArgument(1);
+                    if (REPOSITORY.findByKey(replacement.getKey())
+                                  .isPresent()) {
+                        return ModificationResult.alreadyExists();
+                    }
+                    if (REPOSITORY.findByKey(replaced.getKey())
+                                  .isEmpty()) {
+                        return ModificationResult.notFound();
+                    }
+                    return ModificationResult.success(replacement);
+                });
     }
 
     private static void mockFetch() {